@@ -7,16 +7,23 @@ import FileList from './components/FileList';
 
 const API_BASE = 'http://47.251.185.82:8877';
 
+const parentOf = (path) => {
+  const index = path.lastIndexOf('/');
+  return index < 0 ? '.' : path.substring(0, index);
+};
+
 function App() {
   const [files, setFiles] = useState([]);
   const [currentPath, setCurrentPath] = useState('.');
   const [refreshTrigger, setRefreshTrigger] = useState(0);
+  const [changeVersion, setChangeVersion] = useState(0);
+  const [changedDirs, setChangedDirs] = useState(null);
 
   const refreshFiles = () => {
     setRefreshTrigger(prev => prev + 1);
   };
 
-  useEffect(() => {
+  const loadFiles = () =>
     fetch(`${API_BASE}/api/file/list`)
       .then(res => res.json())
       .then(data => {
@@ -25,8 +32,59 @@ function App() {
         }
       })
       .catch(err => console.error('Failed to load files:', err));
+
+  useEffect(() => {
+    loadFiles();
   }, [refreshTrigger]);
 
+  // Follow /api/file/changes instead of re-listing: only deltas are transferred,
+  // and a full reload happens only when the server reports the cursor as reset.
+  useEffect(() => {
+    let cancelled = false;
+    let cursor = null;
+
+    const follow = async () => {
+      while (!cancelled) {
+        try {
+          const since = cursor ? `&since=${encodeURIComponent(cursor)}` : '';
+          const response = await fetch(`${API_BASE}/api/file/changes?wait=30000${since}`);
+          const data = await response.json();
+          if (cancelled || !data.success) break;
+
+          if (!cursor || data.reset) {
+            cursor = data.cursor;
+            await loadFiles();
+            setChangedDirs(null);
+            setChangeVersion(v => v + 1);
+            continue;
+          }
+          cursor = data.cursor;
+          if (data.changes.length === 0) continue;
+
+          setFiles(prev => {
+            const next = new Set(prev);
+            for (const change of data.changes) {
+              if (change.path.includes('/')) continue;
+              if (change.type === 'DELETED') next.delete(change.path);
+              else next.add(change.path);
+            }
+            return [...next];
+          });
+          setChangedDirs(new Set(data.changes.map(change => parentOf(change.path))));
+          setChangeVersion(v => v + 1);
+        } catch (err) {
+          console.error('Change feed error:', err);
+          await new Promise(resolve => setTimeout(resolve, 5000));
+        }
+      }
+    };
+
+    follow();
+    return () => {
+      cancelled = true;
+    };
+  }, []);
+
   return (
     <div className="app">
       <header className="app-header">
@@ -45,6 +103,8 @@ function App() {
             currentPath={currentPath}
             onPathChange={setCurrentPath}
             onRefresh={refreshFiles}
+            changeVersion={changeVersion}
+            changedDirs={changedDirs}
           />
           <FileList
             files={files}
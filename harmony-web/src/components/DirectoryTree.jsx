@@ -3,7 +3,12 @@ import './DirectoryTree.css';
 
 const API_BASE = 'http://47.251.185.82:8877';
 
-function DirectoryTree({ currentPath, onPathChange, onRefresh }) {
+const normalize = (path) => {
+  const trimmed = path.replace(/^\.\/+/, '').replace(/\/+$/, '');
+  return trimmed === '' ? '.' : trimmed;
+};
+
+function DirectoryTree({ currentPath, onPathChange, onRefresh, changeVersion, changedDirs }) {
   const [pathInput, setPathInput] = useState(currentPath);
   const [pathFiles, setPathFiles] = useState([]);
 
@@ -12,6 +17,13 @@ function DirectoryTree({ currentPath, onPathChange, onRefresh }) {
     loadPathFiles(currentPath);
   }, [currentPath]);
 
+  // Reload only when the change feed touched the directory being shown
+  useEffect(() => {
+    if (changedDirs === null || changedDirs.has(normalize(currentPath))) {
+      loadPathFiles(currentPath);
+    }
+  }, [changeVersion]);
+
   const loadPathFiles = async (path) => {
     try {
       const response = await fetch(`${API_BASE}/api/file/list/path?path=${encodeURIComponent(path)}`);
@@ -64,8 +76,10 @@ function DirectoryTree({ currentPath, onPathChange, onRefresh }) {
               <li key={index} className={file.isDirectory ? 'dir-item' : 'file-item'}>
                 <span className="icon">{file.isDirectory ? '📁' : '📄'}</span>
                 <span className="name">{file.name}</span>
-                {!file.isDirectory && (
-                  <span className="size">({Math.round(file.size / 1024)} KB)</span>
+                {file.size != null && (
+                  <span className="size">
+                    ({Math.round(file.size / 1024)} KB{file.isDirectory ? `, ${file.fileCount} files` : ''})
+                  </span>
                 )}
               </li>
             ))}
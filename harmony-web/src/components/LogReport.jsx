@@ -1,7 +1,8 @@
-import React, { useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import './LogReport.css';
 
 const API_BASE = 'http://47.251.185.82:8877';
+const MAX_TAIL_LINES = 200;
 
 function LogReport() {
   const [logData, setLogData] = useState({
@@ -10,6 +11,44 @@ function LogReport() {
     message: ''
   });
   const [reportResult, setReportResult] = useState(null);
+  const [tailFilter, setTailFilter] = useState({ level: '', tag: '', deviceId: '' });
+  const [tailLines, setTailLines] = useState([]);
+  const [tailing, setTailing] = useState(false);
+  const eventSourceRef = useRef(null);
+
+  useEffect(() => () => eventSourceRef.current?.close(), []);
+
+  const handleTailFilterChange = (e) => {
+    const { name, value } = e.target;
+    setTailFilter(prev => ({ ...prev, [name]: value }));
+  };
+
+  const stopTail = () => {
+    eventSourceRef.current?.close();
+    eventSourceRef.current = null;
+    setTailing(false);
+  };
+
+  const startTail = () => {
+    stopTail();
+    const params = new URLSearchParams();
+    Object.entries(tailFilter).forEach(([key, value]) => {
+      if (value) params.append(key, value);
+    });
+
+    const source = new EventSource(`${API_BASE}/api/data/log/stream?${params}`);
+    source.addEventListener('log', (event) => {
+      const entry = JSON.parse(event.data);
+      setTailLines(prev => [...prev, entry].slice(-MAX_TAIL_LINES));
+    });
+    source.addEventListener('dropped', (event) => {
+      const { count } = JSON.parse(event.data);
+      setTailLines(prev => [...prev, { seq: `dropped-${Date.now()}`, level: 'WARN', tag: 'tail', message: `${count} logs dropped` }]
+        .slice(-MAX_TAIL_LINES));
+    });
+    eventSourceRef.current = source;
+    setTailing(true);
+  };
 
   const handleInputChange = (e) => {
     const { name, value } = e.target;
@@ -90,6 +129,32 @@ function LogReport() {
           {reportResult.message}
         </div>
       )}
+
+      <h3 className="tail-title">📡 Live Tail</h3>
+
+      <div className="tail-filters">
+        <select name="level" value={tailFilter.level} onChange={handleTailFilterChange}>
+          <option value="">All levels</option>
+          <option value="DEBUG">DEBUG+</option>
+          <option value="INFO">INFO+</option>
+          <option value="WARN">WARN+</option>
+          <option value="ERROR">ERROR</option>
+        </select>
+        <input name="tag" value={tailFilter.tag} onChange={handleTailFilterChange} placeholder="Tag" />
+        <input name="deviceId" value={tailFilter.deviceId} onChange={handleTailFilterChange} placeholder="Device ID" />
+        <button className="btn btn-primary" onClick={tailing ? stopTail : startTail}>
+          {tailing ? 'Stop' : 'Start'}
+        </button>
+      </div>
+
+      <div className="tail-output">
+        {tailLines.map(line => (
+          <div key={line.seq} className={`tail-line level-${(line.level || '').toLowerCase()}`}>
+            [{line.level}] {line.deviceId ? `${line.deviceId} ` : ''}{line.tag} - {line.message}
+            {line.count > 1 && <span className="tail-count"> ×{line.count}</span>}
+          </div>
+        ))}
+      </div>
     </div>
   );
 }
@@ -0,0 +1,80 @@
+package org.example.benchmark;
+
+import org.example.search.DirectoryUsage;
+import org.example.search.PathIndex;
+import org.example.storage.FileInfo;
+import org.example.storage.LocalStorageBackend;
+import org.example.storage.StoredObject;
+import org.example.storage.UploadDirectory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * /api/file/list/path 的目录扫描：经由存储后端列出目录，条目转换为 FileInfo，目录带上索引中的用量，每次操作扫描整个目录
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileInfoBenchmark {
+
+    @Param({"1000", "10000"})
+    private int files;
+
+    private Path dir;
+    private LocalStorageBackend backend;
+    private PathIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("file-info-bench");
+        backend = new LocalStorageBackend(new UploadDirectory(dir));
+        byte[] content = new byte[128];
+        for (int i = 0; i < files; i++) {
+            Files.write(dir.resolve("file-" + i + ".log"), content);
+        }
+        Files.createDirectory(dir.resolve("nested"));
+        Files.write(dir.resolve("nested/inner.log"), content);
+        index = new PathIndex();
+        index.addAll(backend.walk(""));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<FileInfo> listWithInfo() throws IOException {
+        return backend.list("").stream().map(this::toFileInfo).toList();
+    }
+
+    @Benchmark
+    public List<String> listNames() throws IOException {
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream.map(Path::getFileName).map(Path::toString).toList();
+        }
+    }
+
+    private FileInfo toFileInfo(StoredObject object) {
+        FileInfo info = FileInfo.of(object);
+        if (!object.directory()) {
+            return info;
+        }
+        DirectoryUsage usage = index.usage(object.key());
+        return usage != null ? info.withUsage(usage.bytes(), usage.files()) : info;
+    }
+}
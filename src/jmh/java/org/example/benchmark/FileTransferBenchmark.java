@@ -0,0 +1,103 @@
+package org.example.benchmark;
+
+import org.example.App;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 经过内嵌 Tomcat 和真实套接字的上传、下载，包含 multipart 解析、执行通道、写盘和非阻塞发送
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileTransferBenchmark {
+
+    private static final String BOUNDARY = "----harmony-bench-boundary";
+
+    @Param({"65536", "4194304"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest upload;
+    private HttpRequest download;
+    private Path uploadedFile;
+    private Path downloadFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(App.class).run(
+                "--server.port=0",
+                "--harmony.rate-limit.enabled=false",
+                "--logging.level.org.example=WARN");
+        String base = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        byte[] content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+
+        String uploadName = "bench-upload-" + size + ".bin";
+        uploadedFile = Paths.get("uploads", uploadName);
+        upload = HttpRequest.newBuilder(URI.create(base + "/api/file/upload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart(uploadName, content)))
+                .build();
+
+        String downloadName = "bench-download-" + size + ".bin";
+        downloadFile = Paths.get("uploads", downloadName);
+        Files.createDirectories(downloadFile.getParent());
+        Files.write(downloadFile, content);
+        download = HttpRequest.newBuilder(URI.create(base + "/api/file/download/" + downloadName)).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(uploadedFile);
+        Files.deleteIfExists(downloadFile);
+    }
+
+    @Benchmark
+    public int upload() throws IOException, InterruptedException {
+        return expectOk(client.send(upload, HttpResponse.BodyHandlers.discarding()));
+    }
+
+    @Benchmark
+    public int download() throws IOException, InterruptedException {
+        return expectOk(client.send(download, HttpResponse.BodyHandlers.discarding()));
+    }
+
+    private static int expectOk(HttpResponse<?> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private static byte[] multipart(String filename, byte[] content) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 512);
+        body.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(content);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+}
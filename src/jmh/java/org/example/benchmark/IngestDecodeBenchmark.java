@@ -0,0 +1,117 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.example.controller.DataController;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 上报请求体解码开销：JSON / Smile / CBOR / gzip+JSON，每次操作解码一条记录
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestDecodeBenchmark {
+
+    private ObjectReader jsonLogReader;
+    private ObjectReader smileLogReader;
+    private ObjectReader cborLogReader;
+    private ObjectReader jsonHeartbeatReader;
+    private ObjectReader smileHeartbeatReader;
+    private ObjectReader cborHeartbeatReader;
+
+    private byte[] jsonLog;
+    private byte[] smileLog;
+    private byte[] cborLog;
+    private byte[] gzipJsonLog;
+    private byte[] jsonHeartbeat;
+    private byte[] smileHeartbeat;
+    private byte[] cborHeartbeat;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper json = new ObjectMapper();
+        SmileMapper smile = new SmileMapper();
+        CBORMapper cbor = new CBORMapper();
+
+        DataController.LogRequest log = new DataController.LogRequest();
+        log.setLevel("ERROR");
+        log.setTag("NetworkManager");
+        log.setMessage("Connection to upstream 10.0.3.17:443 timed out after 30000 ms (attempt 3 of 5)");
+        log.setTimestamp(1_700_000_000_000L);
+
+        DataController.HeartbeatRequest heartbeat = new DataController.HeartbeatRequest();
+        heartbeat.setDeviceId("device-5f3a9c2e");
+        heartbeat.setVersion("2.3.1");
+        heartbeat.setTimestamp(1_700_000_000_000L);
+
+        jsonLogReader = json.readerFor(DataController.LogRequest.class);
+        smileLogReader = smile.readerFor(DataController.LogRequest.class);
+        cborLogReader = cbor.readerFor(DataController.LogRequest.class);
+        jsonHeartbeatReader = json.readerFor(DataController.HeartbeatRequest.class);
+        smileHeartbeatReader = smile.readerFor(DataController.HeartbeatRequest.class);
+        cborHeartbeatReader = cbor.readerFor(DataController.HeartbeatRequest.class);
+
+        jsonLog = json.writeValueAsBytes(log);
+        smileLog = smile.writeValueAsBytes(log);
+        cborLog = cbor.writeValueAsBytes(log);
+        jsonHeartbeat = json.writeValueAsBytes(heartbeat);
+        smileHeartbeat = smile.writeValueAsBytes(heartbeat);
+        cborHeartbeat = cbor.writeValueAsBytes(heartbeat);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(jsonLog);
+        }
+        gzipJsonLog = compressed.toByteArray();
+    }
+
+    @Benchmark
+    public Object logJson() throws IOException {
+        return jsonLogReader.readValue(jsonLog);
+    }
+
+    @Benchmark
+    public Object logSmile() throws IOException {
+        return smileLogReader.readValue(smileLog);
+    }
+
+    @Benchmark
+    public Object logCbor() throws IOException {
+        return cborLogReader.readValue(cborLog);
+    }
+
+    @Benchmark
+    public Object logGzipJson() throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipJsonLog))) {
+            return jsonLogReader.readValue(in);
+        }
+    }
+
+    @Benchmark
+    public Object heartbeatJson() throws IOException {
+        return jsonHeartbeatReader.readValue(jsonHeartbeat);
+    }
+
+    @Benchmark
+    public Object heartbeatSmile() throws IOException {
+        return smileHeartbeatReader.readValue(smileHeartbeat);
+    }
+
+    @Benchmark
+    public Object heartbeatCbor() throws IOException {
+        return cborHeartbeatReader.readValue(cborHeartbeat);
+    }
+}
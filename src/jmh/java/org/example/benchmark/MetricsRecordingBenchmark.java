@@ -0,0 +1,73 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.example.controller.DataController;
+import org.example.metrics.MetricsProperties;
+import org.example.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标记录开销：所有核心并发时，解码一条心跳（最轻的接口）加上与 MetricsFilter 相同的两次计时和一次直方图记录，
+ * 与只解码相比的差值即每个请求的记录开销；实际请求还包含 Tomcat 与 Spring MVC 的处理，占比只会更低
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class MetricsRecordingBenchmark {
+
+    private static final String[] URIS = {
+            "/api/data/heartbeat", "/api/data/report", "/api/data/log", "/api/file/list",
+            "/api/file/download/{filename}", "/api/file/upload"
+    };
+
+    private MetricsRegistry registry;
+    private ObjectReader heartbeatReader;
+    private byte[] heartbeat;
+
+    @Setup
+    public void setUp() throws IOException {
+        registry = new MetricsRegistry(new MetricsProperties());
+        for (String uri : URIS) {
+            registry.recordRequest(uri, 200, 1_000);
+        }
+
+        ObjectMapper json = new ObjectMapper();
+        DataController.HeartbeatRequest request = new DataController.HeartbeatRequest();
+        request.setDeviceId("device-5f3a9c2e");
+        request.setVersion("2.3.1");
+        request.setTimestamp(1_700_000_000_000L);
+        heartbeatReader = json.readerFor(DataController.HeartbeatRequest.class);
+        heartbeat = json.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public Object heartbeat() throws IOException {
+        return heartbeatReader.readValue(heartbeat);
+    }
+
+    @Benchmark
+    public Object heartbeatRecorded() throws IOException {
+        long start = System.nanoTime();
+        Object value = heartbeatReader.readValue(heartbeat);
+        registry.recordRequest(URIS[0], 200, System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * 单独的记录开销，各线程写入不同路由
+     */
+    @Benchmark
+    public void record() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        registry.recordRequest(URIS[random.nextInt(URIS.length)], 200, random.nextLong(50_000, 5_000_000));
+    }
+}
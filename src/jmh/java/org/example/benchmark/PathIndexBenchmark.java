@@ -0,0 +1,74 @@
+package org.example.benchmark;
+
+import org.example.search.DirectoryUsage;
+import org.example.search.PathIndex;
+import org.example.search.SearchQuery;
+import org.example.search.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/file/search 和 /api/file/usage 的查询开销：索引中按设备、日期分目录的日志文件，每个文件名不同；
+ * 更大规模用 -p paths=10000000（需要数 GB 堆）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PathIndexBenchmark {
+
+    private static final int DEVICES = 1000;
+    private static final int DAYS = 28;
+
+    @Param({"1000000"})
+    private int paths;
+
+    private PathIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new PathIndex();
+        for (int i = 0; i < paths; i++) {
+            int device = i % DEVICES;
+            int day = i / DEVICES % DAYS + 1;
+            String key = String.format("devices/device-%04d/logs/2024-02-%02d/app-%d.log", device, day, i);
+            index.add(key, false, 4096);
+        }
+        for (int device = 0; device < DEVICES; device++) {
+            index.add(String.format("devices/device-%04d/firmware-%d.bin", device, device % 7), false, 1 << 20);
+        }
+    }
+
+    @Benchmark
+    public SearchResult containsRare() {
+        return index.search(new SearchQuery("app-123456", null, null, null, null, 100));
+    }
+
+    @Benchmark
+    public SearchResult containsCommon() {
+        return index.search(new SearchQuery("app-", null, null, null, null, 100));
+    }
+
+    @Benchmark
+    public SearchResult containsMissing() {
+        return index.search(new SearchQuery("crash", null, null, null, null, 100));
+    }
+
+    @Benchmark
+    public SearchResult prefixDirectory() {
+        return index.search(new SearchQuery(null, "device-09", null, null, true, 100));
+    }
+
+    @Benchmark
+    public DirectoryUsage usageDirectory() {
+        return index.usage("devices/device-0042/logs");
+    }
+
+    @Benchmark
+    public SearchResult extensionUnderDirectory() {
+        return index.search(new SearchQuery(null, null, "bin", "devices/device-0042", null, 100));
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.benchmark;
+
+import org.example.ratelimit.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流热路径开销：已存在桶的放行判断，单设备与多设备两种分布，所有核心并发
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int DEVICES = 10_000;
+
+    private RateLimiter limiter;
+    private String[] deviceIds;
+
+    @Setup
+    public void setUp() {
+        // 限额设得足够高，测量的是放行路径而不是拒绝路径
+        limiter = new RateLimiter("bench", 1e9, 1_000_000, 1e12, 1L << 40,
+                TimeUnit.MINUTES.toNanos(10), 1024);
+        deviceIds = new String[DEVICES];
+        long now = System.nanoTime();
+        for (int i = 0; i < DEVICES; i++) {
+            deviceIds[i] = "device-" + i;
+            limiter.tryAcquire(deviceIds[i], 0, now);
+        }
+    }
+
+    @Benchmark
+    public long singleDevice() {
+        return limiter.tryAcquire(deviceIds[0], 512, System.nanoTime());
+    }
+
+    @Benchmark
+    public long manyDevices() {
+        String deviceId = deviceIds[ThreadLocalRandom.current().nextInt(DEVICES)];
+        return limiter.tryAcquire(deviceId, 512, System.nanoTime());
+    }
+}
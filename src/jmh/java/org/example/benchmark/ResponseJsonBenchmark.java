@@ -0,0 +1,114 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.controller.DataController;
+import org.example.response.CachedTimestamp;
+import org.example.response.JsonResponses;
+import org.example.storage.FileInfo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应体构建与序列化
+ * xxxMap 为原先按请求组装 HashMap 的写法，heartbeatEncoded / logEncoded / reportTyped 为 JsonResponses 的写法；
+ * 配合 -prof gc 的 gc.alloc.rate.norm 比较每个请求分配的字节数
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseJsonBenchmark {
+
+    private static final int LIST_SIZE = 1000;
+
+    private ObjectMapper objectMapper;
+    private JsonResponses responses;
+    private CachedTimestamp timestamp;
+    private List<FileInfo> fileInfos;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        responses = new JsonResponses(objectMapper);
+        timestamp = new CachedTimestamp();
+        fileInfos = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            fileInfos.add(new FileInfo("file-" + i + ".log", false, true, 1024L * i, 1_700_000_000_000L + i));
+        }
+    }
+
+    @Benchmark
+    public byte[] heartbeatMap() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("timestamp", System.currentTimeMillis());
+        response.put("message", "pong");
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> heartbeatEncoded() {
+        return responses.heartbeat(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public byte[] logMap() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Log received successfully");
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> logEncoded() {
+        return responses.logReceived();
+    }
+
+    @Benchmark
+    public byte[] reportMap() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Data received successfully");
+        response.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        response.put("dataSize", 5);
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> reportTyped() throws JsonProcessingException {
+        return responses.ok(new DataController.ReportResponse(true, "Data received successfully", timestamp.now(), 5));
+    }
+
+    @Benchmark
+    public byte[] upload() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "File uploaded successfully");
+        response.put("filename", "app.log.gz");
+        response.put("size", 1_048_576L);
+        response.put("category", "logs");
+        response.put("path", "app.log.gz");
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] listPath() throws JsonProcessingException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("path", "devices");
+        response.put("files", fileInfos);
+        response.put("count", fileInfos.size());
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.benchmark;
+
+import org.example.storage.UploadDirectory;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路径安全检查开销：每个按路径访问的文件接口都要先经过 resolveSafePath
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SafePathBenchmark {
+
+    private UploadDirectory directory;
+    private Path resolved;
+
+    @Setup
+    public void setUp() {
+        directory = new UploadDirectory(Paths.get("uploads"));
+        resolved = directory.resolveSafePath("devices/device-5f3a9c2e/logs/2024-01-01/app.log.gz");
+    }
+
+    @Benchmark
+    public Path resolveNested() {
+        return directory.resolveSafePath("devices/device-5f3a9c2e/logs/2024-01-01/app.log.gz");
+    }
+
+    @Benchmark
+    public Path resolveFlat() {
+        return directory.resolveSafePath("firmware.bin");
+    }
+
+    @Benchmark
+    public Object resolveTraversal() {
+        try {
+            return directory.resolveSafePath("devices/../../etc/passwd");
+        } catch (SecurityException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public boolean isPathSafe() {
+        return directory.isPathSafe(resolved);
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.benchmark;
+
+import org.example.storage.LocalStorageBackend;
+import org.example.storage.MemoryStorageBackend;
+import org.example.storage.PackStorageBackend;
+import org.example.storage.RangeReader;
+import org.example.storage.S3StorageBackend;
+import org.example.storage.S3StubServer;
+import org.example.storage.StorageBackend;
+import org.example.storage.StorageProperties;
+import org.example.storage.StorageWriter;
+import org.example.storage.StoredObject;
+import org.example.storage.UploadDirectory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 各存储后端的 put / 整对象区间读取 / stat / list / walk，对象大小由 size 指定；
+ * pack 使用默认配置（64KB 及以下写入包文件）；
+ * s3 连接进程内的 S3StubServer，结果包含本机 HTTP 往返，不代表真实对象存储的延迟
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageBackendBenchmark {
+
+    private static final int OBJECTS = 100;
+
+    @Param({"memory", "local", "pack", "s3"})
+    private String backendType;
+
+    @Param({"4096", "65536"})
+    private int size;
+
+    private StorageBackend backend;
+    private S3StubServer server;
+    private Path dir;
+    private ExecutorService executor;
+    private byte[] content;
+    private ByteBuffer buffer;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        executor = Executors.newSingleThreadExecutor();
+        content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+        buffer = ByteBuffer.allocate(64 * 1024);
+        backend = switch (backendType) {
+            case "memory" -> new MemoryStorageBackend();
+            case "local" -> {
+                dir = Files.createTempDirectory("storage-bench");
+                yield new LocalStorageBackend(new UploadDirectory(dir));
+            }
+            case "pack" -> {
+                dir = Files.createTempDirectory("storage-bench");
+                StorageProperties.Pack properties = new StorageProperties.Pack();
+                properties.setDir(dir.toString());
+                yield new PackStorageBackend(properties);
+            }
+            case "s3" -> {
+                server = new S3StubServer("bench", "bench-key", 1000);
+                yield new S3StorageBackend(server.endpoint(), "us-east-1", "bench", "bench-key", "bench-secret");
+            }
+            default -> throw new IllegalArgumentException(backendType);
+        };
+        for (int i = 0; i < OBJECTS; i++) {
+            write("objects/object-" + i + ".bin");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        if (backend instanceof PackStorageBackend pack) {
+            pack.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+        if (dir != null) {
+            try (Stream<Path> walk = Files.walk(dir)) {
+                for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private void write(String key) throws IOException {
+        try (StorageWriter out = backend.put(key)) {
+            out.write(content);
+            out.commit();
+        }
+    }
+
+    private String nextKey() {
+        next = (next + 1) % OBJECTS;
+        return "objects/object-" + next + ".bin";
+    }
+
+    @Benchmark
+    public void put() throws IOException {
+        write("put/object-" + (next = (next + 1) % OBJECTS) + ".bin");
+    }
+
+    @Benchmark
+    public long get() throws Exception {
+        long position = 0;
+        try (RangeReader reader = backend.openRange(nextKey(), executor)) {
+            while (true) {
+                buffer.clear();
+                CompletableFuture<Integer> result = new CompletableFuture<>();
+                reader.read(buffer, position, new CompletionHandler<>() {
+                    @Override
+                    public void completed(Integer read, Void attachment) {
+                        result.complete(read);
+                    }
+
+                    @Override
+                    public void failed(Throwable t, Void attachment) {
+                        result.completeExceptionally(t);
+                    }
+                });
+                int read = result.get();
+                if (read < 0) {
+                    return position;
+                }
+                position += read;
+            }
+        }
+    }
+
+    @Benchmark
+    public StoredObject stat() throws IOException {
+        return backend.stat(nextKey());
+    }
+
+    @Benchmark
+    public List<StoredObject> list() throws IOException {
+        return backend.list("objects");
+    }
+
+    @Benchmark
+    public List<StoredObject> walk() throws IOException {
+        return backend.walk("");
+    }
+}
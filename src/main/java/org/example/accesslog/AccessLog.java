@@ -0,0 +1,282 @@
+package org.example.accesslog;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 二进制访问日志
+ * 请求线程把字段写入预分配的环形缓冲区（按字段的并列数组，不创建记录对象），只做一次 CAS 占位；
+ * 缓冲区满时丢弃并计数，从不等待写盘。后台线程按周期把已发布的槽位编码成紧凑格式追加到滚动文件
+ */
+@Slf4j
+@Component
+public class AccessLog {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final AccessLogProperties properties;
+    private final Path dir;
+    private final int capacity;
+    private final int mask;
+
+    private final long[] timestamps;
+    private final String[] methods;
+    private final String[] routes;
+    private final String[] paths;
+    private final int[] statuses;
+    private final long[] bytesIn;
+    private final long[] bytesOut;
+    private final long[] latencies;
+    private final String[] devices;
+    /**
+     * 槽位已发布的序号，写完字段后写入；读方看到与游标相同的序号才读取
+     */
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long drained;
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final ScheduledExecutorService writer;
+
+    // 以下字段只在写盘线程上访问
+    private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private final AccessLogFormat.Encoder encoder = new AccessLogFormat.Encoder();
+    private FileChannel channel;
+    private long nextFileSequence = -1;
+    private boolean failing;
+
+    public AccessLog(AccessLogProperties properties) {
+        this.properties = properties;
+        this.dir = Paths.get(properties.getDir()).toAbsolutePath().normalize();
+        this.capacity = Integer.highestOneBit(Math.max(2, properties.getBufferSize() - 1)) << 1;
+        this.mask = capacity - 1;
+
+        this.timestamps = new long[capacity];
+        this.methods = new String[capacity];
+        this.routes = new String[capacity];
+        this.paths = new String[capacity];
+        this.statuses = new int[capacity];
+        this.bytesIn = new long[capacity];
+        this.bytesOut = new long[capacity];
+        this.latencies = new long[capacity];
+        this.devices = new String[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "access-log-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isEnabled()) {
+            writer.scheduleWithFixedDelay(this::drain, properties.getFlushIntervalMillis(),
+                    properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 关闭前把缓冲区中的记录写完
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (writer.isShutdown()) {
+            return;
+        }
+        writer.execute(() -> {
+            drain();
+            closeChannel();
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 记录一次请求；缓冲区满或未启用时返回 false。无锁，不做任何 IO
+     */
+    public boolean record(long timestamp, String method, String route, String path, int status,
+                          long requestBytes, long responseBytes, long latencyMicros, String deviceId) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - drained >= capacity) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        int slot = (int) (seq & mask);
+        timestamps[slot] = timestamp;
+        methods[slot] = method;
+        routes[slot] = route;
+        paths[slot] = path;
+        statuses[slot] = status;
+        bytesIn[slot] = requestBytes;
+        bytesOut[slot] = responseBytes;
+        latencies[slot] = latencyMicros;
+        devices[slot] = deviceId;
+        published.set(slot, seq);
+        return true;
+    }
+
+    /**
+     * 等待写盘线程写出当前已发布的记录，供查询前调用
+     */
+    public void flush() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            writer.submit(this::drain).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Access log flush did not complete", e);
+        }
+    }
+
+    private void drain() {
+        long cursor = drained;
+        try {
+            while (true) {
+                int slot = (int) (cursor & mask);
+                if (published.get(slot) != cursor) {
+                    // 尚未发布（写入方已占位但字段未写完），下个周期再读
+                    break;
+                }
+                long timestamp = timestamps[slot];
+                String method = methods[slot];
+                String route = routes[slot];
+                String path = paths[slot];
+                int status = statuses[slot];
+                long in = bytesIn[slot];
+                long out = bytesOut[slot];
+                long latency = latencies[slot];
+                String device = devices[slot];
+                paths[slot] = null;
+                devices[slot] = null;
+                drained = ++cursor;
+
+                if (channel == null) {
+                    openNextFile();
+                }
+                if (buffer.remaining() < AccessLogFormat.MAX_RECORD_SIZE) {
+                    writeBuffer();
+                }
+                encoder.encode(buffer, timestamp, method, route, path, status, in, out, latency, device);
+                written.incrementAndGet();
+            }
+            if (channel != null) {
+                writeBuffer();
+                if (channel.size() >= properties.getMaxFileSize().toBytes()) {
+                    closeChannel();
+                }
+            }
+            if (failing) {
+                failing = false;
+                log.info("Access log writes recovered: {}", dir);
+            }
+        } catch (IOException | RuntimeException e) {
+            // 写盘失败时丢弃已编码未写出的数据，下个周期换新文件重试
+            buffer.clear();
+            closeChannel();
+            if (!failing) {
+                failing = true;
+                log.warn("Access log write failed, records are being dropped: {}", dir, e);
+            }
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void openNextFile() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = AccessLogReader.files(dir);
+        if (nextFileSequence < 0) {
+            nextFileSequence = files.isEmpty() ? 0 : sequenceOf(files.get(files.size() - 1)) + 1;
+        }
+        for (int i = 0; i <= files.size() - properties.getMaxFiles(); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+
+        Path file = dir.resolve(String.format("access-%08d%s", nextFileSequence++, AccessLogFormat.SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        encoder.reset();
+        buffer.clear();
+        AccessLogFormat.writeHeader(buffer);
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close access log file", e);
+        }
+        channel = null;
+    }
+
+    static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring("access-".length(), name.length() - AccessLogFormat.SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getPendingCount() {
+        return claimed.get() - drained;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
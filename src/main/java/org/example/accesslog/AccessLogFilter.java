@@ -0,0 +1,93 @@
+package org.example.accesslog;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.example.metrics.RequestCompletionFilter;
+import org.example.ratelimit.RateLimitFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 请求结束时写一条访问记录，异步请求在异步结束时记录（见 {@link RequestCompletionFilter}）
+ * 下行字节取响应声明的 Content-Length，未声明长度的响应（分块、SSE）记为 0。
+ * Tomcat 把 Content-Length 单独保存、getHeader 读不到，所以用包装类截获设置长度的调用，输出流不经过包装
+ */
+public class AccessLogFilter extends RequestCompletionFilter {
+
+    private final AccessLog accessLog;
+
+    public AccessLogFilter(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    @Override
+    protected HttpServletResponse wrapResponse(HttpServletResponse response) {
+        return new ContentLengthCapture(response);
+    }
+
+    @Override
+    protected void onCompletion(HttpServletRequest request, HttpServletResponse response, int status, long startNanos) {
+        String route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern
+                ? pattern : null;
+        String deviceId = request.getHeader(RateLimitFilter.DEVICE_ID_HEADER);
+        if (deviceId == null || deviceId.isEmpty()) {
+            deviceId = RateLimitFilter.queryDeviceId(request.getQueryString());
+        }
+        long bytesOut = response instanceof ContentLengthCapture capture ? capture.contentLength : 0;
+        accessLog.record(System.currentTimeMillis(), request.getMethod(), route, request.getRequestURI(), status,
+                Math.max(0, request.getContentLengthLong()), Math.max(0, bytesOut),
+                (System.nanoTime() - startNanos) / 1000, deviceId);
+    }
+
+    private static final class ContentLengthCapture extends HttpServletResponseWrapper {
+
+        long contentLength = -1;
+
+        ContentLengthCapture(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            contentLength = len;
+            super.setContentLength(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            contentLength = len;
+            super.setContentLengthLong(len);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            capture(name, value);
+            super.setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            capture(name, value);
+            super.addHeader(name, value);
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = value;
+            }
+            super.setIntHeader(name, value);
+        }
+
+        private void capture(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                try {
+                    contentLength = value == null ? -1 : Long.parseLong(value.trim());
+                } catch (NumberFormatException e) {
+                    contentLength = -1;
+                }
+            }
+        }
+    }
+}
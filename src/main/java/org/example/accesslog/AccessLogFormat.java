@@ -0,0 +1,190 @@
+package org.example.accesslog;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 访问日志文件格式
+ * 文件头为 "HACL" + 版本号；之后逐条记录，数值均为变长整数：
+ * 时间戳（与上一条的差值，ZigZag）| 状态码 | 上行字节 | 下行字节 | 耗时微秒 | method | route | path | deviceId。
+ * 字符串按文件内字典编码：0 为空，奇数 (id << 1 | 1) 引用已出现的字符串，
+ * 其余偶数为 ((长度 + 1) << 1) 后跟 UTF-8 字节，字典未满时登记为下一个 id。
+ * 每个文件从空字典开始，可以独立解码；末尾不完整的记录（进程中断时）被忽略
+ */
+final class AccessLogFormat {
+
+    static final byte[] MAGIC = {'H', 'A', 'C', 'L'};
+    static final byte VERSION = 1;
+    static final String SUFFIX = ".hacl";
+
+    static final int HEADER_SIZE = MAGIC.length + 1;
+    static final int DICTIONARY_LIMIT = 1 << 16;
+    static final int MAX_METHOD_LENGTH = 16;
+    static final int MAX_PATH_LENGTH = 1024;
+    static final int MAX_DEVICE_LENGTH = 128;
+
+    /**
+     * 单条记录编码后的上限：9 个变长整数，4 个字符串按每字符 3 字节计
+     */
+    static final int MAX_RECORD_SIZE = 9 * 10 + 4 * 10 + (MAX_METHOD_LENGTH + 2 * MAX_PATH_LENGTH + MAX_DEVICE_LENGTH) * 3;
+
+    private AccessLogFormat() {
+    }
+
+    static void writeHeader(ByteBuffer buffer) {
+        buffer.put(MAGIC).put(VERSION);
+    }
+
+    static boolean readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return false;
+        }
+        for (byte b : MAGIC) {
+            if (buffer.get() != b) {
+                return false;
+            }
+        }
+        return buffer.get() == VERSION;
+    }
+
+    static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    /**
+     * 写入方状态：上一条时间戳和当前文件的字典，滚动文件时重置
+     */
+    static final class Encoder {
+
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private long lastTimestamp;
+
+        void reset() {
+            dictionary.clear();
+            lastTimestamp = 0;
+        }
+
+        void encode(ByteBuffer buffer, long timestamp, String method, String route, String path, int status,
+                    long bytesIn, long bytesOut, long latencyMicros, String deviceId) {
+            long delta = timestamp - lastTimestamp;
+            writeUnsigned(buffer, (delta << 1) ^ (delta >> 63));
+            lastTimestamp = timestamp;
+            writeUnsigned(buffer, status);
+            writeUnsigned(buffer, Math.max(0, bytesIn));
+            writeUnsigned(buffer, Math.max(0, bytesOut));
+            writeUnsigned(buffer, Math.max(0, latencyMicros));
+            writeString(buffer, truncate(method, MAX_METHOD_LENGTH));
+            writeString(buffer, truncate(route, MAX_PATH_LENGTH));
+            writeString(buffer, truncate(path, MAX_PATH_LENGTH));
+            writeString(buffer, truncate(deviceId, MAX_DEVICE_LENGTH));
+        }
+
+        private void writeString(ByteBuffer buffer, String value) {
+            if (value == null) {
+                writeUnsigned(buffer, 0);
+                return;
+            }
+            Integer id = dictionary.get(value);
+            if (id != null) {
+                writeUnsigned(buffer, ((long) id << 1) | 1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(buffer, (long) (bytes.length + 1) << 1);
+            buffer.put(bytes);
+            if (dictionary.size() < DICTIONARY_LIMIT) {
+                dictionary.put(value, dictionary.size());
+            }
+        }
+    }
+
+    /**
+     * 读取方状态，与 Encoder 对称
+     */
+    static final class Decoder {
+
+        private final List<String> dictionary = new ArrayList<>();
+        private long lastTimestamp;
+
+        /**
+         * 解码下一条记录；剩余字节不足一条完整记录时返回 null 并保持 position 不变
+         */
+        AccessRecord decode(ByteBuffer buffer) {
+            int start = buffer.position();
+            int dictionarySize = dictionary.size();
+            try {
+                long raw = readUnsigned(buffer);
+                long timestamp = lastTimestamp + ((raw >>> 1) ^ -(raw & 1));
+                int status = (int) readUnsigned(buffer);
+                long bytesIn = readUnsigned(buffer);
+                long bytesOut = readUnsigned(buffer);
+                long latencyMicros = readUnsigned(buffer);
+                String method = readString(buffer);
+                String route = readString(buffer);
+                String path = readString(buffer);
+                String deviceId = readString(buffer);
+                lastTimestamp = timestamp;
+                return new AccessRecord(timestamp, method, route, path, status, bytesIn, bytesOut, latencyMicros,
+                        deviceId);
+            } catch (BufferUnderflowException e) {
+                buffer.position(start);
+                dictionary.subList(dictionarySize, dictionary.size()).clear();
+                return null;
+            }
+        }
+
+        private String readString(ByteBuffer buffer) {
+            long tag = readUnsigned(buffer);
+            if (tag == 0) {
+                return null;
+            }
+            if ((tag & 1) != 0) {
+                int id = (int) (tag >>> 1);
+                if (id >= dictionary.size()) {
+                    throw new IllegalStateException("Unknown access log string id: " + id);
+                }
+                return dictionary.get(id);
+            }
+            int length = (int) (tag >>> 1) - 1;
+            if (length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (dictionary.size() < DICTIONARY_LIMIT) {
+                dictionary.add(value);
+            }
+            return value;
+        }
+    }
+
+    static void writeUnsigned(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long readUnsigned(ByteBuffer buffer) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IllegalStateException("Malformed varint");
+            }
+        }
+    }
+}
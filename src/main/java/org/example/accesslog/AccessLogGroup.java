@@ -0,0 +1,38 @@
+package org.example.accesslog;
+
+import java.util.function.Function;
+
+/**
+ * 访问日志的聚合维度
+ */
+public enum AccessLogGroup {
+    ROUTE(r -> r.method() + " " + (r.route() != null ? r.route() : r.path())),
+    PATH(r -> r.method() + " " + r.path()),
+    DEVICE(r -> r.deviceId() != null ? r.deviceId() : "-"),
+    STATUS(r -> Integer.toString(r.status()));
+
+    private final Function<AccessRecord, String> key;
+
+    AccessLogGroup(Function<AccessRecord, String> key) {
+        this.key = key;
+    }
+
+    public String keyOf(AccessRecord record) {
+        return key.apply(record);
+    }
+
+    /**
+     * 解析请求参数，忽略大小写
+     */
+    public static AccessLogGroup parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return ROUTE;
+        }
+        for (AccessLogGroup group : values()) {
+            if (group.name().equalsIgnoreCase(value)) {
+                return group;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported access log grouping: " + value);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.accesslog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 访问日志配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.access-log")
+public class AccessLogProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 日志文件目录
+     */
+    private String dir = "data/access-log";
+
+    /**
+     * 环形缓冲区容量（条），向上取整为 2 的幂；写满时新记录被丢弃并计数，请求线程不等待
+     */
+    private int bufferSize = 65536;
+
+    /**
+     * 后台线程写盘周期
+     */
+    private long flushIntervalMillis = 200;
+
+    /**
+     * 单个文件达到该大小后滚动到新文件
+     */
+    private DataSize maxFileSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 保留的文件数，超出时删除最旧的文件
+     */
+    private int maxFiles = 16;
+}
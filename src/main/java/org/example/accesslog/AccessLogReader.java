@@ -0,0 +1,140 @@
+package org.example.accesslog;
+
+import org.example.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 访问日志解码与聚合
+ * 也可在命令行直接运行（只依赖 JDK）：
+ * java -cp target/classes org.example.accesslog.AccessLogReader [--summary route|path|device|status] 文件或目录...
+ */
+public final class AccessLogReader {
+
+    private AccessLogReader() {
+    }
+
+    /**
+     * 目录下的访问日志文件，按序号从旧到新
+     */
+    public static List<Path> files(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream.filter(p -> p.getFileName().toString().startsWith("access-")
+                            && p.getFileName().toString().endsWith(AccessLogFormat.SUFFIX))
+                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                    .toList();
+        }
+    }
+
+    /**
+     * 逐条解码一个文件，返回记录数；文件头不符时抛出 IOException
+     */
+    public static long read(Path file, Consumer<AccessRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!AccessLogFormat.readHeader(buffer)) {
+                throw new IOException("Not an access log file: " + file);
+            }
+            AccessLogFormat.Decoder decoder = new AccessLogFormat.Decoder();
+            long count = 0;
+            AccessRecord record;
+            while (buffer.hasRemaining() && (record = decoder.decode(buffer)) != null) {
+                consumer.accept(record);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 按维度汇总满足条件的记录，按次数降序
+     */
+    public static List<AccessSummary> summarize(List<Path> files, Predicate<AccessRecord> filter,
+                                                AccessLogGroup group) throws IOException {
+        Map<String, Accumulator> groups = new HashMap<>();
+        for (Path file : files) {
+            read(file, record -> {
+                if (filter.test(record)) {
+                    groups.computeIfAbsent(group.keyOf(record), k -> new Accumulator()).add(record);
+                }
+            });
+        }
+        List<AccessSummary> rows = new ArrayList<>(groups.size());
+        groups.forEach((key, accumulator) -> rows.add(accumulator.toSummary(key)));
+        rows.sort(Comparator.comparingLong(AccessSummary::count).reversed());
+        return rows;
+    }
+
+    private static final class Accumulator {
+        final LatencyHistogram latency = new LatencyHistogram();
+        long errors;
+        long bytesIn;
+        long bytesOut;
+
+        void add(AccessRecord record) {
+            latency.record(record.latencyMicros());
+            if (record.status() >= 500) {
+                errors++;
+            }
+            bytesIn += record.bytesIn();
+            bytesOut += record.bytesOut();
+        }
+
+        AccessSummary toSummary(String key) {
+            LatencyHistogram.Snapshot snapshot = latency.snapshot();
+            return new AccessSummary(key, snapshot.getCount(), errors, bytesIn, bytesOut,
+                    snapshot.valueAtQuantile(0.50) / 1000.0, snapshot.valueAtQuantile(0.99) / 1000.0,
+                    snapshot.getMaxMicros() / 1000.0);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        AccessLogGroup group = null;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--summary".equals(args[i])) {
+                group = AccessLogGroup.parse(i + 1 < args.length ? args[++i] : null);
+            } else {
+                Path path = Paths.get(args[i]);
+                files.addAll(Files.isDirectory(path) ? files(path) : List.of(path));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: AccessLogReader [--summary route|path|device|status] <file|dir>...");
+            System.exit(2);
+        }
+
+        if (group == null) {
+            for (Path file : files) {
+                read(file, r -> System.out.printf("%s\t%s\t%s\t%d\t%d\t%d\t%.3f\t%s%n",
+                        Instant.ofEpochMilli(r.timestamp()), r.method(), r.path(), r.status(), r.bytesIn(),
+                        r.bytesOut(), r.latencyMicros() / 1000.0, r.deviceId() != null ? r.deviceId() : "-"));
+            }
+            return;
+        }
+        System.out.printf("%-48s %9s %7s %12s %12s %10s %10s %10s%n", group.name().toLowerCase(), "count", "5xx",
+                "bytes in", "bytes out", "p50 ms", "p99 ms", "max ms");
+        for (AccessSummary row : summarize(files, r -> true, group)) {
+            System.out.printf("%-48s %9d %7d %12d %12d %10.2f %10.2f %10.2f%n", row.key(), row.count(),
+                    row.errors(), row.bytesIn(), row.bytesOut(), row.p50Millis(), row.p99Millis(), row.maxMillis());
+        }
+    }
+}
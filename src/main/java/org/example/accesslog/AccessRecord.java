@@ -0,0 +1,8 @@
+package org.example.accesslog;
+
+/**
+ * 一条访问记录；route 为路由模板，path 为实际请求路径
+ */
+public record AccessRecord(long timestamp, String method, String route, String path, int status,
+                           long bytesIn, long bytesOut, long latencyMicros, String deviceId) {
+}
@@ -0,0 +1,8 @@
+package org.example.accesslog;
+
+/**
+ * 按聚合维度汇总的一行；errors 为 5xx 次数
+ */
+public record AccessSummary(String key, long count, long errors, long bytesIn, long bytesOut,
+                            double p50Millis, double p99Millis, double maxMillis) {
+}
@@ -0,0 +1,9 @@
+package org.example.changes;
+
+import java.util.List;
+
+/**
+ * 一次增量查询的结果；reset 为 true 时游标已失效（重启或落后太多），客户端应重新全量列出后从新游标继续
+ */
+public record ChangeBatch(String cursor, boolean reset, boolean more, List<ChangeEvent> changes) {
+}
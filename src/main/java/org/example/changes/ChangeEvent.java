@@ -0,0 +1,8 @@
+package org.example.changes;
+
+/**
+ * 变更日志中的一条记录；删除时 size 和 lastModified 为 null
+ */
+public record ChangeEvent(long seq, ChangeType type, String path, boolean directory, Long size, Long lastModified,
+                          long timestamp) {
+}
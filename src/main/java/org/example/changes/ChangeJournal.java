@@ -0,0 +1,243 @@
+package org.example.changes;
+
+import jakarta.annotation.PreDestroy;
+import org.example.storage.StoredObject;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 上传目录变更日志
+ * 文件创建、覆盖和删除按发生顺序分配递增序号，最近 bufferSize 条保存在环形缓冲区中。
+ * 游标为 "启动标识-序号"：服务重启、缓冲区已覆盖或目录监听溢出时旧游标失效，返回 reset 让客户端重新全量列出。
+ * 接口写入和目录监听可能报告同一次变更，按各路径最近一次记录的大小和修改时间去重。
+ * 挂起的长轮询由单独的推送线程唤醒，记录变更的线程只登记一次唤醒，连续的多次变更合并为一轮
+ */
+@Component
+public class ChangeJournal {
+
+    private final ChangeProperties properties;
+    private final String startId;
+    private final ChangeEvent[] ring;
+    private final int capacity;
+    private final Map<String, State> states;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<ChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> resetListeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("change-dispatch").daemon(true).factory());
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+
+    private long lastSeq;
+    private int generation;
+    private String epoch;
+
+    private record State(boolean directory, long size, long lastModified, boolean deleted) {
+    }
+
+    private record Waiter(String since, int limit, Consumer<ChangeBatch> complete) {
+    }
+
+    public ChangeJournal(ChangeProperties properties) {
+        this.properties = properties;
+        this.startId = Long.toString(System.currentTimeMillis(), 36);
+        this.epoch = startId + ".0";
+        this.capacity = Integer.highestOneBit(Math.max(2, properties.getBufferSize() - 1)) << 1;
+        this.ring = new ChangeEvent[capacity];
+        this.states = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, State> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * 记录文件或目录的创建、覆盖；目录的属性随内容变化，只记录创建
+     */
+    public void record(ChangeType type, StoredObject object) {
+        publish(type, object.key(), object.directory(), object.size(), object.lastModified());
+    }
+
+    public void recordDelete(String key, boolean directory) {
+        publish(ChangeType.DELETED, key, directory, null, null);
+    }
+
+    /**
+     * 订阅去重后的变更，在记录变更的线程上持有日志锁调用，各监听方按序号顺序收到；监听方不应阻塞，也不应回调日志
+     */
+    public void addListener(Consumer<ChangeEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 变更可能丢失（游标全部失效）时调用，订阅方应重新全量读取
+     */
+    public void addResetListener(Runnable listener) {
+        resetListeners.add(listener);
+    }
+
+    /**
+     * 分配序号和通知监听方在同一把锁内完成，并发写入的变更不会以与序号不同的顺序到达监听方
+     */
+    private void publish(ChangeType type, String key, boolean directory, Long size, Long lastModified) {
+        synchronized (this) {
+            ChangeEvent event = append(type, key, directory, size, lastModified);
+            if (event == null) {
+                return;
+            }
+            for (Consumer<ChangeEvent> listener : listeners) {
+                listener.accept(event);
+            }
+        }
+        scheduleWake();
+    }
+
+    private ChangeEvent append(ChangeType type, String key, boolean directory, Long size, Long lastModified) {
+        if (key.isEmpty()) {
+            return null;
+        }
+        State previous = states.get(key);
+        if (type == ChangeType.DELETED) {
+            if (previous != null && previous.deleted) {
+                return null;
+            }
+            states.put(key, new State(directory, 0, 0, true));
+        } else {
+            if (previous != null && !previous.deleted) {
+                if (directory || previous.size == size && previous.lastModified == lastModified) {
+                    return null;
+                }
+                type = ChangeType.UPDATED;
+            } else if (previous != null) {
+                type = ChangeType.CREATED;
+            }
+            states.put(key, new State(directory, size, lastModified, false));
+        }
+        long seq = ++lastSeq;
+        ChangeEvent event = new ChangeEvent(seq, type, key, directory, size, lastModified, System.currentTimeMillis());
+        ring[(int) (seq & (capacity - 1))] = event;
+        return event;
+    }
+
+    /**
+     * 更换启动标识，使所有已发出的游标失效；目录监听丢失事件时调用
+     */
+    public void invalidate() {
+        synchronized (this) {
+            epoch = startId + "." + (++generation);
+        }
+        scheduleWake();
+        resetListeners.forEach(Runnable::run);
+    }
+
+    public synchronized String cursor() {
+        return epoch + "-" + lastSeq;
+    }
+
+    /**
+     * since 之后的变更，最多 limit 条；since 为空时只返回当前游标
+     */
+    public synchronized ChangeBatch read(String since, int limit) {
+        if (since == null || since.isEmpty()) {
+            return new ChangeBatch(cursor(), false, false, List.of());
+        }
+        int dash = since.lastIndexOf('-');
+        long seq;
+        try {
+            seq = Long.parseLong(since.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid change cursor: " + since);
+        }
+        if (dash <= 0 || !since.substring(0, dash).equals(epoch)
+                || seq > lastSeq || seq < lastSeq - capacity) {
+            return new ChangeBatch(cursor(), true, false, List.of());
+        }
+
+        long end = Math.min(lastSeq, seq + Math.max(1, Math.min(limit, properties.getMaxBatch())));
+        List<ChangeEvent> changes = new ArrayList<>((int) (end - seq));
+        for (long s = seq + 1; s <= end; s++) {
+            changes.add(ring[(int) (s & (capacity - 1))]);
+        }
+        return new ChangeBatch(epoch + "-" + end, false, end < lastSeq, changes);
+    }
+
+    /**
+     * 有变更时立即返回，否则挂起请求直到出现新变更或等待 waitMillis 后返回空结果；挂起期间不占用线程。
+     * mapper 把结果转换为响应体
+     */
+    public <T> DeferredResult<T> poll(String since, int limit, long waitMillis, Function<ChangeBatch, T> mapper) {
+        ChangeBatch batch = read(since, limit);
+        long wait = Math.min(waitMillis, properties.getMaxWaitMillis());
+        DeferredResult<T> result = new DeferredResult<>(Math.max(wait, 1));
+        if (wait <= 0 || batch.reset() || !batch.changes().isEmpty() || since == null || since.isEmpty()) {
+            result.setResult(mapper.apply(batch));
+            return result;
+        }
+
+        Waiter waiter = new Waiter(since, limit, value -> result.setResult(mapper.apply(value)));
+        result.onTimeout(() -> {
+            waiters.remove(waiter);
+            result.setResult(mapper.apply(batch));
+        });
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        // 读取和登记之间写入的变更不会再唤醒，登记后再检查一次
+        wake(waiter);
+        return result;
+    }
+
+    /**
+     * 没有挂起的请求时不调度；poll 登记后会自行检查一次，登记前发生的变更不会漏掉
+     */
+    private void scheduleWake() {
+        if (waiters.isEmpty() || !wakeScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                // 先清除标记再唤醒，唤醒期间的新变更会再调度一轮
+                wakeScheduled.set(false);
+                for (Waiter waiter : waiters) {
+                    wake(waiter);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 已关闭
+            wakeScheduled.set(false);
+        }
+    }
+
+    private void wake(Waiter waiter) {
+        ChangeBatch batch = read(waiter.since, waiter.limit);
+        if ((batch.reset() || !batch.changes().isEmpty()) && waiters.remove(waiter)) {
+            waiter.complete.accept(batch);
+        }
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    public int getWaiterCount() {
+        return waiters.size();
+    }
+}
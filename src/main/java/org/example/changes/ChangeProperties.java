@@ -0,0 +1,49 @@
+package org.example.changes;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 上传目录变更日志配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.changes")
+public class ChangeProperties {
+
+    /**
+     * 内存中保留的最近变更条数，游标早于保留范围的客户端需要重新全量列出
+     */
+    private int bufferSize = 65536;
+
+    /**
+     * 单次返回的最大变更数，超出时 more 为 true
+     */
+    private int maxBatch = 1000;
+
+    /**
+     * 长轮询的最长等待时间，客户端请求的 wait 超过时按此值截断
+     */
+    private long maxWaitMillis = 30_000;
+
+    /**
+     * 本地后端时监听上传目录，捕获绕过接口直接写入磁盘的变更
+     */
+    private boolean watch = true;
+
+    /**
+     * 监听到事件后等待目录静默的时间，同一文件的多次写入合并为一条变更
+     */
+    private long settleMillis = 200;
+
+    /**
+     * 一批事件从第一个事件起最长的收集时间，持续写入的目录也按此间隔记录变更
+     */
+    private long maxSettleMillis = 2_000;
+
+    /**
+     * 一批最多收集的路径数，达到后立即处理
+     */
+    private int maxSettlePaths = 10_000;
+}
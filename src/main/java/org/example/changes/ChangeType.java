@@ -0,0 +1,5 @@
+package org.example.changes;
+
+public enum ChangeType {
+    CREATED, UPDATED, DELETED
+}
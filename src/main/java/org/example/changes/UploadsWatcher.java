@@ -0,0 +1,178 @@
+package org.example.changes;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.storage.StorageBackend;
+import org.example.storage.StorageProperties;
+import org.example.storage.StoredObject;
+import org.example.storage.UploadDirectory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地后端时用 WatchService 监听整个上传目录树，把绕过文件接口的写入和删除也记入变更日志
+ * 事件先收集到目录静默 settleMillis 后再逐个 stat，写入过程中的多次修改只记录最终状态；
+ * 一批最长收集 maxSettleMillis 或 maxSettlePaths 个路径，持续写入的目录不会无限推迟记录；
+ * 事件队列溢出时无法知道丢了哪些，直接使所有游标失效
+ */
+@Slf4j
+@Component
+public class UploadsWatcher {
+
+    private final ChangeProperties properties;
+    private final UploadDirectory uploadDirectory;
+    private final StorageBackend backend;
+    private final ChangeJournal journal;
+    private final Map<Path, WatchKey> watched = new ConcurrentHashMap<>();
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    private final WatchService watcher;
+    private final Thread thread;
+
+    public UploadsWatcher(ChangeProperties properties, StorageProperties storageProperties,
+                          UploadDirectory uploadDirectory, StorageBackend backend, ChangeJournal journal)
+            throws IOException {
+        this.properties = properties;
+        this.uploadDirectory = uploadDirectory;
+        this.backend = backend;
+        this.journal = journal;
+        if (!properties.isWatch() || !"local".equalsIgnoreCase(storageProperties.getType())) {
+            this.watcher = null;
+            this.thread = null;
+            return;
+        }
+        this.watcher = uploadDirectory.getBasePath().getFileSystem().newWatchService();
+        this.thread = Thread.ofPlatform().name("uploads-watcher").daemon(true).start(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            thread.interrupt();
+        }
+    }
+
+    public boolean isWatching() {
+        return watcher != null;
+    }
+
+    public int getWatchedDirectoryCount() {
+        return watched.size();
+    }
+
+    private void run() {
+        try {
+            // 目录注册放在后台线程，不拖慢启动
+            registerTree(uploadDirectory.ensureCreated(), null);
+            while (true) {
+                Map<Path, WatchEvent.Kind<?>> dirty = new LinkedHashMap<>();
+                collect(watcher.take(), dirty);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getMaxSettleMillis());
+                long settle = TimeUnit.MILLISECONDS.toNanos(properties.getSettleMillis());
+                while (dirty.size() < properties.getMaxSettlePaths()) {
+                    long left = deadline - System.nanoTime();
+                    WatchKey key = left > 0 ? watcher.poll(Math.min(settle, left), TimeUnit.NANOSECONDS) : null;
+                    if (key == null) {
+                        break;
+                    }
+                    collect(key, dirty);
+                }
+                dirty.forEach(this::apply);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 关闭
+        } catch (IOException e) {
+            log.warn("Uploads watcher stopped: {}", e.toString());
+        }
+    }
+
+    private void collect(WatchKey key, Map<Path, WatchEvent.Kind<?>> dirty) throws IOException {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                log.warn("Uploads watcher overflowed, invalidating change cursors");
+                journal.invalidate();
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            // 同一路径先创建后修改仍记为创建
+            dirty.merge(path, event.kind(), (previous, current) ->
+                    previous == StandardWatchEventKinds.ENTRY_CREATE && current != StandardWatchEventKinds.ENTRY_DELETE
+                            ? previous : current);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // 注册前已写入新目录的文件不会产生事件，注册时一并记录
+                registerTree(path, dirty);
+            }
+        }
+        if (!key.reset()) {
+            watched.remove(dir);
+        }
+    }
+
+    private void registerTree(Path root, Map<Path, WatchEvent.Kind<?>> dirty) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!watched.containsKey(dir)) {
+                    watched.put(dir, dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE));
+                }
+                directories.add(dir);
+                if (dirty != null && !dir.equals(root)) {
+                    dirty.putIfAbsent(dir, StandardWatchEventKinds.ENTRY_CREATE);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (dirty != null) {
+                    dirty.putIfAbsent(file, StandardWatchEventKinds.ENTRY_CREATE);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void apply(Path path, WatchEvent.Kind<?> kind) {
+        String key = uploadDirectory.relativize(path);
+        try {
+            StoredObject object = backend.stat(key);
+            if (object == null) {
+                WatchKey removed = watched.remove(path);
+                if (removed != null) {
+                    removed.cancel();
+                }
+                journal.recordDelete(key, directories.remove(path));
+            } else {
+                journal.record(kind == StandardWatchEventKinds.ENTRY_CREATE ? ChangeType.CREATED : ChangeType.UPDATED,
+                        object);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to apply watch event for {}: {}", key, e.toString());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.cluster;
+
+import java.net.URI;
+
+/**
+ * 集群中的一个节点
+ */
+public record ClusterNode(String id, URI url) {
+}
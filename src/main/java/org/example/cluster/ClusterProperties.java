@@ -0,0 +1,95 @@
+package org.example.cluster;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多节点复制配置；各节点使用相同的 peers 列表，node-id 指明自己是其中哪一个
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.cluster")
+public class ClusterProperties {
+
+    private boolean enabled = false;
+
+    private String nodeId;
+
+    /**
+     * 全部节点（含自身）
+     */
+    private List<Peer> peers = new ArrayList<>();
+
+    /**
+     * 每个文件保存的副本数，超过节点数时按节点数计
+     */
+    private int replicas = 2;
+
+    /**
+     * 每个节点在哈希环上的虚拟节点数，越多分布越均匀
+     */
+    private int virtualNodes = 128;
+
+    /**
+     * 本地没有文件时的下载方式：redirect（307 到持有副本的节点）或 proxy（本节点转发）
+     */
+    private String downloadMode = "redirect";
+
+    /**
+     * 节点间请求携带的共享密钥，启用集群时必须配置，否则拒绝启动；内部接口仍应只在内网开放
+     */
+    private String secret = "";
+
+    private int replicationThreads = 4;
+
+    /**
+     * 复制失败的重试次数，用尽后等待重平衡补齐
+     */
+    private int maxAttempts = 5;
+
+    private long requestTimeoutMillis = 30_000;
+
+    /**
+     * 周期性重平衡的间隔，0 表示只在启动后和手动触发时执行
+     */
+    private long rebalanceIntervalMillis = 10 * 60 * 1000L;
+
+    /**
+     * 启动后首次重平衡的延迟，-1 表示启动时不执行
+     */
+    private long rebalanceInitialDelayMillis = 30_000;
+
+    /**
+     * 版本戳和删除墓碑的保存目录，每个节点独立
+     */
+    private String metadataDir = "data/cluster";
+
+    /**
+     * 墓碑保留时长；删除后离线超过这个时间的节点重新上线时，其残留文件可能被复制回来
+     */
+    private long tombstoneTtlMillis = 7 * 24 * 60 * 60 * 1000L;
+
+    /**
+     * 集群中没有任何节点持有的键在这段时间内直接返回 404，不再逐个询问；期间其他节点新写入的文件同样要等到过期后可见
+     */
+    private long negativeCacheMillis = 5_000;
+
+    /**
+     * 未命中缓存的条目上限
+     */
+    private int negativeCacheSize = 10_000;
+
+    @Data
+    public static class Peer {
+        private String id;
+
+        /**
+         * 节点地址，如 http://10.0.0.2:8080
+         */
+        private String url;
+    }
+}
@@ -0,0 +1,694 @@
+package org.example.cluster;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.example.changes.ChangeJournal;
+import org.example.changes.ChangeType;
+import org.example.storage.RangeInputStream;
+import org.example.storage.StorageBackend;
+import org.example.storage.StorageWriter;
+import org.example.storage.StoredObject;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 多节点复制
+ * 文件按键在一致性哈希环上放置 replicas 个副本。接收上传的节点先写本地并立即返回，再异步推送到其余副本节点；
+ * 自己不是副本节点时，推送成功后删除本地这份。删除同样异步广播到所有节点。
+ * 本地没有的文件由持有副本的节点提供下载（重定向或代理）。重平衡扫描本地文件，按当前的环补齐副本、
+ * 移交不再归自己的文件，节点加入后在各节点上执行一次即可。
+ * 每次写入和删除带一个版本戳（毫秒时间左移后拼上节点序号，并且不小于见过的最大版本），删除留下持久化的墓碑；
+ * 接收方拒绝比自己旧的副本和删除，旧副本因此不会覆盖新内容，删除期间离线的节点也不会把文件复制回来
+ */
+@Slf4j
+@Component
+public class ClusterService {
+
+    /**
+     * 内部 HEAD 接口返回文件大小的响应头
+     */
+    public static final String SIZE_HEADER = PeerClient.SIZE_HEADER;
+
+    /**
+     * 节点间请求携带的发起节点编号
+     */
+    public static final String NODE_HEADER = PeerClient.NODE_HEADER;
+
+    /**
+     * 内部接口携带和返回的版本戳
+     */
+    public static final String VERSION_HEADER = PeerClient.VERSION_HEADER;
+
+    /**
+     * 版本戳低位留给节点序号，同一毫秒内不同节点的写入也能分出先后
+     */
+    private static final int NODE_BITS = 10;
+    private static final int KEY_LOCKS = 64;
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final List<String> PROXY_HEADERS = List.of("Content-Type", "Content-Range",
+            "Accept-Ranges", "Content-Disposition");
+
+    private final ClusterProperties properties;
+    private final StorageBackend backend;
+    private final ChangeJournal changes;
+    private final boolean enabled;
+    private final String selfId;
+    private final Map<String, ClusterNode> nodes = new LinkedHashMap<>();
+    private final HashRing ring;
+    private final PeerClient peers;
+    private final ScheduledExecutorService replicator;
+    private final ExecutorService io;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ReplicaVersions versions;
+    private final int ordinal;
+    private final AtomicLong clock = new AtomicLong();
+    /**
+     * 同一键的副本接收和删除互斥，比较版本和写入之间不会插入另一次写入
+     */
+    private final ReentrantLock[] keyLocks = new ReentrantLock[KEY_LOCKS];
+    /**
+     * 未命中缓存：键到过期时间
+     */
+    private final Map<String, Long> missing = new ConcurrentHashMap<>();
+    /**
+     * 重平衡可能由虚拟线程上的请求触发，期间有大量阻塞 I/O，用 ReentrantLock 而非 synchronized，避免占住载体线程
+     */
+    private final ReentrantLock rebalanceLock = new ReentrantLock();
+
+    private final AtomicLong replicated = new AtomicLong();
+    private final AtomicLong handedOff = new AtomicLong();
+    private final AtomicLong deletesSent = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong redirected = new AtomicLong();
+    private final AtomicLong proxied = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private volatile RebalanceReport lastRebalance;
+
+    public ClusterService(ClusterProperties properties, StorageBackend backend, ChangeJournal changes) {
+        this.properties = properties;
+        this.backend = backend;
+        this.changes = changes;
+        this.enabled = properties.isEnabled();
+        this.selfId = properties.getNodeId();
+        if (!enabled) {
+            this.ring = null;
+            this.peers = null;
+            this.replicator = null;
+            this.io = null;
+            this.versions = null;
+            this.ordinal = 0;
+            return;
+        }
+
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            // 内部接口可写入和删除任意文件，不允许在没有密钥的情况下开放
+            throw new IllegalStateException("harmony.cluster.secret must be set when cluster mode is enabled");
+        }
+        for (ClusterProperties.Peer peer : properties.getPeers()) {
+            nodes.put(peer.getId(), new ClusterNode(peer.getId(), URI.create(peer.getUrl())));
+        }
+        if (selfId == null || !nodes.containsKey(selfId)) {
+            throw new IllegalStateException("harmony.cluster.node-id must be one of harmony.cluster.peers: " + selfId);
+        }
+        this.ordinal = new ArrayList<>(nodes.keySet()).indexOf(selfId);
+        if (ordinal >= 1 << NODE_BITS) {
+            throw new IllegalStateException("Too many cluster peers: " + nodes.size());
+        }
+        for (int i = 0; i < KEY_LOCKS; i++) {
+            keyLocks[i] = new ReentrantLock();
+        }
+        try {
+            this.versions = new ReplicaVersions(Paths.get(properties.getMetadataDir()));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open cluster metadata in " + properties.getMetadataDir(), e);
+        }
+        this.ring = new HashRing(nodes.keySet(), properties.getVirtualNodes());
+        this.peers = new PeerClient(selfId, properties.getSecret(),
+                Duration.ofMillis(properties.getRequestTimeoutMillis()));
+        this.replicator = Executors.newScheduledThreadPool(properties.getReplicationThreads(),
+                Thread.ofPlatform().name("cluster-replicate-", 1).daemon(true).factory());
+        this.io = Executors.newFixedThreadPool(2, Thread.ofPlatform().name("cluster-io-", 1).daemon(true).factory());
+
+        if (properties.getRebalanceInitialDelayMillis() >= 0) {
+            replicator.schedule(this::rebalanceQuietly, properties.getRebalanceInitialDelayMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+        if (properties.getRebalanceIntervalMillis() > 0) {
+            replicator.scheduleWithFixedDelay(this::rebalanceQuietly, properties.getRebalanceIntervalMillis(),
+                    properties.getRebalanceIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        log.info("Cluster node {} of {}, {} replicas per file", selfId, nodes.keySet(), properties.getReplicas());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            replicator.shutdownNow();
+            io.shutdownNow();
+            try {
+                versions.close();
+            } catch (IOException e) {
+                log.warn("Failed to close cluster metadata", e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isProxyDownloads() {
+        return "proxy".equalsIgnoreCase(properties.getDownloadMode());
+    }
+
+    /**
+     * 键的副本节点编号，第一个为主副本
+     */
+    public List<String> replicasFor(String key) {
+        return ring.replicas(key, properties.getReplicas());
+    }
+
+    /**
+     * 节点间请求的密钥校验；启用集群时密钥必须配置，未启用时一律拒绝
+     */
+    public boolean authorize(HttpServletRequest request) {
+        if (!enabled) {
+            return false;
+        }
+        String secret = properties.getSecret();
+        String given = request.getHeader(PeerClient.SECRET_HEADER);
+        return given != null && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                given.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 请求来自其他节点（复制或代理下载），不再向外转发，避免节点之间来回转发；
+     * 只带节点编号而密钥不符的请求按普通客户端处理
+     */
+    public boolean isPeerRequest(HttpServletRequest request) {
+        return request.getHeader(PeerClient.NODE_HEADER) != null && authorize(request);
+    }
+
+    // ==================== 复制 ====================
+
+    /**
+     * 本地写入完成后调用，记录新版本并异步推送到副本节点；同一键排队期间的多次写入只推送一次最新内容
+     */
+    public void onWrite(String key) {
+        if (!enabled) {
+            return;
+        }
+        versions.live(key, nextVersion(), System.currentTimeMillis());
+        missing.remove(key);
+        if (pending.add(key)) {
+            schedule(() -> replicate(key), "replicate " + key, 0, 0);
+        }
+    }
+
+    /**
+     * 本地删除后调用，留下墓碑并异步通知其余所有节点删除（未完成移交的文件可能在非副本节点上）
+     */
+    public void onDelete(String key) {
+        if (!enabled) {
+            return;
+        }
+        long version = nextVersion();
+        versions.tombstone(key, version, System.currentTimeMillis());
+        for (ClusterNode node : nodes.values()) {
+            if (!node.id().equals(selfId)) {
+                schedule(() -> {
+                    peers.delete(node, key, version);
+                    deletesSent.incrementAndGet();
+                }, "delete " + key + " on " + node.id(), 0, 0);
+            }
+        }
+    }
+
+    // ==================== 版本 ====================
+
+    /**
+     * 新的本地版本戳：不小于当前时间，也大于本节点见过的任何版本
+     */
+    private long nextVersion() {
+        long now = System.currentTimeMillis() << NODE_BITS | ordinal;
+        return clock.updateAndGet(last -> Math.max(now, ((last >>> NODE_BITS) + 1) << NODE_BITS | ordinal));
+    }
+
+    private void observe(long version) {
+        clock.accumulateAndGet(version, Math::max);
+    }
+
+    private ReentrantLock lockFor(String key) {
+        return keyLocks[Math.floorMod(key.hashCode(), KEY_LOCKS)];
+    }
+
+    /**
+     * 本地文件的版本，没有记录时为 0
+     */
+    private long versionOf(String key) {
+        ReplicaVersions.Stamp stamp = versions.get(key);
+        return stamp != null && !stamp.deleted() ? stamp.version() : 0;
+    }
+
+    /**
+     * 本节点上该键的状态，供其他节点比较版本；墓碑优先于残留的文件
+     */
+    public ReplicaState localState(String key) throws IOException {
+        ReplicaVersions.Stamp stamp = versions.get(key);
+        if (stamp != null && stamp.deleted()) {
+            return new ReplicaState(false, 0, stamp.version());
+        }
+        StoredObject object = backend.stat(key);
+        if (object == null || object.directory()) {
+            return ReplicaState.ABSENT;
+        }
+        return new ReplicaState(true, object.size(), stamp != null ? stamp.version() : 0);
+    }
+
+    /**
+     * 接收其他节点推送的副本：本地已有更新的版本或墓碑时拒绝并返回 false，不读取内容；
+     * 版本相同且文件存在时视为已持有。收到的字节数与发送方声明的 size 不符时放弃写入并抛出 IOException，
+     * 本地文件和版本都不变
+     */
+    public boolean acceptReplica(String key, long version, long size, InputStream content) throws IOException {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            ReplicaState local = localState(key);
+            if (local.version() > version || (local.version() == version && local.exists())) {
+                observe(local.version());
+                return local.version() == version;
+            }
+            boolean existed = local.exists();
+            try (StorageWriter out = backend.put(key)) {
+                long received = content.transferTo(out);
+                if (received != size) {
+                    throw new IOException("Replica " + key + " has " + received + " bytes, sender declared " + size);
+                }
+                out.commit();
+            }
+            versions.live(key, version, System.currentTimeMillis());
+            observe(version);
+            missing.remove(key);
+            StoredObject stored = backend.stat(key);
+            if (stored != null) {
+                changes.record(existed ? ChangeType.UPDATED : ChangeType.CREATED, stored);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 接收删除：本地文件的版本比删除新时拒绝并返回 false；否则删除本地文件并留下墓碑（文件不存在时也留下，
+     * 之后到达的旧副本会被拒绝）
+     */
+    public boolean acceptDelete(String key, long version) throws IOException {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            ReplicaVersions.Stamp stamp = versions.get(key);
+            if (stamp != null && stamp.version() > version) {
+                observe(stamp.version());
+                return stamp.deleted();
+            }
+            if (backend.delete(key)) {
+                changes.recordDelete(key, false);
+            }
+            versions.tombstone(key, version, System.currentTimeMillis());
+            observe(version);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PeerTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * 失败时按指数退避重试，用尽次数后放弃并计数，留给重平衡补齐
+     */
+    private void schedule(PeerTask task, String description, int attempt, long delayMillis) {
+        try {
+            replicator.schedule(() -> {
+                try {
+                    task.run();
+                } catch (IOException | RuntimeException e) {
+                    if (attempt + 1 < properties.getMaxAttempts()) {
+                        retries.incrementAndGet();
+                        long backoff = Math.min(MAX_BACKOFF_MILLIS, 500L << attempt);
+                        schedule(task, description, attempt + 1, backoff);
+                    } else {
+                        failed.incrementAndGet();
+                        log.warn("Cluster task gave up after {} attempts: {}: {}", attempt + 1, description, e.toString());
+                    }
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 正在关闭
+        }
+    }
+
+    /**
+     * 副本节点拒绝（已有更新的版本或墓碑）时不重试，本地这份已过时，照常移交
+     */
+    private void replicate(String key) throws IOException {
+        pending.remove(key);
+        StoredObject object = backend.stat(key);
+        if (object == null || object.directory()) {
+            return;
+        }
+        long version = versionOf(key);
+        List<String> targets = replicasFor(key);
+        for (String id : targets) {
+            if (!id.equals(selfId) && !push(nodes.get(id), object, version)) {
+                log.debug("Replica of {} on {} is newer than {}", key, id, version);
+            }
+        }
+        replicated.incrementAndGet();
+        if (!targets.contains(selfId)) {
+            handOff(object, version);
+        }
+    }
+
+    private boolean push(ClusterNode node, StoredObject object, long version) throws IOException {
+        try (InputStream in = new RangeInputStream(backend.openRange(object.key(), io))) {
+            return peers.put(node, object.key(), in, object.size(), version);
+        }
+    }
+
+    /**
+     * 副本都已确认后删除本地这份；期间本地又被改写（大小、修改时间或版本变化，或又在排队复制）时保留，
+     * 由下一次复制处理
+     */
+    private boolean handOff(StoredObject object, long version) throws IOException {
+        ReentrantLock lock = lockFor(object.key());
+        lock.lock();
+        try {
+            StoredObject current = backend.stat(object.key());
+            if (current == null || current.size() != object.size() || current.lastModified() != object.lastModified()
+                    || versionOf(object.key()) != version || pending.contains(object.key())) {
+                return false;
+            }
+            backend.delete(object.key());
+            versions.forget(object.key());
+            changes.recordDelete(object.key(), false);
+            handedOff.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==================== 下载 ====================
+
+    /**
+     * 找一个持有该文件的其他节点：同时询问其余所有节点（含尚未移交的非副本节点），最先确认持有的胜出，
+     * 不占用调用线程；所有节点都明确答复没有时记入未命中缓存，有节点无法访问时不缓存
+     */
+    public CompletableFuture<Optional<ClusterNode>> locateAsync(String key) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        CompletableFuture<Optional<ClusterNode>> result = new CompletableFuture<>();
+        List<ClusterNode> others = new ArrayList<>();
+        for (String id : ring.replicas(key, nodes.size())) {
+            if (!id.equals(selfId)) {
+                others.add(nodes.get(id));
+            }
+        }
+        AtomicInteger outstanding = new AtomicInteger(others.size());
+        AtomicBoolean unreachable = new AtomicBoolean();
+        for (ClusterNode node : others) {
+            peers.statAsync(node, key).whenComplete((state, error) -> {
+                if (error != null) {
+                    unreachable.set(true);
+                    log.debug("Peer {} unavailable: {}", node.id(), error.toString());
+                } else if (state.exists()) {
+                    result.complete(Optional.of(node));
+                }
+                if (outstanding.decrementAndGet() == 0 && !result.isDone()) {
+                    if (!unreachable.get()) {
+                        rememberMissing(key);
+                    }
+                    result.complete(Optional.empty());
+                }
+            });
+        }
+        if (others.isEmpty()) {
+            result.complete(Optional.empty());
+        }
+        return result;
+    }
+
+    /**
+     * 该键最近一次查找时集群中没有任何节点持有，且未过期；命中时直接返回 404，不再询问其他节点
+     */
+    public boolean isKnownMissing(String key) {
+        if (!enabled) {
+            return false;
+        }
+        Long expiresAt = missing.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt < System.currentTimeMillis()) {
+            missing.remove(key, expiresAt);
+            return false;
+        }
+        negativeHits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 缓存已满时先清除过期条目，仍满则不再记录，最多在过期前多询问几次
+     */
+    private void rememberMissing(String key) {
+        if (properties.getNegativeCacheMillis() <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (missing.size() >= properties.getNegativeCacheSize()) {
+            missing.values().removeIf(expiresAt -> expiresAt < now);
+            if (missing.size() >= properties.getNegativeCacheSize()) {
+                return;
+            }
+        }
+        missing.put(key, now + properties.getNegativeCacheMillis());
+    }
+
+    public URI redirectUri(ClusterNode node, String key) {
+        redirected.incrementAndGet();
+        return PeerClient.downloadUri(node, key);
+    }
+
+    /**
+     * 从持有文件的节点下载：响应头到达时完成，响应体按下游写出的速度拉取，不占用线程；
+     * 对方未给出长度时以 IOException 结束
+     */
+    public CompletableFuture<PeerDownload> openDownload(ClusterNode node, String key, String range) {
+        return peers.downloadAsync(node, key, range).thenApply(remote -> {
+            PublisherRangeReader body = new PublisherRangeReader();
+            remote.body().subscribe(body);
+            OptionalLong length = remote.headers().firstValueAsLong("Content-Length");
+            if (length.isEmpty()) {
+                body.close();
+                throw new CompletionException(new IOException("Download of " + key + " from " + node.id()
+                        + " has no Content-Length"));
+            }
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String header : PROXY_HEADERS) {
+                remote.headers().firstValue(header).ifPresent(value -> headers.put(header, value));
+            }
+            proxied.incrementAndGet();
+            return new PeerDownload(remote.statusCode(), headers, length.getAsLong(), body);
+        });
+    }
+
+    // ==================== 重平衡 ====================
+
+    /**
+     * 按当前的环检查每个本地文件，与各副本节点比较版本：
+     * 副本缺失或版本更旧的补发；副本版本更新时不覆盖，副本是更新的墓碑时本地一并删除；
+     * 本节点不再是副本且各副本都已确认的经 handOff 复查后移交。
+     * 之后把未过期的墓碑重发给仍持有旧版本的节点，删除广播失败的节点上残留的文件因此不会被复制回来。
+     * 版本相同而内容不同的副本（均为启用集群前已有的文件）不会被发现
+     */
+    public RebalanceReport rebalance() throws IOException {
+        if (!enabled) {
+            throw new IllegalStateException("Cluster mode is disabled");
+        }
+        rebalanceLock.lock();
+        try {
+            long startedAt = System.currentTimeMillis();
+            int checked = 0;
+            int pushed = 0;
+            int removed = 0;
+            int failures = 0;
+            for (StoredObject object : backend.walk("")) {
+                if (object.directory()) {
+                    continue;
+                }
+                checked++;
+                String key = object.key();
+                ReplicaVersions.Stamp stamp = versions.get(key);
+                if (stamp != null && stamp.deleted()) {
+                    // 本地已有墓碑，文件是删除后残留的
+                    if (acceptDelete(key, stamp.version())) {
+                        removed++;
+                    }
+                    continue;
+                }
+                long version = stamp != null ? stamp.version() : 0;
+                List<String> targets = replicasFor(key);
+                boolean confirmed = true;
+                long newerDelete = 0;
+                for (String id : targets) {
+                    if (id.equals(selfId)) {
+                        continue;
+                    }
+                    ClusterNode node = nodes.get(id);
+                    try {
+                        ReplicaState remote = peers.stat(node, key);
+                        if (remote.version() > version) {
+                            if (remote.deleted()) {
+                                newerDelete = Math.max(newerDelete, remote.version());
+                            }
+                        } else if (!remote.exists() || remote.version() < version) {
+                            if (push(node, object, version)) {
+                                pushed++;
+                            }
+                        }
+                    } catch (IOException e) {
+                        confirmed = false;
+                        failures++;
+                        log.debug("Rebalance of {} to {} failed: {}", key, id, e.toString());
+                    }
+                }
+                if (newerDelete > 0) {
+                    if (acceptDelete(key, newerDelete)) {
+                        removed++;
+                    }
+                } else if (confirmed && !targets.contains(selfId) && handOff(object, version)) {
+                    removed++;
+                }
+            }
+
+            int deletesResent = 0;
+            long expireBefore = startedAt - properties.getTombstoneTtlMillis();
+            for (Map.Entry<String, ReplicaVersions.Stamp> tombstone : versions.tombstones()) {
+                String key = tombstone.getKey();
+                long version = tombstone.getValue().version();
+                if (tombstone.getValue().recordedAt() < expireBefore) {
+                    versions.forget(key);
+                    continue;
+                }
+                for (ClusterNode node : nodes.values()) {
+                    if (node.id().equals(selfId)) {
+                        continue;
+                    }
+                    try {
+                        ReplicaState remote = peers.stat(node, key);
+                        if (remote.exists() && remote.version() < version && peers.delete(node, key, version)) {
+                            deletesResent++;
+                        }
+                    } catch (IOException e) {
+                        failures++;
+                        log.debug("Resending delete of {} to {} failed: {}", key, node.id(), e.toString());
+                    }
+                }
+            }
+
+            RebalanceReport report = new RebalanceReport(startedAt, System.currentTimeMillis() - startedAt,
+                    checked, pushed, removed, deletesResent, failures);
+            lastRebalance = report;
+            log.info("Rebalance finished: {}", report);
+            return report;
+        } finally {
+            rebalanceLock.unlock();
+        }
+    }
+
+    private void rebalanceQuietly() {
+        try {
+            rebalance();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Rebalance failed", e);
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        if (!enabled) {
+            return status;
+        }
+        status.put("nodeId", selfId);
+        status.put("nodes", nodes.values().stream().map(n -> Map.of("id", n.id(), "url", n.url().toString())).toList());
+        status.put("replicas", properties.getReplicas());
+        status.put("pending", pending.size());
+        status.put("versions", versions.size());
+        status.put("replicated", replicated.get());
+        status.put("handedOff", handedOff.get());
+        status.put("deletesSent", deletesSent.get());
+        status.put("retries", retries.get());
+        status.put("failed", failed.get());
+        status.put("redirected", redirected.get());
+        status.put("proxied", proxied.get());
+        status.put("negativeCache", missing.size());
+        status.put("negativeHits", negativeHits.get());
+        status.put("lastRebalance", lastRebalance);
+        return status;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getReplicatedCount() {
+        return replicated.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getHandedOffCount() {
+        return handedOff.get();
+    }
+}
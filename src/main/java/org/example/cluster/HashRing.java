@@ -0,0 +1,79 @@
+package org.example.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 一致性哈希环
+ * 每个节点放置 virtualNodes 个点；键的副本为从键的哈希值起顺时针遇到的前 count 个不同节点。
+ * 增加一个节点时只有落在新节点各点之前那一段的键改变归属，约为全部键的 1/N
+ */
+public final class HashRing {
+
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private final long[] points;
+    private final String[] owners;
+    private final int nodeCount;
+
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("Hash ring needs at least one node and one virtual node");
+        }
+        this.nodeCount = nodes.size();
+        long[][] entries = new long[nodes.size() * virtualNodes][];
+        List<String> names = new ArrayList<>(nodes);
+        int i = 0;
+        for (int n = 0; n < names.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[i++] = new long[]{hash(names.get(n) + "#" + v), n};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[entries.length];
+        this.owners = new String[entries.length];
+        for (int p = 0; p < entries.length; p++) {
+            points[p] = entries[p][0];
+            owners[p] = names.get((int) entries[p][1]);
+        }
+    }
+
+    /**
+     * 键的 count 个副本节点，第一个为主副本
+     */
+    public List<String> replicas(String key, int count) {
+        int wanted = Math.min(count, nodeCount);
+        List<String> replicas = new ArrayList<>(wanted);
+        int start = Arrays.binarySearch(points, hash(key));
+        if (start < 0) {
+            start = -start - 1;
+        }
+        for (int i = 0; i < points.length && replicas.size() < wanted; i++) {
+            String owner = owners[(start + i) % points.length];
+            if (!replicas.contains(owner)) {
+                replicas.add(owner);
+            }
+        }
+        return replicas;
+    }
+
+    /**
+     * 64 位 FNV-1a 再经 murmur3 的 fmix64 打散，相似的键（file-1、file-2）也能均匀落在环上
+     */
+    static long hash(String value) {
+        long hash = OFFSET;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.cluster;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+
+/**
+ * 节点间的内部请求（/api/cluster/object），每个请求带上本节点编号和共享密钥
+ */
+final class PeerClient {
+
+    static final String NODE_HEADER = "X-Harmony-Node";
+    static final String SECRET_HEADER = "X-Harmony-Cluster-Secret";
+    static final String SIZE_HEADER = "X-Harmony-Size";
+    static final String VERSION_HEADER = "X-Harmony-Version";
+
+    private final String selfId;
+    private final String secret;
+    private final Duration timeout;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    PeerClient(String selfId, String secret, Duration timeout) {
+        this.selfId = selfId;
+        this.secret = secret;
+        this.timeout = timeout;
+    }
+
+    static URI objectUri(ClusterNode node, String key) {
+        return node.url().resolve("/api/cluster/object?key=" + URLEncoder.encode(key, StandardCharsets.UTF_8));
+    }
+
+    static URI downloadUri(ClusterNode node, String key) {
+        return node.url().resolve("/api/file/download/path?path=" + URLEncoder.encode(key, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 节点上该键的状态：文件大小和版本，或删除墓碑的版本
+     */
+    ReplicaState stat(ClusterNode node, String key) throws IOException {
+        HttpResponse<Void> response = send(request(objectUri(node, key))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+        return toState(node, key, response);
+    }
+
+    /**
+     * 异步查询，不占用调用线程；失败时以 IOException 结束
+     */
+    CompletableFuture<ReplicaState> statAsync(ClusterNode node, String key) {
+        return client.sendAsync(request(objectUri(node, key))
+                        .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> {
+                    try {
+                        return toState(node, key, response);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private static ReplicaState toState(ClusterNode node, String key, HttpResponse<Void> response) throws IOException {
+        long version = response.headers().firstValueAsLong(VERSION_HEADER).orElse(0);
+        if (response.statusCode() == 404) {
+            return version > 0 ? new ReplicaState(false, 0, version) : ReplicaState.ABSENT;
+        }
+        expectSuccess(node, "HEAD", key, response);
+        return new ReplicaState(true, response.headers().firstValueAsLong(SIZE_HEADER).orElse(-1), version);
+    }
+
+    /**
+     * 推送 version 版本的内容；对方已有更新的版本或墓碑时返回 false，内容未写入
+     */
+    boolean put(ClusterNode node, String key, InputStream content, long size, long version) throws IOException {
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> content), size);
+        HttpResponse<Void> response = send(request(objectUri(node, key))
+                .header("Content-Type", "application/octet-stream")
+                .header(VERSION_HEADER, Long.toString(version))
+                .header(SIZE_HEADER, Long.toString(size))
+                .PUT(body), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 409) {
+            return false;
+        }
+        expectSuccess(node, "PUT", key, response);
+        return true;
+    }
+
+    /**
+     * 通知删除并留下 version 版本的墓碑；对方持有更新的版本时返回 false，不删除
+     */
+    boolean delete(ClusterNode node, String key, long version) throws IOException {
+        HttpResponse<Void> response = send(request(objectUri(node, key))
+                .header(VERSION_HEADER, Long.toString(version))
+                .DELETE(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 409) {
+            return false;
+        }
+        if (response.statusCode() != 404) {
+            expectSuccess(node, "DELETE", key, response);
+        }
+        return true;
+    }
+
+    /**
+     * 代理下载：向持有文件的节点发起普通下载请求，原样带上 Range；响应头到达时完成，响应体由调用方订阅
+     */
+    CompletableFuture<HttpResponse<Flow.Publisher<List<ByteBuffer>>>> downloadAsync(ClusterNode node, String key,
+                                                                                  String range) {
+        HttpRequest.Builder request = request(downloadUri(node, key)).GET();
+        if (range != null && !range.isEmpty()) {
+            request.header("Range", range);
+        }
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofPublisher());
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(timeout).header(NODE_HEADER, selfId).header(SECRET_HEADER, secret);
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        try {
+            return client.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Peer request interrupted");
+        }
+    }
+
+    private static void expectSuccess(ClusterNode node, String method, String key, HttpResponse<?> response)
+            throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(method + " " + key + " on " + node.id() + " failed: HTTP " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.cluster;
+
+import org.example.storage.RangeReader;
+
+import java.util.Map;
+
+/**
+ * 其他节点的下载响应：状态码、需要转发的响应头和长度，body 从头顺序读取
+ */
+public record PeerDownload(int status, Map<String, String> headers, long length, RangeReader body) {
+}
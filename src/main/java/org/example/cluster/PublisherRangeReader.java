@@ -0,0 +1,149 @@
+package org.example.cluster;
+
+import org.example.storage.RangeReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * 把 HttpClient 的响应体发布者适配为 RangeReader，供 AsyncFileSender 转发
+ * 只支持从头顺序读取；缓冲区空且有读取在等待时才向上游申请下一批，上游不会比下游写出更快
+ */
+final class PublisherRangeReader implements RangeReader, Flow.Subscriber<List<ByteBuffer>> {
+
+    private final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+    private Flow.Subscription subscription;
+    private boolean requested;
+    private boolean complete;
+    private boolean closed;
+    private Throwable error;
+    private long consumed;
+
+    private ByteBuffer dst;
+    private CompletionHandler<Integer, Void> handler;
+
+    @Override
+    public void read(ByteBuffer dst, long position, CompletionHandler<Integer, Void> handler) {
+        synchronized (this) {
+            if (position != consumed) {
+                handler.failed(new IOException("Proxied body supports sequential reads only"), null);
+                return;
+            }
+            this.dst = dst;
+            this.handler = handler;
+        }
+        deliver();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        boolean cancel;
+        synchronized (this) {
+            cancel = closed;
+            this.subscription = subscription;
+        }
+        if (cancel) {
+            subscription.cancel();
+        } else {
+            deliver();
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        synchronized (this) {
+            requested = false;
+            for (ByteBuffer buffer : buffers) {
+                if (buffer.hasRemaining()) {
+                    queue.add(buffer);
+                }
+            }
+        }
+        deliver();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (this) {
+            error = throwable;
+        }
+        deliver();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            complete = true;
+        }
+        deliver();
+    }
+
+    @Override
+    public void close() {
+        Flow.Subscription current;
+        synchronized (this) {
+            closed = true;
+            queue.clear();
+            dst = null;
+            handler = null;
+            current = subscription;
+        }
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * 有数据、已结束或出错时完成等待中的读取，否则申请下一批；回调在锁外执行
+     */
+    private void deliver() {
+        CompletionHandler<Integer, Void> target = null;
+        Flow.Subscription demand = null;
+        int read = 0;
+        Throwable failure = null;
+        synchronized (this) {
+            if (handler == null || closed) {
+                return;
+            }
+            if (!queue.isEmpty()) {
+                while (dst.hasRemaining() && !queue.isEmpty()) {
+                    ByteBuffer head = queue.peek();
+                    int length = Math.min(head.remaining(), dst.remaining());
+                    dst.put(head.slice(head.position(), length));
+                    head.position(head.position() + length);
+                    read += length;
+                    if (!head.hasRemaining()) {
+                        queue.poll();
+                    }
+                }
+                consumed += read;
+            } else if (error != null) {
+                failure = error;
+            } else if (complete) {
+                read = -1;
+            } else if (subscription != null && !requested) {
+                requested = true;
+                demand = subscription;
+            }
+            if (demand == null && (read != 0 || failure != null)) {
+                target = handler;
+                handler = null;
+                dst = null;
+            }
+        }
+        if (demand != null) {
+            // 可能同步回调 onNext，由那次 deliver 完成读取
+            demand.request(1);
+        } else if (target == null) {
+            return;
+        } else if (failure != null) {
+            target.failed(failure instanceof IOException ? failure : new IOException(failure), null);
+        } else {
+            target.completed(read, null);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.cluster;
+
+/**
+ * 一次重平衡的结果：checked 为检查的本地文件数，pushed 为补发到副本节点的文件数，
+ * removed 为已交给副本节点或已被删除而从本地移除的文件数，deletesResent 为向仍持有旧副本的节点重发的删除数，
+ * failed 为未能确认的副本数
+ */
+public record RebalanceReport(long startedAt, long elapsedMillis, int checked, int pushed, int removed,
+                              int deletesResent, int failed) {
+}
@@ -0,0 +1,14 @@
+package org.example.cluster;
+
+/**
+ * 某个节点上一个键的状态：exists 为 false 且 version 大于 0 时是删除墓碑；
+ * version 为 0 表示没有记录版本（启用集群前已有的文件），视为最旧
+ */
+public record ReplicaState(boolean exists, long size, long version) {
+
+    public static final ReplicaState ABSENT = new ReplicaState(false, 0, 0);
+
+    public boolean deleted() {
+        return !exists && version > 0;
+    }
+}
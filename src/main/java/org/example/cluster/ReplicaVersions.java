@@ -0,0 +1,177 @@
+package org.example.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 每个键最近一次写入的版本戳和删除墓碑
+ * 变更追加写入日志文件，启动时重放，节点重启后墓碑仍然有效；日志行数远多于条目数时整体重写
+ */
+@Slf4j
+final class ReplicaVersions implements Closeable {
+
+    /**
+     * deleted 为 true 时是墓碑；recordedAt 为本节点记录的时间，用于墓碑过期
+     */
+    record Stamp(long version, boolean deleted, long recordedAt) {
+    }
+
+    private static final String FILE_NAME = "versions.log";
+    private static final int MIN_COMPACT_LINES = 1024;
+
+    private final Path file;
+    private final Map<String, Stamp> stamps = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private BufferedWriter writer;
+    private long lines;
+
+    ReplicaVersions(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.file = dir.resolve(FILE_NAME);
+        if (Files.exists(file)) {
+            load();
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    Stamp get(String key) {
+        return stamps.get(key);
+    }
+
+    void live(String key, long version, long now) {
+        put(key, new Stamp(version, false, now));
+    }
+
+    void tombstone(String key, long version, long now) {
+        put(key, new Stamp(version, true, now));
+    }
+
+    /**
+     * 不再持有该键（移交完成或墓碑过期）
+     */
+    void forget(String key) {
+        lock.lock();
+        try {
+            if (stamps.remove(key) != null) {
+                append("F 0 0 " + encode(key));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前全部墓碑的快照
+     */
+    List<Map.Entry<String, Stamp>> tombstones() {
+        List<Map.Entry<String, Stamp>> result = new ArrayList<>();
+        for (Map.Entry<String, Stamp> entry : stamps.entrySet()) {
+            if (entry.getValue().deleted()) {
+                result.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        return stamps.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            writer.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String key, Stamp stamp) {
+        lock.lock();
+        try {
+            stamps.put(key, stamp);
+            append((stamp.deleted() ? "D " : "L ") + stamp.version() + " " + stamp.recordedAt() + " " + encode(key));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用方持有 lock；写入失败只记录日志，内存中的状态仍然有效，重启后丢失这一条
+     */
+    private void append(String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+            if (++lines > Math.max(MIN_COMPACT_LINES, stamps.size() * 2L)) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to persist cluster version: {}", e.toString());
+        }
+    }
+
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Stamp> entry : stamps.entrySet()) {
+                Stamp stamp = entry.getValue();
+                out.write((stamp.deleted() ? "D " : "L ") + stamp.version() + " " + stamp.recordedAt() + " "
+                        + encode(entry.getKey()));
+                out.newLine();
+            }
+        }
+        writer.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        lines = stamps.size();
+    }
+
+    /**
+     * 逐行重放；进程在写入中途退出时最后一行可能不完整，跳过
+     */
+    private void load() throws IOException {
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split(" ", 4);
+            if (parts.length != 4) {
+                continue;
+            }
+            try {
+                String key = URLDecoder.decode(parts[3], StandardCharsets.UTF_8);
+                switch (parts[0]) {
+                    case "L" -> stamps.put(key, new Stamp(Long.parseLong(parts[1]), false, Long.parseLong(parts[2])));
+                    case "D" -> stamps.put(key, new Stamp(Long.parseLong(parts[1]), true, Long.parseLong(parts[2])));
+                    case "F" -> stamps.remove(key);
+                    default -> {
+                        continue;
+                    }
+                }
+                lines++;
+            } catch (IllegalArgumentException e) {
+                log.debug("Skipping malformed cluster version line: {}", line);
+            }
+        }
+    }
+
+    private static String encode(String key) {
+        return URLEncoder.encode(key, StandardCharsets.UTF_8);
+    }
+}
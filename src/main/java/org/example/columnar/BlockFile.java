@@ -0,0 +1,257 @@
+package org.example.columnar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式块文件读写
+ * 文件布局：magic | 头长度 | 头 | 各列数据段；
+ * 扫描时只读头和被请求的列段
+ */
+final class BlockFile {
+
+    static final int MAGIC = 0x48434F4C; // "HCOL"
+    static final int VERSION = 1;
+    static final String TIMESTAMP_COLUMN = "_ts";
+
+    /**
+     * zone map 中保存的字符串最大长度，超出则不记录字符串 zone
+     */
+    private static final int MAX_ZONE_STRING = 256;
+
+    private BlockFile() {
+    }
+
+    /**
+     * 把一批已展平的行写成块文件，先写临时文件再原子改名
+     */
+    static BlockMeta write(Path path, List<Map<String, Object>> rows, long[] timestamps) throws IOException {
+        int rowCount = rows.size();
+
+        // 推断每列类型
+        Map<String, ColumnType> schema = new LinkedHashMap<>();
+        schema.put(TIMESTAMP_COLUMN, ColumnType.LONG);
+        for (Map<String, Object> row : rows) {
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                if (entry.getValue() != null && !TIMESTAMP_COLUMN.equals(entry.getKey())) {
+                    schema.merge(entry.getKey(), ColumnType.of(entry.getValue()), ColumnType::merge);
+                }
+            }
+        }
+
+        long minTs = Long.MAX_VALUE;
+        long maxTs = Long.MIN_VALUE;
+        for (int i = 0; i < rowCount; i++) {
+            minTs = Math.min(minTs, timestamps[i]);
+            maxTs = Math.max(maxTs, timestamps[i]);
+        }
+
+        BlockMeta block = new BlockMeta();
+        block.setPath(path);
+        block.setRowCount(rowCount);
+        block.setMinTimestamp(minTs);
+        block.setMaxTimestamp(maxTs);
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        Object[] values = new Object[rowCount];
+        for (Map.Entry<String, ColumnType> column : schema.entrySet()) {
+            String name = column.getKey();
+            for (int i = 0; i < rowCount; i++) {
+                values[i] = TIMESTAMP_COLUMN.equals(name) ? (Object) timestamps[i] : rows.get(i).get(name);
+            }
+            ColumnMeta meta = new ColumnMeta();
+            meta.setName(name);
+            byte[] encoded = ColumnCodec.encode(column.getValue(), values, meta);
+            meta.setOffset(data.size());
+            meta.setLength(encoded.length);
+            data.writeBytes(encoded);
+            block.getColumns().put(name, meta);
+        }
+
+        byte[] header = encodeHeader(block);
+        block.setDataStart(8L + header.length);
+        block.setFileSize(block.getDataStart() + data.size());
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+            out.writeInt(MAGIC);
+            out.writeInt(header.length);
+            out.write(header);
+            data.writeTo(out);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return block;
+    }
+
+    /**
+     * 只读取文件头
+     */
+    static BlockMeta readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer prefix = ByteBuffer.allocate(8);
+            readFully(channel, prefix, 0);
+            prefix.flip();
+            if (prefix.getInt() != MAGIC) {
+                throw new IOException("Not a columnar block: " + path);
+            }
+            int headerLength = prefix.getInt();
+            ByteBuffer header = ByteBuffer.allocate(headerLength);
+            readFully(channel, header, 8);
+
+            BlockMeta block = decodeHeader(header.array());
+            block.setPath(path);
+            block.setDataStart(8L + headerLength);
+            block.setFileSize(channel.size());
+            return block;
+        }
+    }
+
+    /**
+     * 按位置读取指定列并解码，返回实际读取的字节数
+     */
+    static long readColumns(BlockMeta block, Collection<String> names, Map<String, ColumnVector> into) throws IOException {
+        long bytesRead = 0;
+        try (FileChannel channel = FileChannel.open(block.getPath(), StandardOpenOption.READ)) {
+            for (String name : names) {
+                ColumnMeta meta = block.getColumns().get(name);
+                if (meta == null || into.containsKey(name)) {
+                    continue;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(meta.getLength());
+                readFully(channel, buffer, block.getDataStart() + meta.getOffset());
+                buffer.flip();
+                into.put(name, ColumnCodec.decode(meta, buffer, block.getRowCount()));
+                bytesRead += meta.getLength();
+            }
+        }
+        return bytesRead;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of block file");
+            }
+            position += n;
+        }
+    }
+
+    private static byte[] encodeHeader(BlockMeta block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(VERSION);
+        out.writeInt(block.getRowCount());
+        out.writeLong(block.getMinTimestamp());
+        out.writeLong(block.getMaxTimestamp());
+        out.writeInt(block.getColumns().size());
+        for (ColumnMeta meta : block.getColumns().values()) {
+            out.writeUTF(meta.getName());
+            out.writeByte(meta.getType().getCode());
+            out.writeLong(meta.getOffset());
+            out.writeInt(meta.getLength());
+            out.writeInt(meta.getNonNullCount());
+
+            boolean hasZone = meta.getMin() != null && meta.getMax() != null
+                    && (meta.getType() != ColumnType.STRING
+                    || (meta.getMin().toString().length() <= MAX_ZONE_STRING
+                    && meta.getMax().toString().length() <= MAX_ZONE_STRING));
+            out.writeBoolean(hasZone);
+            if (!hasZone) {
+                meta.setMin(null);
+                meta.setMax(null);
+                continue;
+            }
+            switch (meta.getType()) {
+                case LONG -> {
+                    out.writeLong((Long) meta.getMin());
+                    out.writeLong((Long) meta.getMax());
+                }
+                case DOUBLE -> {
+                    out.writeDouble((Double) meta.getMin());
+                    out.writeDouble((Double) meta.getMax());
+                }
+                case STRING -> {
+                    out.writeUTF((String) meta.getMin());
+                    out.writeUTF((String) meta.getMax());
+                }
+                case BOOLEAN -> {
+                    out.writeBoolean((Boolean) meta.getMin());
+                    out.writeBoolean((Boolean) meta.getMax());
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static BlockMeta decodeHeader(byte[] header) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported columnar block version: " + version);
+        }
+        BlockMeta block = new BlockMeta();
+        block.setRowCount(in.readInt());
+        block.setMinTimestamp(in.readLong());
+        block.setMaxTimestamp(in.readLong());
+        int columnCount = in.readInt();
+        for (int c = 0; c < columnCount; c++) {
+            ColumnMeta meta = new ColumnMeta();
+            meta.setName(in.readUTF());
+            meta.setType(ColumnType.fromCode(in.readByte()));
+            meta.setOffset(in.readLong());
+            meta.setLength(in.readInt());
+            meta.setNonNullCount(in.readInt());
+            if (in.readBoolean()) {
+                switch (meta.getType()) {
+                    case LONG -> {
+                        meta.setMin(in.readLong());
+                        meta.setMax(in.readLong());
+                    }
+                    case DOUBLE -> {
+                        meta.setMin(in.readDouble());
+                        meta.setMax(in.readDouble());
+                    }
+                    case STRING -> {
+                        meta.setMin(in.readUTF());
+                        meta.setMax(in.readUTF());
+                    }
+                    case BOOLEAN -> {
+                        meta.setMin(in.readBoolean());
+                        meta.setMax(in.readBoolean());
+                    }
+                }
+            }
+            block.getColumns().put(meta.getName(), meta);
+        }
+        return block;
+    }
+
+    /**
+     * 列出目录下的块文件，按文件名（即序号）排序
+     */
+    static List<Path> list(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (var stream = Files.list(dir)) {
+            stream.filter(p -> p.getFileName().toString().endsWith(ColumnarStore.BLOCK_SUFFIX))
+                    .sorted()
+                    .forEach(files::add);
+        }
+        return files;
+    }
+}
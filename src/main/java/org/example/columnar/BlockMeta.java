@@ -0,0 +1,34 @@
+package org.example.columnar;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 块文件头：行数、时间范围以及每列的位置和 zone map
+ */
+@Data
+public class BlockMeta {
+    private Path path;
+    private int rowCount;
+    private long minTimestamp;
+    private long maxTimestamp;
+
+    /**
+     * 数据区在文件中的起始位置
+     */
+    private long dataStart;
+    private long fileSize;
+
+    /**
+     * 落盘时间，按保留期清理时使用；重新加载时取文件修改时间
+     */
+    private long writtenAt;
+    private Map<String, ColumnMeta> columns = new LinkedHashMap<>();
+
+    public boolean overlaps(long from, long to) {
+        return maxTimestamp >= from && minTimestamp <= to;
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 列编码：
+ * 所有列先写存在位图；
+ * LONG 为相邻差值的 ZigZag varint；
+ * DOUBLE 为与前值按位异或后位反转的 varint，重复值和"整齐"小数只占 1~3 字节；
+ * STRING 为字典 + varint 编号；
+ * BOOLEAN 为值位图
+ */
+final class ColumnCodec {
+
+    private ColumnCodec() {
+    }
+
+    /**
+     * 编码一列，同时填充 meta 的 zone map 与非空计数
+     */
+    static byte[] encode(ColumnType type, Object[] values, ColumnMeta meta) {
+        int rows = values.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 2 + 16);
+
+        byte[] bitmap = new byte[(rows + 7) >>> 3];
+        int nonNull = 0;
+        for (int i = 0; i < rows; i++) {
+            if (values[i] != null) {
+                bitmap[i >>> 3] |= (byte) (1 << (i & 7));
+                nonNull++;
+            }
+        }
+        out.writeBytes(bitmap);
+        meta.setType(type);
+        meta.setNonNullCount(nonNull);
+
+        switch (type) {
+            case LONG -> encodeLongs(values, out, meta);
+            case DOUBLE -> encodeDoubles(values, out, meta);
+            case STRING -> encodeStrings(values, out, meta);
+            case BOOLEAN -> encodeBooleans(values, out, meta);
+        }
+        return out.toByteArray();
+    }
+
+    static ColumnVector decode(ColumnMeta meta, ByteBuffer buffer, int rows) {
+        ColumnVector vector = new ColumnVector(meta.getType(), rows);
+        byte[] bitmap = new byte[(rows + 7) >>> 3];
+        buffer.get(bitmap);
+        for (int i = 0; i < rows; i++) {
+            vector.present[i] = (bitmap[i >>> 3] & (1 << (i & 7))) != 0;
+        }
+
+        switch (meta.getType()) {
+            case LONG -> {
+                long previous = 0;
+                for (int i = 0; i < rows; i++) {
+                    if (vector.present[i]) {
+                        previous += Varint.readSigned(buffer);
+                        vector.longs[i] = previous;
+                    }
+                }
+            }
+            case DOUBLE -> {
+                long previous = 0;
+                for (int i = 0; i < rows; i++) {
+                    if (vector.present[i]) {
+                        previous ^= Long.reverse(Varint.readUnsigned(buffer));
+                        vector.doubles[i] = Double.longBitsToDouble(previous);
+                    }
+                }
+            }
+            case STRING -> {
+                int dictSize = (int) Varint.readUnsigned(buffer);
+                String[] dictionary = new String[dictSize];
+                for (int d = 0; d < dictSize; d++) {
+                    int length = (int) Varint.readUnsigned(buffer);
+                    byte[] bytes = new byte[length];
+                    buffer.get(bytes);
+                    dictionary[d] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                for (int i = 0; i < rows; i++) {
+                    if (vector.present[i]) {
+                        vector.strings[i] = dictionary[(int) Varint.readUnsigned(buffer)];
+                    }
+                }
+            }
+            case BOOLEAN -> {
+                byte[] bits = new byte[(rows + 7) >>> 3];
+                buffer.get(bits);
+                for (int i = 0; i < rows; i++) {
+                    vector.booleans[i] = (bits[i >>> 3] & (1 << (i & 7))) != 0;
+                }
+            }
+        }
+        return vector;
+    }
+
+    private static void encodeLongs(Object[] values, ByteArrayOutputStream out, ColumnMeta meta) {
+        long previous = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            long v = ColumnType.toLong(value);
+            Varint.writeSigned(out, v - previous);
+            previous = v;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        if (meta.getNonNullCount() > 0) {
+            meta.setMin(min);
+            meta.setMax(max);
+        }
+    }
+
+    private static void encodeDoubles(Object[] values, ByteArrayOutputStream out, ColumnMeta meta) {
+        long previous = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            double v = ColumnType.toDouble(value);
+            long bits = Double.doubleToRawLongBits(v);
+            Varint.writeUnsigned(out, Long.reverse(bits ^ previous));
+            previous = bits;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        if (meta.getNonNullCount() > 0) {
+            meta.setMin(min);
+            meta.setMax(max);
+        }
+    }
+
+    private static void encodeStrings(Object[] values, ByteArrayOutputStream out, ColumnMeta meta) {
+        Map<String, Integer> ids = new HashMap<>();
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+        ByteArrayOutputStream refs = new ByteArrayOutputStream(values.length);
+        String min = null;
+        String max = null;
+
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            String s = value.toString();
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = ids.size();
+                ids.put(s, id);
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                Varint.writeUnsigned(dictionary, bytes.length);
+                dictionary.writeBytes(bytes);
+                if (min == null || s.compareTo(min) < 0) {
+                    min = s;
+                }
+                if (max == null || s.compareTo(max) > 0) {
+                    max = s;
+                }
+            }
+            Varint.writeUnsigned(refs, id);
+        }
+
+        Varint.writeUnsigned(out, ids.size());
+        out.writeBytes(dictionary.toByteArray());
+        out.writeBytes(refs.toByteArray());
+        meta.setMin(min);
+        meta.setMax(max);
+    }
+
+    private static void encodeBooleans(Object[] values, ByteArrayOutputStream out, ColumnMeta meta) {
+        byte[] bits = new byte[(values.length + 7) >>> 3];
+        boolean sawFalse = false;
+        boolean sawTrue = false;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(values[i])) {
+                bits[i >>> 3] |= (byte) (1 << (i & 7));
+                sawTrue = true;
+            } else {
+                sawFalse = true;
+            }
+        }
+        out.writeBytes(bits);
+        if (meta.getNonNullCount() > 0) {
+            meta.setMin(!sawFalse);
+            meta.setMax(sawTrue);
+        }
+    }
+}
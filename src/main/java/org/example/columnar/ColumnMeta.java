@@ -0,0 +1,43 @@
+package org.example.columnar;
+
+import lombok.Data;
+
+/**
+ * 块内单列的元数据与 zone map
+ */
+@Data
+public class ColumnMeta {
+    private String name;
+    private ColumnType type;
+
+    /**
+     * 列数据相对数据区起点的偏移
+     */
+    private long offset;
+    private int length;
+    private int nonNullCount;
+
+    /**
+     * 列最小/最大值：LONG 为 Long，DOUBLE 为 Double，STRING 为 String，BOOLEAN 为 Boolean
+     */
+    private Object min;
+    private Object max;
+
+    /**
+     * 数值列的 zone map 是否可能包含 [low, high] 内的值
+     */
+    public boolean mayContain(double low, double high) {
+        if (nonNullCount == 0) {
+            return false;
+        }
+        if (min == null || max == null) {
+            return true;
+        }
+        if (type == ColumnType.LONG || type == ColumnType.DOUBLE) {
+            double lo = ((Number) min).doubleValue();
+            double hi = ((Number) max).doubleValue();
+            return hi >= low && lo <= high;
+        }
+        return true;
+    }
+}
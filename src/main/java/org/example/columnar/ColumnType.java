@@ -0,0 +1,77 @@
+package org.example.columnar;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * 列类型，按块推断
+ */
+public enum ColumnType {
+    LONG(1),
+    DOUBLE(2),
+    STRING(3),
+    BOOLEAN(4);
+
+    private final byte code;
+
+    ColumnType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static ColumnType fromCode(byte code) {
+        for (ColumnType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("Unknown column type code: " + code);
+    }
+
+    /**
+     * 推断单个值的类型
+     */
+    public static ColumnType of(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            return LONG;
+        }
+        if (value instanceof Number) {
+            return DOUBLE;
+        }
+        if (value instanceof Boolean) {
+            return BOOLEAN;
+        }
+        return STRING;
+    }
+
+    /**
+     * 合并同一列中出现的两种类型：整数与浮点合并为 DOUBLE，其余冲突退化为 STRING
+     */
+    public static ColumnType merge(ColumnType current, ColumnType next) {
+        if (current == null || current == next) {
+            return next;
+        }
+        if ((current == LONG && next == DOUBLE) || (current == DOUBLE && next == LONG)) {
+            return DOUBLE;
+        }
+        return STRING;
+    }
+
+    static long toLong(Object value) {
+        if (value instanceof BigInteger big) {
+            return big.longValue();
+        }
+        return ((Number) value).longValue();
+    }
+
+    static double toDouble(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.doubleValue();
+        }
+        return ((Number) value).doubleValue();
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.columnar;
+
+/**
+ * 解码后的单列数据，按类型使用对应的基本类型数组
+ */
+final class ColumnVector {
+
+    final ColumnType type;
+    final boolean[] present;
+    long[] longs;
+    double[] doubles;
+    String[] strings;
+    boolean[] booleans;
+
+    ColumnVector(ColumnType type, int rows) {
+        this.type = type;
+        this.present = new boolean[rows];
+        switch (type) {
+            case LONG -> longs = new long[rows];
+            case DOUBLE -> doubles = new double[rows];
+            case STRING -> strings = new String[rows];
+            case BOOLEAN -> booleans = new boolean[rows];
+        }
+    }
+
+    boolean isNull(int row) {
+        return !present[row];
+    }
+
+    double getDouble(int row) {
+        if (!present[row]) {
+            return Double.NaN;
+        }
+        return switch (type) {
+            case LONG -> longs[row];
+            case DOUBLE -> doubles[row];
+            case BOOLEAN -> booleans[row] ? 1 : 0;
+            case STRING -> parseDouble(strings[row]);
+        };
+    }
+
+    String getString(int row) {
+        if (!present[row]) {
+            return null;
+        }
+        return switch (type) {
+            case LONG -> Long.toString(longs[row]);
+            case DOUBLE -> Double.toString(doubles[row]);
+            case BOOLEAN -> Boolean.toString(booleans[row]);
+            case STRING -> strings[row];
+        };
+    }
+
+    Object get(int row) {
+        if (!present[row]) {
+            return null;
+        }
+        return switch (type) {
+            case LONG -> longs[row];
+            case DOUBLE -> doubles[row];
+            case BOOLEAN -> booleans[row];
+            case STRING -> strings[row];
+        };
+    }
+
+    static double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.columnar;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 上报数据列式存储配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.columnar")
+public class ColumnarProperties {
+
+    /**
+     * 是否把上报数据写入列式存储
+     */
+    private boolean enabled = true;
+
+    /**
+     * 块文件目录
+     */
+    private String dir = "data/reports";
+
+    /**
+     * 每个块的行数，攒满后落盘
+     */
+    private int blockRows = 4096;
+
+    /**
+     * 后台写盘队列中最多积压的块数，超出后追加方等待写盘完成
+     */
+    private int maxFlushingBlocks = 4;
+
+    /**
+     * 块落盘后保留的时长，超过后删除块文件，0 表示不按时间清理（默认 30 天）
+     */
+    private long retentionMillis = 30L * 24 * 3600 * 1000;
+
+    /**
+     * 全部块文件的总大小上限，超出时从最旧的块开始删除，0 表示不限制
+     */
+    private DataSize maxTotalSize = DataSize.ofGigabytes(10);
+
+    /**
+     * 没有新块写入时检查保留期的间隔
+     */
+    private long retentionCheckMillis = 60_000;
+}
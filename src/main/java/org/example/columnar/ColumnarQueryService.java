@@ -0,0 +1,99 @@
+package org.example.columnar;
+
+import lombok.Data;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基于列式存储的上报数据分析查询
+ */
+@Service
+public class ColumnarQueryService {
+
+    static final String NULL_GROUP = "(null)";
+
+    private final ColumnarStore store;
+
+    public ColumnarQueryService(ColumnarStore store) {
+        this.store = store;
+    }
+
+    /**
+     * 按 groupBy 列分组统计 metric 列，例如"一周内按版本统计平均电量"
+     * groupBy 为空时不分组
+     */
+    public AggregateResult aggregate(String metric, String groupBy, long from, long to) throws IOException {
+        return aggregate(metric, groupBy, null, null, from, to);
+    }
+
+    /**
+     * 只统计 metric 取值在 [min, max] 内的行，min/max 为空表示不限；
+     * 借助块的 zone map 跳过取值范围不相交的块
+     */
+    public AggregateResult aggregate(String metric, String groupBy, Double min, Double max,
+                                     long from, long to) throws IOException {
+        List<ValueRange> ranges = min == null && max == null ? List.of()
+                : List.of(new ValueRange(metric,
+                        min != null ? min : Double.NEGATIVE_INFINITY,
+                        max != null ? max : Double.POSITIVE_INFINITY));
+
+        List<String> columns = new ArrayList<>();
+        columns.add(metric);
+        boolean grouped = groupBy != null && !groupBy.isEmpty();
+        if (grouped) {
+            columns.add(groupBy);
+        }
+
+        Map<String, GroupStats> groups = new TreeMap<>();
+        ScanStats stats = store.scan(columns, List.of(metric), ranges, from, to, row -> {
+            if (row.isNull(0)) {
+                return;
+            }
+            double value = row.getDouble(0);
+            if (Double.isNaN(value)) {
+                return;
+            }
+            String key = grouped ? row.getString(1) : "all";
+            groups.computeIfAbsent(key == null ? NULL_GROUP : key, k -> new GroupStats()).add(value);
+        });
+
+        AggregateResult result = new AggregateResult();
+        result.setMetric(metric);
+        result.setGroupBy(grouped ? groupBy : null);
+        result.setGroups(groups);
+        result.setStats(stats);
+        return result;
+    }
+
+    @Data
+    public static class AggregateResult {
+        private String metric;
+        private String groupBy;
+        private Map<String, GroupStats> groups;
+        private ScanStats stats;
+    }
+
+    @Data
+    public static class GroupStats {
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        public double getAvg() {
+            return count == 0 ? 0 : sum / count;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.columnar;
+
+/**
+ * 扫描时的行视图，列下标对应扫描请求中的列顺序
+ * 行对象在回调之间会被复用，不要在回调外持有
+ */
+public interface ColumnarRow {
+
+    long timestamp();
+
+    boolean isNull(int column);
+
+    double getDouble(int column);
+
+    String getString(int column);
+
+    Object get(int column);
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(ColumnarRow row);
+    }
+}
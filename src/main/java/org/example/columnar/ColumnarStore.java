@@ -0,0 +1,540 @@
+package org.example.columnar;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 上报数据的列式存储
+ * 上报的 Map 被展平为列（嵌套字段以 "." 连接），在内存中攒满一个块后交给后台线程按列编码落盘；
+ * 扫描只读取被请求的列，并借助时间范围和 zone map 跳过无关的块。
+ * 块按落盘顺序保留，超过保留期或总大小上限时由后台线程从最旧的块开始删除
+ */
+@Slf4j
+@Component
+public class ColumnarStore {
+
+    static final String BLOCK_SUFFIX = ".hcol";
+    static final String TIMESTAMP_KEY = "timestamp";
+
+    private final ColumnarProperties properties;
+    private final Path dir;
+
+    /**
+     * 已落盘的块，[firstBlock, blockEnd) 有效，只在末尾追加；清理只前移 firstBlock。
+     * 扫描在锁内取得数组和区间后不再复制，数组满时换成新数组，已取得的旧数组保持不变
+     */
+    private BlockMeta[] blocks = new BlockMeta[64];
+    private int firstBlock;
+    private int blockEnd;
+    private long totalBytes;
+
+    /**
+     * 保护块列表、内存块和写盘队列；锁内只做交换，不做 I/O
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private List<Map<String, Object>> pendingRows = new ArrayList<>();
+    private long[] pendingTimestamps;
+    private long nextSequence;
+
+    /**
+     * 已交给后台写盘、尚未写完的块，扫描时按内存行读取
+     */
+    private final ArrayDeque<PendingBlock> flushing = new ArrayDeque<>();
+    private final ScheduledExecutorService flusher;
+    private Future<?> lastFlush = CompletableFuture.completedFuture(null);
+
+    public ColumnarStore(ColumnarProperties properties) {
+        this.properties = properties;
+        this.dir = Paths.get(properties.getDir()).toAbsolutePath().normalize();
+        this.pendingTimestamps = new long[properties.getBlockRows()];
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("columnar-flush").daemon(true).factory());
+        if (properties.isEnabled()) {
+            load();
+            long interval = properties.getRetentionCheckMillis();
+            if (interval > 0) {
+                // 与写盘在同一线程，清理不会与块的追加交错
+                flusher.scheduleWithFixedDelay(() -> enforceRetention(System.currentTimeMillis()),
+                        interval, interval, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void load() {
+        try {
+            Files.createDirectories(dir);
+            List<Path> files = BlockFile.list(dir);
+            for (Path file : files) {
+                try {
+                    BlockMeta block = BlockFile.readHeader(file);
+                    block.setWrittenAt(Files.getLastModifiedTime(file).toMillis());
+                    addBlock(block);
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable columnar block: {}", file, e);
+                }
+            }
+            nextSequence = files.isEmpty() ? 0 : sequenceOf(files.get(files.size() - 1)) + 1;
+            log.info("Columnar store loaded {} blocks ({} bytes) from {}", blockEnd, totalBytes, dir);
+        } catch (IOException e) {
+            log.error("Failed to open columnar store directory: {}", dir, e);
+        }
+        enforceRetention(System.currentTimeMillis());
+    }
+
+    /**
+     * 调用方持有 lock 或处于构造阶段
+     */
+    private void addBlock(BlockMeta block) {
+        if (blockEnd == blocks.length) {
+            int live = blockEnd - firstBlock;
+            BlockMeta[] next = new BlockMeta[Math.max(64, live * 2)];
+            System.arraycopy(blocks, firstBlock, next, 0, live);
+            blocks = next;
+            firstBlock = 0;
+            blockEnd = live;
+        }
+        blocks[blockEnd++] = block;
+        totalBytes += block.getFileSize();
+    }
+
+    /**
+     * 从最旧的块开始删除超过保留期的块，总大小仍超出上限时继续删除，最新的块总是保留
+     */
+    void enforceRetention(long nowMillis) {
+        long maxBytes = properties.getMaxTotalSize() == null ? 0 : properties.getMaxTotalSize().toBytes();
+        long retention = properties.getRetentionMillis();
+        List<BlockMeta> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            while (firstBlock < blockEnd) {
+                BlockMeta block = blocks[firstBlock];
+                boolean aged = retention > 0 && nowMillis - block.getWrittenAt() > retention;
+                boolean oversized = maxBytes > 0 && totalBytes > maxBytes && firstBlock < blockEnd - 1;
+                if (!aged && !oversized) {
+                    break;
+                }
+                expired.add(block);
+                totalBytes -= block.getFileSize();
+                firstBlock++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (BlockMeta block : expired) {
+            try {
+                Files.deleteIfExists(block.getPath());
+            } catch (IOException e) {
+                log.warn("Failed to delete expired columnar block: {}", block.getPath(), e);
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.debug("Columnar retention removed {} blocks", expired.size());
+        }
+    }
+
+    /**
+     * 追加一条上报数据，块满时交给后台写盘；写盘积压超过上限时等待
+     */
+    public void append(Map<String, Object> data) {
+        if (!properties.isEnabled() || data == null) {
+            return;
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        flatten("", data, row);
+
+        long timestamp = System.currentTimeMillis();
+        if (data.get(TIMESTAMP_KEY) instanceof Number number && number.longValue() > 0) {
+            timestamp = number.longValue();
+        }
+
+        lock.lock();
+        try {
+            pendingTimestamps[pendingRows.size()] = timestamp;
+            pendingRows.add(row);
+            if (pendingRows.size() >= properties.getBlockRows()) {
+                submitLocked();
+                while (flushing.size() > properties.getMaxFlushingBlocks()) {
+                    flushed.awaitUninterruptibly();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把内存中未满的块写入磁盘，并等待此前提交的块全部写完
+     */
+    public void flush() {
+        Future<?> last;
+        lock.lock();
+        try {
+            submitLocked();
+            last = lastFlush;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            last.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Columnar flush failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        flusher.shutdown();
+    }
+
+    private void submitLocked() {
+        if (pendingRows.isEmpty()) {
+            return;
+        }
+        Path path = dir.resolve(String.format("block-%016d%s", nextSequence++, BLOCK_SUFFIX));
+        PendingBlock block = new PendingBlock(path, pendingRows, pendingTimestamps);
+        flushing.addLast(block);
+        pendingRows = new ArrayList<>();
+        pendingTimestamps = new long[properties.getBlockRows()];
+        // 单线程执行，块按序号顺序落盘
+        lastFlush = flusher.submit(() -> write(block));
+    }
+
+    private void write(PendingBlock pending) {
+        BlockMeta block = null;
+        try {
+            Files.createDirectories(dir);
+            block = BlockFile.write(pending.path(), pending.rows(), pending.timestamps());
+            block.setWrittenAt(System.currentTimeMillis());
+            log.debug("Columnar block written: {} ({} rows, {} bytes)",
+                    pending.path(), block.getRowCount(), block.getFileSize());
+        } catch (IOException e) {
+            log.error("Failed to write columnar block: {}", pending.path(), e);
+        }
+        lock.lock();
+        try {
+            // 写入失败时同样丢弃内存块，避免无限堆积
+            if (block != null) {
+                addBlock(block);
+            }
+            flushing.remove(pending);
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (block != null) {
+            enforceRetention(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 扫描 [from, to] 时间范围内的行
+     *
+     * @param columns  需要读取的列，行视图中的列下标与此顺序一致
+     * @param required 至少需要一个非空的列，块内缺少全部这些列时整块跳过；为空表示不限制
+     */
+    public ScanStats scan(List<String> columns, List<String> required, long from, long to,
+                          ColumnarRow.Visitor visitor) throws IOException {
+        return scan(columns, required, List.of(), from, to, visitor);
+    }
+
+    /**
+     * 扫描 [from, to] 时间范围内且满足全部取值范围的行
+     * 块的 zone map 与任一取值范围不相交时整块跳过，不读取列数据
+     *
+     * @param ranges 数值列的取值范围，列值为空或不在范围内的行被过滤
+     */
+    public ScanStats scan(List<String> columns, List<String> required, List<ValueRange> ranges, long from, long to,
+                          ColumnarRow.Visitor visitor) throws IOException {
+        ScanStats stats = new ScanStats();
+        BlockMeta[] snapshot;
+        int first;
+        int end;
+        List<PendingBlock> inFlight;
+        List<Map<String, Object>> memoryRows;
+        long[] memoryTimestamps;
+        lock.lock();
+        try {
+            snapshot = blocks;
+            first = firstBlock;
+            end = blockEnd;
+            inFlight = new ArrayList<>(flushing);
+            memoryRows = new ArrayList<>(pendingRows);
+            memoryTimestamps = Arrays.copyOf(pendingTimestamps, pendingRows.size());
+        } finally {
+            lock.unlock();
+        }
+
+        stats.setBlocksTotal(end - first);
+        for (int b = first; b < end; b++) {
+            stats.setBytesTotal(stats.getBytesTotal() + snapshot[b].getFileSize());
+        }
+
+        Set<String> toRead = new LinkedHashSet<>(columns);
+        for (ValueRange range : ranges) {
+            toRead.add(range.column());
+        }
+        toRead.add(BlockFile.TIMESTAMP_COLUMN);
+
+        for (int b = first; b < end; b++) {
+            BlockMeta block = snapshot[b];
+            if (!block.overlaps(from, to) || !hasAnyRequired(block, required)) {
+                continue;
+            }
+            if (!zoneMapsMatch(block, ranges)) {
+                stats.setBlocksPruned(stats.getBlocksPruned() + 1);
+                continue;
+            }
+            Map<String, ColumnVector> vectors = new HashMap<>();
+            try {
+                stats.setBytesRead(stats.getBytesRead() + BlockFile.readColumns(block, toRead, vectors));
+            } catch (NoSuchFileException e) {
+                // 取得快照后被保留期清理删除
+                continue;
+            }
+            stats.setBlocksScanned(stats.getBlocksScanned() + 1);
+
+            ColumnVector[] rangeVectors = new ColumnVector[ranges.size()];
+            for (int r = 0; r < rangeVectors.length; r++) {
+                rangeVectors[r] = vectors.get(ranges.get(r).column());
+            }
+            BlockRow row = new BlockRow(vectors.get(BlockFile.TIMESTAMP_COLUMN), columns, vectors);
+            rows:
+            for (int i = 0; i < block.getRowCount(); i++) {
+                row.index = i;
+                long ts = row.timestamp();
+                if (ts < from || ts > to) {
+                    continue;
+                }
+                for (int r = 0; r < rangeVectors.length; r++) {
+                    if (rangeVectors[r] == null || !ranges.get(r).contains(rangeVectors[r].getDouble(i))) {
+                        continue rows;
+                    }
+                }
+                visitor.visit(row);
+                stats.setRowsScanned(stats.getRowsScanned() + 1);
+            }
+        }
+
+        // 正在写盘和尚未攒满的行
+        for (PendingBlock block : inFlight) {
+            scanMemory(block.rows(), block.timestamps(), columns, ranges, from, to, visitor, stats);
+        }
+        scanMemory(memoryRows, memoryTimestamps, columns, ranges, from, to, visitor, stats);
+        return stats;
+    }
+
+    private static void scanMemory(List<Map<String, Object>> rows, long[] timestamps, List<String> columns,
+                                   List<ValueRange> ranges, long from, long to,
+                                   ColumnarRow.Visitor visitor, ScanStats stats) {
+        MemoryRow row = new MemoryRow(columns);
+        rows:
+        for (int i = 0; i < rows.size(); i++) {
+            if (timestamps[i] < from || timestamps[i] > to) {
+                continue;
+            }
+            Map<String, Object> values = rows.get(i);
+            for (ValueRange range : ranges) {
+                if (!range.contains(MemoryRow.doubleOf(values.get(range.column())))) {
+                    continue rows;
+                }
+            }
+            row.values = values;
+            row.timestamp = timestamps[i];
+            visitor.visit(row);
+            stats.setRowsScanned(stats.getRowsScanned() + 1);
+        }
+    }
+
+    /**
+     * 已封存的块数，包括仍在后台写盘的块
+     */
+    public int getBlockCount() {
+        lock.lock();
+        try {
+            return blockEnd - firstBlock + flushing.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 已落盘块文件的总大小
+     */
+    public long getTotalBytes() {
+        lock.lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean zoneMapsMatch(BlockMeta block, List<ValueRange> ranges) {
+        for (ValueRange range : ranges) {
+            ColumnMeta meta = block.getColumns().get(range.column());
+            if (meta == null || !meta.mayContain(range.low(), range.high())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasAnyRequired(BlockMeta block, List<String> required) {
+        if (required == null || required.isEmpty()) {
+            return true;
+        }
+        for (String name : required) {
+            ColumnMeta meta = block.getColumns().get(name);
+            if (meta != null && meta.getNonNullCount() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flatten(String prefix, Map<String, Object> data, Map<String, Object> row) {
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String key = prefix.isEmpty() ? entry.getKey() : prefix + "." + entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Map<?, ?> nested) {
+                flatten(key, (Map<String, Object>) nested, row);
+            } else if (value instanceof List<?> || value instanceof Object[]) {
+                row.put(key, value instanceof Object[] array ? Arrays.toString(array) : value.toString());
+            } else if (value != null) {
+                row.put(key, value);
+            }
+        }
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring("block-".length(), name.length() - BLOCK_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private record PendingBlock(Path path, List<Map<String, Object>> rows, long[] timestamps) {
+    }
+
+    /**
+     * 块内行视图
+     */
+    private static final class BlockRow implements ColumnarRow {
+        private final ColumnVector timestamps;
+        private final ColumnVector[] vectors;
+        private int index;
+
+        BlockRow(ColumnVector timestamps, List<String> columns, Map<String, ColumnVector> loaded) {
+            this.timestamps = timestamps;
+            this.vectors = new ColumnVector[columns.size()];
+            for (int c = 0; c < vectors.length; c++) {
+                vectors[c] = loaded.get(columns.get(c));
+            }
+        }
+
+        @Override
+        public long timestamp() {
+            return timestamps.longs[index];
+        }
+
+        @Override
+        public boolean isNull(int column) {
+            return vectors[column] == null || vectors[column].isNull(index);
+        }
+
+        @Override
+        public double getDouble(int column) {
+            return vectors[column] == null ? Double.NaN : vectors[column].getDouble(index);
+        }
+
+        @Override
+        public String getString(int column) {
+            return vectors[column] == null ? null : vectors[column].getString(index);
+        }
+
+        @Override
+        public Object get(int column) {
+            return vectors[column] == null ? null : vectors[column].get(index);
+        }
+    }
+
+    /**
+     * 内存中未落盘行的视图
+     */
+    private static final class MemoryRow implements ColumnarRow {
+        private final List<String> columns;
+        private Map<String, Object> values;
+        private long timestamp;
+
+        MemoryRow(List<String> columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public long timestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean isNull(int column) {
+            return values.get(columns.get(column)) == null;
+        }
+
+        @Override
+        public double getDouble(int column) {
+            return doubleOf(values.get(columns.get(column)));
+        }
+
+        static double doubleOf(Object value) {
+            if (value instanceof Number number) {
+                return number.doubleValue();
+            }
+            if (value instanceof Boolean b) {
+                return b ? 1 : 0;
+            }
+            return value == null ? Double.NaN : ColumnVector.parseDouble(value.toString());
+        }
+
+        @Override
+        public String getString(int column) {
+            Object value = values.get(columns.get(column));
+            return value == null ? null : value.toString();
+        }
+
+        @Override
+        public Object get(int column) {
+            return values.get(columns.get(column));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.columnar;
+
+import lombok.Data;
+
+/**
+ * 一次扫描的 I/O 统计
+ */
+@Data
+public class ScanStats {
+    private int blocksTotal;
+    private int blocksScanned;
+
+    /**
+     * 时间范围内、但被 zone map 排除而未读取的块数
+     */
+    private int blocksPruned;
+    private long rowsScanned;
+
+    /**
+     * 实际读取的列数据字节数
+     */
+    private long bytesRead;
+
+    /**
+     * 所有块文件的总字节数
+     */
+    private long bytesTotal;
+}
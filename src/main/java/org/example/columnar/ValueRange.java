@@ -0,0 +1,11 @@
+package org.example.columnar;
+
+/**
+ * 数值列的取值范围过滤条件，两端均包含
+ */
+public record ValueRange(String column, double low, double high) {
+
+    boolean contains(double value) {
+        return value >= low && value <= high;
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.config;
+
+import org.example.accesslog.AccessLog;
+import org.example.accesslog.AccessLogFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class AccessLogConfig {
+
+    /**
+     * 排在限流之前，被限流拒绝的请求也记录
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "harmony.access-log", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLog accessLog) {
+        FilterRegistrationBean<AccessLogFilter> registration = new FilterRegistrationBean<>(new AccessLogFilter(accessLog));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.config;
+
+import org.example.ingest.IngestProperties;
+import org.example.ingest.RequestDecompressionFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IngestConfig {
+
+    /**
+     * 数据上报接口支持压缩请求体；JSON 之外的 Smile (application/x-jackson-smile)
+     * 与 CBOR (application/cbor) 由 classpath 上的 jackson-dataformat 自动注册转换器
+     */
+    @Bean
+    public FilterRegistrationBean<RequestDecompressionFilter> requestDecompressionFilter(IngestProperties properties) {
+        FilterRegistrationBean<RequestDecompressionFilter> registration =
+                new FilterRegistrationBean<>(new RequestDecompressionFilter(properties.getMaxInflatedSize().toBytes()));
+        registration.addUrlPatterns("/api/data/*");
+        return registration;
+    }
+}
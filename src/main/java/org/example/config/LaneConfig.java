@@ -0,0 +1,26 @@
+package org.example.config;
+
+import org.example.lane.ExecutionLanes;
+import org.example.lane.Lane;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class LaneConfig implements WebMvcConfigurer {
+
+    private final ExecutionLanes lanes;
+
+    public LaneConfig(ExecutionLanes lanes) {
+        this.lanes = lanes;
+    }
+
+    /**
+     * 未指定通道的异步返回值（Callable、StreamingResponseBody）默认走 bulk 通道，不设超时
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(lanes.executor(Lane.BULK));
+        configurer.setDefaultTimeout(lanes.executor(Lane.BULK).getTimeoutMillis());
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.config;
+
+import org.example.accesslog.AccessLog;
+import org.example.changes.ChangeJournal;
+import org.example.cluster.ClusterService;
+import org.example.delta.DeltaService;
+import org.example.exception.ErrorTracker;
+import org.example.ingest.LogDeduplicator;
+import org.example.lane.ExecutionLanes;
+import org.example.lane.Lane;
+import org.example.lane.LaneExecutor;
+import org.example.metrics.MetricsFilter;
+import org.example.metrics.MetricsRegistry;
+import org.example.rollup.RollupService;
+import org.example.search.FileSearchService;
+import org.example.transfer.AsyncFileSender;
+import org.example.transfer.BandwidthScheduler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class MetricsConfig {
+
+    public MetricsConfig(MetricsRegistry registry, ExecutionLanes lanes, AsyncFileSender fileSender,
+                         BandwidthScheduler bandwidth, LogDeduplicator deduplicator, ErrorTracker errorTracker,
+                         AccessLog accessLog, ClusterService cluster, ChangeJournal changes,
+                         DeltaService deltas, FileSearchService search, RollupService rollups) {
+        for (Lane lane : Lane.values()) {
+            String name = lane.name().toLowerCase();
+            LaneExecutor executor = lanes.executor(lane);
+            registry.gauge("harmony_lane_queue_depth", "Tasks waiting in an execution lane",
+                    executor::getQueueSize, "lane", name);
+            registry.gauge("harmony_lane_active_threads", "Tasks running in an execution lane",
+                    executor::getActiveCount, "lane", name);
+            registry.counter("harmony_lane_rejected_total", "Tasks rejected because the lane queue was full",
+                    executor::getRejectedCount, "lane", name);
+        }
+
+        registry.counter("harmony_transfer_bytes_total", "Bytes transferred by file endpoints",
+                fileSender::getBytesSent, "direction", "download");
+        registry.gauge("harmony_downloads_active", "Downloads currently being sent",
+                fileSender::getActiveCount);
+        registry.gauge("harmony_bandwidth_waiting_transfers", "Transfers queued for bandwidth",
+                bandwidth::getWaitingCount);
+
+        // 日志去重的指纹表：命中即合并进已有窗口
+        registry.counter("harmony_cache_requests_total", "Cache lookups by result",
+                deduplicator::getCollapsedCount, "cache", "log_dedup", "result", "hit");
+        registry.counter("harmony_cache_requests_total", "Cache lookups by result",
+                () -> deduplicator.getEmittedCount() + deduplicator.getSampledCount(),
+                "cache", "log_dedup", "result", "miss");
+        registry.gauge("harmony_cache_hit_ratio", "Cache hits over lookups since start", () -> {
+            double hits = deduplicator.getCollapsedCount();
+            double lookups = hits + deduplicator.getEmittedCount() + deduplicator.getSampledCount();
+            return lookups > 0 ? hits / lookups : 0;
+        }, "cache", "log_dedup");
+
+        registry.counter("harmony_server_errors_total", "Requests that ended in an unhandled exception",
+                errorTracker::getTotalCount);
+        registry.gauge("harmony_server_error_fingerprints", "Distinct unhandled exception fingerprints",
+                errorTracker::getFingerprintCount);
+
+        registry.counter("harmony_access_log_records_total", "Access log records by outcome",
+                accessLog::getWrittenCount, "result", "written");
+        registry.counter("harmony_access_log_records_total", "Access log records by outcome",
+                accessLog::getDroppedCount, "result", "dropped");
+        registry.gauge("harmony_access_log_pending", "Access log records waiting in the ring buffer",
+                accessLog::getPendingCount);
+
+        registry.counter("harmony_cluster_replications_total", "Files pushed to all replica nodes",
+                cluster::getReplicatedCount);
+        registry.counter("harmony_cluster_tasks_failed_total", "Replication and delete tasks given up after retries",
+                cluster::getFailedCount);
+        registry.counter("harmony_cluster_handoffs_total", "Local copies removed after handing off to replicas",
+                cluster::getHandedOffCount);
+        registry.counter("harmony_file_changes_total", "Changes recorded in the uploads change journal",
+                changes::getLastSeq);
+        registry.gauge("harmony_file_changes_waiting", "Long-poll requests waiting for file changes",
+                changes::getWaiterCount);
+        registry.gauge("harmony_cluster_replication_pending", "Files waiting to be pushed to replica nodes",
+                cluster::getPendingCount);
+        registry.counter("harmony_delta_requests_total", "Delta downloads served", deltas::getDeltaCount);
+        registry.counter("harmony_delta_bytes_total", "Delta target bytes by source",
+                deltas::getCopiedBytes, "kind", "copied");
+        registry.counter("harmony_delta_bytes_total", "Delta target bytes by source",
+                deltas::getLiteralBytes, "kind", "literal");
+        registry.counter("harmony_cache_requests_total", "Cache lookups by result",
+                deltas::getCacheHits, "cache", "delta_signature", "result", "hit");
+        registry.counter("harmony_cache_requests_total", "Cache lookups by result",
+                deltas::getCacheMisses, "cache", "delta_signature", "result", "miss");
+        registry.gauge("harmony_delta_signature_cache_bytes", "Memory held by cached server-side block signatures",
+                deltas::getCachedBytes);
+        registry.gauge("harmony_search_index_paths", "Files and directories in the search index",
+                search::getIndexedCount);
+        registry.gauge("harmony_search_index_names", "Distinct names interned by the search index",
+                search::getSegmentCount);
+        registry.counter("harmony_search_queries_total", "File name searches served", search::getQueryCount);
+        registry.counter("harmony_search_index_builds_total", "Full search index builds", search::getBuildCount);
+        registry.gauge("harmony_rollup_series", "Device metric series tracked by rollups", rollups::getSeriesCount);
+        registry.counter("harmony_rollup_metrics_dropped_total", "Metric values dropped at the series limit",
+                rollups::getDroppedMetricCount);
+    }
+
+    /**
+     * 排在限流之前，被限流拒绝的请求也计入
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "harmony.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<MetricsFilter> metricsFilter(MetricsRegistry registry) {
+        FilterRegistrationBean<MetricsFilter> registration = new FilterRegistrationBean<>(new MetricsFilter(registry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
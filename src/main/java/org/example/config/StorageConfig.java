@@ -0,0 +1,42 @@
+package org.example.config;
+
+import org.example.storage.LocalStorageBackend;
+import org.example.storage.MemoryStorageBackend;
+import org.example.storage.PackStorageBackend;
+import org.example.storage.S3StorageBackend;
+import org.example.storage.StorageBackend;
+import org.example.storage.StorageProperties;
+import org.example.storage.UploadDirectory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    public UploadDirectory uploadDirectory(StorageProperties properties) {
+        return new UploadDirectory(Paths.get(properties.getDir()));
+    }
+
+    /**
+     * pack 和 s3 后端实现了 Closeable，容器关闭时 pack 写出最终的索引快照，s3 停止读取线程
+     */
+    @Bean
+    public StorageBackend storageBackend(StorageProperties properties, UploadDirectory uploadDirectory)
+            throws IOException {
+        return switch (properties.getType()) {
+            case "local" -> new LocalStorageBackend(uploadDirectory);
+            case "pack" -> new PackStorageBackend(properties.getPack());
+            case "memory" -> new MemoryStorageBackend();
+            case "s3" -> {
+                StorageProperties.S3 s3 = properties.getS3();
+                yield new S3StorageBackend(s3.getEndpoint(), s3.getRegion(), s3.getBucket(), s3.getAccessKey(),
+                        s3.getSecretKey());
+            }
+            default -> throw new IllegalArgumentException("Unknown storage type: " + properties.getType());
+        };
+    }
+}
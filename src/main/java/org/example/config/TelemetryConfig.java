@@ -0,0 +1,29 @@
+package org.example.config;
+
+import org.example.telemetry.DeviceIdHandshakeInterceptor;
+import org.example.telemetry.TelemetryProperties;
+import org.example.telemetry.TelemetryWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class TelemetryConfig implements WebSocketConfigurer {
+
+    private final TelemetryWebSocketHandler telemetryHandler;
+    private final TelemetryProperties properties;
+
+    public TelemetryConfig(TelemetryWebSocketHandler telemetryHandler, TelemetryProperties properties) {
+        this.telemetryHandler = telemetryHandler;
+        this.properties = properties;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(telemetryHandler, properties.getPath())
+                .addInterceptors(new DeviceIdHandshakeInterceptor())
+                .setAllowedOriginPatterns("*");
+    }
+}
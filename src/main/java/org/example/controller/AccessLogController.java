@@ -0,0 +1,59 @@
+package org.example.controller;
+
+import org.example.accesslog.AccessLog;
+import org.example.accesslog.AccessLogGroup;
+import org.example.accesslog.AccessLogReader;
+import org.example.accesslog.AccessRecord;
+import org.example.accesslog.AccessSummary;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+@RestController
+@RequestMapping("/api/access-log")
+public class AccessLogController {
+
+    private final AccessLog accessLog;
+
+    public AccessLogController(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    /**
+     * 解码访问日志文件并按 route / path / device / status 汇总
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<Map<String, Object>> summary(
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) String deviceId) throws IOException {
+
+        Map<String, Object> response = new HashMap<>();
+
+        AccessLogGroup group = AccessLogGroup.parse(groupBy);
+        long start = from != null ? from : 0;
+        long end = to != null ? to : Long.MAX_VALUE;
+        if (start > end) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        Predicate<AccessRecord> filter = r -> r.timestamp() >= start && r.timestamp() <= end
+                && (deviceId == null || deviceId.isEmpty() || deviceId.equals(r.deviceId()));
+
+        accessLog.flush();
+        List<AccessSummary> rows = AccessLogReader.summarize(AccessLogReader.files(accessLog.getDir()), filter, group);
+
+        response.put("success", true);
+        response.put("groupBy", group.name().toLowerCase());
+        response.put("rows", rows);
+        response.put("count", rows.size());
+        response.put("dropped", accessLog.getDroppedCount());
+
+        return ResponseEntity.ok(response);
+    }
+}
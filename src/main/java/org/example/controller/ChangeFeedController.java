@@ -0,0 +1,45 @@
+package org.example.controller;
+
+import org.example.changes.ChangeBatch;
+import org.example.changes.ChangeJournal;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/file")
+public class ChangeFeedController {
+
+    private final ChangeJournal journal;
+
+    public ChangeFeedController(ChangeJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * 上传目录的增量变更：返回 since 游标之后的创建、覆盖和删除，没有变更时最多挂起 wait 毫秒；
+     * 不带 since 时只返回当前游标，客户端先全量列出再从该游标开始增量同步
+     */
+    @GetMapping("/changes")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> changes(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "0") long wait,
+            @RequestParam(defaultValue = "1000") int limit) {
+
+        return journal.poll(since, limit, wait, ChangeFeedController::toResponse);
+    }
+
+    private static ResponseEntity<Map<String, Object>> toResponse(ChangeBatch batch) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("cursor", batch.cursor());
+        response.put("reset", batch.reset());
+        response.put("more", batch.more());
+        response.put("changes", batch.changes());
+        response.put("count", batch.changes().size());
+        return ResponseEntity.ok(response);
+    }
+}
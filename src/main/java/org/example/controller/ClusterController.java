@@ -0,0 +1,158 @@
+package org.example.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cluster.ClusterService;
+import org.example.cluster.RebalanceReport;
+import org.example.cluster.ReplicaState;
+import org.example.lane.ExecutionLanes;
+import org.example.lane.Lane;
+import org.example.storage.UploadDirectory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryNotEmptyException;
+import java.util.Map;
+
+/**
+ * 集群状态和节点间的内部接口；/object 只供其他节点复制和删除副本使用，不触发再次复制
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+
+    private final ClusterService cluster;
+    private final UploadDirectory uploadDirectory;
+    private final ExecutionLanes lanes;
+
+    public ClusterController(ClusterService cluster, UploadDirectory uploadDirectory, ExecutionLanes lanes) {
+        this.cluster = cluster;
+        this.uploadDirectory = uploadDirectory;
+        this.lanes = lanes;
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        return cluster.status();
+    }
+
+    /**
+     * 立即执行一次重平衡，返回本次检查、补发和移交的文件数
+     */
+    @PostMapping("/rebalance")
+    public WebAsyncTask<ResponseEntity<RebalanceReport>> rebalance() {
+        return lanes.submit(Lane.BULK, () -> {
+            if (!cluster.isEnabled()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(cluster.rebalance());
+        });
+    }
+
+    /**
+     * 存在时返回大小和版本；已删除时 404 并带上墓碑的版本
+     */
+    @RequestMapping(path = "/object", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> statObject(@RequestParam String key, HttpServletRequest request) throws IOException {
+        ResponseEntity<Void> denied = check(request, key);
+        if (denied != null) {
+            return denied;
+        }
+        ReplicaState state = cluster.localState(key);
+        if (!state.exists()) {
+            ResponseEntity.HeadersBuilder<?> notFound = ResponseEntity.notFound();
+            if (state.deleted()) {
+                notFound.header(ClusterService.VERSION_HEADER, Long.toString(state.version()));
+            }
+            return notFound.build();
+        }
+        return ResponseEntity.ok()
+                .header(ClusterService.SIZE_HEADER, Long.toString(state.size()))
+                .header(ClusterService.VERSION_HEADER, Long.toString(state.version()))
+                .build();
+    }
+
+    /**
+     * 请求体在 bulk 通道线程上读取并写入存储后端；本节点已有更新的版本或墓碑时 409，
+     * 缺少版本或大小时 400，收到的字节数与声明的大小不符（连接中途断开）时放弃写入
+     */
+    @PutMapping("/object")
+    public WebAsyncTask<ResponseEntity<Void>> putObject(@RequestParam String key, HttpServletRequest request) {
+        return lanes.submit(Lane.BULK, () -> {
+            ResponseEntity<Void> denied = check(request, key);
+            if (denied != null) {
+                return denied;
+            }
+            Long version = longHeader(request, ClusterService.VERSION_HEADER);
+            Long size = longHeader(request, ClusterService.SIZE_HEADER);
+            if (version == null || size == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            try (InputStream in = request.getInputStream()) {
+                if (!cluster.acceptReplica(key, version, size, in)) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).build();
+                }
+            }
+            log.debug("Replica stored: {} v{} from {}", key, version, request.getHeader(ClusterService.NODE_HEADER));
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    /**
+     * 本节点的版本比删除新时 409；文件不存在时同样留下墓碑并返回 204
+     */
+    @DeleteMapping("/object")
+    public ResponseEntity<Void> deleteObject(@RequestParam String key, HttpServletRequest request)
+            throws IOException {
+        ResponseEntity<Void> denied = check(request, key);
+        if (denied != null) {
+            return denied;
+        }
+        Long version = longHeader(request, ClusterService.VERSION_HEADER);
+        if (version == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            if (!cluster.acceptDelete(key, version)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.noContent().build();
+        } catch (DirectoryNotEmptyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    private static Long longHeader(HttpServletRequest request, String name) {
+        try {
+            String header = request.getHeader(name);
+            return header != null ? Long.parseLong(header) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 未启用集群时 404，密钥不符或键越出上传目录时 403，通过时返回 null
+     */
+    private ResponseEntity<Void> check(HttpServletRequest request, String key) {
+        if (!cluster.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!cluster.authorize(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            if (key.isEmpty() || !uploadDirectory.resolveKey(key).equals(key)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return null;
+    }
+}
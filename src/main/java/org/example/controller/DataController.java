@@ -1,61 +1,62 @@
 package org.example.controller;
 
 import lombok.Data;
-import lombok.extern.slf4j.Slf4j;
+import org.example.ingest.DataIngestService;
+import org.example.lane.ExecutionLanes;
+import org.example.lane.Lane;
+import org.example.response.CachedTimestamp;
+import org.example.response.JsonResponses;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.Map;
 
-@Slf4j
 @RestController
 @RequestMapping("/api/data")
 public class DataController {
 
-    @PostMapping("/report")
-    public ResponseEntity<Map<String, Object>> reportData(@RequestBody Map<String, Object> data) {
-        Map<String, Object> response = new HashMap<>();
-
-        log.info("Received data report: {}", data);
+    private final DataIngestService ingestService;
+    private final ExecutionLanes lanes;
+    private final JsonResponses responses;
+    private final CachedTimestamp timestamp = new CachedTimestamp();
 
-        response.put("success", true);
-        response.put("message", "Data received successfully");
-        response.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        response.put("dataSize", data.size());
+    public DataController(DataIngestService ingestService, ExecutionLanes lanes, JsonResponses responses) {
+        this.ingestService = ingestService;
+        this.lanes = lanes;
+        this.responses = responses;
+    }
 
-        return ResponseEntity.ok(response);
+    @PostMapping("/report")
+    public WebAsyncTask<ResponseEntity<byte[]>> reportData(@RequestBody Map<String, Object> data) {
+        return lanes.submit(Lane.INGEST, () -> {
+            ingestService.report(data);
+            return responses.ok(new ReportResponse(true, "Data received successfully", timestamp.now(), data.size()));
+        });
     }
 
     @PostMapping("/log")
-    public ResponseEntity<Map<String, Object>> reportLog(@RequestBody LogRequest logRequest) {
-        Map<String, Object> response = new HashMap<>();
-
-        log.info("[{}] {} - {}", logRequest.getLevel(), logRequest.getTag(), logRequest.getMessage());
-
-        response.put("success", true);
-        response.put("message", "Log received successfully");
-
-        return ResponseEntity.ok(response);
+    public WebAsyncTask<ResponseEntity<byte[]>> reportLog(@RequestBody LogRequest logRequest) {
+        return lanes.submit(Lane.INGEST, () -> {
+            ingestService.log(logRequest);
+            return responses.logReceived();
+        });
     }
 
+    /**
+     * 心跳走独立的 control 通道，不受上报和文件传输排队影响
+     */
     @PostMapping("/heartbeat")
-    public ResponseEntity<Map<String, Object>> heartbeat(@RequestBody HeartbeatRequest heartbeat) {
-        Map<String, Object> response = new HashMap<>();
-
-        log.debug("Heartbeat from device: {}", heartbeat.getDeviceId());
-
-        response.put("success", true);
-        response.put("timestamp", System.currentTimeMillis());
-        response.put("message", "pong");
-
-        return ResponseEntity.ok(response);
+    public WebAsyncTask<ResponseEntity<byte[]>> heartbeat(@RequestBody HeartbeatRequest heartbeat) {
+        return lanes.submit(Lane.CONTROL, () -> {
+            ingestService.heartbeat(heartbeat);
+            return responses.heartbeat(System.currentTimeMillis());
+        });
     }
 
     @Data
     public static class LogRequest {
+        private String deviceId;
         private String level;
         private String tag;
         private String message;
@@ -68,4 +69,7 @@ public class DataController {
         private String version;
         private Long timestamp;
     }
+
+    public record ReportResponse(boolean success, String message, String timestamp, int dataSize) {
+    }
 }
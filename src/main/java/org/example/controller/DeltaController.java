@@ -0,0 +1,160 @@
+package org.example.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.delta.BlockSignature;
+import org.example.delta.DeltaResult;
+import org.example.delta.DeltaService;
+import org.example.lane.ExecutionLanes;
+import org.example.lane.Lane;
+import org.example.storage.StorageBackend;
+import org.example.storage.StoredObject;
+import org.example.storage.UploadDirectory;
+import org.example.transfer.BandwidthScheduler;
+import org.example.transfer.TransferEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * 差量下载：客户端上传旧文件的块签名，服务端只返回变化的数据和复制指令；
+ * 签名和差量格式见 BlockSignature 和 DeltaWriter，客户端按 DeltaPatcher 重建文件并校验 SHA-256
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/file/delta")
+public class DeltaController {
+
+    private final DeltaService deltas;
+    private final StorageBackend backend;
+    private final UploadDirectory uploadDirectory;
+    private final ExecutionLanes lanes;
+    private final BandwidthScheduler bandwidth;
+
+    public DeltaController(DeltaService deltas, StorageBackend backend, UploadDirectory uploadDirectory,
+                           ExecutionLanes lanes, BandwidthScheduler bandwidth) {
+        this.deltas = deltas;
+        this.backend = backend;
+        this.uploadDirectory = uploadDirectory;
+        this.lanes = lanes;
+        this.bandwidth = bandwidth;
+    }
+
+    /**
+     * 服务端文件的签名，供上传方向的差量或客户端判断文件是否变化；默认块大小的签名通常已预先计算
+     */
+    @GetMapping("/signature")
+    public WebAsyncTask<ResponseEntity<Void>> signature(@RequestParam String path,
+                                                        @RequestParam(required = false) Integer blockSize,
+                                                        HttpServletResponse response) {
+        return lanes.submit(Lane.BULK, () -> {
+            StoredObject object;
+            try {
+                object = backend.stat(uploadDirectory.resolveKey(path));
+            } catch (SecurityException e) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (object == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (object.directory()) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            BlockSignature signature;
+            try {
+                signature = deltas.signature(object, blockSize);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setContentLengthLong(signature.encodedLength());
+            try (OutputStream out = response.getOutputStream()) {
+                signature.write(out);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 请求体为客户端旧文件的签名，响应为差量流；客户端没有旧文件时应直接完整下载
+     */
+    @PostMapping
+    public WebAsyncTask<ResponseEntity<Void>> delta(@RequestParam String path, HttpServletRequest request,
+                                                    HttpServletResponse response) {
+        return lanes.submit(Lane.BULK, () -> {
+            StoredObject object;
+            try {
+                object = backend.stat(uploadDirectory.resolveKey(path));
+            } catch (SecurityException e) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (object == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (object.directory()) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            BlockSignature basis;
+            try (InputStream in = request.getInputStream()) {
+                basis = deltas.readSignature(in);
+                deltas.requireBlockSize(object, basis.getBlockSize());
+            } catch (IllegalArgumentException e) {
+                log.debug("Invalid delta signature for {}: {}", path, e.getMessage());
+                return ResponseEntity.badRequest().build();
+            }
+
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            try (BandwidthScheduler.Flow flow = bandwidth.open(request, TransferEndpoint.DOWNLOAD, object.key(), null);
+                 OutputStream out = new ShapedOutputStream(response.getOutputStream(), flow)) {
+                DeltaResult result = deltas.encode(object, basis, out);
+                log.debug("Delta for {}: {} bytes copied, {} bytes sent", object.key(), result.copiedBytes(),
+                        result.literalBytes());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 每次写出前向带宽调度申请额度，差量与普通下载共享下载方向的带宽
+     */
+    private static final class ShapedOutputStream extends FilterOutputStream {
+
+        private final BandwidthScheduler.Flow flow;
+
+        ShapedOutputStream(OutputStream out, BandwidthScheduler.Flow flow) {
+            super(out);
+            this.flow = flow;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                while (len > 0) {
+                    int granted = flow.acquire(len);
+                    out.write(b, off, granted);
+                    off += granted;
+                    len -= granted;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for bandwidth");
+            }
+        }
+    }
+}
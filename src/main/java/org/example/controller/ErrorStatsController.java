@@ -0,0 +1,26 @@
+package org.example.controller;
+
+import org.example.exception.ErrorStats;
+import org.example.exception.ErrorTracker;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class ErrorStatsController {
+
+    private final ErrorTracker errorTracker;
+
+    public ErrorStatsController(ErrorTracker errorTracker) {
+        this.errorTracker = errorTracker;
+    }
+
+    /**
+     * 按指纹归并的 500 错误次数，按次数降序
+     */
+    @GetMapping("/api/errors")
+    public List<ErrorStats> errors() {
+        return errorTracker.stats();
+    }
+}
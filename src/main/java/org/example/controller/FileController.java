@@ -1,75 +1,104 @@
 package org.example.controller;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.example.cluster.ClusterNode;
+import org.example.changes.ChangeJournal;
+import org.example.changes.ChangeType;
+import org.example.cluster.ClusterService;
+import org.example.lane.ExecutionLanes;
+import org.example.lane.Lane;
+import org.example.metrics.DiskOp;
+import org.example.metrics.MetricsRegistry;
+import org.example.search.DirectoryUsage;
+import org.example.search.FileSearchService;
+import org.example.storage.FileInfo;
+import org.example.storage.StorageBackend;
+import org.example.storage.StorageWriter;
+import org.example.storage.StoredObject;
+import org.example.storage.UploadDirectory;
+import org.example.transfer.AsyncFileSender;
+import org.example.transfer.BandwidthScheduler;
+import org.example.transfer.TransferEndpoint;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.util.WebUtils;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/file")
 public class FileController {
 
-    private static final String UPLOAD_DIR = "uploads";
-    private Path basePath;
-
-    public FileController() {
-        try {
-            this.basePath = Paths.get(UPLOAD_DIR).toAbsolutePath().normalize();
-            Files.createDirectories(basePath);
-        } catch (IOException e) {
-            log.error("Failed to create upload directory", e);
-        }
-    }
-
-    /**
-     * 安全方法：验证路径是否在允许的基础目录内
-     */
-    private boolean isPathSafe(Path requestedPath) {
-        Path normalized = requestedPath.normalize();
-        return normalized.startsWith(basePath);
-    }
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private final UploadDirectory uploadDirectory;
+    private final StorageBackend backend;
+    private final ExecutionLanes lanes;
+    private final AsyncFileSender fileSender;
+    private final BandwidthScheduler bandwidth;
+    private final MetricsRegistry metrics;
+    private final ClusterService cluster;
+    private final ChangeJournal changes;
+    private final FileSearchService index;
 
     /**
-     * 安全方法：解析路径并确保安全
+     * uploadDirectory 只负责把用户输入的路径解析为存储键，文件实际读写都经由 backend；
+     * 启用集群时写入和删除在本地完成后交给 cluster 异步同步到其他节点，同时记入变更日志；
+     * 目录列表中的目录用量取自 index，不遍历子树
      */
-    private Path resolveSafePath(String inputPath) throws IOException {
-        Path requestedPath = Paths.get(inputPath).normalize();
-
-        // 如果是相对路径，基于上传目录解析
-        if (!requestedPath.isAbsolute()) {
-            requestedPath = basePath.resolve(requestedPath).normalize();
-        }
-
-        // 防止目录遍历攻击
-        if (!isPathSafe(requestedPath)) {
-            throw new SecurityException("Path traversal detected: " + inputPath);
-        }
-
-        return requestedPath;
+    public FileController(UploadDirectory uploadDirectory, StorageBackend backend, ExecutionLanes lanes,
+                          AsyncFileSender fileSender, BandwidthScheduler bandwidth, MetricsRegistry metrics,
+                          ClusterService cluster, ChangeJournal changes, FileSearchService index) {
+        this.uploadDirectory = uploadDirectory;
+        this.backend = backend;
+        this.lanes = lanes;
+        this.fileSender = fileSender;
+        this.bandwidth = bandwidth;
+        this.metrics = metrics;
+        this.cluster = cluster;
+        this.changes = changes;
+        this.index = index;
     }
 
     // ==================== POST 接口：修改操作 ====================
 
+    /**
+     * multipart 按需解析，请求体在 bulk 通道线程上读取，慢速上传不占用 Tomcat 工作线程
+     */
     @PostMapping("/upload")
-    public ResponseEntity<Map<String, Object>> uploadFile(
-            @RequestParam("file") MultipartFile file,
-            @RequestParam(value = "category", required = false) String category) {
+    public WebAsyncTask<ResponseEntity<Map<String, Object>>> uploadFile(HttpServletRequest request) {
+        return lanes.submit(Lane.BULK, () -> {
+            MultipartHttpServletRequest multipart =
+                    WebUtils.getNativeRequest(request, MultipartHttpServletRequest.class);
+            MultipartFile file = multipart != null ? multipart.getFile("file") : null;
+            if (file == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", "File is required");
+                return ResponseEntity.badRequest().body(response);
+            }
+            return storeUpload(request, file, multipart.getParameter("category"));
+        });
+    }
 
+    private ResponseEntity<Map<String, Object>> storeUpload(HttpServletRequest request, MultipartFile file,
+                                                            String category) {
         Map<String, Object> response = new HashMap<>();
 
         if (file.isEmpty()) {
@@ -88,27 +117,47 @@ public class FileController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            Path targetPath = basePath.resolve(originalFilename).normalize();
-
-            // 再次确保路径安全
-            if (!isPathSafe(targetPath)) {
+            String key;
+            try {
+                // 再次确保路径安全
+                key = uploadDirectory.resolveKey(originalFilename);
+            } catch (SecurityException e) {
                 response.put("success", false);
                 response.put("message", "Access denied: invalid file path");
                 return ResponseEntity.status(403).body(response);
             }
 
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+            boolean existed = stat(key) != null;
+            try (BandwidthScheduler.Flow flow = bandwidth.open(request, TransferEndpoint.UPLOAD,
+                    originalFilename, category);
+                 InputStream in = file.getInputStream();
+                 StorageWriter out = backend.put(key)) {
+                long start = System.nanoTime();
+                copy(in, out, flow);
+                out.commit();
+                metrics.recordDiskOp(DiskOp.COPY, start);
+            }
+            StoredObject stored = stat(key);
+            if (stored != null) {
+                changes.record(existed ? ChangeType.UPDATED : ChangeType.CREATED, stored);
+            }
+            cluster.onWrite(key);
 
             response.put("success", true);
             response.put("message", "File uploaded successfully");
             response.put("filename", originalFilename);
             response.put("size", file.getSize());
             response.put("category", category);
-            response.put("path", basePath.relativize(targetPath).toString());
+            response.put("path", key);
 
-            log.info("File uploaded: {}, size: {}", originalFilename, file.getSize());
+            log.debug("File uploaded: {}, size: {}", originalFilename, file.getSize());
             return ResponseEntity.ok(response);
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.put("success", false);
+            response.put("message", "Upload interrupted");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         } catch (IOException e) {
             log.error("Failed to upload file", e);
             response.put("success", false);
@@ -130,24 +179,29 @@ public class FileController {
                 return ResponseEntity.status(403).body(response);
             }
 
-            Path filePath = basePath.resolve(filename).normalize();
-
-            // 确保路径在允许的目录内
-            if (!isPathSafe(filePath)) {
+            String key;
+            try {
+                // 确保路径在允许的目录内
+                key = uploadDirectory.resolveKey(filename);
+            } catch (SecurityException e) {
                 log.warn("Access denied to delete: {}", filename);
                 response.put("success", false);
                 response.put("message", "Access denied: invalid file path");
                 return ResponseEntity.status(403).body(response);
             }
 
-            if (!Files.exists(filePath)) {
+            StoredObject object = stat(key);
+            if (object == null) {
                 response.put("success", false);
                 response.put("message", "File not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            long size = Files.size(filePath);
-            Files.delete(filePath);
+            // 只能删除空目录，目录的大小按 0 计
+            long size = object.directory() ? 0 : object.size();
+            delete(key);
+            changes.recordDelete(key, object.directory());
+            cluster.onDelete(key);
 
             response.put("success", true);
             response.put("message", "File deleted successfully");
@@ -165,14 +219,20 @@ public class FileController {
         }
     }
 
+    /**
+     * 可能递归删除整个目录，走 bulk 通道
+     */
     @PostMapping("/delete/path")
-    public ResponseEntity<Map<String, Object>> deleteByPath(
+    public WebAsyncTask<ResponseEntity<Map<String, Object>>> deleteByPath(
             @RequestParam(required = false) String path,
             @RequestBody(required = false) Map<String, String> body) {
 
-        Map<String, Object> response = new HashMap<>();
-
         String targetPath = path != null ? path : (body != null ? body.get("path") : null);
+        return lanes.submit(Lane.BULK, () -> deletePath(targetPath));
+    }
+
+    private ResponseEntity<Map<String, Object>> deletePath(String targetPath) {
+        Map<String, Object> response = new HashMap<>();
 
         if (targetPath == null || targetPath.isEmpty()) {
             response.put("success", false);
@@ -181,43 +241,52 @@ public class FileController {
         }
 
         try {
-            Path requestedPath = resolveSafePath(targetPath);
+            String key = uploadDirectory.resolveKey(targetPath);
+            StoredObject object = stat(key);
 
-            if (!Files.exists(requestedPath)) {
+            if (object == null) {
                 response.put("success", false);
                 response.put("message", "File or directory not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
             // 记录删除前的信息
-            boolean isDirectory = Files.isDirectory(requestedPath);
-            String name = requestedPath.getFileName().toString();
-            long size = Files.size(requestedPath);
+            boolean isDirectory = object.directory();
+            String name = key.isEmpty() ? uploadDirectory.getBasePath().getFileName().toString() : object.name();
+            long size = isDirectory ? 0 : object.size();
 
             // 删除文件或目录
             if (isDirectory) {
-                // 递归删除目录
-                Files.walk(requestedPath)
-                        .sorted((a, b) -> b.compareTo(a))
-                        .forEach(p -> {
-                            try {
-                                Files.delete(p);
-                            } catch (IOException e) {
-                                log.warn("Failed to delete: {}", p, e);
-                            }
-                        });
+                // 递归删除目录，根目录本身保留；大小为实际删除的文件大小之和
+                for (StoredObject child : walk(key)) {
+                    if (child.key().isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        delete(child.key());
+                        changes.recordDelete(child.key(), child.directory());
+                        if (!child.directory()) {
+                            size += child.size();
+                            cluster.onDelete(child.key());
+                        }
+                    } catch (IOException e) {
+                        log.warn("Failed to delete: {}", child.key(), e);
+                    }
+                }
             } else {
-                Files.delete(requestedPath);
+                delete(key);
+                changes.recordDelete(key, false);
+                cluster.onDelete(key);
             }
 
             response.put("success", true);
             response.put("message", "Deleted successfully");
             response.put("name", name);
-            response.put("path", basePath.relativize(requestedPath).toString());
+            response.put("path", key);
             response.put("type", isDirectory ? "directory" : "file");
             response.put("size", size);
 
-            log.info("Deleted: {} ({} bytes)", requestedPath, size);
+            log.info("Deleted: {} ({} bytes)", key, size);
             return ResponseEntity.ok(response);
 
         } catch (SecurityException e) {
@@ -234,32 +303,36 @@ public class FileController {
     }
 
     @PostMapping("/clean")
-    public ResponseEntity<Map<String, Object>> cleanUploads() {
+    public WebAsyncTask<ResponseEntity<Map<String, Object>>> cleanUploads() {
+        return lanes.submit(Lane.BULK, this::cleanAll);
+    }
+
+    private ResponseEntity<Map<String, Object>> cleanAll() {
         Map<String, Object> response = new HashMap<>();
 
-        try (Stream<Path> stream = Files.walk(basePath)) {
+        try {
             // 统计要删除的文件
-            var filesToDelete = stream
-                    .filter(p -> !p.equals(basePath)) // 不删除根目录
-                    .sorted((a, b) -> b.compareTo(a)) // 反向排序，先删除文件再删除目录
+            var filesToDelete = walk("").stream()
+                    .filter(object -> !object.key().isEmpty()) // 不删除根目录
                     .toList();
 
             int fileCount = 0;
             int dirCount = 0;
             long totalSize = 0;
 
-            for (Path path : filesToDelete) {
+            for (StoredObject object : filesToDelete) {
                 try {
-                    if (Files.isDirectory(path)) {
-                        Files.deleteIfExists(path);
+                    delete(object.key());
+                    changes.recordDelete(object.key(), object.directory());
+                    if (object.directory()) {
                         dirCount++;
                     } else {
-                        totalSize += Files.size(path);
-                        Files.deleteIfExists(path);
+                        totalSize += object.size();
                         fileCount++;
+                        cluster.onDelete(object.key());
                     }
                 } catch (IOException e) {
-                    log.warn("Failed to delete: {}", path, e);
+                    log.warn("Failed to delete: {}", object.key(), e);
                 }
             }
 
@@ -285,7 +358,10 @@ public class FileController {
     // ==================== GET 接口：查询操作 ====================
 
     @GetMapping("/download/{filename}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String filename) {
+    public ResponseEntity<Void> downloadFile(
+            @PathVariable String filename,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletRequest request, HttpServletResponse response) {
         try {
             // 安全检查：防止路径遍历
             if (filename.contains("..") || filename.contains("/") || filename.contains("\\")) {
@@ -293,37 +369,26 @@ public class FileController {
                 return ResponseEntity.status(403).build();
             }
 
-            Path filePath = basePath.resolve(filename).normalize();
-
-            // 确保路径在允许的目录内
-            if (!isPathSafe(filePath)) {
+            String key;
+            try {
+                // 确保路径在允许的目录内
+                key = uploadDirectory.resolveKey(filename);
+            } catch (SecurityException e) {
                 log.warn("Access denied to file: {}", filename);
                 return ResponseEntity.status(403).build();
             }
 
-            if (!Files.exists(filePath) || !Files.isReadable(filePath)) {
-                return ResponseEntity.notFound().build();
+            StoredObject object = stat(key);
+            if (object == null) {
+                return downloadFromPeer(key, range, request, response);
             }
 
-            if (Files.isDirectory(filePath)) {
+            if (object.directory()) {
                 return ResponseEntity.badRequest().build();
             }
 
-            Resource resource = new UrlResource(filePath.toUri());
-
-            // 检测 MIME 类型
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
-            }
-
-            log.info("File downloaded: {}", filePath);
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=\"" + filename + "\"")
-                    .body(resource);
+            log.debug("File downloaded: {}", key);
+            return sendFile(object, filename, range, request, response);
 
         } catch (IOException e) {
             log.error("Failed to download file: {}", filename, e);
@@ -335,11 +400,12 @@ public class FileController {
     public ResponseEntity<Map<String, Object>> listFiles() {
         Map<String, Object> response = new HashMap<>();
 
+        long start = System.nanoTime();
         try {
-            var files = Files.list(basePath)
-                    .map(Path::getFileName)
-                    .map(Path::toString)
+            var files = backend.list("").stream()
+                    .map(StoredObject::name)
                     .toList();
+            metrics.recordDiskOp(DiskOp.LIST, start);
 
             response.put("success", true);
             response.put("files", files);
@@ -360,26 +426,27 @@ public class FileController {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            Path requestedPath = resolveSafePath(path);
+            String key = uploadDirectory.resolveKey(path);
+            StoredObject object = stat(key);
 
-            if (!Files.exists(requestedPath)) {
+            if (object == null) {
                 response.put("success", false);
                 response.put("message", "Path does not exist");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            if (!Files.isDirectory(requestedPath)) {
+            if (!object.directory()) {
                 response.put("success", false);
                 response.put("message", "Path is not a directory");
                 return ResponseEntity.badRequest().body(response);
             }
 
-            var fileInfoList = Files.list(requestedPath)
-                    .map(this::toFileInfo)
-                    .toList();
+            long start = System.nanoTime();
+            List<FileInfo> fileInfoList = backend.list(key).stream().map(this::toFileInfo).toList();
+            metrics.recordDiskOp(DiskOp.LIST, start);
 
             response.put("success", true);
-            response.put("path", basePath.relativize(requestedPath).toString());
+            response.put("path", key);
             response.put("files", fileInfoList);
             response.put("count", fileInfoList.size());
 
@@ -399,38 +466,28 @@ public class FileController {
     }
 
     @GetMapping("/download/path")
-    public ResponseEntity<Resource> downloadByPath(@RequestParam(required = false) String path) {
+    public ResponseEntity<Void> downloadByPath(
+            @RequestParam(required = false) String path,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletRequest request, HttpServletResponse response) {
         if (path == null || path.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
 
         try {
-            Path requestedPath = resolveSafePath(path);
+            String key = uploadDirectory.resolveKey(path);
+            StoredObject object = stat(key);
 
-            if (!Files.exists(requestedPath) || !Files.isReadable(requestedPath)) {
-                return ResponseEntity.notFound().build();
+            if (object == null) {
+                return downloadFromPeer(key, range, request, response);
             }
 
-            if (Files.isDirectory(requestedPath)) {
+            if (object.directory()) {
                 return ResponseEntity.badRequest().build();
             }
 
-            Resource resource = new UrlResource(requestedPath.toUri());
-            String filename = requestedPath.getFileName().toString();
-
-            // 检测 MIME 类型
-            String contentType = Files.probeContentType(requestedPath);
-            if (contentType == null) {
-                contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
-            }
-
-            log.info("File downloaded: {}", requestedPath);
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=\"" + filename + "\"")
-                    .body(resource);
+            log.debug("File downloaded: {}", key);
+            return sendFile(object, object.name(), range, request, response);
 
         } catch (SecurityException e) {
             log.warn("Security exception: {}", e.getMessage());
@@ -441,17 +498,165 @@ public class FileController {
         }
     }
 
-    private Map<String, Object> toFileInfo(Path path) {
-        Map<String, Object> info = new HashMap<>();
+    /**
+     * 本地没有的文件交给持有副本的节点：307 重定向或由本节点代理；其他节点转来的请求不再转发。
+     * 查找和代理都是异步的，等待其他节点期间不占用请求线程
+     */
+    private ResponseEntity<Void> downloadFromPeer(String key, String range, HttpServletRequest request,
+                                                  HttpServletResponse response) {
+        if (!cluster.isEnabled() || cluster.isPeerRequest(request) || cluster.isKnownMissing(key)) {
+            return ResponseEntity.notFound().build();
+        }
+        AsyncContext context = request.startAsync();
+        cluster.locateAsync(key).whenComplete((holder, error) -> {
+            if (error != null || holder.isEmpty()) {
+                completeAsync(context, response, HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            ClusterNode node = holder.get();
+            if (!cluster.isProxyDownloads()) {
+                log.debug("Redirecting download of {} to {}", key, node.id());
+                response.setHeader(HttpHeaders.LOCATION, cluster.redirectUri(node, key).toString());
+                completeAsync(context, response, HttpStatus.TEMPORARY_REDIRECT.value());
+                return;
+            }
+            log.debug("Proxying download of {} from {}", key, node.id());
+            cluster.openDownload(node, key, range).whenComplete((download, failure) -> {
+                if (failure != null) {
+                    log.warn("Proxying download of {} from {} failed: {}", key, node.id(), failure.toString());
+                    completeAsync(context, response, HttpStatus.BAD_GATEWAY.value());
+                    return;
+                }
+                response.setStatus(download.status());
+                download.headers().forEach(response::setHeader);
+                response.setContentLengthLong(download.length());
+                try {
+                    BandwidthScheduler.Flow flow = bandwidth.open(request, TransferEndpoint.DOWNLOAD, key, null);
+                    fileSender.start(context, response, download.body(), 0, download.length(), flow);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Proxying download of {} failed", key, e);
+                    completeAsync(context, response, HttpStatus.INTERNAL_SERVER_ERROR.value());
+                }
+            });
+        });
+        return null;
+    }
+
+    /**
+     * 以给定状态码结束异步请求；响应已提交时只结束请求
+     */
+    private static void completeAsync(AsyncContext context, HttpServletResponse response, int status) {
+        if (!response.isCommitted()) {
+            response.setStatus(status);
+        }
+        try {
+            context.complete();
+        } catch (IllegalStateException ignored) {
+            // 容器已结束该请求
+        }
+    }
+
+    /**
+     * 目录条目带上索引维护的子树用量，索引未就绪时不输出大小
+     */
+    private FileInfo toFileInfo(StoredObject object) {
+        FileInfo info = FileInfo.of(object);
+        if (!object.directory()) {
+            return info;
+        }
+        DirectoryUsage usage = index.usage(object.key());
+        return usage != null ? info.withUsage(usage.bytes(), usage.files()) : info;
+    }
+
+    private StoredObject stat(String key) throws IOException {
+        long start = System.nanoTime();
         try {
-            info.put("name", path.getFileName().toString());
-            info.put("isDirectory", Files.isDirectory(path));
-            info.put("isFile", Files.isRegularFile(path));
-            info.put("size", Files.size(path));
-            info.put("lastModified", Files.getLastModifiedTime(path).toMillis());
-        } catch (IOException e) {
-            log.warn("Failed to get file info: {}", path, e);
+            return backend.stat(key);
+        } finally {
+            metrics.recordDiskOp(DiskOp.STAT, start);
+        }
+    }
+
+    /**
+     * 遍历整棵目录树，文件排在所在目录之前
+     */
+    private List<StoredObject> walk(String key) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return backend.walk(key);
+        } finally {
+            metrics.recordDiskOp(DiskOp.WALK, start);
+        }
+    }
+
+    private void delete(String key) throws IOException {
+        long start = System.nanoTime();
+        backend.delete(key);
+        metrics.recordDiskOp(DiskOp.DELETE, start);
+    }
+
+    /**
+     * 写盘循环，每块写入前向带宽调度申请额度
+     */
+    private void copy(InputStream in, OutputStream out, BandwidthScheduler.Flow flow)
+            throws IOException, InterruptedException {
+        byte[] chunk = new byte[COPY_BUFFER_SIZE];
+        while (true) {
+            int read = in.read(chunk, 0, flow.acquire(chunk.length));
+            if (read < 0) {
+                return;
+            }
+            out.write(chunk, 0, read);
+            metrics.addUploadBytes(read);
+        }
+    }
+
+    /**
+     * 响应头写好后由 AsyncFileSender 非阻塞发送，返回 null 表示响应已由发送器接管；
+     * 支持单个 Range 区间断点续传，多区间时返回整个文件
+     */
+    private ResponseEntity<Void> sendFile(StoredObject object, String filename, String range,
+                                          HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        long length = object.size();
+
+        // 按扩展名推断 MIME 类型，不依赖后端
+        String contentType = MediaTypeFactory.getMediaType(filename)
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+        if (range != null && !range.isEmpty()) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range not satisfiable: " + range);
+                    }
+                    partial = true;
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+        }
+
+        long count = end - start + 1;
+        response.setStatus(partial ? HttpStatus.PARTIAL_CONTENT.value() : HttpStatus.OK.value());
+        response.setContentType(contentType);
+        response.setContentLengthLong(count);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        if (partial) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
         }
-        return info;
+        BandwidthScheduler.Flow flow = bandwidth.open(request, TransferEndpoint.DOWNLOAD, object.key(), null);
+        fileSender.send(request, response, backend, object.key(), start, count, flow);
+        return null;
     }
 }
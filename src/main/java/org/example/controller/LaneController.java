@@ -0,0 +1,26 @@
+package org.example.controller;
+
+import org.example.lane.ExecutionLanes;
+import org.example.lane.LaneStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+public class LaneController {
+
+    private final ExecutionLanes lanes;
+
+    public LaneController(ExecutionLanes lanes) {
+        this.lanes = lanes;
+    }
+
+    /**
+     * 各执行通道的并发、排队、拒绝与排队等待时间
+     */
+    @GetMapping("/api/lanes")
+    public Map<String, LaneStats> lanes() {
+        return lanes.stats();
+    }
+}
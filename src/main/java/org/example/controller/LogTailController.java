@@ -0,0 +1,45 @@
+package org.example.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.logtail.LogTailBroadcaster;
+import org.example.logtail.LogTailFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/data/log")
+public class LogTailController {
+
+    private final LogTailBroadcaster broadcaster;
+
+    public LogTailController(LogTailBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * 实时推送 /api/data/log 收到的日志，可按最低级别、标签、设备过滤；
+     * 响应由广播器以非阻塞方式写出
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void stream(
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) String deviceId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        LogTailFilter filter = new LogTailFilter(level, tag, deviceId);
+        try {
+            broadcaster.subscribe(filter, lastEventId, request, response);
+        } catch (IllegalStateException e) {
+            log.warn("Rejected log tail subscriber: {}", e.getMessage());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+    }
+}
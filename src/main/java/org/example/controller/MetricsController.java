@@ -0,0 +1,25 @@
+package org.example.controller;
+
+import org.example.metrics.MetricsRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnProperty(prefix = "harmony.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsController {
+
+    private final MetricsRegistry registry;
+
+    public MetricsController(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Prometheus 文本格式的请求耗时、磁盘操作耗时、传输字节数、通道排队和缓存命中率
+     */
+    @GetMapping(value = "/metrics", produces = MetricsRegistry.CONTENT_TYPE)
+    public String metrics() {
+        return registry.scrape();
+    }
+}
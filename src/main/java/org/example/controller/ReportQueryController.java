@@ -0,0 +1,61 @@
+package org.example.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.columnar.ColumnarQueryService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/data/report")
+public class ReportQueryController {
+
+    private static final long DEFAULT_RANGE_MILLIS = 7L * 24 * 3600 * 1000;
+
+    private final ColumnarQueryService queryService;
+
+    public ReportQueryController(ColumnarQueryService queryService) {
+        this.queryService = queryService;
+    }
+
+    @GetMapping("/aggregate")
+    public ResponseEntity<Map<String, Object>> aggregate(
+            @RequestParam String metric,
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false) Double min,
+            @RequestParam(required = false) Double max,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_RANGE_MILLIS;
+
+        try {
+            ColumnarQueryService.AggregateResult result = queryService.aggregate(metric, groupBy, min, max, start, end);
+
+            response.put("success", true);
+            response.put("metric", metric);
+            response.put("groupBy", groupBy);
+            response.put("min", min);
+            response.put("max", max);
+            response.put("from", start);
+            response.put("to", end);
+            response.put("groups", result.getGroups());
+            response.put("scan", result.getStats());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IOException e) {
+            log.error("Failed to aggregate report data: {}", metric, e);
+            response.put("success", false);
+            response.put("message", "Failed to aggregate: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+}
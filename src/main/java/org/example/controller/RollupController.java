@@ -0,0 +1,68 @@
+package org.example.controller;
+
+import org.example.rollup.RollupPoint;
+import org.example.rollup.RollupResolution;
+import org.example.rollup.RollupService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/data/rollup")
+public class RollupController {
+
+    private final RollupService rollupService;
+
+    public RollupController(RollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> query(
+            @RequestParam String deviceId,
+            @RequestParam String metric,
+            @RequestParam(required = false) String resolution,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        RollupResolution res = RollupResolution.parse(resolution);
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - res.getWidthMillis() * 60;
+
+        if (start > end) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        List<RollupPoint> points = rollupService.query(deviceId, metric, res, start, end);
+
+        response.put("success", true);
+        response.put("deviceId", deviceId);
+        response.put("metric", metric);
+        response.put("resolution", res.name().toLowerCase());
+        response.put("from", start);
+        response.put("to", end);
+        response.put("points", points);
+        response.put("count", points.size());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics(@RequestParam String deviceId) {
+        Map<String, Object> response = new HashMap<>();
+
+        List<String> metrics = rollupService.metrics(deviceId);
+
+        response.put("success", true);
+        response.put("deviceId", deviceId);
+        response.put("metrics", metrics);
+        response.put("count", metrics.size());
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.search.FileSearchService;
+import org.example.search.SearchProperties;
+import org.example.search.SearchQuery;
+import org.example.search.SearchResult;
+import org.example.storage.UploadDirectory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/file")
+public class SearchController {
+
+    private final FileSearchService search;
+    private final SearchProperties properties;
+    private final UploadDirectory uploadDirectory;
+
+    public SearchController(FileSearchService search, SearchProperties properties, UploadDirectory uploadDirectory) {
+        this.search = search;
+        this.properties = properties;
+        this.uploadDirectory = uploadDirectory;
+    }
+
+    /**
+     * 按名称搜索上传目录：q 为子串，prefix 为前缀，ext 为扩展名，至少指定一项；
+     * path 限定在某个目录下，type 为 file 或 directory 时只返回该类型
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> search(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) String ext,
+            @RequestParam(required = false) String path,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Integer limit) {
+        Map<String, Object> response = new HashMap<>();
+        if (!properties.isEnabled()) {
+            response.put("success", false);
+            response.put("message", "Search is disabled");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        Boolean directories = null;
+        if ("file".equalsIgnoreCase(type)) {
+            directories = false;
+        } else if ("directory".equalsIgnoreCase(type)) {
+            directories = true;
+        } else if (type != null && !type.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "type must be file or directory");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        String under;
+        try {
+            under = path == null || path.isEmpty() ? null : uploadDirectory.resolveKey(path);
+        } catch (SecurityException e) {
+            log.warn("Security exception: {}", e.getMessage());
+            response.put("success", false);
+            response.put("message", "Access denied: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+
+        int max = Math.min(limit != null && limit > 0 ? limit : properties.getDefaultLimit(), properties.getMaxLimit());
+        SearchQuery query = new SearchQuery(q, prefix, ext, under, directories, max);
+        if (!query.hasNameCriteria()) {
+            response.put("success", false);
+            response.put("message", "One of q, prefix or ext is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        SearchResult result = search.search(query);
+        if (result == null) {
+            response.put("success", false);
+            response.put("message", "Search index is being built");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+
+        response.put("success", true);
+        response.put("results", result.hits());
+        response.put("count", result.hits().size());
+        response.put("truncated", result.truncated());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.search.DirectoryUsage;
+import org.example.search.FileSearchService;
+import org.example.search.SearchProperties;
+import org.example.storage.UploadDirectory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/file")
+public class UsageController {
+
+    private final FileSearchService index;
+    private final SearchProperties properties;
+    private final UploadDirectory uploadDirectory;
+
+    public UsageController(FileSearchService index, SearchProperties properties, UploadDirectory uploadDirectory) {
+        this.index = index;
+        this.properties = properties;
+        this.uploadDirectory = uploadDirectory;
+    }
+
+    /**
+     * 目录下全部文件的总大小和文件数，取自内存中按写入和删除增量维护的汇总，不遍历磁盘；
+     * 不带 path 时为整个上传目录
+     */
+    @GetMapping("/usage")
+    public ResponseEntity<Map<String, Object>> usage(@RequestParam(required = false) String path) {
+        Map<String, Object> response = new HashMap<>();
+        if (!properties.isEnabled()) {
+            response.put("success", false);
+            response.put("message", "Path index is disabled");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        String key;
+        try {
+            key = path == null || path.isEmpty() ? "" : uploadDirectory.resolveKey(path);
+        } catch (SecurityException e) {
+            log.warn("Security exception: {}", e.getMessage());
+            response.put("success", false);
+            response.put("message", "Access denied: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+
+        if (!index.isReady()) {
+            response.put("success", false);
+            response.put("message", "Path index is being built");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        DirectoryUsage usage = index.usage(key);
+        if (usage == null) {
+            response.put("success", false);
+            response.put("message", "Path does not exist");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        response.put("success", true);
+        response.put("path", key);
+        response.put("type", usage.directory() ? "directory" : "file");
+        response.put("bytes", usage.bytes());
+        response.put("files", usage.files());
+        return ResponseEntity.ok(response);
+    }
+}
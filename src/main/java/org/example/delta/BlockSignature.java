@@ -0,0 +1,220 @@
+package org.example.delta;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * 文件的分块签名：每块一个 32 位弱校验和（RollingChecksum）和 MD5 的前 strongLength 字节，最后一块可能不足 blockSize
+ * 二进制格式："HSIG" 版本(1) blockSize(4) fileSize(8) strongLength(1) blockCount(4)，之后每块 weak(4) strong
+ * 服务端计算的签名另带整个文件的 SHA-256，供生成差量时写入响应头部，不在签名格式中传输
+ */
+public final class BlockSignature {
+
+    static final int MIN_BLOCK_SIZE = 512;
+    static final int MAX_BLOCK_SIZE = 1 << 20;
+    static final int MAX_STRONG_LENGTH = 16;
+    private static final int MIN_STRONG_LENGTH = 4;
+    private static final byte[] MAGIC = {'H', 'S', 'I', 'G'};
+    private static final int VERSION = 1;
+
+    private final int blockSize;
+    private final long fileSize;
+    private final int strongLength;
+    private final int[] weak;
+    private final byte[] strong;
+    private final byte[] fileDigest;
+
+    private BlockSignature(int blockSize, long fileSize, int strongLength, int[] weak, byte[] strong,
+                           byte[] fileDigest) {
+        this.blockSize = blockSize;
+        this.fileSize = fileSize;
+        this.strongLength = strongLength;
+        this.weak = weak;
+        this.strong = strong;
+        this.fileDigest = fileDigest;
+    }
+
+    /**
+     * 顺序读取 size 字节计算签名，同时计算整个文件的 SHA-256
+     */
+    public static BlockSignature compute(InputStream in, long size, int blockSize, int strongLength)
+            throws IOException {
+        validate(blockSize, strongLength, size);
+        int count = blockCount(size, blockSize);
+        int[] weak = new int[count];
+        byte[] strong = new byte[count * strongLength];
+        MessageDigest md5 = md5();
+        MessageDigest sha256 = sha256();
+        byte[] block = new byte[blockSize];
+        for (int i = 0; i < count; i++) {
+            int length = (int) Math.min(blockSize, size - (long) i * blockSize);
+            readFully(in, block, length);
+            weak[i] = RollingChecksum.of(block, 0, length);
+            md5.update(block, 0, length);
+            System.arraycopy(md5.digest(), 0, strong, i * strongLength, strongLength);
+            sha256.update(block, 0, length);
+        }
+        return new BlockSignature(blockSize, size, strongLength, weak, strong, sha256.digest());
+    }
+
+    /**
+     * 读取客户端上传的签名，块数超过 maxBlocks 或格式不符时抛出 IllegalArgumentException
+     */
+    public static BlockSignature read(InputStream input, int maxBlocks) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        byte[] magic = new byte[MAGIC.length];
+        try {
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readUnsignedByte() != VERSION) {
+                throw new IllegalArgumentException("Not a block signature");
+            }
+            int blockSize = in.readInt();
+            long fileSize = in.readLong();
+            int strongLength = in.readUnsignedByte();
+            int count = in.readInt();
+            validate(blockSize, strongLength, fileSize);
+            if (count != blockCount(fileSize, blockSize)) {
+                throw new IllegalArgumentException("Block count does not match file size");
+            }
+            if (count > maxBlocks) {
+                throw new IllegalArgumentException("Signature has " + count + " blocks, limit is " + maxBlocks);
+            }
+            int[] weak = new int[count];
+            byte[] strong = new byte[count * strongLength];
+            for (int i = 0; i < count; i++) {
+                weak[i] = in.readInt();
+                in.readFully(strong, i * strongLength, strongLength);
+            }
+            return new BlockSignature(blockSize, fileSize, strongLength, weak, strong, null);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Truncated block signature");
+        }
+    }
+
+    public void write(OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(blockSize);
+        out.writeLong(fileSize);
+        out.writeByte(strongLength);
+        out.writeInt(weak.length);
+        for (int i = 0; i < weak.length; i++) {
+            out.writeInt(weak[i]);
+            out.write(strong, i * strongLength, strongLength);
+        }
+        out.flush();
+    }
+
+    private static void validate(int blockSize, int strongLength, long fileSize) {
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size must be between " + MIN_BLOCK_SIZE + " and "
+                    + MAX_BLOCK_SIZE + ": " + blockSize);
+        }
+        if (strongLength < MIN_STRONG_LENGTH || strongLength > MAX_STRONG_LENGTH) {
+            throw new IllegalArgumentException("Strong hash length must be between " + MIN_STRONG_LENGTH + " and "
+                    + MAX_STRONG_LENGTH + ": " + strongLength);
+        }
+        if (fileSize < 0 || blockCount(fileSize, blockSize) < 0) {
+            throw new IllegalArgumentException("Invalid file size: " + fileSize);
+        }
+    }
+
+    private static int blockCount(long size, int blockSize) {
+        long count = (size + blockSize - 1) / blockSize;
+        return count > Integer.MAX_VALUE ? -1 : (int) count;
+    }
+
+    private static void readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        int read = in.readNBytes(buffer, 0, length);
+        if (read < length) {
+            throw new EOFException("File shorter than expected");
+        }
+    }
+
+    static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public int getStrongLength() {
+        return strongLength;
+    }
+
+    public int getBlockCount() {
+        return weak.length;
+    }
+
+    int blockLength(int index) {
+        return (int) Math.min(blockSize, fileSize - (long) index * blockSize);
+    }
+
+    int weak(int index) {
+        return weak[index];
+    }
+
+    /**
+     * 第 index 块的强校验与 digest 的前 strongLength 字节是否相同
+     */
+    boolean strongEquals(int index, byte[] digest) {
+        return Arrays.equals(strong, index * strongLength, (index + 1) * strongLength, digest, 0, strongLength);
+    }
+
+    /**
+     * 两个签名的块强校验是否相同，按较短的长度比较
+     */
+    boolean strongEquals(int index, BlockSignature other, int otherIndex) {
+        int length = Math.min(strongLength, other.strongLength);
+        return Arrays.equals(strong, index * strongLength, index * strongLength + length,
+                other.strong, otherIndex * other.strongLength, otherIndex * other.strongLength + length);
+    }
+
+    /**
+     * 整个文件的 SHA-256，只有 compute 得到的签名才有
+     */
+    byte[] getFileDigest() {
+        return fileDigest;
+    }
+
+    /**
+     * write 写出的字节数
+     */
+    public long encodedLength() {
+        return 22L + (long) weak.length * (4 + strongLength);
+    }
+
+    /**
+     * 内存占用估计，供签名缓存计算容量
+     */
+    long sizeInBytes() {
+        return 64L + weak.length * 4L + strong.length;
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.delta;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+/**
+ * 按客户端旧文件的签名生成新文件的差量
+ * 先用新文件缓存的签名逐块对齐比较，只改了若干块的文件无需读取未变的块；
+ * 未对齐匹配的连续区间再读出来按 rsync 方式逐字节滚动查找，插入或删除导致的错位内容也能复用。
+ * 同一弱校验和的候选块再比较 MD5，确认相同才输出 COPY
+ */
+final class DeltaEncoder {
+
+    /**
+     * 新文件从指定位置开始的顺序输入流
+     */
+    @FunctionalInterface
+    interface Source {
+        InputStream open(long position) throws IOException;
+    }
+
+    static final int MAX_LITERAL = 64 * 1024;
+
+    private final BlockSignature basis;
+    private final int blockSize;
+    private final int[] table;
+    private final int shift;
+    private final int shortBlock;
+    private final MessageDigest md5 = BlockSignature.md5();
+    private int lastCopied = -2;
+
+    DeltaEncoder(BlockSignature basis) {
+        this.basis = basis;
+        this.blockSize = basis.getBlockSize();
+        int count = basis.getBlockCount();
+        int full = count > 0 && basis.blockLength(count - 1) < blockSize ? count - 1 : count;
+        this.shortBlock = full < count ? count - 1 : -1;
+
+        int capacity = Integer.highestOneBit(Math.max(2, full * 2 - 1)) << 1;
+        this.table = new int[capacity];
+        this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        for (int j = 0; j < full; j++) {
+            int slot = slot(basis.weak(j));
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table[slot] = j + 1;
+        }
+    }
+
+    private int slot(int weak) {
+        return (weak * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * target 为新文件的签名，块大小须与 basis 相同
+     */
+    void encode(BlockSignature target, Source source, DeltaWriter writer) throws IOException {
+        if (target.getBlockSize() != blockSize) {
+            throw new IllegalArgumentException("Block size mismatch");
+        }
+        int count = target.getBlockCount();
+        int[] matched = new int[count];
+        for (int i = 0; i < count; i++) {
+            matched[i] = alignedMatch(target, i);
+        }
+
+        int i = 0;
+        while (i < count) {
+            if (matched[i] >= 0) {
+                copy(matched[i], writer);
+                i++;
+                continue;
+            }
+            int k = i;
+            while (k < count && matched[k] < 0) {
+                k++;
+            }
+            long start = (long) i * blockSize;
+            long end = Math.min((long) k * blockSize, target.getFileSize());
+            try (InputStream in = source.open(start)) {
+                new Scan(in, start, end, end == target.getFileSize(), writer).run();
+            }
+            i = k;
+        }
+        writer.finish();
+    }
+
+    private int alignedMatch(BlockSignature target, int index) {
+        int length = target.blockLength(index);
+        int weak = target.weak(index);
+        if (length < blockSize) {
+            return shortBlock >= 0 && basis.blockLength(shortBlock) == length && basis.weak(shortBlock) == weak
+                    && target.strongEquals(index, basis, shortBlock) ? shortBlock : -1;
+        }
+        int found = -1;
+        for (int slot = slot(weak); table[slot] != 0; slot = (slot + 1) & (table.length - 1)) {
+            int j = table[slot] - 1;
+            if (basis.weak(j) == weak && target.strongEquals(index, basis, j)) {
+                if (j == lastCopied + 1 || found < 0) {
+                    found = j;
+                }
+            }
+        }
+        if (found >= 0) {
+            lastCopied = found;
+        }
+        return found;
+    }
+
+    private void copy(int block, DeltaWriter writer) throws IOException {
+        writer.copy(block);
+        lastCopied = block;
+    }
+
+    /**
+     * 窗口内容与 basis 中某块相同时返回块号，优先紧接上一次复制的块，使 COPY 能够合并
+     */
+    private int rollingMatch(int weak, byte[] buffer, int offset) {
+        byte[] digest = null;
+        int found = -1;
+        for (int slot = slot(weak); table[slot] != 0; slot = (slot + 1) & (table.length - 1)) {
+            int j = table[slot] - 1;
+            if (basis.weak(j) != weak) {
+                continue;
+            }
+            if (digest == null) {
+                md5.update(buffer, offset, blockSize);
+                digest = md5.digest();
+            }
+            if (basis.strongEquals(j, digest) && (j == lastCopied + 1 || found < 0)) {
+                found = j;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 一个未对齐匹配区间的滚动扫描
+     * 缓冲区保留从待输出字面量起点到窗口末尾的数据，字面量每满 MAX_LITERAL 输出一次
+     */
+    private final class Scan {
+
+        private final InputStream in;
+        private final long end;
+        private final boolean atFileEnd;
+        private final DeltaWriter writer;
+        private final byte[] buffer = new byte[MAX_LITERAL + 2 * blockSize + 1];
+        private long base;
+        private int limit;
+        private long pos;
+        private long literalStart;
+
+        Scan(InputStream in, long start, long end, boolean atFileEnd, DeltaWriter writer) {
+            this.in = in;
+            this.end = end;
+            this.atFileEnd = atFileEnd;
+            this.writer = writer;
+            this.base = start;
+            this.pos = start;
+            this.literalStart = start;
+        }
+
+        void run() throws IOException {
+            RollingChecksum rolling = new RollingChecksum(blockSize);
+            boolean primed = false;
+            while (pos + blockSize <= end) {
+                ensure(pos + blockSize - 1);
+                int offset = (int) (pos - base);
+                if (!primed) {
+                    rolling.reset(buffer, offset);
+                    primed = true;
+                }
+                int j = rollingMatch(rolling.value(), buffer, offset);
+                if (j >= 0) {
+                    flushLiteral(pos);
+                    copy(j, writer);
+                    pos += blockSize;
+                    literalStart = pos;
+                    primed = false;
+                    continue;
+                }
+                if (pos + blockSize == end) {
+                    break;
+                }
+                ensure(pos + blockSize);
+                rolling.roll(buffer[offset], buffer[offset + blockSize]);
+                pos++;
+                if (pos - literalStart >= MAX_LITERAL) {
+                    flushLiteral(pos);
+                }
+            }
+            matchShortTail();
+            while (literalStart < end) {
+                ensure(Math.min(end, literalStart + MAX_LITERAL) - 1);
+                flushLiteral(Math.min(end, base + limit));
+            }
+        }
+
+        /**
+         * 旧文件最后一块不足 blockSize 时只可能与新文件同样长度的末尾相同
+         */
+        private void matchShortTail() throws IOException {
+            if (!atFileEnd || shortBlock < 0) {
+                return;
+            }
+            int length = basis.blockLength(shortBlock);
+            long tail = end - length;
+            if (length >= blockSize || tail < literalStart) {
+                return;
+            }
+            ensure(end - 1);
+            int offset = (int) (tail - base);
+            if (RollingChecksum.of(buffer, offset, length) != basis.weak(shortBlock)) {
+                return;
+            }
+            md5.update(buffer, offset, length);
+            if (basis.strongEquals(shortBlock, md5.digest())) {
+                flushLiteral(tail);
+                copy(shortBlock, writer);
+                literalStart = end;
+            }
+        }
+
+        private void flushLiteral(long to) throws IOException {
+            while (literalStart < to) {
+                int length = (int) Math.min(to - literalStart, MAX_LITERAL);
+                writer.data(buffer, (int) (literalStart - base), length);
+                literalStart += length;
+            }
+        }
+
+        /**
+         * 保证 position 处的字节在缓冲区内，必要时丢弃字面量起点之前的数据并继续读取
+         */
+        private void ensure(long position) throws IOException {
+            if (position < base + limit) {
+                return;
+            }
+            int discard = (int) (literalStart - base);
+            System.arraycopy(buffer, discard, buffer, 0, limit - discard);
+            base = literalStart;
+            limit -= discard;
+            while (base + limit <= position) {
+                int want = (int) Math.min(buffer.length - limit, end - (base + limit));
+                int read = in.read(buffer, limit, want);
+                if (read < 0) {
+                    throw new EOFException("File changed while computing delta");
+                }
+                limit += read;
+            }
+        }
+    }
+}
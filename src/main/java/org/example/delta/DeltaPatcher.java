@@ -0,0 +1,90 @@
+package org.example.delta;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * 客户端侧的参考实现：用旧文件和差量还原新文件，并校验长度和 SHA-256；校验失败时应改为完整下载
+ */
+public final class DeltaPatcher {
+
+    private DeltaPatcher() {
+    }
+
+    /**
+     * 还原结果写入 target，返回写入的字节数
+     */
+    public static long apply(SeekableByteChannel basis, InputStream delta, OutputStream target) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(delta));
+        try {
+            byte[] magic = new byte[DeltaWriter.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, DeltaWriter.MAGIC) || in.readUnsignedByte() != DeltaWriter.VERSION) {
+                throw new IOException("Not a delta stream");
+            }
+            int blockSize = in.readInt();
+            long targetSize = in.readLong();
+            byte[] expected = new byte[32];
+            in.readFully(expected);
+
+            MessageDigest sha256 = BlockSignature.sha256();
+            byte[] buffer = new byte[Math.max(blockSize, DeltaEncoder.MAX_LITERAL)];
+            long written = 0;
+            while (true) {
+                int op = in.readUnsignedByte();
+                if (op == DeltaWriter.END) {
+                    break;
+                }
+                if (op == DeltaWriter.COPY) {
+                    int start = in.readInt();
+                    int count = in.readInt();
+                    for (int block = start; block < start + count; block++) {
+                        int length = readBlock(basis, (long) block * blockSize, buffer, blockSize);
+                        target.write(buffer, 0, length);
+                        sha256.update(buffer, 0, length);
+                        written += length;
+                    }
+                } else if (op == DeltaWriter.DATA) {
+                    int remaining = in.readInt();
+                    while (remaining > 0) {
+                        int length = Math.min(remaining, buffer.length);
+                        in.readFully(buffer, 0, length);
+                        target.write(buffer, 0, length);
+                        sha256.update(buffer, 0, length);
+                        written += length;
+                        remaining -= length;
+                    }
+                } else {
+                    throw new IOException("Unknown delta instruction: " + op);
+                }
+            }
+            if (written != targetSize || !MessageDigest.isEqual(expected, sha256.digest())) {
+                throw new IOException("Patched file does not match the target checksum");
+            }
+            return written;
+        } catch (EOFException e) {
+            throw new IOException("Truncated delta stream", e);
+        }
+    }
+
+    private static int readBlock(SeekableByteChannel basis, long position, byte[] buffer, int blockSize)
+            throws IOException {
+        if (position >= basis.size()) {
+            throw new IOException("Delta refers past the end of the basis file");
+        }
+        basis.position(position);
+        ByteBuffer dst = ByteBuffer.wrap(buffer, 0, (int) Math.min(blockSize, basis.size() - position));
+        while (dst.hasRemaining() && basis.read(dst) >= 0) {
+            // 读满一块
+        }
+        return dst.position();
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.delta;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 差量下载配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.delta")
+public class DeltaProperties {
+
+    /**
+     * 默认块大小，预先计算的签名和未指定块大小的签名请求使用；客户端按此计算旧文件签名时可直接命中缓存
+     */
+    private DataSize blockSize = DataSize.ofKilobytes(16);
+
+    /**
+     * 签名的最大块数，客户端上传的和服务端计算的都受此限制，限制单次请求和单个缓存条目占用的内存
+     */
+    private int maxBlocks = 1 << 20;
+
+    /**
+     * 服务端签名缓存的容量，按签名大小（每块 20 字节）计算
+     */
+    private DataSize cacheSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 文件写入后预先计算签名的最小大小，更小的文件直接完整下载即可
+     */
+    private DataSize precomputeMinSize = DataSize.ofMegabytes(1);
+}
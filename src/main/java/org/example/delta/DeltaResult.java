@@ -0,0 +1,7 @@
+package org.example.delta;
+
+/**
+ * 一次差量的统计：复制自客户端旧文件的字节数和随响应发送的新内容字节数
+ */
+public record DeltaResult(long targetSize, long copiedBytes, long literalBytes) {
+}
@@ -0,0 +1,250 @@
+package org.example.delta;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.changes.ChangeEvent;
+import org.example.changes.ChangeJournal;
+import org.example.changes.ChangeType;
+import org.example.storage.RangeInputStream;
+import org.example.storage.StorageBackend;
+import org.example.storage.StoredObject;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 差量下载
+ * 服务端文件的签名按（路径、大小、修改时间、块大小）缓存，文件变化后旧签名自然失效；
+ * 变更日志中较大文件的创建和覆盖会在后台预先按默认块大小计算签名，首个差量请求不必等待整个文件读完。
+ * 同一签名同时只计算一次，其他请求等待结果。
+ * 服务端签名同样受 maxBlocks 限制：块大小由客户端决定，过小的块会让大文件的签名占满内存和缓存，
+ * 默认块大小按 2 的倍数放大到块数不超过上限，显式指定的块大小低于 size / maxBlocks 时拒绝
+ */
+@Slf4j
+@Component
+public class DeltaService {
+
+    private static final int STRONG_LENGTH = BlockSignature.MAX_STRONG_LENGTH;
+
+    private record Key(String path, long size, long lastModified, int blockSize) {
+    }
+
+    private final DeltaProperties properties;
+    private final StorageBackend backend;
+    private final ExecutorService io;
+    private final ExecutorService precomputer;
+    private final LinkedHashMap<Key, CompletableFuture<BlockSignature>> signatures =
+            new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong deltas = new AtomicLong();
+    private final AtomicLong copiedBytes = new AtomicLong();
+    private final AtomicLong literalBytes = new AtomicLong();
+
+    public DeltaService(DeltaProperties properties, StorageBackend backend, ChangeJournal changes) {
+        this.properties = properties;
+        this.backend = backend;
+        this.io = Executors.newFixedThreadPool(2, Thread.ofPlatform().name("delta-io-", 1).daemon(true).factory());
+        this.precomputer = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("delta-signature").daemon(true).factory());
+        changes.addListener(this::onChange);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        precomputer.shutdownNow();
+        io.shutdownNow();
+    }
+
+    public int getDefaultBlockSize() {
+        return (int) properties.getBlockSize().toBytes();
+    }
+
+    /**
+     * 该文件未指定块大小时使用的块大小：默认块大小，块数超过 maxBlocks 时逐次翻倍；
+     * 放大后的块大小只有少数几种，预先计算的签名仍能被命中
+     */
+    public int blockSizeFor(StoredObject object) {
+        int blockSize = getDefaultBlockSize();
+        while (blockCount(object.size(), blockSize) > properties.getMaxBlocks()
+                && blockSize <= BlockSignature.MAX_BLOCK_SIZE / 2) {
+            blockSize <<= 1;
+        }
+        return blockSize;
+    }
+
+    /**
+     * 按 blockSize 计算该文件的签名时块数不能超过 maxBlocks，否则抛出 IllegalArgumentException
+     */
+    public void requireBlockSize(StoredObject object, int blockSize) {
+        if (blockSize <= 0 || blockCount(object.size(), blockSize) > properties.getMaxBlocks()) {
+            long min = Math.max(BlockSignature.MIN_BLOCK_SIZE, blockCount(object.size(), properties.getMaxBlocks()));
+            throw new IllegalArgumentException("Block size " + blockSize + " is too small for " + object.size()
+                    + " bytes, minimum is " + min);
+        }
+    }
+
+    private static long blockCount(long size, long blockSize) {
+        return (size + blockSize - 1) / blockSize;
+    }
+
+    /**
+     * 解析客户端上传的签名
+     */
+    public BlockSignature readSignature(InputStream in) throws IOException {
+        return BlockSignature.read(in, properties.getMaxBlocks());
+    }
+
+    /**
+     * 服务端文件的签名，blockSize 为 null 时使用 blockSizeFor；块数超过 maxBlocks 时抛出 IllegalArgumentException
+     */
+    public BlockSignature signature(StoredObject object, Integer blockSize) throws IOException {
+        return cached(object, blockSize != null ? blockSize : blockSizeFor(object));
+    }
+
+    /**
+     * 按客户端旧文件的签名生成差量写入 out；调用前应先用 requireBlockSize 检查签名的块大小
+     */
+    public DeltaResult encode(StoredObject object, BlockSignature basis, OutputStream out) throws IOException {
+        BlockSignature target = cached(object, basis.getBlockSize());
+        DeltaWriter writer = new DeltaWriter(out, basis, target.getFileSize(), target.getFileDigest());
+        new DeltaEncoder(basis).encode(target, position -> open(object.key(), position), writer);
+
+        deltas.incrementAndGet();
+        copiedBytes.addAndGet(writer.getCopiedBytes());
+        literalBytes.addAndGet(writer.getLiteralBytes());
+        return new DeltaResult(target.getFileSize(), writer.getCopiedBytes(), writer.getLiteralBytes());
+    }
+
+    private InputStream open(String key, long position) throws IOException {
+        return new RangeInputStream(backend.openRange(key, io), position);
+    }
+
+    private BlockSignature cached(StoredObject object, int blockSize) throws IOException {
+        requireBlockSize(object, blockSize);
+        Key key = new Key(object.key(), object.size(), object.lastModified(), blockSize);
+        CompletableFuture<BlockSignature> future;
+        boolean owner = false;
+        synchronized (signatures) {
+            future = signatures.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                signatures.put(key, future);
+                owner = true;
+            }
+        }
+
+        if (!owner) {
+            cacheHits.incrementAndGet();
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for signature");
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            }
+        }
+
+        cacheMisses.incrementAndGet();
+        try {
+            BlockSignature signature;
+            try (InputStream in = open(object.key(), 0)) {
+                signature = BlockSignature.compute(in, object.size(), blockSize, STRONG_LENGTH);
+            }
+            future.complete(signature);
+            admit(key, signature);
+            return signature;
+        } catch (IOException | RuntimeException e) {
+            synchronized (signatures) {
+                signatures.remove(key);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 计入缓存容量，移除同一路径的旧版本签名，超出容量时按最久未使用淘汰
+     */
+    private void admit(Key key, BlockSignature signature) {
+        synchronized (signatures) {
+            cachedBytes += signature.sizeInBytes();
+            Iterator<Map.Entry<Key, CompletableFuture<BlockSignature>>> it = signatures.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, CompletableFuture<BlockSignature>> entry = it.next();
+                Key other = entry.getKey();
+                boolean stale = other.path.equals(key.path) && (other.size != key.size
+                        || other.lastModified != key.lastModified);
+                boolean overBudget = cachedBytes > properties.getCacheSize().toBytes() && !other.equals(key);
+                if ((stale || overBudget) && entry.getValue().isDone() && !entry.getValue().isCompletedExceptionally()) {
+                    cachedBytes -= entry.getValue().join().sizeInBytes();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void onChange(ChangeEvent event) {
+        if (event.type() == ChangeType.DELETED || event.directory() || event.size() == null
+                || event.size() < properties.getPrecomputeMinSize().toBytes()) {
+            return;
+        }
+        try {
+            precomputer.execute(() -> precompute(event.path()));
+        } catch (RejectedExecutionException e) {
+            // 正在关闭
+        }
+    }
+
+    private void precompute(String key) {
+        try {
+            StoredObject object = backend.stat(key);
+            if (object != null && !object.directory()) {
+                cached(object, blockSizeFor(object));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to precompute signature for {}: {}", key, e.toString());
+        }
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public long getDeltaCount() {
+        return deltas.get();
+    }
+
+    public long getCopiedBytes() {
+        return copiedBytes.get();
+    }
+
+    public long getLiteralBytes() {
+        return literalBytes.get();
+    }
+
+    public long getCachedBytes() {
+        synchronized (signatures) {
+            return cachedBytes;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.delta;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 差量格式："HDLT" 版本(1) blockSize(4) targetSize(8) targetSha256(32)，之后为指令序列：
+ * COPY(1) startBlock(4) count(4) 复制客户端旧文件中连续的 count 块；DATA(2) length(4) 字节 为新内容；
+ * END(0) copiedBytes(8) literalBytes(8) 结束。连续的块合并为一条 COPY
+ */
+final class DeltaWriter {
+
+    static final byte[] MAGIC = {'H', 'D', 'L', 'T'};
+    static final int VERSION = 1;
+    static final int END = 0;
+    static final int COPY = 1;
+    static final int DATA = 2;
+
+    private final DataOutputStream out;
+    private final BlockSignature basis;
+    private int copyStart = -1;
+    private int copyCount;
+    private long copiedBytes;
+    private long literalBytes;
+
+    DeltaWriter(OutputStream output, BlockSignature basis, long targetSize, byte[] targetDigest) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(output, 64 * 1024));
+        this.basis = basis;
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(basis.getBlockSize());
+        out.writeLong(targetSize);
+        out.write(targetDigest);
+    }
+
+    /**
+     * 上一条 COPY 之后紧接的块直接并入
+     */
+    void copy(int block) throws IOException {
+        if (copyCount > 0 && block == copyStart + copyCount) {
+            copyCount++;
+        } else {
+            flushCopy();
+            copyStart = block;
+            copyCount = 1;
+        }
+        copiedBytes += basis.blockLength(block);
+    }
+
+    void data(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        flushCopy();
+        out.writeByte(DATA);
+        out.writeInt(length);
+        out.write(buffer, offset, length);
+        literalBytes += length;
+    }
+
+    void finish() throws IOException {
+        flushCopy();
+        out.writeByte(END);
+        out.writeLong(copiedBytes);
+        out.writeLong(literalBytes);
+        out.flush();
+    }
+
+    private void flushCopy() throws IOException {
+        if (copyCount > 0) {
+            out.writeByte(COPY);
+            out.writeInt(copyStart);
+            out.writeInt(copyCount);
+            copyCount = 0;
+        }
+    }
+
+    long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+    long getLiteralBytes() {
+        return literalBytes;
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.delta;
+
+/**
+ * rsync 的弱校验和：a 为窗口内字节之和，b 为按距窗口末尾的距离加权之和，各取低 16 位后拼成 32 位。
+ * 窗口右移一个字节时只需减去移出的字节、加上移入的字节，不必重新扫描整个窗口
+ */
+final class RollingChecksum {
+
+    private final int window;
+    private int a;
+    private int b;
+
+    RollingChecksum(int window) {
+        this.window = window;
+    }
+
+    static int of(byte[] data, int offset, int length) {
+        RollingChecksum checksum = new RollingChecksum(length);
+        checksum.reset(data, offset);
+        return checksum.value();
+    }
+
+    void reset(byte[] data, int offset) {
+        int sumA = 0;
+        int sumB = 0;
+        for (int i = 0; i < window; i++) {
+            int x = data[offset + i] & 0xff;
+            sumA += x;
+            sumB += (window - i) * x;
+        }
+        a = sumA;
+        b = sumB;
+    }
+
+    void roll(byte out, byte in) {
+        int x = out & 0xff;
+        a += (in & 0xff) - x;
+        b += a - window * x;
+    }
+
+    int value() {
+        return (a & 0xffff) | (b << 16);
+    }
+}
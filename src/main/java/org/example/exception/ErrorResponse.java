@@ -1,5 +1,6 @@
 package org.example.exception;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,6 +18,12 @@ public class ErrorResponse {
     private String path;
     private long timestamp;
 
+    /**
+     * 500 错误的编号，对应服务端日志和 /api/errors 中的指纹
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String errorId;
+
     public ErrorResponse(int status, String error, String message, String path) {
         this.status = status;
         this.error = error;
@@ -44,4 +51,12 @@ public class ErrorResponse {
     public static ErrorResponse unsupportedMediaType(String message, String path) {
         return new ErrorResponse(415, "Unsupported Media Type", message, path);
     }
+
+    public static ErrorResponse tooManyRequests(String message, String path) {
+        return new ErrorResponse(429, "Too Many Requests", message, path);
+    }
+
+    public static ErrorResponse serviceUnavailable(String message, String path) {
+        return new ErrorResponse(503, "Service Unavailable", message, path);
+    }
 }
@@ -0,0 +1,27 @@
+package org.example.exception;
+
+import lombok.Data;
+
+/**
+ * 单个错误指纹的累计统计
+ */
+@Data
+public class ErrorStats {
+    private String fingerprint;
+    private String type;
+
+    /**
+     * 首次出现时的抛出位置
+     */
+    private String location;
+
+    /**
+     * 首次出现时的异常消息
+     */
+    private String message;
+
+    private long count;
+    private long firstSeen;
+    private long lastSeen;
+    private String lastErrorId;
+}
@@ -0,0 +1,182 @@
+package org.example.exception;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 500 错误按指纹归并
+ * 指纹由异常类型、前几层调用栈和根因类型计算；同一指纹在窗口内只有第一次需要输出完整堆栈，
+ * 之后只计数。返回给客户端的错误编号以指纹开头，可据此在日志和 /api/errors 中找到对应堆栈。
+ * 指纹表满时先清理超过一个窗口未出现的指纹，仍然满则淘汰最久未出现的一个，新指纹的首次出现总会输出堆栈
+ */
+@Component
+public class ErrorTracker {
+
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    /**
+     * 单次错误的处理结论：renderTrace 为 true 时调用方输出完整堆栈，suppressed 为上次输出以来省略的次数
+     */
+    public record Occurrence(String errorId, String fingerprint, boolean renderTrace, long suppressed) {
+    }
+
+    private final ErrorTrackingProperties properties;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    public ErrorTracker(ErrorTrackingProperties properties) {
+        this.properties = properties;
+    }
+
+    public Occurrence record(Throwable error, long nowMillis) {
+        long fingerprint = fingerprint(error, properties.getStackDepth());
+        String hex = String.format("%016x", fingerprint);
+        String errorId = hex.substring(0, 8) + "-" + Long.toString(sequence.incrementAndGet(), 36);
+        total.incrementAndGet();
+
+        Entry entry = entries.get(fingerprint);
+        if (entry == null) {
+            if (entries.size() >= properties.getMaxFingerprints()) {
+                evict(nowMillis);
+            }
+            entry = entries.computeIfAbsent(fingerprint,
+                    k -> new Entry(hex, error, nowMillis, properties.getWindowMillis()));
+        }
+
+        entry.count.incrementAndGet();
+        entry.lastSeen = nowMillis;
+        entry.lastErrorId = errorId;
+        long rendered = entry.lastRendered.get();
+        if (nowMillis - rendered >= properties.getWindowMillis() && entry.lastRendered.compareAndSet(rendered, nowMillis)) {
+            return new Occurrence(errorId, hex, true, entry.suppressed.getAndSet(0));
+        }
+        entry.suppressed.incrementAndGet();
+        return new Occurrence(errorId, hex, false, 0);
+    }
+
+    /**
+     * 移除超过一个窗口未出现的指纹；没有可移除的则移除最久未出现的一个。
+     * 只在指纹表满且出现新指纹时执行，一次遍历同时完成两种淘汰
+     */
+    private void evict(long nowMillis) {
+        long idleBefore = nowMillis - properties.getWindowMillis();
+        Long oldest = null;
+        long oldestSeen = Long.MAX_VALUE;
+        int removed = 0;
+        for (Map.Entry<Long, Entry> candidate : entries.entrySet()) {
+            long lastSeen = candidate.getValue().lastSeen;
+            if (lastSeen < idleBefore) {
+                if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                    removed++;
+                }
+            } else if (lastSeen < oldestSeen) {
+                oldestSeen = lastSeen;
+                oldest = candidate.getKey();
+            }
+        }
+        if (removed == 0 && oldest != null && entries.remove(oldest) != null) {
+            removed++;
+        }
+        evicted.addAndGet(removed);
+    }
+
+    /**
+     * 异常类型 + 前 depth 层栈帧（类、方法、行号）+ 根因类型的 64 位 FNV-1a，不含异常消息
+     */
+    public static long fingerprint(Throwable error, int depth) {
+        long hash = mix(OFFSET, error.getClass().getName());
+        StackTraceElement[] frames = error.getStackTrace();
+        for (int i = 0; i < Math.min(depth, frames.length); i++) {
+            hash = mix(hash, frames[i].getClassName());
+            hash = mix(hash, frames[i].getMethodName());
+            hash = (hash ^ frames[i].getLineNumber()) * PRIME;
+        }
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        if (root != error) {
+            hash = mix(hash, root.getClass().getName());
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 各指纹的累计次数，按次数降序
+     */
+    public List<ErrorStats> stats() {
+        List<ErrorStats> stats = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            ErrorStats item = new ErrorStats();
+            item.setFingerprint(entry.fingerprint);
+            item.setType(entry.type);
+            item.setLocation(entry.location);
+            item.setMessage(entry.message);
+            item.setCount(entry.count.get());
+            item.setFirstSeen(entry.firstSeen);
+            item.setLastSeen(entry.lastSeen);
+            item.setLastErrorId(entry.lastErrorId);
+            stats.add(item);
+        }
+        stats.sort(Comparator.comparingLong(ErrorStats::getCount).reversed());
+        return stats;
+    }
+
+    public long getTotalCount() {
+        return total.get();
+    }
+
+    public int getFingerprintCount() {
+        return entries.size();
+    }
+
+    /**
+     * 因指纹表已满被淘汰的指纹数
+     */
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final String type;
+        final String location;
+        final String message;
+        final long firstSeen;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong suppressed = new AtomicLong();
+        final AtomicLong lastRendered;
+        volatile long lastSeen;
+        volatile String lastErrorId;
+
+        /**
+         * lastRendered 初始化为一个窗口之前，首次出现即输出堆栈
+         */
+        Entry(String fingerprint, Throwable error, long nowMillis, long windowMillis) {
+            this.fingerprint = fingerprint;
+            this.type = error.getClass().getName();
+            StackTraceElement[] frames = error.getStackTrace();
+            this.location = frames.length > 0 ? frames[0].toString() : null;
+            this.message = error.getMessage();
+            this.firstSeen = nowMillis;
+            this.lastSeen = nowMillis;
+            this.lastRendered = new AtomicLong(nowMillis - windowMillis);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.exception;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 500 错误指纹与堆栈输出配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.errors")
+public class ErrorTrackingProperties {
+
+    /**
+     * 同一指纹在窗口内只输出一次完整堆栈，其余只计数
+     */
+    private long windowMillis = 60_000;
+
+    /**
+     * 指纹取异常类型和前几层调用栈
+     */
+    private int stackDepth = 5;
+
+    /**
+     * 同时跟踪的指纹数上限，满时淘汰空闲或最久未出现的指纹
+     */
+    private int maxFingerprints = 1024;
+}
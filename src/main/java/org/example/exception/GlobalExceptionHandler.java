@@ -22,6 +22,12 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final ErrorTracker errorTracker;
+
+    public GlobalExceptionHandler(ErrorTracker errorTracker) {
+        this.errorTracker = errorTracker;
+    }
+
     /**
      * 处理 400 - 请求参数错误
      */
@@ -80,7 +86,7 @@ public class GlobalExceptionHandler {
             org.springframework.http.converter.HttpMessageNotWritableException.class
     })
     public ResponseEntity<ErrorResponse> handleUnsupportedMediaType(Exception e, HttpServletRequest request) {
-        String message = "不支持的媒体类型，请使用 Content-Type: application/json";
+        String message = "不支持的媒体类型，请使用 Content-Type: application/json、application/x-jackson-smile 或 application/cbor";
         log.warn("Unsupported Media Type: {} - {}", request.getRequestURI(), e.getMessage());
         return ResponseEntity
                 .status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
@@ -99,22 +105,45 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse(400, "Bad Request", message, request.getRequestURI()));
     }
 
+    /**
+     * 处理 503 - 执行通道排队已满或异步请求超时
+     */
+    @ExceptionHandler({
+            java.util.concurrent.RejectedExecutionException.class,
+            org.springframework.web.context.request.async.AsyncRequestTimeoutException.class
+    })
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(Exception e, HttpServletRequest request) {
+        String message = e instanceof java.util.concurrent.RejectedExecutionException
+                ? "服务繁忙，请稍后重试" : "请求处理超时";
+        log.warn("Service Unavailable: {} - {}", request.getRequestURI(), message);
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(ErrorResponse.serviceUnavailable(message, request.getRequestURI()));
+    }
+
     /**
      * 处理 500 - 内部服务器错误
+     * 同一指纹在窗口内只记录一次完整堆栈，其余只计数；响应只带错误编号，不含堆栈
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleServerError(Exception e, HttpServletRequest request) {
-        // 获取异常堆栈信息
-        java.io.StringWriter sw = new java.io.StringWriter();
-        java.io.PrintWriter pw = new java.io.PrintWriter(sw);
-        e.printStackTrace(pw);
-        String stackTrace = sw.toString();
-
-        String message = e.getMessage() + "\n" + stackTrace;
-        log.error("Internal Server Error: {} - {}", request.getRequestURI(), e.getMessage(), e);
+        ErrorTracker.Occurrence occurrence = errorTracker.record(e, System.currentTimeMillis());
+        if (occurrence.renderTrace()) {
+            log.error("Internal Server Error [{}] fingerprint {} ({} similar since last trace): {} - {}",
+                    occurrence.errorId(), occurrence.fingerprint(), occurrence.suppressed(),
+                    request.getRequestURI(), e.getMessage(), e);
+        } else {
+            log.debug("Internal Server Error [{}] fingerprint {}: {} - {}", occurrence.errorId(),
+                    occurrence.fingerprint(), request.getRequestURI(), e.getMessage());
+        }
+
+        ErrorResponse body = ErrorResponse.internalServerError("服务器内部错误，错误编号: " + occurrence.errorId(),
+                request.getRequestURI());
+        body.setErrorId(occurrence.errorId());
         return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ErrorResponse(500, "Internal Server Error", message, request.getRequestURI()));
+                .body(body);
     }
 
     /**
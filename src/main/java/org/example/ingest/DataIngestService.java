@@ -0,0 +1,66 @@
+package org.example.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.columnar.ColumnarStore;
+import org.example.controller.DataController.HeartbeatRequest;
+import org.example.controller.DataController.LogRequest;
+import org.example.logtail.LogTailBroadcaster;
+import org.example.rollup.RollupService;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * 数据上报处理管线
+ * REST 接口与 WebSocket 通道共用，保证两条入口的处理逻辑一致
+ */
+@Slf4j
+@Service
+public class DataIngestService {
+
+    private final RollupService rollupService;
+    private final ColumnarStore columnarStore;
+    private final LogTailBroadcaster logTail;
+    private final LogDeduplicator deduplicator;
+
+    public DataIngestService(RollupService rollupService, ColumnarStore columnarStore, LogTailBroadcaster logTail,
+                             LogDeduplicator deduplicator) {
+        this.rollupService = rollupService;
+        this.columnarStore = columnarStore;
+        this.logTail = logTail;
+        this.deduplicator = deduplicator;
+        deduplicator.setSink(summary -> writeLog(summary.deviceId(), summary.level(), summary.tag(),
+                summary.message(), summary.timestamp(), summary.count()));
+    }
+
+    public void report(Map<String, Object> data) {
+        log.info("Received data report: {}", data);
+
+        // 数值字段进入时间序列聚合
+        rollupService.record(data);
+        columnarStore.append(data);
+    }
+
+    public void log(LogRequest logRequest) {
+        // 重复日志先合并计数，设备超速时采样，合并记录由去重器在窗口结束后回写
+        LogDeduplicator.Decision decision = deduplicator.admit(logRequest.getDeviceId(), logRequest.getLevel(),
+                logRequest.getTag(), logRequest.getMessage(), logRequest.getTimestamp(), System.currentTimeMillis());
+        if (decision == LogDeduplicator.Decision.EMIT) {
+            writeLog(logRequest.getDeviceId(), logRequest.getLevel(), logRequest.getTag(),
+                    logRequest.getMessage(), logRequest.getTimestamp(), 1);
+        }
+    }
+
+    private void writeLog(String deviceId, String level, String tag, String message, Long timestamp, int count) {
+        if (count > 1) {
+            log.info("[{}] {} - {} (repeated {} times)", level, tag, message, count);
+        } else {
+            log.info("[{}] {} - {}", level, tag, message);
+        }
+        logTail.publish(deviceId, level, tag, message, timestamp, count);
+    }
+
+    public void heartbeat(HeartbeatRequest heartbeat) {
+        log.debug("Heartbeat from device: {}", heartbeat.getDeviceId());
+    }
+}
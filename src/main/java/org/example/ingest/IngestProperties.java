@@ -0,0 +1,20 @@
+package org.example.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 数据上报入口配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.ingest")
+public class IngestProperties {
+
+    /**
+     * gzip/deflate 请求体解压后的最大大小
+     */
+    private DataSize maxInflatedSize = DataSize.ofMegabytes(16);
+}
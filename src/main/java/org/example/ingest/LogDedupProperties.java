@@ -0,0 +1,39 @@
+package org.example.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 日志去重与采样配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.log-dedup")
+public class LogDedupProperties {
+
+    /**
+     * 是否启用去重与采样
+     */
+    private boolean enabled = true;
+
+    /**
+     * 去重窗口，窗口内同一设备、级别、标签下模板相同的日志合并为一条带次数的记录
+     */
+    private long windowMillis = 10_000;
+
+    /**
+     * 同时跟踪的模板数上限，超过后新模板不再去重
+     */
+    private int maxFingerprints = 65536;
+
+    /**
+     * 单设备每秒保留的日志数，超过后按实际速率自适应采样；ERROR 及以上级别不采样
+     */
+    private int devicePerSecond = 50;
+
+    /**
+     * 合并记录与采样汇总的刷出周期
+     */
+    private long flushIntervalMillis = 1000;
+}
@@ -0,0 +1,289 @@
+package org.example.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 日志去重与自适应采样
+ * 窗口内模板相同的日志只放行第一条，其余计数，窗口结束后以一条带次数的记录刷出；
+ * 单设备速率超过阈值后按上一秒的实际速率 1/k 均匀采样，被采样丢弃的条数汇总为一条提示。
+ * ERROR 及以上级别不采样，且只合并原文完全相同的消息，内容不同的错误各自保留；
+ * 指纹只用于查找窗口，命中后还要核对设备、级别、标签和模板（或原文），哈希碰撞不会合并无关日志
+ */
+@Slf4j
+@Component
+public class LogDeduplicator {
+
+    public enum Decision {
+        /**
+         * 立即写出
+         */
+        EMIT,
+        /**
+         * 计入合并记录，窗口结束后写出
+         */
+        COLLAPSED,
+        /**
+         * 被采样丢弃，仅计入汇总
+         */
+        SAMPLED
+    }
+
+    /**
+     * 合并或采样汇总后需要写出的记录
+     */
+    public record Summary(String deviceId, String level, String tag, String message, Long timestamp, int count) {
+    }
+
+    static final String SAMPLER_TAG = "LogSampler";
+
+    private static final long RATE_WINDOW_MILLIS = 1000;
+    private static final long RATE_IDLE_MILLIS = 60_000;
+
+    private final LogDedupProperties properties;
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+    private final Map<String, DeviceRate> rates = new ConcurrentHashMap<>();
+    private final AtomicLong emitted = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+
+    private volatile Consumer<Summary> sink = summary -> {
+    };
+    private ScheduledExecutorService flusher;
+
+    public LogDeduplicator(LogDedupProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-dedup-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush collapsed logs", e);
+            }
+        }, properties.getFlushIntervalMillis(), properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        // 关闭前把未结束的窗口全部刷出
+        flush(System.currentTimeMillis() + properties.getWindowMillis());
+    }
+
+    /**
+     * 合并记录与采样汇总的接收方
+     */
+    public void setSink(Consumer<Summary> sink) {
+        this.sink = sink;
+    }
+
+    public Decision admit(String deviceId, String level, String tag, String message, Long timestamp, long nowMillis) {
+        if (!properties.isEnabled()) {
+            return Decision.EMIT;
+        }
+
+        boolean exact = isAlwaysKept(level);
+        long fingerprint = fingerprint(deviceId, level, tag, message, exact);
+        Window window = windows.get(fingerprint);
+        // 碰撞时既不合并也不替换已有窗口，这条日志照常放行
+        if (window != null && window.matches(deviceId, level, tag, message, exact)) {
+            if (window.collapse(nowMillis, properties.getWindowMillis(), timestamp)) {
+                collapsed.incrementAndGet();
+                return Decision.COLLAPSED;
+            }
+            if (windows.remove(fingerprint, window)) {
+                close(window);
+            }
+        }
+
+        if (!exact
+                && !rates.computeIfAbsent(deviceKey(deviceId), k -> new DeviceRate()).admit(nowMillis,
+                properties.getDevicePerSecond())) {
+            sampled.incrementAndGet();
+            return Decision.SAMPLED;
+        }
+
+        if (windows.size() < properties.getMaxFingerprints()) {
+            Window created = new Window(deviceId, level, tag, message, nowMillis);
+            Window existing = windows.putIfAbsent(fingerprint, created);
+            if (existing != null && existing.matches(deviceId, level, tag, message, exact)
+                    && existing.collapse(nowMillis, properties.getWindowMillis(), timestamp)) {
+                collapsed.incrementAndGet();
+                return Decision.COLLAPSED;
+            }
+        }
+        emitted.incrementAndGet();
+        return Decision.EMIT;
+    }
+
+    /**
+     * 刷出已结束窗口的合并记录和各设备的采样汇总
+     */
+    public void flush(long nowMillis) {
+        long windowMillis = properties.getWindowMillis();
+        windows.forEach((fingerprint, window) -> {
+            if (window.isExpired(nowMillis, windowMillis) && windows.remove(fingerprint, window)) {
+                close(window);
+            }
+        });
+
+        rates.forEach((deviceId, rate) -> {
+            int dropped = rate.takeDropped();
+            if (dropped > 0) {
+                sink.accept(new Summary(deviceId.isEmpty() ? null : deviceId, "WARN", SAMPLER_TAG,
+                        "Sampled out " + dropped + " logs, device exceeded "
+                                + properties.getDevicePerSecond() + " logs/s", nowMillis, 1));
+            } else if (rate.isIdle(nowMillis)) {
+                rates.remove(deviceId, rate);
+            }
+        });
+    }
+
+    public long getEmittedCount() {
+        return emitted.get();
+    }
+
+    public long getCollapsedCount() {
+        return collapsed.get();
+    }
+
+    public long getSampledCount() {
+        return sampled.get();
+    }
+
+    /**
+     * 窗口表的键：一般级别按模板，总是保留的级别按原文
+     */
+    long fingerprint(String deviceId, String level, String tag, String message, boolean exact) {
+        return exact ? LogFingerprint.exact(deviceId, level, tag, message)
+                : LogFingerprint.of(deviceId, level, tag, message);
+    }
+
+    private void close(Window window) {
+        int repeats = window.close();
+        if (repeats > 0) {
+            sink.accept(new Summary(window.deviceId, window.level, window.tag, window.message,
+                    window.lastTimestamp, repeats));
+        }
+    }
+
+    private static boolean isAlwaysKept(String level) {
+        return "ERROR".equalsIgnoreCase(level) || "FATAL".equalsIgnoreCase(level)
+                || "ASSERT".equalsIgnoreCase(level);
+    }
+
+    private static String deviceKey(String deviceId) {
+        return deviceId == null ? "" : deviceId;
+    }
+
+    /**
+     * 一个模板的去重窗口，保存第一条日志原文和之后的重复次数
+     */
+    private static final class Window {
+        final String deviceId;
+        final String level;
+        final String tag;
+        final String message;
+        final long start;
+        int repeats;
+        Long lastTimestamp;
+        boolean closed;
+
+        Window(String deviceId, String level, String tag, String message, long start) {
+            this.deviceId = deviceId;
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+            this.start = start;
+        }
+
+        boolean matches(String deviceId, String level, String tag, String message, boolean exact) {
+            if (!Objects.equals(this.deviceId, deviceId) || !Objects.equals(this.level, level)
+                    || !Objects.equals(this.tag, tag)) {
+                return false;
+            }
+            return exact ? Objects.equals(this.message, message) : LogFingerprint.sameTemplate(this.message, message);
+        }
+
+        synchronized boolean collapse(long nowMillis, long windowMillis, Long timestamp) {
+            if (closed || nowMillis - start >= windowMillis) {
+                return false;
+            }
+            repeats++;
+            lastTimestamp = timestamp != null ? timestamp : nowMillis;
+            return true;
+        }
+
+        boolean isExpired(long nowMillis, long windowMillis) {
+            return nowMillis - start >= windowMillis;
+        }
+
+        synchronized int close() {
+            closed = true;
+            return repeats;
+        }
+    }
+
+    /**
+     * 单设备每秒日志数；每秒最多保留 perSecond 条，上一秒超速时按 1/k 均匀采样，
+     * k 由上一秒的实际速率决定，避免额度集中用在每秒开头
+     */
+    private static final class DeviceRate {
+        long windowStart;
+        int count;
+        int kept;
+        int previousCount;
+        int dropped;
+
+        synchronized boolean admit(long nowMillis, int perSecond) {
+            if (nowMillis - windowStart >= RATE_WINDOW_MILLIS) {
+                previousCount = nowMillis - windowStart < 2 * RATE_WINDOW_MILLIS ? count : 0;
+                windowStart = nowMillis;
+                count = 0;
+                kept = 0;
+            }
+            count++;
+            int k = Math.max(1, (previousCount + perSecond - 1) / perSecond);
+            if (kept < perSecond && count % k == 0) {
+                kept++;
+                return true;
+            }
+            dropped++;
+            return false;
+        }
+
+        synchronized int takeDropped() {
+            int value = dropped;
+            dropped = 0;
+            return value;
+        }
+
+        synchronized boolean isIdle(long nowMillis) {
+            return nowMillis - windowStart > RATE_IDLE_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.ingest;
+
+/**
+ * 日志模板指纹
+ * 消息中以数字开头的变量片段（计数、耗时、IP、端口、十六进制地址等）统一替换为占位符后计算 64 位 FNV-1a，
+ * 逐字符计算，不生成规范化后的中间字符串
+ */
+public final class LogFingerprint {
+
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    private static final char PLACEHOLDER = '#';
+    private static final char SEPARATOR = '\u0000';
+
+    private LogFingerprint() {
+    }
+
+    public static long of(String deviceId, String level, String tag, String message) {
+        return template(header(deviceId, level, tag), message);
+    }
+
+    /**
+     * 不做规范化的指纹，消息原文不同即不同
+     */
+    public static long exact(String deviceId, String level, String tag, String message) {
+        return mix(header(deviceId, level, tag), message);
+    }
+
+    /**
+     * 两条消息规范化后的模板是否相同，逐字符比较，不生成中间字符串
+     */
+    public static boolean sameTemplate(String a, String b) {
+        a = a == null ? "" : a;
+        b = b == null ? "" : b;
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char c = a.charAt(i);
+            char d = b.charAt(j);
+            if (isDigit(c) != isDigit(d)) {
+                return false;
+            }
+            if (isDigit(c)) {
+                i = skipVariable(a, i);
+                j = skipVariable(b, j);
+            } else if (c != d) {
+                return false;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return i == a.length() && j == b.length();
+    }
+
+    private static long header(String deviceId, String level, String tag) {
+        long hash = OFFSET;
+        hash = mix(mix(hash, deviceId), SEPARATOR);
+        hash = mix(mix(hash, level), SEPARATOR);
+        return mix(mix(hash, tag), SEPARATOR);
+    }
+
+    /**
+     * 规范化后的模板文本，仅用于测试和排查
+     */
+    public static String template(String message) {
+        if (message == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(message.length());
+        int i = 0;
+        while (i < message.length()) {
+            char c = message.charAt(i);
+            if (isDigit(c)) {
+                i = skipVariable(message, i);
+                sb.append(PLACEHOLDER);
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long template(long hash, String message) {
+        if (message == null) {
+            return hash;
+        }
+        int i = 0;
+        while (i < message.length()) {
+            char c = message.charAt(i);
+            if (isDigit(c)) {
+                i = skipVariable(message, i);
+                hash = mix(hash, PLACEHOLDER);
+            } else {
+                hash = mix(hash, c);
+                i++;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 跳过从数字开始的变量片段：数字、十六进制字母及 . : - _ x 连接符
+     */
+    private static int skipVariable(String message, int i) {
+        int n = message.length();
+        while (i < n) {
+            char c = message.charAt(i);
+            if (isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')
+                    || c == '.' || c == ':' || c == '-' || c == '_' || c == 'x') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return hash;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = mix(hash, value.charAt(i));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, char c) {
+        hash ^= c;
+        return hash * PRIME;
+    }
+}
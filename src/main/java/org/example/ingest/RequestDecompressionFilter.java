@@ -0,0 +1,229 @@
+package org.example.ingest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 请求体解压过滤器
+ * 支持 Content-Encoding: gzip / deflate，解压后的字节数受上限保护，防止压缩炸弹；
+ * 异步读取（setReadListener）时先非阻塞地收齐压缩体，再在内存中解压交给监听器
+ */
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private final long maxInflatedBytes;
+
+    public RequestDecompressionFilter(long maxInflatedBytes) {
+        this.maxInflatedBytes = maxInflatedBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String normalized = encoding.trim().toLowerCase();
+        if (!normalized.equals("gzip") && !normalized.equals("x-gzip") && !normalized.equals("deflate")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        chain.doFilter(new DecompressedRequest(request, normalized.equals("deflate")), response);
+    }
+
+    private final class DecompressedRequest extends HttpServletRequestWrapper {
+
+        private final boolean deflate;
+        private ServletInputStream stream;
+
+        DecompressedRequest(HttpServletRequest request, boolean deflate) {
+            super(request);
+            this.deflate = deflate;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                stream = new InflatingServletInputStream(super.getInputStream(), deflate, maxInflatedBytes);
+            }
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String charset = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    charset != null ? charset : StandardCharsets.UTF_8.name()));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (isStrippedHeader(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (isStrippedHeader(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+
+        private boolean isStrippedHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * 超过上限时抛出 IOException，由消息转换器转为 400
+     * 解压流在第一次读取时才创建：GZIPInputStream 构造时会读取头部，异步模式下不能在此之前阻塞读取
+     */
+    private static final class InflatingServletInputStream extends ServletInputStream {
+
+        private final ServletInputStream raw;
+        private final boolean deflate;
+        private final long limit;
+        private InputStream inflated;
+        private long count;
+        private boolean finished;
+
+        /**
+         * 异步模式下压缩体收齐之前为 false
+         */
+        private volatile boolean ready = true;
+
+        InflatingServletInputStream(ServletInputStream raw, boolean deflate, long limit) {
+            this.raw = raw;
+            this.deflate = deflate;
+            this.limit = limit;
+        }
+
+        private InputStream inflated() throws IOException {
+            if (inflated == null) {
+                inflated = deflate ? new InflaterInputStream(raw) : new GZIPInputStream(raw);
+            }
+            return inflated;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = inflated().read();
+            if (b < 0) {
+                finished = true;
+            } else {
+                checkLimit(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = inflated().read(buffer, offset, length);
+            if (n < 0) {
+                finished = true;
+            } else {
+                checkLimit(n);
+            }
+            return n;
+        }
+
+        private void checkLimit(int n) throws IOException {
+            count += n;
+            if (count > limit) {
+                throw new IOException("Decompressed request body exceeds " + limit + " bytes");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            ready = false;
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            raw.setReadListener(new ReadListener() {
+                private final byte[] chunk = new byte[8192];
+
+                @Override
+                public void onDataAvailable() throws IOException {
+                    int n;
+                    while (raw.isReady() && (n = raw.read(chunk)) >= 0) {
+                        compressed.write(chunk, 0, n);
+                        // 压缩体不会大于解压后的上限，超出时无需再收
+                        if (compressed.size() > limit) {
+                            throw new IOException("Compressed request body exceeds " + limit + " bytes");
+                        }
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    ByteArrayInputStream body = new ByteArrayInputStream(compressed.toByteArray());
+                    inflated = deflate ? new InflaterInputStream(body) : new GZIPInputStream(body);
+                    ready = true;
+                    listener.onDataAvailable();
+                    if (finished) {
+                        listener.onAllDataRead();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    listener.onError(t);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (inflated != null) {
+                inflated.close();
+            } else {
+                raw.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.lane;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 按接口类别隔离的执行通道
+ * 控制器返回 {@link #submit} 生成的 WebAsyncTask，Tomcat 工作线程在异步开始后立即释放，
+ * 请求在对应通道的有界线程池中执行；某一通道排满时只影响该通道
+ */
+@Component
+public class ExecutionLanes {
+
+    private final Map<Lane, LaneExecutor> executors = new EnumMap<>(Lane.class);
+
+    public ExecutionLanes(LaneProperties properties,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        for (Lane lane : Lane.values()) {
+            String prefix = "lane-" + lane.name().toLowerCase() + "-";
+            ThreadFactory threadFactory = virtualThreads
+                    ? Thread.ofVirtual().name(prefix, 1).factory()
+                    : Thread.ofPlatform().name(prefix, 1).daemon(true).factory();
+            LaneProperties.Spec spec = properties.get(lane);
+            executors.put(lane, new LaneExecutor(spec, spec.threadsFor(virtualThreads), threadFactory));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(LaneExecutor::shutdown);
+    }
+
+    public <T> WebAsyncTask<T> submit(Lane lane, Callable<T> task) {
+        LaneExecutor executor = executors.get(lane);
+        return new WebAsyncTask<>(executor.getTimeoutMillis(), executor, task);
+    }
+
+    public LaneExecutor executor(Lane lane) {
+        return executors.get(lane);
+    }
+
+    public Map<String, LaneStats> stats() {
+        Map<String, LaneStats> stats = new LinkedHashMap<>();
+        executors.forEach((lane, executor) -> stats.put(lane.name().toLowerCase(), executor.stats()));
+        return stats;
+    }
+}
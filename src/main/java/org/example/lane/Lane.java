@@ -0,0 +1,19 @@
+package org.example.lane;
+
+/**
+ * 请求执行通道，不同类别的接口在各自有界的线程池中执行，互不抢占
+ */
+public enum Lane {
+    /**
+     * 心跳等控制类短请求
+     */
+    CONTROL,
+    /**
+     * 数据、日志上报
+     */
+    INGEST,
+    /**
+     * 文件上传、下载等大流量传输，以及递归删除、清空目录
+     */
+    BULK
+}
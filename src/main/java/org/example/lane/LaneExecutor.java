@@ -0,0 +1,104 @@
+package org.example.lane;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * 固定并发、有界队列的通道执行器，队列满时抛出 TaskRejectedException
+ */
+public class LaneExecutor extends TaskExecutorAdapter {
+
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMillis;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public LaneExecutor(LaneProperties.Spec spec, int threads, ThreadFactory threadFactory) {
+        this(new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, spec.getQueueCapacity())), threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()), spec.getTimeoutMillis());
+    }
+
+    private LaneExecutor(ThreadPoolExecutor pool, long timeoutMillis) {
+        super(pool);
+        this.pool = pool;
+        this.timeoutMillis = timeoutMillis;
+        setTaskDecorator(task -> {
+            long enqueued = System.nanoTime();
+            return () -> {
+                long waited = System.nanoTime() - enqueued;
+                totalWaitNanos.addAndGet(waited);
+                maxWaitNanos.accumulate(waited);
+                task.run();
+            };
+        });
+    }
+
+    /**
+     * execute 和 submit（WebAsyncTask 走这里）最终都经过此处
+     */
+    @Override
+    protected void doExecute(Executor concurrentExecutor, TaskDecorator taskDecorator, Runnable runnable) {
+        submitted.incrementAndGet();
+        try {
+            super.doExecute(concurrentExecutor, taskDecorator, runnable);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int getQueueSize() {
+        return pool.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * 同时执行任务数的历史峰值
+     */
+    public int getLargestPoolSize() {
+        return pool.getLargestPoolSize();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public LaneStats stats() {
+        LaneStats stats = new LaneStats();
+        stats.setThreads(pool.getMaximumPoolSize());
+        stats.setActive(pool.getActiveCount());
+        stats.setQueued(pool.getQueue().size());
+        stats.setQueueCapacity(pool.getQueue().size() + pool.getQueue().remainingCapacity());
+        stats.setSubmitted(submitted.get());
+        stats.setCompleted(pool.getCompletedTaskCount());
+        stats.setRejected(rejected.get());
+        long started = submitted.get() - rejected.get() - pool.getQueue().size();
+        stats.setAvgQueueWaitMillis(started > 0 ? totalWaitNanos.get() / 1e6 / started : 0);
+        stats.setMaxQueueWaitMillis(maxWaitNanos.get() / 1e6);
+        return stats;
+    }
+
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
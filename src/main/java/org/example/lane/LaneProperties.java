@@ -0,0 +1,65 @@
+package org.example.lane;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 执行通道配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.lanes")
+public class LaneProperties {
+
+    private Spec control = new Spec(4, 1000, 5_000);
+    private Spec ingest = new Spec(8, 2000, 30_000);
+    private Spec bulk = new Spec(32, 128, -1, 256);
+
+    public Spec get(Lane lane) {
+        return switch (lane) {
+            case CONTROL -> control;
+            case INGEST -> ingest;
+            case BULK -> bulk;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Spec {
+        /**
+         * 并发执行数
+         */
+        private int threads;
+
+        /**
+         * 排队上限，超过后直接返回 503
+         */
+        private int queueCapacity;
+
+        /**
+         * 异步请求超时，小于等于 0 表示不超时（大文件传输）
+         */
+        private long timeoutMillis;
+
+        /**
+         * 启用虚拟线程时的并发执行数，0 表示与 threads 相同；
+         * 虚拟线程阻塞在慢速 I/O 上不占用载体线程，可按连接数而不是 CPU 数放开
+         */
+        private int virtualThreads;
+
+        public Spec(int threads, int queueCapacity, long timeoutMillis) {
+            this(threads, queueCapacity, timeoutMillis, 0);
+        }
+
+        /**
+         * 按执行模式取实际并发数
+         */
+        public int threadsFor(boolean virtual) {
+            return virtual && virtualThreads > 0 ? virtualThreads : threads;
+        }
+    }
+}
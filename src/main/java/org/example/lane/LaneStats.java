@@ -0,0 +1,19 @@
+package org.example.lane;
+
+import lombok.Data;
+
+/**
+ * 单个执行通道的运行指标
+ */
+@Data
+public class LaneStats {
+    private int threads;
+    private int active;
+    private int queued;
+    private int queueCapacity;
+    private long submitted;
+    private long completed;
+    private long rejected;
+    private double avgQueueWaitMillis;
+    private double maxQueueWaitMillis;
+}
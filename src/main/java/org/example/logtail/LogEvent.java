@@ -0,0 +1,8 @@
+package org.example.logtail;
+
+/**
+ * 广播缓冲区中的一条日志，创建后不可变；count 大于 1 表示去重合并后的记录
+ */
+public record LogEvent(long seq, String deviceId, String level, String tag, String message, Long timestamp,
+                       int count) {
+}
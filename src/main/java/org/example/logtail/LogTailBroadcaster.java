@@ -0,0 +1,288 @@
+package org.example.logtail;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 日志实时广播
+ * 上报线程只向共享环形缓冲区写入一条记录，不感知订阅者；
+ * 推送线程按周期为每个订阅者从各自游标读取，并通过 Servlet 非阻塞写批量写出。
+ * 每个订阅者最多只有一批数据停留在容器的写缓冲中，套接字不可写时推送线程直接跳过该订阅者，
+ * 不可写持续超过写出期限的订阅者被断开；落后超过缓冲区容量时跳过被覆盖的事件并收到 dropped 通知，
+ * 多次落后同样被断开，因此慢订阅者既不会反压上报，也不会占用推送线程
+ */
+@Slf4j
+@Component
+public class LogTailBroadcaster {
+
+    private final LogTailProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AtomicReferenceArray<LogEvent> ring;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final AtomicLong stalled = new AtomicLong();
+    private final ScheduledExecutorService dispatcher;
+
+    public LogTailBroadcaster(LogTailProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        int capacity = Integer.highestOneBit(Math.max(2, properties.getBufferSize() - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-tail-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher.scheduleWithFixedDelay(this::dispatch, properties.getDispatchIntervalMillis(),
+                properties.getDispatchIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(Subscriber::close);
+        subscribers.clear();
+    }
+
+    /**
+     * 发布一条日志，无锁且不阻塞
+     */
+    public void publish(String deviceId, String level, String tag, String message, Long timestamp, int count) {
+        long seq = sequence.getAndIncrement();
+        ring.lazySet((int) (seq & mask), new LogEvent(seq, deviceId, level, tag, message, timestamp, count));
+    }
+
+    /**
+     * 新建订阅并接管响应，lastEventId 仍在缓冲区内时从其后续事件开始补发
+     */
+    public void subscribe(LogTailFilter filter, Long lastEventId,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (subscribers.size() >= properties.getMaxSubscribers()) {
+            throw new IllegalStateException("Too many log tail subscribers");
+        }
+
+        long head = sequence.get();
+        long cursor = head;
+        if (lastEventId != null && lastEventId + 1 < head && head - (lastEventId + 1) <= mask) {
+            cursor = lastEventId + 1;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        AsyncContext context = request.startAsync();
+        context.setTimeout(properties.getEmitterTimeoutMillis());
+        long id = subscriberIds.incrementAndGet();
+        Subscriber subscriber = new Subscriber(id, context, response.getOutputStream(), filter, cursor);
+        subscribers.put(id, subscriber);
+        context.addListener(subscriber);
+        subscriber.output.setWriteListener(subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 因写出停滞超过期限而断开的订阅者数
+     */
+    public long getStalledCount() {
+        return stalled.get();
+    }
+
+    private void dispatch() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers.values()) {
+            try {
+                drain(subscriber, now);
+            } catch (RuntimeException e) {
+                log.warn("Log tail dispatch failed", e);
+                subscriber.close();
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber, long now) {
+        if (!subscriber.opened) {
+            return;
+        }
+        // 上一批仍在容器写缓冲中：不再追加，超过期限则断开
+        if (!subscriber.output.isReady()) {
+            if (subscriber.blockedSince == 0) {
+                subscriber.blockedSince = now;
+            } else if (now - subscriber.blockedSince > properties.getWriteTimeoutMillis()) {
+                stalled.incrementAndGet();
+                log.info("Disconnecting log tail subscriber stalled for {} ms", now - subscriber.blockedSince);
+                subscriber.close();
+            }
+            return;
+        }
+        subscriber.blockedSince = 0;
+
+        long head = sequence.get();
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+
+        // 被覆盖的事件直接跳过，只通知丢弃数量
+        if (head - subscriber.cursor > mask) {
+            long skipTo = head - (mask + 1) / 2;
+            long dropped = skipTo - subscriber.cursor;
+            subscriber.cursor = skipTo;
+            if (++subscriber.lagStrikes > properties.getMaxLagStrikes()) {
+                log.info("Disconnecting slow log tail subscriber after {} lag strikes", subscriber.lagStrikes);
+                subscriber.close();
+                return;
+            }
+            writeEvent(batch, null, "dropped", Map.of("count", dropped));
+        }
+
+        int events = 0;
+        while (subscriber.cursor < head && events < properties.getMaxBatch()) {
+            LogEvent event = ring.get((int) (subscriber.cursor & mask));
+            if (event == null || event.seq() < subscriber.cursor) {
+                // 写入方已分配序号但尚未写入，下个周期再读
+                break;
+            }
+            if (event.seq() > subscriber.cursor) {
+                // 读取期间被覆盖，下个周期按落后处理
+                break;
+            }
+            subscriber.cursor++;
+            if (subscriber.filter.matches(event)) {
+                writeEvent(batch, Long.toString(event.seq()), "log", event);
+                events++;
+            }
+        }
+
+        if (batch.size() == 0 && now - subscriber.lastSent >= properties.getKeepAliveMillis()) {
+            batch.writeBytes(":keep-alive\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+        if (batch.size() > 0) {
+            try {
+                // 非阻塞模式下 write 不会等待套接字，写不完的部分留在容器缓冲中，isReady() 随之变为 false
+                subscriber.output.write(batch.toByteArray());
+                if (subscriber.output.isReady()) {
+                    subscriber.output.flush();
+                }
+                subscriber.lastSent = now;
+            } catch (IOException | IllegalStateException e) {
+                // 客户端断开或发送失败
+                subscriber.close();
+            }
+        }
+    }
+
+    private void writeEvent(ByteArrayOutputStream batch, String id, String name, Object data) {
+        StringBuilder sb = new StringBuilder();
+        if (id != null) {
+            sb.append("id:").append(id).append('\n');
+        }
+        sb.append("event:").append(name).append('\n');
+        try {
+            sb.append("data:").append(objectMapper.writeValueAsString(data)).append("\n\n");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        batch.writeBytes(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 单个订阅者；游标和写出只由推送线程访问，容器回调只更新连接状态
+     */
+    private final class Subscriber implements WriteListener, AsyncListener {
+        final long id;
+        final AsyncContext context;
+        final ServletOutputStream output;
+        final LogTailFilter filter;
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile boolean opened;
+        long cursor;
+        long lastSent;
+        long blockedSince;
+        int lagStrikes;
+
+        Subscriber(long id, AsyncContext context, ServletOutputStream output, LogTailFilter filter, long cursor) {
+            this.id = id;
+            this.context = context;
+            this.output = output;
+            this.filter = filter;
+            this.cursor = cursor;
+            this.lastSent = System.currentTimeMillis();
+        }
+
+        @Override
+        public void onWritePossible() throws IOException {
+            if (!opened) {
+                // 立即提交响应头，客户端据此确认订阅成功
+                output.flush();
+                opened = true;
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            subscribers.remove(id);
+            closed.set(true);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        void close() {
+            subscribers.remove(id);
+            if (closed.compareAndSet(false, true)) {
+                try {
+                    context.complete();
+                } catch (IllegalStateException ignored) {
+                    // 容器已结束该请求
+                }
+            }
+        }
+    }
+}
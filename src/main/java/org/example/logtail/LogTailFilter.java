@@ -0,0 +1,31 @@
+package org.example.logtail;
+
+import java.util.List;
+
+/**
+ * 订阅过滤条件：最低级别、标签、设备，未指定的条件不过滤
+ */
+public record LogTailFilter(String level, String tag, String deviceId) {
+
+    private static final List<String> LEVELS = List.of("VERBOSE", "DEBUG", "INFO", "WARN", "ERROR", "FATAL");
+
+    public LogTailFilter {
+        if (level != null && !level.isEmpty() && !LEVELS.contains(level.toUpperCase())) {
+            throw new IllegalArgumentException("Unsupported log level: " + level);
+        }
+    }
+
+    public boolean matches(LogEvent event) {
+        if (tag != null && !tag.isEmpty() && !tag.equals(event.tag())) {
+            return false;
+        }
+        if (deviceId != null && !deviceId.isEmpty() && !deviceId.equals(event.deviceId())) {
+            return false;
+        }
+        if (level != null && !level.isEmpty()) {
+            int eventLevel = event.level() == null ? -1 : LEVELS.indexOf(event.level().toUpperCase());
+            return eventLevel >= LEVELS.indexOf(level.toUpperCase());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.logtail;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 日志实时推送配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.log-tail")
+public class LogTailProperties {
+
+    /**
+     * 共享广播缓冲区容量，向上取整为 2 的幂
+     */
+    private int bufferSize = 4096;
+
+    /**
+     * 最大订阅者数
+     */
+    private int maxSubscribers = 256;
+
+    /**
+     * 推送周期，同一周期内的日志合并为一次写出
+     */
+    private long dispatchIntervalMillis = 100;
+
+    /**
+     * 单次写出的最大事件数
+     */
+    private int maxBatch = 64;
+
+    /**
+     * 订阅者落后超过缓冲区后跳过旧事件；累计跳过次数超过该值时断开
+     */
+    private int maxLagStrikes = 3;
+
+    /**
+     * 写出期限：套接字持续不可写超过该时间的订阅者被断开
+     */
+    private long writeTimeoutMillis = 10_000;
+
+    /**
+     * 连接超时，客户端 EventSource 会自动重连
+     */
+    private long emitterTimeoutMillis = 30 * 60 * 1000L;
+
+    /**
+     * 无日志时的保活注释间隔
+     */
+    private long keepAliveMillis = 15_000;
+}
@@ -0,0 +1,12 @@
+package org.example.metrics;
+
+/**
+ * 计时的存储操作类型
+ */
+public enum DiskOp {
+    COPY,
+    STAT,
+    LIST,
+    WALK,
+    DELETE
+}
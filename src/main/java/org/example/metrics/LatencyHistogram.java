@@ -0,0 +1,128 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对数线性分桶的耗时直方图（HdrHistogram 的分桶方式），单位微秒
+ * 小于 {@value #SUB_BUCKETS} 的值精确计数，之后每个 2 的幂区间切成 {@value #HALF} 个等宽子桶，
+ * 相对误差不超过 1/{@value #HALF}；计数数组在构造时分配，记录路径不产生对象
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int HALF = SUB_BUCKETS / 2;
+
+    /**
+     * 可区分的最高位，2^37 微秒约 38 小时，更大的值计入最后一个桶
+     */
+    static final int MAX_BIT = 36;
+
+    static final int BUCKETS = SUB_BUCKETS + (MAX_BIT - SUB_BUCKET_BITS + 1) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_BIT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS + 1;
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int offset = bucket - SUB_BUCKETS;
+        int exponent = SUB_BUCKET_BITS + offset / HALF;
+        return (long) (HALF + offset % HALF) << (exponent - SUB_BUCKET_BITS + 1);
+    }
+
+    static long width(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return 1;
+        }
+        return 1L << ((bucket - SUB_BUCKETS) / HALF + 1);
+    }
+
+    /**
+     * 复制当前计数；与并发记录之间不加锁，快照内各字段可能相差几次记录
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum.sum(), max.get());
+    }
+
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sumMicros;
+        private final long maxMicros;
+
+        private Snapshot(long[] counts, long count, long sumMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.sumMicros = sumMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSumMicros() {
+            return sumMicros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        /**
+         * 分位数取所在桶的中点，不超过记录到的最大值
+         */
+        public long valueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(maxMicros, lowerBound(i) + (width(i) - 1) / 2);
+                }
+            }
+            return maxMicros;
+        }
+    }
+}
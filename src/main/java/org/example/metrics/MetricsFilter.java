@@ -0,0 +1,33 @@
+package org.example.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 按路由模板和状态码记录请求耗时，异步请求在异步结束时记录（见 {@link RequestCompletionFilter}）；
+ * 没有匹配到路由的请求按状态码归入 NOT_FOUND / REDIRECTION / UNKNOWN，避免按原始路径产生无限多序列
+ */
+public class MetricsFilter extends RequestCompletionFilter {
+
+    private final MetricsRegistry registry;
+
+    public MetricsFilter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void onCompletion(HttpServletRequest request, HttpServletResponse response, int status, long startNanos) {
+        registry.recordRequest(uriOf(request, status), status, System.nanoTime() - startNanos);
+    }
+
+    static String uriOf(HttpServletRequest request, int status) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern) {
+            return pattern;
+        }
+        if (status == HttpServletResponse.SC_NOT_FOUND) {
+            return "NOT_FOUND";
+        }
+        return status >= 300 && status < 400 ? "REDIRECTION" : "UNKNOWN";
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内置指标配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.metrics")
+public class MetricsProperties {
+
+    /**
+     * 是否记录请求耗时并开放 /metrics
+     */
+    private boolean enabled = true;
+
+    /**
+     * 输出的分位数
+     */
+    private List<Double> quantiles = new ArrayList<>(List.of(0.5, 0.9, 0.99, 0.999));
+
+    /**
+     * 按路由模板区分的接口数上限，超出的计入 uri="OTHER"
+     */
+    private int maxEndpoints = 256;
+}
@@ -0,0 +1,235 @@
+package org.example.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 进程内指标注册表，按 Prometheus 文本格式输出
+ * 请求和磁盘操作耗时记录在预分配的直方图中；其余指标在启动时以回调注册，抓取时才读取
+ */
+@Component
+public class MetricsRegistry {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    static final String OTHER_URI = "OTHER";
+
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 599;
+
+    private final MetricsProperties properties;
+    private final ConcurrentHashMap<String, EndpointSeries> endpoints = new ConcurrentHashMap<>();
+    private final Map<DiskOp, LatencyHistogram> diskOps = new EnumMap<>(DiskOp.class);
+    private final LongAdder uploadBytes = new LongAdder();
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    public MetricsRegistry(MetricsProperties properties) {
+        this.properties = properties;
+        for (DiskOp op : DiskOp.values()) {
+            diskOps.put(op, new LatencyHistogram());
+        }
+        counter("harmony_transfer_bytes_total", "Bytes transferred by file endpoints",
+                uploadBytes::sum, "direction", "upload");
+    }
+
+    /**
+     * uri 为路由模板，状态码不在 100-599 时按 599 计
+     */
+    public void recordRequest(String uri, int status, long nanos) {
+        EndpointSeries series = endpoints.get(uri);
+        if (series == null) {
+            series = endpoints.size() < properties.getMaxEndpoints()
+                    ? endpoints.computeIfAbsent(uri, key -> new EndpointSeries())
+                    : endpoints.computeIfAbsent(OTHER_URI, key -> new EndpointSeries());
+        }
+        series.histogram(status).recordNanos(nanos);
+    }
+
+    public void recordDiskOp(DiskOp op, long startNanos) {
+        diskOps.get(op).recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void addUploadBytes(long bytes) {
+        uploadBytes.add(bytes);
+    }
+
+    /**
+     * 注册瞬时值，labels 为成对的标签名和值
+     */
+    public synchronized void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        register(name, help, "gauge", value, labels);
+    }
+
+    /**
+     * 注册只增不减的累计值
+     */
+    public synchronized void counter(String name, String help, DoubleSupplier value, String... labels) {
+        register(name, help, "counter", value, labels);
+    }
+
+    private void register(String name, String help, String type, DoubleSupplier value, String[] labels) {
+        Family family = families.computeIfAbsent(name, n -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " already registered as " + family.type);
+        }
+        family.samples.add(new Sample(renderLabels(labels), value));
+    }
+
+    /**
+     * 当前直方图快照，测试和基准中查看单个序列用
+     */
+    public LatencyHistogram.Snapshot requestSnapshot(String uri, int status) {
+        EndpointSeries series = endpoints.get(uri);
+        return series != null ? series.histogram(status).snapshot() : new LatencyHistogram().snapshot();
+    }
+
+    public LatencyHistogram.Snapshot diskOpSnapshot(DiskOp op) {
+        return diskOps.get(op).snapshot();
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+
+        List<String> uris = new ArrayList<>(endpoints.keySet());
+        uris.sort(null);
+        List<Series> requests = new ArrayList<>();
+        for (String uri : uris) {
+            EndpointSeries series = endpoints.get(uri);
+            for (int status = MIN_STATUS; status <= MAX_STATUS; status++) {
+                LatencyHistogram histogram = series.histograms.get(status - MIN_STATUS);
+                if (histogram != null) {
+                    requests.add(new Series(renderLabels(new String[]{"uri", uri, "status", Integer.toString(status)}),
+                            histogram.snapshot()));
+                }
+            }
+        }
+        writeHeader(out, "harmony_http_server_requests_seconds", "HTTP request latency by route and status",
+                "summary");
+        for (Series series : requests) {
+            writeSummary(out, "harmony_http_server_requests_seconds", series.labels, series.snapshot);
+        }
+        writeHeader(out, "harmony_http_server_requests_seconds_max", "Slowest request since start", "gauge");
+        for (Series series : requests) {
+            writeSample(out, "harmony_http_server_requests_seconds_max", series.labels, null,
+                    seconds(series.snapshot.getMaxMicros()));
+        }
+
+        writeHeader(out, "harmony_disk_operation_seconds", "Disk operation latency", "summary");
+        diskOps.forEach((op, histogram) -> writeSummary(out, "harmony_disk_operation_seconds",
+                renderLabels(new String[]{"op", op.name().toLowerCase()}), histogram.snapshot()));
+
+        synchronized (this) {
+            families.forEach((name, family) -> {
+                writeHeader(out, name, family.help, family.type);
+                for (Sample sample : family.samples) {
+                    writeSample(out, name, sample.labels, null, sample.value.getAsDouble());
+                }
+            });
+        }
+        return out.toString();
+    }
+
+    private void writeSummary(StringBuilder out, String name, String labels, LatencyHistogram.Snapshot snapshot) {
+        for (double quantile : properties.getQuantiles()) {
+            writeSample(out, name, labels, "quantile=\"" + quantile + "\"",
+                    seconds(snapshot.valueAtQuantile(quantile)));
+        }
+        writeSample(out, name + "_sum", labels, null, seconds(snapshot.getSumMicros()));
+        writeSample(out, name + "_count", labels, null, snapshot.getCount());
+    }
+
+    private static void writeHeader(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, String extra, double value) {
+        out.append(name);
+        if (!labels.isEmpty() || extra != null) {
+            out.append('{').append(labels);
+            if (extra != null) {
+                if (!labels.isEmpty()) {
+                    out.append(',');
+                }
+                out.append(extra);
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static double seconds(long micros) {
+        return micros / 1e6;
+    }
+
+    private static String renderLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder rendered = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                rendered.append(',');
+            }
+            rendered.append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                switch (c) {
+                    case '\\' -> rendered.append("\\\\");
+                    case '"' -> rendered.append("\\\"");
+                    case '\n' -> rendered.append("\\n");
+                    default -> rendered.append(c);
+                }
+            }
+            rendered.append('"');
+        }
+        return rendered.toString();
+    }
+
+    /**
+     * 单个路由下按状态码分开的直方图，首次出现某个状态码时创建
+     */
+    private static final class EndpointSeries {
+
+        private final AtomicReferenceArray<LatencyHistogram> histograms =
+                new AtomicReferenceArray<>(MAX_STATUS - MIN_STATUS + 1);
+
+        LatencyHistogram histogram(int status) {
+            int index = (status < MIN_STATUS || status > MAX_STATUS ? MAX_STATUS : status) - MIN_STATUS;
+            LatencyHistogram histogram = histograms.get(index);
+            if (histogram == null) {
+                histograms.compareAndSet(index, null, new LatencyHistogram());
+                histogram = histograms.get(index);
+            }
+            return histogram;
+        }
+    }
+
+    private record Family(String help, String type, List<Sample> samples) {
+        Family(String help, String type) {
+            this(help, type, new ArrayList<>());
+        }
+    }
+
+    private record Sample(String labels, DoubleSupplier value) {
+    }
+
+    private record Series(String labels, LatencyHistogram.Snapshot snapshot) {
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.metrics;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 请求结束时回调一次的过滤器基类
+ * 同步请求在过滤链返回后回调；异步请求（执行通道、非阻塞下载、SSE）在异步结束时回调，耗时包含排队和发送；
+ * 过滤链抛出异常时按 500 回调后重新抛出
+ */
+public abstract class RequestCompletionFilter extends OncePerRequestFilter {
+
+    private final String startAttribute = getClass().getName() + ".start";
+    private final AsyncListener completionListener = new CompletionListener();
+
+    @Override
+    protected final void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        HttpServletResponse wrapped = wrapResponse(response);
+        try {
+            chain.doFilter(request, wrapped);
+        } catch (IOException | ServletException | RuntimeException e) {
+            onCompletion(request, wrapped, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, start);
+            throw e;
+        }
+
+        if (request.isAsyncStarted()) {
+            try {
+                request.setAttribute(startAttribute, start);
+                request.getAsyncContext().addListener(completionListener, request, wrapped);
+                return;
+            } catch (IllegalStateException e) {
+                // 异步已在本线程内结束
+            }
+        }
+        onCompletion(request, wrapped, wrapped.getStatus(), start);
+    }
+
+    /**
+     * 传给过滤链的响应，回调时收到的是同一个对象；默认不包装
+     */
+    protected HttpServletResponse wrapResponse(HttpServletResponse response) {
+        return response;
+    }
+
+    /**
+     * 请求结束，startNanos 为进入过滤器时的 System.nanoTime()
+     */
+    protected abstract void onCompletion(HttpServletRequest request, HttpServletResponse response, int status,
+                                         long startNanos);
+
+    /**
+     * 所有异步请求共用一个监听器，开始时间从请求属性中取
+     */
+    private final class CompletionListener implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (event.getSuppliedRequest() instanceof HttpServletRequest request
+                    && event.getSuppliedResponse() instanceof HttpServletResponse response
+                    && request.getAttribute(startAttribute) instanceof Long start) {
+                onCompletion(request, response, response.getStatus(), start);
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        /**
+         * 异步重新开始时监听器需要重新登记，否则收不到最终的完成事件
+         */
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this, event.getSuppliedRequest(), event.getSuppliedResponse());
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.example.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.exception.ErrorResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按设备/客户端限流
+ * 客户端标识默认取客户端 IP；设备身份由前置网关认证时（trust-device-id）才依次取 X-Device-Id 请求头、查询参数 deviceId，
+ * 否则客户端可以随意更换设备ID绕过限额。
+ * 不读取请求体，避免在限流之前就触发 multipart 解析；Content-Length 未知（分块传输）时按实际读取的字节数事后记账
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String DEVICE_ID_HEADER = "X-Device-Id";
+
+    private static final String DEVICE_ID_PARAM = "deviceId=";
+    private static final String DEVICE_ID_PARAM_NEXT = "&" + DEVICE_ID_PARAM;
+
+    private final String[] prefixes;
+    private final RateLimiter[] limiters;
+    private final boolean trustDeviceId;
+    private final boolean trustForwardedFor;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper) {
+        List<String> prefixList = new ArrayList<>();
+        List<RateLimiter> limiterList = new ArrayList<>();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getIdleEvictMillis());
+        for (Map.Entry<String, RateLimitProperties.Group> entry : properties.getGroups().entrySet()) {
+            RateLimitProperties.Group group = entry.getValue();
+            RateLimiter limiter = new RateLimiter(entry.getKey(),
+                    group.getRequestsPerSecond(), group.getRequestBurst(),
+                    group.getBytesPerSecond().toBytes(), group.getByteBurst().toBytes(),
+                    idleNanos, properties.getSweepEveryRequests());
+            for (String prefix : group.getPathPrefixes()) {
+                prefixList.add(prefix);
+                limiterList.add(limiter);
+            }
+        }
+        this.prefixes = prefixList.toArray(new String[0]);
+        this.limiters = limiterList.toArray(new RateLimiter[0]);
+        this.trustDeviceId = properties.isTrustDeviceId();
+        this.trustForwardedFor = properties.isTrustForwardedFor();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RateLimiter limiter = match(request.getRequestURI());
+        if (limiter == null || "OPTIONS".equals(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String client = clientKey(request);
+        // 分块传输的请求体长度未知：按 1 字节检查字节桶，之前欠账未还清的客户端被拒绝，读取时再按实际字节数记账
+        boolean chunked = request.getContentLengthLong() < 0 && request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null;
+        long bytes = chunked ? 1 : Math.max(0, request.getContentLengthLong());
+        long waitNanos = limiter.tryAcquire(client, bytes, System.nanoTime());
+        if (waitNanos == 0) {
+            if (chunked && limiter.limitsBytes()) {
+                chain.doFilter(new CountingRequest(request, limiter, client), response);
+            } else {
+                chain.doFilter(request, response);
+            }
+            return;
+        }
+
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        log.debug("Rate limited {} on {} group, retry after {}s", client, limiter.getName(), retryAfter);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ErrorResponse.tooManyRequests("Rate limit exceeded, retry after " + retryAfter + "s",
+                        request.getRequestURI()));
+    }
+
+    public RateLimiter[] getLimiters() {
+        return limiters;
+    }
+
+    private RateLimiter match(String uri) {
+        for (int i = 0; i < prefixes.length; i++) {
+            if (uri.startsWith(prefixes[i])) {
+                return limiters[i];
+            }
+        }
+        return null;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        return clientKey(request, trustDeviceId, trustForwardedFor);
+    }
+
+    /**
+     * 客户端标识，带宽调度等按客户端区分的功能与限流保持一致
+     */
+    public static String clientKey(HttpServletRequest request, boolean trustDeviceId, boolean trustForwardedFor) {
+        if (trustDeviceId) {
+            String deviceId = request.getHeader(DEVICE_ID_HEADER);
+            if (deviceId != null && !deviceId.isEmpty()) {
+                return deviceId;
+            }
+            deviceId = queryDeviceId(request.getQueryString());
+            if (deviceId != null) {
+                return deviceId;
+            }
+        }
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isEmpty()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    public static String queryDeviceId(String query) {
+        if (query == null) {
+            return null;
+        }
+        int start;
+        if (query.startsWith(DEVICE_ID_PARAM)) {
+            start = DEVICE_ID_PARAM.length();
+        } else {
+            int index = query.indexOf(DEVICE_ID_PARAM_NEXT);
+            if (index < 0) {
+                return null;
+            }
+            start = index + DEVICE_ID_PARAM_NEXT.length();
+        }
+        int end = query.indexOf('&', start);
+        String value = end < 0 ? query.substring(start) : query.substring(start, end);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 请求体长度未知时，把实际读取的字节数记入客户端的字节桶
+     */
+    private static final class CountingRequest extends HttpServletRequestWrapper {
+
+        private final RateLimiter limiter;
+        private final String client;
+        private ServletInputStream stream;
+
+        CountingRequest(HttpServletRequest request, RateLimiter limiter, String client) {
+            super(request);
+            this.limiter = limiter;
+            this.client = client;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                stream = new CountingInputStream(super.getInputStream());
+            }
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String charset = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    charset != null ? charset : StandardCharsets.UTF_8.name()));
+        }
+
+        private final class CountingInputStream extends ServletInputStream {
+
+            private final ServletInputStream delegate;
+
+            CountingInputStream(ServletInputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = delegate.read();
+                if (b >= 0) {
+                    limiter.charge(client, 1, System.nanoTime());
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = delegate.read(buffer, offset, length);
+                if (n > 0) {
+                    limiter.charge(client, n, System.nanoTime());
+                }
+                return n;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return delegate.isFinished();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                delegate.setReadListener(readListener);
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按设备/客户端限流配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 是否按 X-Device-Id 请求头 / deviceId 查询参数区分客户端（仅在设备身份已由前置网关认证时开启），
+     * 关闭时一律按客户端 IP 限流
+     */
+    private boolean trustDeviceId = false;
+
+    /**
+     * 是否信任 X-Forwarded-For 取客户端 IP（仅在反向代理之后开启）
+     */
+    private boolean trustForwardedFor = false;
+
+    /**
+     * 桶空闲多久后回收
+     */
+    private long idleEvictMillis = 10 * 60 * 1000L;
+
+    /**
+     * 每处理多少个请求顺带清理一个分段的空闲桶
+     */
+    private int sweepEveryRequests = 1024;
+
+    /**
+     * 接口分组，按声明顺序匹配路径前缀
+     */
+    private Map<String, Group> groups = defaultGroups();
+
+    @Data
+    public static class Group {
+        private List<String> pathPrefixes = new ArrayList<>();
+
+        /**
+         * 每秒请求数，0 表示不限
+         */
+        private double requestsPerSecond;
+        private long requestBurst;
+
+        /**
+         * 每秒请求体字节数（按 Content-Length 计，长度未知时按实际读取量事后记账），0 表示不限
+         */
+        private DataSize bytesPerSecond = DataSize.ofBytes(0);
+        private DataSize byteBurst = DataSize.ofBytes(0);
+    }
+
+    private static Map<String, Group> defaultGroups() {
+        Map<String, Group> groups = new LinkedHashMap<>();
+
+        Group ingest = new Group();
+        ingest.getPathPrefixes().add("/api/data/");
+        ingest.setRequestsPerSecond(100);
+        ingest.setRequestBurst(200);
+        ingest.setBytesPerSecond(DataSize.ofMegabytes(4));
+        ingest.setByteBurst(DataSize.ofMegabytes(16));
+        groups.put("ingest", ingest);
+
+        Group file = new Group();
+        file.getPathPrefixes().add("/api/file/");
+        file.setRequestsPerSecond(50);
+        file.setRequestBurst(200);
+        file.setBytesPerSecond(DataSize.ofMegabytes(64));
+        file.setByteBurst(DataSize.ofMegabytes(256));
+        groups.put("file", file);
+
+        return groups;
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个接口分组的限流器，每个客户端一对请求数/字节数令牌桶
+ * 桶按客户端 key 的哈希分散到多个分段，空闲桶在请求路径上按分段轮流顺带回收（平均每 sweepEvery 个请求一次）
+ */
+public class RateLimiter {
+
+    private static final int STRIPES = 16;
+
+    private final String name;
+    private final double requestsPerSecond;
+    private final long requestBurst;
+    private final double bytesPerSecond;
+    private final long byteBurst;
+    private final long idleNanos;
+    private final int sweepEvery;
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, ClientBuckets>[] stripes = new ConcurrentHashMap[STRIPES];
+    private final AtomicInteger sweepCursor = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public RateLimiter(String name, double requestsPerSecond, long requestBurst,
+                       double bytesPerSecond, long byteBurst, long idleNanos, int sweepEvery) {
+        this.name = name;
+        this.requestsPerSecond = requestsPerSecond;
+        this.requestBurst = Math.max(1, requestBurst);
+        this.bytesPerSecond = bytesPerSecond;
+        this.byteBurst = Math.max(1, byteBurst);
+        this.idleNanos = idleNanos;
+        this.sweepEvery = Math.max(1, sweepEvery);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * @param bytes 请求体字节数，未知时传 0
+     * @return 0 表示放行，否则为建议等待的纳秒数
+     */
+    public long tryAcquire(String client, long bytes, long nowNanos) {
+        // 用随机数代替共享计数器决定何时清理，避免热路径上的跨线程写竞争
+        if (ThreadLocalRandom.current().nextInt(sweepEvery) == 0) {
+            sweep(nowNanos);
+        }
+
+        ClientBuckets buckets = bucketsOf(client, nowNanos);
+        long wait = buckets.requests == null ? 0 : buckets.requests.tryAcquire(1, nowNanos);
+        if (wait == 0 && buckets.bytes != null && bytes > 0) {
+            wait = buckets.bytes.tryAcquire(bytes, nowNanos);
+            if (wait != 0 && buckets.requests != null) {
+                // 被字节数拒绝的请求不占用请求数额度
+                buckets.requests.refund(1);
+            }
+        }
+        if (wait != 0) {
+            rejected.incrementAndGet();
+        }
+        return wait;
+    }
+
+    /**
+     * 事后记入已读取的请求体字节数，额度不足时记为欠账，由之后的请求等待偿还
+     */
+    public void charge(String client, long bytes, long nowNanos) {
+        if (bytesPerSecond > 0 && bytes > 0) {
+            ClientBuckets buckets = bucketsOf(client, nowNanos);
+            buckets.bytes.consume(bytes, nowNanos);
+        }
+    }
+
+    /**
+     * 是否限制请求体字节数
+     */
+    public boolean limitsBytes() {
+        return bytesPerSecond > 0;
+    }
+
+    private ClientBuckets bucketsOf(String client, long nowNanos) {
+        ConcurrentHashMap<String, ClientBuckets> stripe = stripes[stripeOf(client)];
+        ClientBuckets buckets = stripe.get(client);
+        if (buckets == null) {
+            buckets = stripe.computeIfAbsent(client, k -> new ClientBuckets(nowNanos));
+        }
+        return buckets;
+    }
+
+    /**
+     * 回收下一个分段里的空闲桶
+     */
+    void sweep(long nowNanos) {
+        int index = (sweepCursor.getAndIncrement() & Integer.MAX_VALUE) % STRIPES;
+        stripes[index].values().removeIf(b -> b.isIdle(nowNanos, idleNanos));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBucketCount() {
+        int count = 0;
+        for (ConcurrentHashMap<String, ClientBuckets> stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private static int stripeOf(String client) {
+        int h = client.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private final class ClientBuckets {
+        final TokenBucket requests;
+        final TokenBucket bytes;
+
+        ClientBuckets(long nowNanos) {
+            this.requests = requestsPerSecond > 0 ? new TokenBucket(requestsPerSecond, requestBurst, nowNanos) : null;
+            this.bytes = bytesPerSecond > 0 ? new TokenBucket(bytesPerSecond, byteBurst, nowNanos) : null;
+        }
+
+        boolean isIdle(long nowNanos, long idleNanos) {
+            return (requests == null || requests.isIdle(nowNanos, idleNanos))
+                    && (bytes == null || bytes.isIdle(nowNanos, idleNanos));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶（GCRA 形式）
+ * 只保存一个"理论到达时间"，补充令牌在取用时按时间差惰性计算，不需要后台定时器；
+ * 单次消耗超过桶容量时，只要桶是满的就放行并记为欠账，之后的请求需等欠账还清
+ */
+public final class TokenBucket {
+
+    private final double nanosPerToken;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double tokensPerSecond, long burst, long nowNanos) {
+        if (tokensPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.nanosPerToken = 1_000_000_000d / tokensPerSecond;
+        this.toleranceNanos = (long) (nanosPerToken * burst);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * 尝试取用 cost 个令牌
+     *
+     * @return 0 表示放行，否则为需要等待的纳秒数
+     */
+    public long tryAcquire(long cost, long nowNanos) {
+        long increment = (long) (cost * nanosPerToken);
+        while (true) {
+            long current = theoreticalArrival.get();
+            long base = Math.max(current, nowNanos);
+            long next = base + increment;
+            long allowAt = increment > toleranceNanos ? base : next - toleranceNanos;
+            if (allowAt > nowNanos) {
+                return allowAt - nowNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 无条件取用 cost 个令牌，不足部分记为欠账；用于事后按实际读取量记账
+     */
+    public void consume(long cost, long nowNanos) {
+        long increment = (long) (cost * nanosPerToken);
+        theoreticalArrival.getAndUpdate(current -> Math.max(current, nowNanos) + increment);
+    }
+
+    /**
+     * 归还此前取用的 cost 个令牌
+     */
+    public void refund(long cost) {
+        theoreticalArrival.addAndGet(-(long) (cost * nanosPerToken));
+    }
+
+    /**
+     * 桶已满且超过 idleNanos 未被使用
+     */
+    public boolean isIdle(long nowNanos, long idleNanos) {
+        return theoreticalArrival.get() + idleNanos < nowNanos;
+    }
+}
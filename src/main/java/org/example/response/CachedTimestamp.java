@@ -0,0 +1,41 @@
+package org.example.response;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 按毫秒缓存的本地时间字符串（ISO_LOCAL_DATE_TIME）
+ * 同一毫秒内的请求共用一次格式化结果，高并发时格式化次数不超过每毫秒一次
+ */
+public final class CachedTimestamp {
+
+    private final ZoneId zone;
+    private volatile Entry current = new Entry(Long.MIN_VALUE, null);
+
+    public CachedTimestamp() {
+        this(ZoneId.systemDefault());
+    }
+
+    public CachedTimestamp(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public String now() {
+        return format(System.currentTimeMillis());
+    }
+
+    public String format(long epochMillis) {
+        Entry entry = current;
+        if (entry.millis != epochMillis) {
+            entry = new Entry(epochMillis, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone)));
+            current = entry;
+        }
+        return entry.text;
+    }
+
+    private record Entry(long millis, String text) {
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预编码的 JSON 响应
+ * 固定内容的响应体启动时编码一次；心跳只拼接时间戳数字；其余类型化响应走按类型缓存的 ObjectWriter，
+ * 不再为每个请求构建 HashMap 和装箱值
+ */
+@Component
+public class JsonResponses {
+
+    private static final HttpHeaders JSON_HEADERS;
+
+    static {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        JSON_HEADERS = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private static final byte[] HEARTBEAT_PREFIX =
+            "{\"success\":true,\"message\":\"pong\",\"timestamp\":".getBytes(StandardCharsets.US_ASCII);
+    private static final ResponseEntity<byte[]> LOG_RECEIVED = ok(
+            "{\"success\":true,\"message\":\"Log received successfully\"}".getBytes(StandardCharsets.US_ASCII));
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JsonResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * {"success":true,"message":"pong","timestamp":毫秒}，时间戳不能为负
+     */
+    public ResponseEntity<byte[]> heartbeat(long nowMillis) {
+        return ok(heartbeatBody(nowMillis));
+    }
+
+    /**
+     * 时间戳按十进制逐位写入，不生成中间字符串
+     */
+    static byte[] heartbeatBody(long nowMillis) {
+        int digits = 1;
+        for (long remaining = nowMillis; remaining >= 10; remaining /= 10) {
+            digits++;
+        }
+        byte[] body = new byte[HEARTBEAT_PREFIX.length + digits + 1];
+        System.arraycopy(HEARTBEAT_PREFIX, 0, body, 0, HEARTBEAT_PREFIX.length);
+        int end = HEARTBEAT_PREFIX.length + digits;
+        long value = nowMillis;
+        for (int i = end - 1; i >= HEARTBEAT_PREFIX.length; i--) {
+            body[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        body[end] = '}';
+        return body;
+    }
+
+    /**
+     * 日志上报成功的固定响应，所有请求共用同一实例（头部只读）
+     */
+    public ResponseEntity<byte[]> logReceived() {
+        return LOG_RECEIVED;
+    }
+
+    public ResponseEntity<byte[]> ok(Object body) throws JsonProcessingException {
+        return ok(writer(body.getClass()).writeValueAsBytes(body));
+    }
+
+    public ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    private static ResponseEntity<byte[]> ok(byte[] body) {
+        return new ResponseEntity<>(body, JSON_HEADERS, HttpStatus.OK);
+    }
+}
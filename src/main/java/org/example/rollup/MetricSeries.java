@@ -0,0 +1,33 @@
+package org.example.rollup;
+
+import java.util.List;
+
+/**
+ * 单个 设备×指标 的多粒度聚合序列
+ */
+final class MetricSeries {
+
+    private final RollupRing minute;
+    private final RollupRing hour;
+    private final RollupRing day;
+
+    MetricSeries(RollupProperties properties) {
+        this.minute = new RollupRing(RollupResolution.MINUTE, properties.getMinuteSlots());
+        this.hour = new RollupRing(RollupResolution.HOUR, properties.getHourSlots());
+        this.day = new RollupRing(RollupResolution.DAY, properties.getDaySlots());
+    }
+
+    void record(long timestamp, double value) {
+        minute.record(timestamp, value);
+        hour.record(timestamp, value);
+        day.record(timestamp, value);
+    }
+
+    List<RollupPoint> query(RollupResolution resolution, long from, long to) {
+        return switch (resolution) {
+            case MINUTE -> minute.query(from, to);
+            case HOUR -> hour.query(from, to);
+            case DAY -> day.query(from, to);
+        };
+    }
+}
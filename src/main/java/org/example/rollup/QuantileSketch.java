@@ -0,0 +1,99 @@
+package org.example.rollup;
+
+/**
+ * 对数分桶的分位数草图
+ * 每个 2 的幂区间切成 {@value #SUB_BINS} 个子桶，相对误差约 9%；
+ * 覆盖 [2^-4, 2^40)，可容纳 TB 级字节数和毫秒时间戳量级的数值，超出部分计入上溢桶，
+ * 落在上溢桶的分位数取该桶的实际最大值；
+ * 草图本身不持有数据，计数以 [桶下标, 计数] 对按桶下标升序存放在调用方的 int 数组中，只记录出现过的桶
+ */
+final class QuantileSketch {
+
+    static final int SUB_BINS = 4;
+    static final int MIN_EXP = -4;
+    static final int MAX_EXP = 40;
+
+    /**
+     * 桶总数：下溢桶 + 对数桶 + 上溢桶
+     */
+    static final int BINS = (MAX_EXP - MIN_EXP) * SUB_BINS + 2;
+
+    private static final double MIN_VALUE = Math.pow(2, MIN_EXP);
+    private static final double MAX_VALUE = Math.pow(2, MAX_EXP);
+
+    private QuantileSketch() {
+    }
+
+    /**
+     * 计算数值对应的桶下标
+     */
+    static int binOf(double value) {
+        if (!(value >= MIN_VALUE)) {
+            return 0;
+        }
+        if (value >= MAX_VALUE) {
+            return BINS - 1;
+        }
+        int index = (int) Math.floor((Math.log(value) / Math.log(2) - MIN_EXP) * SUB_BINS);
+        return 1 + Math.min(index, BINS - 3);
+    }
+
+    /**
+     * 桶的代表值（几何中点）
+     */
+    static double valueOf(int bin) {
+        if (bin <= 0) {
+            return 0;
+        }
+        if (bin >= BINS - 1) {
+            return MAX_VALUE;
+        }
+        double exponent = MIN_EXP + (bin - 1 + 0.5) / SUB_BINS;
+        return Math.pow(2, exponent);
+    }
+
+    /**
+     * 桶 bin 在 entries 的前 size 个 [桶, 计数] 对中计数加一，没有时按顺序插入，返回新的对数；容量由调用方保证
+     */
+    static int add(int[] entries, int size, int bin) {
+        int i = 0;
+        while (i < size && entries[2 * i] < bin) {
+            i++;
+        }
+        if (i < size && entries[2 * i] == bin) {
+            entries[2 * i + 1]++;
+            return size;
+        }
+        System.arraycopy(entries, 2 * i, entries, 2 * i + 2, 2 * (size - i));
+        entries[2 * i] = bin;
+        entries[2 * i + 1] = 1;
+        return size + 1;
+    }
+
+    /**
+     * 从 entries 的前 size 个 [桶, 计数] 对估算分位数，结果限制在 [min, max] 内
+     * 上溢桶没有上界，命中时返回 max
+     */
+    static double quantile(int[] entries, int size, long total, double q, double min, double max) {
+        if (total <= 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.ceil(q * total);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < size; i++) {
+            int bin = entries[2 * i];
+            seen += entries[2 * i + 1];
+            if (seen >= rank) {
+                if (bin == BINS - 1) {
+                    return max;
+                }
+                double estimate = valueOf(bin);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+}
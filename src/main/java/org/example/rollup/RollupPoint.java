@@ -0,0 +1,19 @@
+package org.example.rollup;
+
+import lombok.Data;
+
+/**
+ * 单个聚合桶的查询结果
+ */
+@Data
+public class RollupPoint {
+    private long bucketStart;
+    private long count;
+    private double min;
+    private double max;
+    private double sum;
+    private double avg;
+    private double p50;
+    private double p90;
+    private double p99;
+}
@@ -0,0 +1,44 @@
+package org.example.rollup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 时间序列聚合配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.rollup")
+public class RollupProperties {
+
+    /**
+     * 是否启用上报数据聚合
+     */
+    private boolean enabled = true;
+
+    /**
+     * 分钟粒度保留的桶数（默认 1 小时）
+     */
+    private int minuteSlots = 60;
+
+    /**
+     * 小时粒度保留的桶数（默认 2 天）
+     */
+    private int hourSlots = 48;
+
+    /**
+     * 天粒度保留的桶数（默认 30 天）
+     */
+    private int daySlots = 30;
+
+    /**
+     * 最多跟踪的 设备×指标 序列数，超出后新序列被丢弃
+     */
+    private int maxSeries = 2048;
+
+    /**
+     * 单次上报最多提取的数值字段数
+     */
+    private int maxMetricsPerReport = 64;
+}
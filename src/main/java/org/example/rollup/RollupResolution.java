@@ -0,0 +1,42 @@
+package org.example.rollup;
+
+/**
+ * 聚合粒度
+ */
+public enum RollupResolution {
+    MINUTE(60_000L),
+    HOUR(3_600_000L),
+    DAY(86_400_000L);
+
+    private final long widthMillis;
+
+    RollupResolution(long widthMillis) {
+        this.widthMillis = widthMillis;
+    }
+
+    public long getWidthMillis() {
+        return widthMillis;
+    }
+
+    /**
+     * 计算时间戳所属桶的起始时间
+     */
+    public long bucketStart(long timestamp) {
+        return Math.floorDiv(timestamp, widthMillis) * widthMillis;
+    }
+
+    /**
+     * 解析请求参数，忽略大小写
+     */
+    public static RollupResolution parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return MINUTE;
+        }
+        for (RollupResolution resolution : values()) {
+            if (resolution.name().equalsIgnoreCase(value)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported resolution: " + value);
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.rollup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单一粒度的环形聚合缓冲区
+ * 统计量存放在预分配的基本类型数组中；分位数草图按槽位稀疏存放，只记录出现过的桶，
+ * 首次写入时分配、容量不足时翻倍，重置槽位时保留复用。同一时间窗口内的数值通常只落在少数几个桶中，
+ * 默认槽位数下每个序列的草图从稠密存放的约 100KB 降到通常十几 KB 以内，未写入的槽位不占用草图内存
+ */
+final class RollupRing {
+
+    private static final int INITIAL_SKETCH_BINS = 8;
+
+    private final RollupResolution resolution;
+    private final int slots;
+
+    private final long[] bucketStarts;
+    private final long[] counts;
+    private final double[] mins;
+    private final double[] maxs;
+    private final double[] sums;
+    private final int[][] sketches;
+    private final int[] sketchSizes;
+
+    RollupRing(RollupResolution resolution, int slots) {
+        this.resolution = resolution;
+        this.slots = slots;
+        this.bucketStarts = new long[slots];
+        this.counts = new long[slots];
+        this.mins = new double[slots];
+        this.maxs = new double[slots];
+        this.sums = new double[slots];
+        this.sketches = new int[slots][];
+        this.sketchSizes = new int[slots];
+        Arrays.fill(bucketStarts, Long.MIN_VALUE);
+    }
+
+    synchronized void record(long timestamp, double value) {
+        long start = resolution.bucketStart(timestamp);
+        int slot = slotOf(start);
+
+        if (bucketStarts[slot] != start) {
+            // 新桶比槽位中的旧桶更早时说明数据已超出保留窗口
+            if (bucketStarts[slot] != Long.MIN_VALUE && bucketStarts[slot] > start) {
+                return;
+            }
+            resetSlot(slot, start);
+        }
+
+        counts[slot]++;
+        sums[slot] += value;
+        if (value < mins[slot]) {
+            mins[slot] = value;
+        }
+        if (value > maxs[slot]) {
+            maxs[slot] = value;
+        }
+        addToSketch(slot, QuantileSketch.binOf(value));
+    }
+
+    private void addToSketch(int slot, int bin) {
+        int[] entries = sketches[slot];
+        int size = sketchSizes[slot];
+        if (entries == null) {
+            entries = sketches[slot] = new int[2 * INITIAL_SKETCH_BINS];
+        } else if (2 * size == entries.length) {
+            entries = sketches[slot] = Arrays.copyOf(entries, Math.min(entries.length * 2, 2 * QuantileSketch.BINS));
+        }
+        sketchSizes[slot] = QuantileSketch.add(entries, size, bin);
+    }
+
+    /**
+     * 按时间顺序返回 [from, to] 区间内的非空桶
+     */
+    synchronized List<RollupPoint> query(long from, long to) {
+        List<RollupPoint> points = new ArrayList<>();
+        long first = resolution.bucketStart(from);
+        long last = resolution.bucketStart(to);
+        long width = resolution.getWidthMillis();
+
+        // 区间超过保留窗口时只需扫描最近的 slots 个桶
+        if ((last - first) / width >= slots) {
+            first = last - (slots - 1) * width;
+        }
+
+        for (long start = first; start <= last; start += width) {
+            int slot = slotOf(start);
+            if (bucketStarts[slot] != start || counts[slot] == 0) {
+                continue;
+            }
+            points.add(toPoint(slot));
+        }
+        return points;
+    }
+
+    private RollupPoint toPoint(int slot) {
+        int[] sketch = sketches[slot];
+        int size = sketchSizes[slot];
+        long count = counts[slot];
+        double min = mins[slot];
+        double max = maxs[slot];
+
+        RollupPoint point = new RollupPoint();
+        point.setBucketStart(bucketStarts[slot]);
+        point.setCount(count);
+        point.setMin(min);
+        point.setMax(max);
+        point.setSum(sums[slot]);
+        point.setAvg(sums[slot] / count);
+        point.setP50(QuantileSketch.quantile(sketch, size, count, 0.50, min, max));
+        point.setP90(QuantileSketch.quantile(sketch, size, count, 0.90, min, max));
+        point.setP99(QuantileSketch.quantile(sketch, size, count, 0.99, min, max));
+        return point;
+    }
+
+    private void resetSlot(int slot, long start) {
+        bucketStarts[slot] = start;
+        counts[slot] = 0;
+        sums[slot] = 0;
+        mins[slot] = Double.POSITIVE_INFINITY;
+        maxs[slot] = Double.NEGATIVE_INFINITY;
+        sketchSizes[slot] = 0;
+    }
+
+    private int slotOf(long bucketStart) {
+        return (int) Math.floorMod(Math.floorDiv(bucketStart, resolution.getWidthMillis()), (long) slots);
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.rollup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 上报数据的时间序列聚合引擎
+ * 从上报的 Map 中提取数值字段，按 设备×指标 维护分钟/小时/天三种粒度的聚合，
+ * 面板查询直接读取聚合结果，无需扫描原始数据
+ */
+@Slf4j
+@Service
+public class RollupService {
+
+    static final String DEVICE_ID_KEY = "deviceId";
+    static final String TIMESTAMP_KEY = "timestamp";
+    static final String UNKNOWN_DEVICE = "unknown";
+
+    private final RollupProperties properties;
+    private final ConcurrentMap<String, ConcurrentMap<String, MetricSeries>> devices = new ConcurrentHashMap<>();
+    private final AtomicInteger seriesCount = new AtomicInteger();
+    private final LongAdder droppedMetrics = new LongAdder();
+    private final AtomicBoolean limitLogged = new AtomicBoolean();
+
+    public RollupService(RollupProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 记录一次上报，返回提取到的数值字段数
+     */
+    public int record(Map<String, Object> data) {
+        if (!properties.isEnabled() || data == null || data.isEmpty()) {
+            return 0;
+        }
+
+        Object device = data.get(DEVICE_ID_KEY);
+        String deviceId = device != null && !device.toString().isEmpty() ? device.toString() : UNKNOWN_DEVICE;
+
+        long timestamp = System.currentTimeMillis();
+        if (data.get(TIMESTAMP_KEY) instanceof Number number && number.longValue() > 0) {
+            timestamp = number.longValue();
+        }
+
+        int[] budget = {properties.getMaxMetricsPerReport()};
+        return collect(deviceId, "", data, timestamp, budget);
+    }
+
+    /**
+     * 查询指定粒度和时间范围内的聚合结果
+     */
+    public List<RollupPoint> query(String deviceId, String metric, RollupResolution resolution, long from, long to) {
+        Map<String, MetricSeries> metrics = devices.get(deviceId);
+        if (metrics == null) {
+            return Collections.emptyList();
+        }
+        MetricSeries series = metrics.get(metric);
+        if (series == null) {
+            return Collections.emptyList();
+        }
+        return series.query(resolution, from, to);
+    }
+
+    /**
+     * 列出设备已有的指标名
+     */
+    public List<String> metrics(String deviceId) {
+        Map<String, MetricSeries> metrics = devices.get(deviceId);
+        if (metrics == null) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(metrics.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    public int getSeriesCount() {
+        return seriesCount.get();
+    }
+
+    /**
+     * 因序列数达到上限而丢弃的数值字段数
+     */
+    public long getDroppedMetricCount() {
+        return droppedMetrics.sum();
+    }
+
+    int getDeviceCount() {
+        return devices.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private int collect(String deviceId, String prefix, Map<String, Object> data, long timestamp, int[] budget) {
+        int recorded = 0;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (budget[0] <= 0) {
+                break;
+            }
+            String key = entry.getKey();
+            Object value = entry.getValue();
+
+            if (prefix.isEmpty() && (DEVICE_ID_KEY.equals(key) || TIMESTAMP_KEY.equals(key))) {
+                continue;
+            }
+
+            String metric = prefix.isEmpty() ? key : prefix + "." + key;
+            if (value instanceof Number number) {
+                double v = number.doubleValue();
+                if (Double.isFinite(v)) {
+                    MetricSeries series = seriesFor(deviceId, metric);
+                    if (series != null) {
+                        series.record(timestamp, v);
+                        recorded++;
+                    }
+                    budget[0]--;
+                }
+            } else if (value instanceof Map<?, ?> nested) {
+                recorded += collect(deviceId, metric, (Map<String, Object>) nested, timestamp, budget);
+            }
+        }
+        return recorded;
+    }
+
+    private MetricSeries seriesFor(String deviceId, String metric) {
+        ConcurrentMap<String, MetricSeries> metrics = devices.get(deviceId);
+        MetricSeries series = metrics != null ? metrics.get(metric) : null;
+        if (series != null) {
+            return series;
+        }
+        // 先占用序列名额再建表，被拒绝的设备不会留下空的指标表
+        if (seriesCount.incrementAndGet() > properties.getMaxSeries()) {
+            seriesCount.decrementAndGet();
+            droppedMetrics.increment();
+            // 达到上限后每条上报都会被拒绝，只记录第一次，之后看丢弃计数
+            if (limitLogged.compareAndSet(false, true)) {
+                log.warn("Rollup series limit {} reached, dropping new metrics (first: {} of device {})",
+                        properties.getMaxSeries(), metric, deviceId);
+            }
+            return null;
+        }
+        boolean[] created = {false};
+        series = devices.computeIfAbsent(deviceId, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(metric, k -> {
+                    created[0] = true;
+                    return new MetricSeries(properties);
+                });
+        if (!created[0]) {
+            // 并发写入已创建了同一序列，归还名额
+            seriesCount.decrementAndGet();
+        }
+        return series;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.search;
+
+/**
+ * 路径的磁盘用量：目录为子树中全部文件的总字节数和文件数，文件为自身大小，files 为 1
+ */
+public record DirectoryUsage(long bytes, int files, boolean directory) {
+}
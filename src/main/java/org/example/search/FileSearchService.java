@@ -0,0 +1,201 @@
+package org.example.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.changes.ChangeEvent;
+import org.example.changes.ChangeJournal;
+import org.example.changes.ChangeType;
+import org.example.storage.StorageBackend;
+import org.example.storage.StoredObject;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 上传目录的文件名搜索
+ * 启动后在后台并行列出整个目录树建立 PathIndex，之后按变更日志增量维护；
+ * 建立期间的变更先暂存，新索引建好后补上再替换，重建期间旧索引继续提供查询。
+ * 变更日志报告可能丢失事件或已删除节点过多时重建。目录用量由同一索引维护
+ */
+@Slf4j
+@Component
+public class FileSearchService {
+
+    private static final int MIN_DEAD_FOR_REBUILD = 100_000;
+
+    private final SearchProperties properties;
+    private final StorageBackend backend;
+    private final ExecutorService builder;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final Object lock = new Object();
+
+    private volatile PathIndex index;
+    private List<ChangeEvent> pending;
+
+    public FileSearchService(SearchProperties properties, StorageBackend backend, ChangeJournal changes) {
+        this.properties = properties;
+        this.backend = backend;
+        this.builder = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("search-index").daemon(true).factory());
+        if (properties.isEnabled()) {
+            changes.addListener(this::onChange);
+            changes.addResetListener(this::rebuild);
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * 索引建好之前返回 null
+     */
+    public SearchResult search(SearchQuery query) {
+        PathIndex current = index;
+        if (current == null) {
+            return null;
+        }
+        queries.incrementAndGet();
+        return current.search(query);
+    }
+
+    /**
+     * 路径的磁盘用量，索引建好之前或路径不存在时返回 null
+     */
+    public DirectoryUsage usage(String key) {
+        PathIndex current = index;
+        return current != null ? current.usage(key) : null;
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * 在后台重新建立索引，已在排队的重建不重复提交
+     */
+    public void rebuild() {
+        if (!rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            builder.execute(this::build);
+        } catch (RejectedExecutionException e) {
+            rebuildScheduled.set(false);
+        }
+    }
+
+    private void build() {
+        rebuildScheduled.set(false);
+        synchronized (lock) {
+            pending = new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        PathIndex fresh = new PathIndex();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, properties.getBuildParallelism()));
+        try {
+            pool.invoke(new ListTask(fresh, ""));
+        } finally {
+            pool.shutdown();
+        }
+        synchronized (lock) {
+            for (ChangeEvent event : pending) {
+                apply(fresh, event);
+            }
+            pending = null;
+            index = fresh;
+        }
+        builds.incrementAndGet();
+        log.info("Search index built: {} paths, {} distinct names in {} ms", fresh.size(), fresh.getSegmentCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void onChange(ChangeEvent event) {
+        PathIndex current;
+        synchronized (lock) {
+            if (pending != null) {
+                pending.add(event);
+            }
+            current = index;
+            if (current != null) {
+                apply(current, event);
+            }
+        }
+        if (current != null && event.type() == ChangeType.DELETED
+                && current.getDeadCount() > Math.max(current.size(), MIN_DEAD_FOR_REBUILD)) {
+            rebuild();
+        }
+    }
+
+    private static void apply(PathIndex index, ChangeEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            index.remove(event.path());
+        } else {
+            index.add(event.path(), event.directory(), event.size() != null ? event.size() : 0);
+        }
+    }
+
+    public int getIndexedCount() {
+        PathIndex current = index;
+        return current != null ? current.size() : 0;
+    }
+
+    public int getSegmentCount() {
+        PathIndex current = index;
+        return current != null ? current.getSegmentCount() : 0;
+    }
+
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    public long getBuildCount() {
+        return builds.get();
+    }
+
+    /**
+     * 列出一个目录并提交到索引，子目录各自作为子任务并行列出
+     */
+    private final class ListTask extends RecursiveAction {
+
+        private final PathIndex target;
+        private final String key;
+
+        ListTask(PathIndex target, String key) {
+            this.target = target;
+            this.key = key;
+        }
+
+        @Override
+        protected void compute() {
+            List<StoredObject> children;
+            try {
+                children = backend.list(key);
+            } catch (IOException e) {
+                log.warn("Failed to list {} for search index: {}", key, e.toString());
+                return;
+            }
+            target.addAll(children);
+            List<ListTask> subtasks = new ArrayList<>();
+            for (StoredObject child : children) {
+                if (child.directory()) {
+                    subtasks.add(new ListTask(target, child.key()));
+                }
+            }
+            invokeAll(subtasks);
+        }
+    }
+}
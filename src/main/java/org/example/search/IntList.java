@@ -0,0 +1,38 @@
+package org.example.search;
+
+import java.util.Arrays;
+
+/**
+ * 只追加的 int 数组，索引中的倒排表和节点链都用它保存，避免装箱
+ */
+final class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList(int capacity) {
+        this.values = new int[Math.max(capacity, 2)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 升序追加的列表中是否包含 value
+     */
+    boolean containsSorted(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+}
@@ -0,0 +1,612 @@
+package org.example.search;
+
+import org.example.storage.StoredObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 上传目录的内存路径索引
+ * 路径按 "/" 拆成片段，相同名称的片段只保存一份；每个路径是一个节点，只记录父节点和片段编号，
+ * 完整路径在返回结果时沿父节点拼出。名称的小写形式按三元组和二元组建立倒排表（开头另加锚点字符，用于前缀查询），
+ * 扩展名单独建表；查询先求候选片段再逐个核对小写名称，找满 limit 条即停止。
+ * 单个字符的子串查询没有倒排表，按每个名称的字符位图过滤，只核对位图命中的名称。
+ * 限定目录且目录下的文件比候选片段少时改为遍历该目录。
+ * 名称到编号、倒排键到倒排表都用开放寻址的基本类型表，不为每个片段分配装箱对象。
+ * 每个目录节点同时保存子树的文件字节数和文件数，写入和删除沿父节点逐级调整，查询用量不需要遍历子树。
+ * 删除只把节点标记为失效，同一路径再次写入时复用；失效节点较多时由调用方重建索引
+ */
+public final class PathIndex {
+
+    private static final int ROOT = 0;
+    private static final byte LIVE = 1;
+    private static final byte DIRECTORY = 2;
+    private static final char ANCHOR = '\u0001';
+    /**
+     * 二元组的倒排键带上这一位，与三元组（最高 48 位）不会冲突
+     */
+    private static final long BIGRAM = 1L << 48;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private String[] segments = new String[1024];
+    /**
+     * 小写名称，本身已是小写时与 segments 共用同一个字符串
+     */
+    private String[] lowerSegments = new String[1024];
+    /**
+     * 小写名称中出现过的字符，每个字符按哈希占一位
+     */
+    private long[] charMasks = new long[1024];
+    private int[] segmentNodes = new int[1024];
+    private int segmentCount;
+    /**
+     * 按名称哈希的开放寻址表，槽中保存片段编号，-1 为空；名称本身只在 segments 中保存一份
+     */
+    private int[] segmentTable = newTable(2048);
+
+    private final LongIntMap gramIds = new LongIntMap(1024);
+    private IntList[] postings = new IntList[1024];
+    private int postingCount;
+    private final Map<String, IntList> extensions = new HashMap<>();
+
+    private int[] parents = new int[1024];
+    private int[] nodeSegments = new int[1024];
+    private int[] nextWithSegment = new int[1024];
+    private int[] firstChild = new int[1024];
+    private int[] nextSibling = new int[1024];
+    private byte[] flags = new byte[1024];
+    private long[] bytes = new long[1024];
+    private int[] fileCounts = new int[1024];
+    private int nodeCount = 1;
+    private int liveCount;
+    private final LongIntMap children = new LongIntMap(1024);
+
+    public PathIndex() {
+        parents[ROOT] = -1;
+        firstChild[ROOT] = -1;
+        flags[ROOT] = LIVE | DIRECTORY;
+    }
+
+    /**
+     * 记录文件或目录，缺少的上级目录一并记录；文件已存在时按新大小调整上级目录的用量，目录忽略 size
+     */
+    public void add(String key, boolean directory, long size) {
+        lock.writeLock().lock();
+        try {
+            insert(key, directory, size);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量记录，只加一次锁；遍历目录时按目录提交
+     */
+    public void addAll(Collection<StoredObject> objects) {
+        lock.writeLock().lock();
+        try {
+            for (StoredObject object : objects) {
+                insert(object.key(), object.directory(), object.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除路径及其下的全部子项，路径不存在时返回 false
+     */
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            int node = find(key);
+            if (node <= ROOT || (flags[node] & LIVE) == 0) {
+                return false;
+            }
+            propagate(parents[node], -bytes[node], -fileCounts[node]);
+            int[] stack = new int[16];
+            int top = 0;
+            stack[top++] = node;
+            while (top > 0) {
+                int current = stack[--top];
+                if ((flags[current] & LIVE) == 0) {
+                    continue;
+                }
+                flags[current] &= ~LIVE;
+                liveCount--;
+                for (int child = firstChild[current]; child >= 0; child = nextSibling[child]) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = child;
+                }
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchResult search(SearchQuery query) {
+        String contains = lower(query.contains());
+        String prefix = lower(query.prefix());
+        String extension = lower(query.extension());
+        if (extension != null && extension.startsWith(".")) {
+            extension = extension.substring(1);
+        }
+        int limit = Math.max(1, query.limit());
+
+        lock.readLock().lock();
+        try {
+            int under = ROOT;
+            if (SearchQuery.notEmpty(query.under())) {
+                under = find(query.under());
+                if (under < 0 || (flags[under] & (LIVE | DIRECTORY)) != (LIVE | DIRECTORY)) {
+                    return new SearchResult(List.of(), false);
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(Math.min(limit, 64));
+            IntList[] lists = candidates(contains, prefix, extension);
+            if (lists == null) {
+                return new SearchResult(hits, false);
+            }
+            int candidateCount = lists.length == 0 ? segmentCount : lists[0].size();
+            if (under != ROOT && fileCounts[under] < candidateCount) {
+                return searchUnder(under, lists, contains, prefix, query.directories(), limit, hits);
+            }
+            long mask = charMask(contains) | charMask(prefix);
+            for (int i = 0; i < candidateCount; i++) {
+                int segment = lists.length == 0 ? i : lists[0].get(i);
+                if ((charMasks[segment] & mask) != mask || !inAll(lists, segment)
+                        || !matches(lowerSegments[segment], contains, prefix)) {
+                    continue;
+                }
+                for (int node = segmentNodes[segment]; node >= 0; node = nextWithSegment[node]) {
+                    byte flag = flags[node];
+                    if ((flag & LIVE) == 0
+                            || query.directories() != null && query.directories() != ((flag & DIRECTORY) != 0)
+                            || under != ROOT && !isUnder(node, under)) {
+                        continue;
+                    }
+                    if (hits.size() == limit) {
+                        return new SearchResult(hits, true);
+                    }
+                    hits.add(new SearchHit(path(node), segments[segment], (flag & DIRECTORY) != 0));
+                }
+            }
+            return new SearchResult(hits, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 深度优先遍历 under 的子树逐个核对；扩展名已由倒排表保证时同样用倒排表核对
+     */
+    private SearchResult searchUnder(int under, IntList[] lists, String contains, String prefix, Boolean directories,
+                                     int limit, List<SearchHit> hits) {
+        int[] stack = new int[16];
+        int top = 0;
+        for (int child = firstChild[under]; child >= 0; child = nextSibling[child]) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+            }
+            stack[top++] = child;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            byte flag = flags[node];
+            if ((flag & LIVE) == 0) {
+                continue;
+            }
+            boolean directory = (flag & DIRECTORY) != 0;
+            int segment = nodeSegments[node];
+            if ((directories == null || directories == directory)
+                    && matches(lowerSegments[segment], contains, prefix) && inAll(lists, segment, 0)) {
+                if (hits.size() == limit) {
+                    return new SearchResult(hits, true);
+                }
+                hits.add(new SearchHit(path(node), segments[segment], directory));
+            }
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = child;
+            }
+        }
+        return new SearchResult(hits, false);
+    }
+
+    /**
+     * 倒排表只说明包含这些 n 元组，子串和前缀仍需按小写名称核对；扩展名由倒排表保证
+     */
+    private static boolean matches(String lowerName, String contains, String prefix) {
+        return (contains == null || lowerName.contains(contains)) && (prefix == null || lowerName.startsWith(prefix));
+    }
+
+    /**
+     * 文件的大小或目录下全部文件的总大小和文件数，路径不存在时返回 null
+     */
+    public DirectoryUsage usage(String key) {
+        lock.readLock().lock();
+        try {
+            int node = find(key);
+            if (node < 0 || (flags[node] & LIVE) == 0) {
+                return null;
+            }
+            return new DirectoryUsage(bytes[node], fileCounts[node], (flags[node] & DIRECTORY) != 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已记录的文件和目录数，不含根目录
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已删除但仍占用空间的节点数
+     */
+    public int getDeadCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - 1 - liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 不同名称的片段数
+     */
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segmentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String key, boolean directory, long size) {
+        if (key.isEmpty()) {
+            return;
+        }
+        int node = ROOT;
+        int start = 0;
+        while (true) {
+            int slash = key.indexOf('/', start);
+            boolean last = slash < 0;
+            String name = last ? key.substring(start) : key.substring(start, slash);
+            if (!name.isEmpty()) {
+                node = child(node, intern(name), !last || directory);
+            }
+            if (last) {
+                break;
+            }
+            start = slash + 1;
+        }
+        if (!directory && node != ROOT) {
+            propagate(parents[node], size - bytes[node], 1 - fileCounts[node]);
+            bytes[node] = size;
+            fileCounts[node] = 1;
+        }
+    }
+
+    /**
+     * 把用量变化加到 node 及其全部上级目录
+     */
+    private void propagate(int node, long deltaBytes, int deltaFiles) {
+        if (deltaBytes == 0 && deltaFiles == 0) {
+            return;
+        }
+        for (int current = node; current >= 0; current = parents[current]) {
+            bytes[current] += deltaBytes;
+            fileCounts[current] += deltaFiles;
+        }
+    }
+
+    private int child(int parent, int segment, boolean directory) {
+        long childKey = (long) parent << 32 | segment;
+        int node = children.get(childKey);
+        if (node < 0) {
+            node = nodeCount++;
+            if (node == parents.length) {
+                int capacity = node + (node >> 1);
+                parents = Arrays.copyOf(parents, capacity);
+                nodeSegments = Arrays.copyOf(nodeSegments, capacity);
+                nextWithSegment = Arrays.copyOf(nextWithSegment, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                flags = Arrays.copyOf(flags, capacity);
+                bytes = Arrays.copyOf(bytes, capacity);
+                fileCounts = Arrays.copyOf(fileCounts, capacity);
+            }
+            parents[node] = parent;
+            nodeSegments[node] = segment;
+            nextWithSegment[node] = segmentNodes[segment];
+            segmentNodes[segment] = node;
+            firstChild[node] = -1;
+            nextSibling[node] = firstChild[parent];
+            firstChild[parent] = node;
+            children.put(childKey, node);
+        }
+        byte flag = flags[node];
+        if ((flag & LIVE) == 0) {
+            // 新建或删除后复用的节点，旧的用量已不在上级目录中
+            liveCount++;
+            bytes[node] = 0;
+            fileCounts[node] = 0;
+        } else if (((flag & DIRECTORY) != 0) != directory) {
+            // 文件和目录互换，先撤掉原来的用量
+            propagate(parent, -bytes[node], -fileCounts[node]);
+            bytes[node] = 0;
+            fileCounts[node] = 0;
+        }
+        flags[node] = directory ? LIVE | DIRECTORY : LIVE;
+        return node;
+    }
+
+    private int intern(String name) {
+        int hash = mix(name.hashCode());
+        int mask = segmentTable.length - 1;
+        int slot = hash & mask;
+        for (int id = segmentTable[slot]; id >= 0; id = segmentTable[slot]) {
+            if (segments[id].equals(name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int segment = segmentCount++;
+        if (segment == segments.length) {
+            segments = Arrays.copyOf(segments, segment * 2);
+            lowerSegments = Arrays.copyOf(lowerSegments, segment * 2);
+            charMasks = Arrays.copyOf(charMasks, segment * 2);
+            segmentNodes = Arrays.copyOf(segmentNodes, segment * 2);
+        }
+        segments[segment] = name;
+        segmentNodes[segment] = -1;
+        segmentTable[slot] = segment;
+        if (segmentCount * 2 > segmentTable.length) {
+            rehashSegments();
+        }
+
+        String lower = name.toLowerCase(Locale.ROOT);
+        lowerSegments[segment] = lower;
+        charMasks[segment] = charMask(lower);
+        long[] grams = indexGrams(ANCHOR + lower);
+        Arrays.sort(grams);
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                posting(grams[i]).add(segment);
+            }
+        }
+        String extension = extension(lower);
+        if (extension != null) {
+            extensions.computeIfAbsent(extension, k -> new IntList(16)).add(segment);
+        }
+        return segment;
+    }
+
+    /**
+     * 名称对应的片段编号，不存在时返回 -1
+     */
+    private int segmentId(String name) {
+        int mask = segmentTable.length - 1;
+        for (int slot = mix(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int id = segmentTable[slot];
+            if (id < 0 || segments[id].equals(name)) {
+                return id;
+            }
+        }
+    }
+
+    private void rehashSegments() {
+        segmentTable = newTable(segmentTable.length * 2);
+        int mask = segmentTable.length - 1;
+        for (int id = 0; id < segmentCount; id++) {
+            int slot = mix(segments[id].hashCode()) & mask;
+            while (segmentTable[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            segmentTable[slot] = id;
+        }
+    }
+
+    private static int[] newTable(int slots) {
+        int[] table = new int[slots];
+        Arrays.fill(table, -1);
+        return table;
+    }
+
+    private static int mix(int hash) {
+        return hash * 0x9E3779B9 ^ hash >>> 16;
+    }
+
+    private IntList posting(long gram) {
+        int id = gramIds.get(gram);
+        if (id < 0) {
+            id = postingCount++;
+            if (id == postings.length) {
+                postings = Arrays.copyOf(postings, id * 2);
+            }
+            postings[id] = new IntList(4);
+            gramIds.put(gram, id);
+        }
+        return postings[id];
+    }
+
+    /**
+     * 候选片段的倒排表，按长度升序；空数组表示需要扫描全部片段（只有单个字符的子串查询），null 表示不可能有结果
+     */
+    private IntList[] candidates(String contains, String prefix, String extension) {
+        List<IntList> lists = new ArrayList<>();
+        if (contains != null && contains.length() >= 2 && !collect(grams(contains), lists)) {
+            return null;
+        }
+        if (prefix != null && !collect(grams(ANCHOR + prefix), lists)) {
+            return null;
+        }
+        if (extension != null) {
+            IntList list = extensions.get(extension);
+            if (list == null) {
+                return null;
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        return lists.toArray(IntList[]::new);
+    }
+
+    private boolean collect(long[] grams, List<IntList> lists) {
+        for (long gram : grams) {
+            int id = gramIds.get(gram);
+            if (id < 0) {
+                return false;
+            }
+            lists.add(postings[id]);
+        }
+        return true;
+    }
+
+    /**
+     * 倒排表按片段编号升序追加，最短的一张逐个遍历，其余二分查找
+     */
+    private static boolean inAll(IntList[] lists, int segment) {
+        return inAll(lists, segment, 1);
+    }
+
+    private static boolean inAll(IntList[] lists, int segment, int from) {
+        for (int i = from; i < lists.length; i++) {
+            if (!lists[i].containsSorted(segment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查询用的倒排键：三元组，恰好两个字符时为一个二元组；单个字符没有可用的倒排键
+     */
+    private static long[] grams(String text) {
+        if (text.length() == 2) {
+            return new long[]{bigram(text, 0)};
+        }
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = trigram(text, i);
+        }
+        return grams;
+    }
+
+    /**
+     * 建索引用的倒排键：全部三元组和二元组
+     */
+    private static long[] indexGrams(String text) {
+        int bigrams = text.length() - 1;
+        long[] grams = new long[Math.max(0, bigrams) + Math.max(0, bigrams - 1)];
+        int count = 0;
+        for (int i = 0; i < bigrams; i++) {
+            grams[count++] = bigram(text, i);
+            if (i + 2 < text.length()) {
+                grams[count++] = trigram(text, i);
+            }
+        }
+        return grams;
+    }
+
+    private static long charMask(String text) {
+        long mask = 0;
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                mask |= 1L << (text.charAt(i) * 0x9E3779B9 >>> 26);
+            }
+        }
+        return mask;
+    }
+
+    private static long bigram(String text, int i) {
+        return BIGRAM | (long) text.charAt(i) << 16 | text.charAt(i + 1);
+    }
+
+    private static long trigram(String text, int i) {
+        return (long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2);
+    }
+
+    private static String extension(String lowerName) {
+        int dot = lowerName.lastIndexOf('.');
+        return dot > 0 && dot < lowerName.length() - 1 ? lowerName.substring(dot + 1) : null;
+    }
+
+    private static String lower(String value) {
+        return SearchQuery.notEmpty(value) ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private int find(String key) {
+        int node = ROOT;
+        int start = 0;
+        while (start <= key.length()) {
+            int slash = key.indexOf('/', start);
+            int end = slash < 0 ? key.length() : slash;
+            if (end > start) {
+                int segment = segmentId(key.substring(start, end));
+                if (segment < 0) {
+                    return -1;
+                }
+                node = children.get((long) node << 32 | segment);
+                if (node < 0) {
+                    return -1;
+                }
+            }
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private boolean isUnder(int node, int ancestor) {
+        for (int current = parents[node]; current >= 0; current = parents[current]) {
+            if (current == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String path(int node) {
+        int length = -1;
+        for (int current = node; current != ROOT; current = parents[current]) {
+            length += segments[nodeSegments[current]].length() + 1;
+        }
+        char[] chars = new char[length];
+        int end = length;
+        for (int current = node; current != ROOT; current = parents[current]) {
+            String name = segments[nodeSegments[current]];
+            end -= name.length();
+            name.getChars(0, name.length(), chars, end);
+            if (end > 0) {
+                chars[--end] = '/';
+            }
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.search;
+
+/**
+ * 一条搜索结果，path 为相对上传目录的路径
+ */
+public record SearchHit(String path, String name, boolean directory) {
+}
@@ -0,0 +1,34 @@
+package org.example.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文件名搜索配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.search")
+public class SearchProperties {
+
+    /**
+     * 关闭后不建立索引，搜索和目录用量接口返回 404
+     */
+    private boolean enabled = true;
+
+    /**
+     * 未指定 limit 时返回的条数
+     */
+    private int defaultLimit = 100;
+
+    /**
+     * limit 的上限
+     */
+    private int maxLimit = 1000;
+
+    /**
+     * 启动和重建时并行列目录的线程数
+     */
+    private int buildParallelism = 4;
+}
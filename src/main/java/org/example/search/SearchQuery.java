@@ -0,0 +1,17 @@
+package org.example.search;
+
+/**
+ * 文件名搜索条件，各条件同时满足；contains、prefix、extension 不区分大小写，只匹配名称（路径最后一段）。
+ * under 限定在某个目录下，directories 为 null 时文件和目录都返回
+ */
+public record SearchQuery(String contains, String prefix, String extension, String under, Boolean directories,
+                          int limit) {
+
+    public boolean hasNameCriteria() {
+        return notEmpty(contains) || notEmpty(prefix) || notEmpty(extension);
+    }
+
+    static boolean notEmpty(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.search;
+
+import java.util.List;
+
+/**
+ * 搜索结果，truncated 表示超过 limit 的匹配未返回
+ */
+public record SearchResult(List<SearchHit> hits, boolean truncated) {
+}
@@ -0,0 +1,28 @@
+package org.example.storage;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 目录列表中的单个条目；读取属性失败时只有 name 有值，其余字段不输出。
+ * 目录的 size 和 fileCount 为子树中全部文件的总大小和文件数，用量未知时不输出
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FileInfo(String name, Boolean isDirectory, Boolean isFile, Long size, Long lastModified,
+                       Integer fileCount) {
+
+    public FileInfo(String name, Boolean isDirectory, Boolean isFile, Long size, Long lastModified) {
+        this(name, isDirectory, isFile, size, lastModified, null);
+    }
+
+    /**
+     * 目录不带大小，文件系统报告的目录大小与其中的文件无关
+     */
+    public static FileInfo of(StoredObject object) {
+        return new FileInfo(object.name(), object.directory(), !object.directory(),
+                object.directory() ? null : object.size(), object.lastModified());
+    }
+
+    public FileInfo withUsage(long bytes, int files) {
+        return new FileInfo(name, isDirectory, isFile, bytes, lastModified, files);
+    }
+}
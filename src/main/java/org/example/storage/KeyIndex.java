@@ -0,0 +1,98 @@
+package org.example.storage;
+
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.BiFunction;
+
+/**
+ * 以有序 Map 保存文件键的后端共用的目录推导：目录不单独保存，由键的 "/" 前缀推出
+ */
+final class KeyIndex {
+
+    private KeyIndex() {
+    }
+
+    static String prefix(String key) {
+        return key.isEmpty() ? "" : key + "/";
+    }
+
+    static boolean hasChildren(NavigableMap<String, ?> files, String key) {
+        String prefix = prefix(key);
+        String next = files.ceilingKey(prefix);
+        return next != null && next.startsWith(prefix) && (key.isEmpty() || next.length() > prefix.length());
+    }
+
+    /**
+     * 文件、推出的目录或 null；根目录始终存在
+     */
+    static <T> StoredObject stat(NavigableMap<String, T> files, String key, BiFunction<String, T, StoredObject> toObject) {
+        T file = files.get(key);
+        if (file != null) {
+            return toObject.apply(key, file);
+        }
+        if (key.isEmpty() || hasChildren(files, key)) {
+            return new StoredObject(key, true, 0, 0);
+        }
+        return null;
+    }
+
+    static <T> List<StoredObject> list(NavigableMap<String, T> files, String key,
+                                       BiFunction<String, T, StoredObject> toObject) throws NoSuchFileException,
+            NotDirectoryException {
+        if (files.containsKey(key)) {
+            throw new NotDirectoryException(key);
+        }
+        if (!key.isEmpty() && !hasChildren(files, key)) {
+            throw new NoSuchFileException(key);
+        }
+        String prefix = prefix(key);
+        Map<String, StoredObject> children = new LinkedHashMap<>();
+        for (Map.Entry<String, T> entry : files.tailMap(prefix).entrySet()) {
+            String child = entry.getKey();
+            if (!child.startsWith(prefix)) {
+                break;
+            }
+            int slash = child.indexOf('/', prefix.length());
+            if (slash < 0) {
+                children.put(child, toObject.apply(child, entry.getValue()));
+            } else {
+                String dir = child.substring(0, slash);
+                children.putIfAbsent(dir, new StoredObject(dir, true, 0, 0));
+            }
+        }
+        return new ArrayList<>(children.values());
+    }
+
+    static <T> List<StoredObject> walk(NavigableMap<String, T> files, String key,
+                                       BiFunction<String, T, StoredObject> toObject) throws NoSuchFileException {
+        StoredObject root = stat(files, key, toObject);
+        if (root == null) {
+            throw new NoSuchFileException(key);
+        }
+        List<StoredObject> entries = new ArrayList<>();
+        if (root.directory()) {
+            String prefix = prefix(key);
+            Map<String, StoredObject> dirs = new LinkedHashMap<>();
+            for (Map.Entry<String, T> entry : files.tailMap(prefix).entrySet()) {
+                String child = entry.getKey();
+                if (!child.startsWith(prefix)) {
+                    break;
+                }
+                entries.add(toObject.apply(child, entry.getValue()));
+                for (int slash = child.indexOf('/', prefix.length()); slash >= 0; slash = child.indexOf('/', slash + 1)) {
+                    String dir = child.substring(0, slash);
+                    dirs.putIfAbsent(dir, new StoredObject(dir, true, 0, 0));
+                }
+            }
+            entries.addAll(dirs.values());
+        }
+        entries.add(root);
+        entries.sort((a, b) -> b.key().compareTo(a.key()));
+        return entries;
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+/**
+ * 本地文件系统后端，键直接映射为上传目录下的相对路径
+ */
+public class LocalStorageBackend implements StorageBackend {
+
+    private final UploadDirectory directory;
+
+    public LocalStorageBackend(UploadDirectory directory) {
+        this.directory = directory;
+    }
+
+    public UploadDirectory getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    /**
+     * 先写入暂存目录中的临时文件，提交时原子改名为目标文件，读取方不会看到写了一半的内容
+     */
+    @Override
+    public StorageWriter put(String key) throws IOException {
+        Path path = directory.resolveKeyPath(key);
+        directory.ensureCreated();
+        if (!path.getParent().equals(directory.getBasePath())) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temp = directory.ensureStaging().resolve(UUID.randomUUID() + ".part");
+        OutputStream out = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new StorageWriter() {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ensureOpen();
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+
+            @Override
+            protected void onCommit() throws IOException {
+                out.close();
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    // 暂存目录与上传目录不在同一文件系统
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+
+            @Override
+            protected void onAbort() throws IOException {
+                try {
+                    out.close();
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        };
+    }
+
+    @Override
+    public RangeReader openRange(String key, ExecutorService executor) throws IOException {
+        return RangeReader.of(AsynchronousFileChannel.open(directory.resolveKeyPath(key),
+                Set.of(StandardOpenOption.READ), executor));
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        Path path = directory.resolveKeyPath(key);
+        if (key.isEmpty()) {
+            directory.ensureCreated();
+        }
+        try {
+            return toObject(key, Files.readAttributes(path, BasicFileAttributes.class));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public List<StoredObject> list(String key) throws IOException {
+        Path dir = directory.resolveKeyPath(key);
+        if (key.isEmpty()) {
+            directory.ensureCreated();
+        }
+        List<StoredObject> objects = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                try {
+                    objects.add(toObject(directory.relativize(path), Files.readAttributes(path, BasicFileAttributes.class)));
+                } catch (NoSuchFileException e) {
+                    // 列出期间被删除
+                }
+            }
+        }
+        return objects;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(directory.resolveKeyPath(key));
+    }
+
+    @Override
+    public List<StoredObject> walk(String key) throws IOException {
+        Path root = directory.resolveKeyPath(key);
+        if (key.isEmpty()) {
+            directory.ensureCreated();
+        }
+        List<StoredObject> objects = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                objects.add(toObject(directory.relativize(dir), attrs));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                objects.add(toObject(directory.relativize(file), attrs));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        objects.sort(Comparator.comparing(StoredObject::key).reversed());
+        return objects;
+    }
+
+    private static StoredObject toObject(String key, BasicFileAttributes attributes) {
+        return new StoredObject(key, attributes.isDirectory(), attributes.size(),
+                attributes.lastModifiedTime().toMillis());
+    }
+}
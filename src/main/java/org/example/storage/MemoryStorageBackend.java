@@ -0,0 +1,102 @@
+package org.example.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 内存后端，用于测试和基准测试；目录不单独保存，由对象键的前缀推出
+ */
+public class MemoryStorageBackend implements StorageBackend {
+
+    private record Blob(byte[] data, long lastModified) {
+    }
+
+    private final ConcurrentSkipListMap<String, Blob> objects = new ConcurrentSkipListMap<>();
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public StorageWriter put(String key) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        return new StorageWriter() {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ensureOpen();
+                buffer.write(b, off, len);
+            }
+
+            @Override
+            protected void onCommit() {
+                objects.put(key, new Blob(buffer.toByteArray(), System.currentTimeMillis()));
+            }
+
+            @Override
+            protected void onAbort() {
+            }
+        };
+    }
+
+    @Override
+    public RangeReader openRange(String key, ExecutorService executor) throws IOException {
+        Blob blob = objects.get(key);
+        if (blob == null) {
+            throw new NoSuchFileException(key);
+        }
+        return new RangeReader() {
+            @Override
+            public void read(ByteBuffer dst, long position, CompletionHandler<Integer, Void> handler) {
+                if (position >= blob.data.length) {
+                    handler.completed(-1, null);
+                    return;
+                }
+                int length = (int) Math.min(dst.remaining(), blob.data.length - position);
+                dst.put(blob.data, (int) position, length);
+                handler.completed(length, null);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public StoredObject stat(String key) {
+        return KeyIndex.stat(objects, key, MemoryStorageBackend::toObject);
+    }
+
+    @Override
+    public List<StoredObject> list(String key) throws IOException {
+        return KeyIndex.list(objects, key, MemoryStorageBackend::toObject);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        if (objects.remove(key) != null) {
+            return true;
+        }
+        if (KeyIndex.hasChildren(objects, key)) {
+            throw new DirectoryNotEmptyException(key);
+        }
+        return false;
+    }
+
+    @Override
+    public List<StoredObject> walk(String key) throws IOException {
+        return KeyIndex.walk(objects, key, MemoryStorageBackend::toObject);
+    }
+
+    private static StoredObject toObject(String key, Blob blob) {
+        return new StoredObject(key, false, blob.data.length, blob.lastModified);
+    }
+}
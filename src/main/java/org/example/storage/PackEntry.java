@@ -0,0 +1,8 @@
+package org.example.storage;
+
+/**
+ * 索引项：pack 为记录所在的包文件编号，offset 为数据起始位置，recordSize 为整条记录的字节数；
+ * loose 为 true 时内容单独存为文件，记录只占用包文件中的一条标记
+ */
+record PackEntry(int pack, long offset, long length, long lastModified, int recordSize, boolean loose) {
+}
@@ -0,0 +1,148 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一个包文件：单个 FileChannel 供追加和所有下载的定位读取共用
+ * 压缩后退役的包在最后一个读取者释放时才关闭并删除
+ */
+final class PackFile {
+
+    final int id;
+    final Path path;
+    final FileChannel channel;
+    final AtomicLong liveBytes = new AtomicLong();
+    private volatile long size;
+    private int refs = 1;
+    private boolean retired;
+
+    private PackFile(int id, Path path, FileChannel channel, long size) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    static String fileName(int id) {
+        return String.format("pack-%08d.pack", id);
+    }
+
+    /**
+     * 文件名中的编号，不是包文件时返回 -1
+     */
+    static int parseId(String fileName) {
+        if (!fileName.startsWith("pack-") || !fileName.endsWith(".pack")) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(fileName.substring(5, fileName.length() - 5));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static PackFile create(Path dir, int id) throws IOException {
+        Path path = dir.resolve(fileName(id));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        PackFile pack = new PackFile(id, path, channel, 0);
+        pack.append(PackFormat.header());
+        return pack;
+    }
+
+    /**
+     * 打开已有的包文件；头部不完整（创建后即崩溃）时重写头部
+     */
+    static PackFile open(Path path, int id) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < PackFormat.HEADER_SIZE) {
+            channel.truncate(0);
+            PackFile pack = new PackFile(id, path, channel, 0);
+            pack.append(PackFormat.header());
+            return pack;
+        }
+        ByteBuffer header = ByteBuffer.allocate(PackFormat.HEADER_SIZE);
+        channel.read(header, 0);
+        if (!PackFormat.isHeader(header.flip())) {
+            channel.close();
+            throw new IOException("Not a pack file: " + path);
+        }
+        return new PackFile(id, path, channel, channel.size());
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * 追加一条记录并返回其起始位置，调用方持有写锁
+     */
+    long append(ByteBuffer record) throws IOException {
+        long position = size;
+        long written = 0;
+        while (record.hasRemaining()) {
+            written += channel.write(record, position + written);
+        }
+        size = position + written;
+        return position;
+    }
+
+    /**
+     * 截掉崩溃时写了一半的尾部记录
+     */
+    void truncate(long length) throws IOException {
+        channel.truncate(length);
+        size = length;
+    }
+
+    /**
+     * 未被回收的字节数（头部不计）
+     */
+    long deadBytes() {
+        return size - PackFormat.HEADER_SIZE - liveBytes.get();
+    }
+
+    synchronized boolean retain() {
+        if (retired) {
+            return false;
+        }
+        refs++;
+        return true;
+    }
+
+    synchronized void release() throws IOException {
+        if (--refs == 0) {
+            channel.close();
+            if (retired) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * 退役：不再接受新的读取者，已打开的下载读完后删除文件
+     */
+    void retire() throws IOException {
+        synchronized (this) {
+            retired = true;
+        }
+        release();
+    }
+
+    /**
+     * 关闭服务时调用，不删除文件
+     */
+    void close() throws IOException {
+        synchronized (this) {
+            retired = false;
+            refs = 0;
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * 小文件打包存储的文件格式
+ * 包文件：头部 "HPAK" + 版本，之后为只追加的记录
+ * type(1) keyLength(2) key lastModified(8) length(8) [data crc32(4)]
+ * type 为 DATA 时带数据和校验；TOMBSTONE 表示删除；LOOSE 表示该键的内容单独存为文件，length 为文件大小
+ * 索引快照：头部 "HIDX" + 版本，记录快照时各包文件已覆盖的长度和全部索引项，加载后只需重放各包文件的尾部
+ */
+final class PackFormat {
+
+    static final byte DATA = 0;
+    static final byte TOMBSTONE = 1;
+    static final byte LOOSE = 2;
+
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 5;
+    private static final byte[] PACK_MAGIC = {'H', 'P', 'A', 'K'};
+    private static final byte[] INDEX_MAGIC = {'H', 'I', 'D', 'X'};
+    private static final int MAX_KEY_BYTES = 0xffff;
+
+    private PackFormat() {
+    }
+
+    /**
+     * 从包文件中读出的一条记录，offset 为记录起始位置
+     */
+    record Record(byte type, String key, long lastModified, long length, long offset, int size) {
+
+        long dataOffset() {
+            return offset + size - (type == DATA ? length + 4 : 0);
+        }
+    }
+
+    /**
+     * 快照中的包文件覆盖长度和索引项；lastPackId 为快照时最新的包编号，比它小却不在快照中的包是已回收的残留
+     */
+    record Snapshot(int lastPackId, Map<Integer, Long> covered, Map<String, PackEntry> entries) {
+    }
+
+    static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(PACK_MAGIC).put((byte) VERSION).flip();
+        return header;
+    }
+
+    static boolean isHeader(ByteBuffer header) {
+        byte[] magic = new byte[PACK_MAGIC.length];
+        header.get(magic);
+        return Arrays.equals(magic, PACK_MAGIC) && header.get() == VERSION;
+    }
+
+    static byte[] keyBytes(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Key too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    static int recordSize(byte type, int keyBytes, long length) {
+        return 1 + 2 + keyBytes + 8 + 8 + (type == DATA ? (int) length + 4 : 0);
+    }
+
+    static ByteBuffer encode(byte type, byte[] key, long lastModified, long length, byte[] data) {
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize(type, key.length, length));
+        buffer.put(type).putShort((short) key.length).put(key).putLong(lastModified).putLong(length);
+        if (type == DATA) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            buffer.put(data).putInt((int) crc.getValue());
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * 从 from 起顺序读取记录并回调（DATA 记录附带数据，其余为 null），
+     * 遇到不完整或校验失败的记录时停止，返回最后一条完整记录的结尾
+     */
+    static long scan(Path path, long from, RecordConsumer consumer) throws IOException {
+        long position = from;
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            in.skipNBytes(from);
+            while (true) {
+                Record record;
+                byte[] data = null;
+                try {
+                    int type = in.read();
+                    if (type < 0) {
+                        return position;
+                    }
+                    byte[] key = new byte[in.readUnsignedShort()];
+                    in.readFully(key);
+                    long lastModified = in.readLong();
+                    long length = in.readLong();
+                    if (type == DATA) {
+                        if (length < 0 || length > Integer.MAX_VALUE - 64) {
+                            return position;
+                        }
+                        data = new byte[(int) length];
+                        in.readFully(data);
+                        CRC32 crc = new CRC32();
+                        crc.update(data);
+                        if (in.readInt() != (int) crc.getValue()) {
+                            return position;
+                        }
+                    } else if (type != TOMBSTONE && type != LOOSE) {
+                        return position;
+                    }
+                    record = new Record((byte) type, new String(key, StandardCharsets.UTF_8), lastModified, length,
+                            position, recordSize((byte) type, key.length, length));
+                } catch (EOFException e) {
+                    return position;
+                }
+                consumer.accept(record, data);
+                position += record.size();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(Record record, byte[] data) throws IOException;
+    }
+
+    /**
+     * 先写临时文件再原子替换，写到一半崩溃时保留上一份快照
+     */
+    static void writeSnapshot(Path file, int lastPackId, Map<Integer, Long> covered,
+                              Iterable<Map.Entry<String, PackEntry>> entries) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.write(INDEX_MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(lastPackId);
+            out.writeInt(covered.size());
+            for (Map.Entry<Integer, Long> pack : covered.entrySet()) {
+                out.writeInt(pack.getKey());
+                out.writeLong(pack.getValue());
+            }
+            for (Map.Entry<String, PackEntry> item : entries) {
+                PackEntry entry = item.getValue();
+                byte[] key = item.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeBoolean(true);
+                out.writeShort(key.length);
+                out.write(key);
+                out.writeInt(entry.pack());
+                out.writeLong(entry.offset());
+                out.writeLong(entry.length());
+                out.writeLong(entry.lastModified());
+                out.writeInt(entry.recordSize());
+                out.writeBoolean(entry.loose());
+            }
+            out.writeBoolean(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 快照不存在或损坏时返回 null，由调用方从头重放全部包文件
+     */
+    static Snapshot readSnapshot(Path file, BiConsumer<String, Exception> onCorrupt) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            byte[] magic = in.readNBytes(INDEX_MAGIC.length);
+            if (!Arrays.equals(magic, INDEX_MAGIC) || in.readByte() != VERSION) {
+                throw new IOException("Unknown index format");
+            }
+            int lastPackId = in.readInt();
+            int packs = in.readInt();
+            Map<Integer, Long> covered = new HashMap<>();
+            for (int i = 0; i < packs; i++) {
+                covered.put(in.readInt(), in.readLong());
+            }
+            Map<String, PackEntry> entries = new HashMap<>();
+            while (in.readBoolean()) {
+                byte[] key = new byte[in.readUnsignedShort()];
+                in.readFully(key);
+                entries.put(new String(key, StandardCharsets.UTF_8), new PackEntry(in.readInt(), in.readLong(),
+                        in.readLong(), in.readLong(), in.readInt(), in.readBoolean()));
+            }
+            return new Snapshot(lastPackId, covered, entries);
+        } catch (IOException e) {
+            onCorrupt.accept(file.toString(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package org.example.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 小文件打包存储
+ * 不超过阈值的对象追加写入大的包文件，超过阈值的单独存为文件（loose）；键到位置的索引常驻内存，
+ * stat、list、walk 只查索引，不访问磁盘。索引定期写快照，重启时加载快照并重放各包文件快照之后的尾部。
+ * 删除和覆盖只追加记录，失效字节由后台压缩回收：失效比例超过阈值的包文件，其仍有效的记录被复制到当前包，
+ * 之后整个文件删除
+ */
+@Slf4j
+public class PackStorageBackend implements StorageBackend, Closeable {
+
+    static final String INDEX_FILE = "index.hidx";
+
+    private final Path dir;
+    private final long smallFileThreshold;
+    private final long maxPackSize;
+    private final double compactionRatio;
+    private final LocalStorageBackend loose;
+
+    private final ConcurrentSkipListMap<String, PackEntry> index = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, PackFile> packs = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Object maintenanceLock = new Object();
+    private final ScheduledExecutorService maintenance;
+    private PackFile active;
+    private volatile boolean dirty;
+    private volatile boolean closed;
+
+    private final AtomicLong compactedPacks = new AtomicLong();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+
+    public PackStorageBackend(StorageProperties.Pack properties) throws IOException {
+        this.dir = Path.of(properties.getDir()).toAbsolutePath().normalize();
+        this.smallFileThreshold = properties.getSmallFileThreshold().toBytes();
+        this.maxPackSize = properties.getMaxPackSize().toBytes();
+        this.compactionRatio = properties.getCompactionRatio();
+        this.loose = new LocalStorageBackend(new UploadDirectory(dir.resolve("loose")));
+        Files.createDirectories(dir);
+        load();
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("pack-maintenance").daemon(true).factory());
+        if (properties.getSnapshotIntervalMillis() > 0) {
+            maintenance.scheduleWithFixedDelay(this::snapshotQuietly, properties.getSnapshotIntervalMillis(),
+                    properties.getSnapshotIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (properties.getCompactionIntervalMillis() > 0) {
+            maintenance.scheduleWithFixedDelay(this::compactQuietly, properties.getCompactionIntervalMillis(),
+                    properties.getCompactionIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "pack";
+    }
+
+    /**
+     * 先缓存在内存中，超过阈值时转为单独文件
+     */
+    @Override
+    public StorageWriter put(String key) {
+        byte[] keyBytes = PackFormat.keyBytes(key);
+        return new StorageWriter() {
+            private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            private StorageWriter spill;
+            private long count;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ensureOpen();
+                if (spill == null && buffer.size() + len > smallFileThreshold) {
+                    spill = loose.put(key);
+                    buffer.writeTo(spill);
+                    buffer = null;
+                }
+                if (spill != null) {
+                    spill.write(b, off, len);
+                } else {
+                    buffer.write(b, off, len);
+                }
+                count += len;
+            }
+
+            @Override
+            protected void onCommit() throws IOException {
+                long now = System.currentTimeMillis();
+                if (spill != null) {
+                    spill.commit();
+                    commitRecord(key, PackFormat.LOOSE,
+                            PackFormat.encode(PackFormat.LOOSE, keyBytes, now, count, null), count, now);
+                } else {
+                    byte[] data = buffer.toByteArray();
+                    commitRecord(key, PackFormat.DATA,
+                            PackFormat.encode(PackFormat.DATA, keyBytes, now, data.length, data), data.length, now);
+                }
+            }
+
+            /**
+             * 包文件在提交前没有写入任何内容，只需丢弃缓冲或单独文件的临时内容
+             */
+            @Override
+            protected void onAbort() throws IOException {
+                buffer = null;
+                if (spill != null) {
+                    spill.abort();
+                }
+            }
+        };
+    }
+
+    private void commitRecord(String key, byte type, ByteBuffer record, long length, long lastModified) throws IOException {
+        int size = record.remaining();
+        synchronized (writeLock) {
+            PackFile pack = activeFor(size);
+            long position = pack.append(record);
+            PackEntry entry = new PackEntry(pack.id, position + size - (type == PackFormat.DATA ? length + 4 : 0),
+                    length, lastModified, size, type == PackFormat.LOOSE);
+            pack.liveBytes.addAndGet(size);
+            PackEntry previous = index.put(key, entry);
+            dirty = true;
+            if (previous != null) {
+                discard(previous);
+                if (previous.loose() && !entry.loose()) {
+                    loose.delete(key);
+                }
+            }
+        }
+    }
+
+    @Override
+    public RangeReader openRange(String key, ExecutorService executor) throws IOException {
+        while (true) {
+            PackEntry entry = index.get(key);
+            if (entry == null) {
+                throw new NoSuchFileException(key);
+            }
+            if (entry.loose()) {
+                return loose.openRange(key, executor);
+            }
+            PackFile pack = packs.get(entry.pack());
+            if (pack != null && pack.retain()) {
+                return new PackReader(pack, entry, executor);
+            }
+            // 读取索引后该包恰好被压缩退役，索引已指向新位置，重新查找
+        }
+    }
+
+    @Override
+    public StoredObject stat(String key) {
+        return KeyIndex.stat(index, key, PackStorageBackend::toObject);
+    }
+
+    @Override
+    public List<StoredObject> list(String key) throws IOException {
+        return KeyIndex.list(index, key, PackStorageBackend::toObject);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        byte[] keyBytes = PackFormat.keyBytes(key);
+        synchronized (writeLock) {
+            PackEntry previous = index.get(key);
+            if (previous == null) {
+                if (KeyIndex.hasChildren(index, key)) {
+                    throw new DirectoryNotEmptyException(key);
+                }
+                return false;
+            }
+            ByteBuffer record = PackFormat.encode(PackFormat.TOMBSTONE, keyBytes, System.currentTimeMillis(), 0, null);
+            PackFile pack = activeFor(record.remaining());
+            pack.liveBytes.addAndGet(record.remaining());
+            pack.append(record);
+            index.remove(key);
+            dirty = true;
+            discard(previous);
+            if (previous.loose()) {
+                loose.delete(key);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public List<StoredObject> walk(String key) throws IOException {
+        return KeyIndex.walk(index, key, PackStorageBackend::toObject);
+    }
+
+    private static StoredObject toObject(String key, PackEntry entry) {
+        return new StoredObject(key, false, entry.length(), entry.lastModified());
+    }
+
+    /**
+     * 当前包写满时封存并新建下一个，调用方持有写锁
+     */
+    private PackFile activeFor(int recordSize) throws IOException {
+        if (closed) {
+            throw new IOException("Pack storage closed");
+        }
+        if (active.size() > PackFormat.HEADER_SIZE && active.size() + recordSize > maxPackSize) {
+            PackFile next = PackFile.create(dir, active.id + 1);
+            packs.put(next.id, next);
+            active = next;
+        }
+        return active;
+    }
+
+    private void discard(PackEntry entry) {
+        PackFile pack = packs.get(entry.pack());
+        if (pack != null) {
+            pack.liveBytes.addAndGet(-entry.recordSize());
+        }
+    }
+
+    // ==================== 加载与快照 ====================
+
+    private void load() throws IOException {
+        Path indexFile = dir.resolve(INDEX_FILE);
+        PackFormat.Snapshot snapshot = PackFormat.readSnapshot(indexFile,
+                (file, e) -> log.warn("Pack index {} unreadable, replaying all packs: {}", file, e.toString()));
+
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                int id = PackFile.parseId(path.getFileName().toString());
+                if (id >= 0) {
+                    files.put(id, path);
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, Path> file : files.entrySet()) {
+            int id = file.getKey();
+            if (snapshot != null && id <= snapshot.lastPackId() && !snapshot.covered().containsKey(id)) {
+                // 压缩完成、快照已写出但删除前崩溃的旧包
+                log.info("Removing compacted pack {}", file.getValue());
+                Files.deleteIfExists(file.getValue());
+                continue;
+            }
+            packs.put(id, PackFile.open(file.getValue(), id));
+        }
+
+        if (snapshot != null) {
+            snapshot.entries().forEach((key, entry) -> {
+                PackFile pack = packs.get(entry.pack());
+                if (pack != null) {
+                    index.put(key, entry);
+                    pack.liveBytes.addAndGet(entry.recordSize());
+                } else {
+                    log.warn("Pack {} missing for key {}", entry.pack(), key);
+                }
+            });
+        }
+
+        long replayed = 0;
+        for (PackFile pack : new TreeMap<>(packs).values()) {
+            long from = snapshot != null ? snapshot.covered().getOrDefault(pack.id, (long) PackFormat.HEADER_SIZE)
+                    : PackFormat.HEADER_SIZE;
+            from = Math.max(PackFormat.HEADER_SIZE, Math.min(from, pack.size()));
+            long end = PackFormat.scan(pack.path, from, (record, data) -> apply(pack, record));
+            replayed += end - from;
+            if (end < pack.size()) {
+                log.warn("Truncating incomplete record in {} at {} ({} bytes)", pack.path, end, pack.size() - end);
+                pack.truncate(end);
+            }
+        }
+
+        active = packs.isEmpty() ? null : packs.get(new TreeMap<>(packs).lastKey());
+        if (active == null || active.size() >= maxPackSize) {
+            active = PackFile.create(dir, active == null ? 1 : active.id + 1);
+            packs.put(active.id, active);
+        }
+        dirty = replayed > 0 || snapshot == null;
+        log.info("Pack storage loaded: {} objects in {} packs, replayed {} bytes", index.size(), packs.size(), replayed);
+    }
+
+    private void apply(PackFile pack, PackFormat.Record record) {
+        PackEntry previous;
+        if (record.type() == PackFormat.TOMBSTONE) {
+            previous = index.remove(record.key());
+        } else {
+            previous = index.put(record.key(), new PackEntry(pack.id, record.dataOffset(), record.length(),
+                    record.lastModified(), record.size(), record.type() == PackFormat.LOOSE));
+        }
+        pack.liveBytes.addAndGet(record.size());
+        if (previous != null) {
+            discard(previous);
+        }
+    }
+
+    /**
+     * 写出索引快照
+     * 各包已写长度在写锁内取得，索引项随后逐个写出；取长度之后发生的修改在加载时会从该长度起重放，
+     * 所以快照里某个键无论记下的是修改前还是修改后的值，重放后结果一致
+     */
+    public void snapshot() throws IOException {
+        synchronized (maintenanceLock) {
+            Map<Integer, Long> covered = new HashMap<>();
+            int lastPackId;
+            synchronized (writeLock) {
+                packs.forEach((id, pack) -> covered.put(id, pack.size()));
+                lastPackId = active.id;
+                dirty = false;
+            }
+            PackFormat.writeSnapshot(dir.resolve(INDEX_FILE), lastPackId, covered, index.entrySet());
+        }
+    }
+
+    private void snapshotQuietly() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write pack index snapshot", e);
+        }
+    }
+
+    // ==================== 压缩 ====================
+
+    /**
+     * 压缩失效比例达到阈值的已封存包，返回回收的字节数
+     */
+    public long compact() throws IOException {
+        synchronized (maintenanceLock) {
+            List<PackFile> candidates = new ArrayList<>();
+            int activeId;
+            synchronized (writeLock) {
+                activeId = active.id;
+            }
+            for (PackFile pack : new TreeMap<>(packs).values()) {
+                long payload = pack.size() - PackFormat.HEADER_SIZE;
+                if (pack.id != activeId && payload > 0 && pack.deadBytes() >= payload * compactionRatio) {
+                    candidates.add(pack);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return 0;
+            }
+            for (PackFile pack : candidates) {
+                relocate(pack);
+            }
+            // 先让快照不再引用旧包，再删除文件
+            snapshot();
+            long reclaimed = 0;
+            for (PackFile pack : candidates) {
+                packs.remove(pack.id);
+                reclaimed += pack.size();
+                pack.retire();
+                compactedPacks.incrementAndGet();
+            }
+            reclaimedBytes.addAndGet(reclaimed);
+            log.info("Compacted {} packs, reclaimed {} bytes", candidates.size(), reclaimed);
+            return reclaimed;
+        }
+    }
+
+    /**
+     * 顺序扫描包文件，把决定各键当前状态的记录复制到当前包：仍被索引引用的数据和 loose 标记，
+     * 以及更早的包里可能还有被删数据时的删除标记
+     */
+    private void relocate(PackFile pack) throws IOException {
+        boolean olderPacks = packs.keySet().stream().anyMatch(id -> id < pack.id);
+        PackFormat.scan(pack.path, PackFormat.HEADER_SIZE, (record, data) -> {
+            synchronized (writeLock) {
+                PackEntry current = index.get(record.key());
+                boolean keep = switch (record.type()) {
+                    case PackFormat.TOMBSTONE -> current == null && olderPacks;
+                    default -> current != null && current.pack() == pack.id && current.offset() == record.dataOffset();
+                };
+                if (!keep) {
+                    return;
+                }
+                ByteBuffer copy = PackFormat.encode(record.type(), PackFormat.keyBytes(record.key()),
+                        record.lastModified(), record.length(), data);
+                PackFile target = activeFor(copy.remaining());
+                long position = target.append(copy);
+                target.liveBytes.addAndGet(record.size());
+                pack.liveBytes.addAndGet(-record.size());
+                if (current != null) {
+                    index.put(record.key(), new PackEntry(target.id, position + record.dataOffset() - record.offset(),
+                            current.length(), current.lastModified(), current.recordSize(), current.loose()));
+                }
+                dirty = true;
+            }
+        });
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Pack compaction failed", e);
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    public int getObjectCount() {
+        return index.size();
+    }
+
+    public int getPackCount() {
+        return packs.size();
+    }
+
+    public long getPackedBytes() {
+        return packs.values().stream().mapToLong(PackFile::size).sum();
+    }
+
+    public long getDeadBytes() {
+        return packs.values().stream().mapToLong(PackFile::deadBytes).sum();
+    }
+
+    public long getCompactedPacks() {
+        return compactedPacks.get();
+    }
+
+    public long getReclaimedBytes() {
+        return reclaimedBytes.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        maintenance.shutdownNow();
+        synchronized (maintenanceLock) {
+            snapshot();
+            synchronized (writeLock) {
+                closed = true;
+                for (PackFile pack : packs.values()) {
+                    pack.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * 从共享的 FileChannel 定位读取，读取在 executor 上完成，不为每次下载打开文件
+     */
+    private static final class PackReader implements RangeReader {
+
+        private final PackFile pack;
+        private final PackEntry entry;
+        private final ExecutorService executor;
+        private boolean released;
+
+        PackReader(PackFile pack, PackEntry entry, ExecutorService executor) {
+            this.pack = pack;
+            this.entry = entry;
+            this.executor = executor;
+        }
+
+        @Override
+        public void read(ByteBuffer dst, long position, CompletionHandler<Integer, Void> handler) {
+            try {
+                executor.execute(() -> {
+                    int read;
+                    try {
+                        read = readBlocking(dst, position);
+                    } catch (IOException | RuntimeException e) {
+                        handler.failed(e, null);
+                        return;
+                    }
+                    handler.completed(read, null);
+                });
+            } catch (RejectedExecutionException e) {
+                handler.failed(e, null);
+            }
+        }
+
+        private int readBlocking(ByteBuffer dst, long position) throws IOException {
+            if (position >= entry.length()) {
+                return -1;
+            }
+            int limit = dst.limit();
+            dst.limit(dst.position() + (int) Math.min(dst.remaining(), entry.length() - position));
+            try {
+                return pack.channel.read(dst, entry.offset() + position);
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (!released) {
+                released = true;
+                pack.release();
+            }
+        }
+    }
+}
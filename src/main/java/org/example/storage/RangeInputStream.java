@@ -0,0 +1,85 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 把 RangeReader 包装成阻塞读取的输入流，供需要 InputStream 的场景（如转发给其他节点）使用；关闭时关闭 reader
+ */
+public class RangeInputStream extends InputStream {
+
+    private final RangeReader reader;
+    private long position;
+
+    public RangeInputStream(RangeReader reader) {
+        this(reader, 0);
+    }
+
+    /**
+     * 从 position 处开始读取
+     */
+    public RangeInputStream(RangeReader reader, long position) {
+        this.reader = reader;
+        this.position = position;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        reader.read(ByteBuffer.wrap(b, off, len), position, new CompletionHandler<>() {
+            @Override
+            public void completed(Integer read, Void attachment) {
+                result.complete(read);
+            }
+
+            @Override
+            public void failed(Throwable t, Void attachment) {
+                result.completeExceptionally(t);
+            }
+        });
+        int read;
+        try {
+            read = result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Read interrupted");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+        if (read > 0) {
+            position += read;
+        }
+        return read;
+    }
+
+    /**
+     * 只移动读取位置，不读出被跳过的数据；跳过文件末尾后读取返回 -1
+     */
+    @Override
+    public long skip(long n) {
+        if (n <= 0) {
+            return 0;
+        }
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+
+/**
+ * 按位置异步读取对象内容，接口与 AsynchronousFileChannel.read 一致
+ */
+public interface RangeReader extends Closeable {
+
+    /**
+     * 从 position 起读入 dst，完成时回调读到的字节数，已到末尾时回调 -1；同一时刻只有一个未完成的读取
+     */
+    void read(ByteBuffer dst, long position, CompletionHandler<Integer, Void> handler);
+
+    static RangeReader of(AsynchronousFileChannel channel) {
+        return new RangeReader() {
+            @Override
+            public void read(ByteBuffer dst, long position, CompletionHandler<Integer, Void> handler) {
+                channel.read(dst, position, null, handler);
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+}
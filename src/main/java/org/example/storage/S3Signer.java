@@ -0,0 +1,109 @@
+package org.example.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * AWS Signature Version 4 请求签名，只覆盖 S3 兼容接口用到的部分
+ */
+final class S3Signer {
+
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    static final String EMPTY_PAYLOAD = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String region;
+
+    S3Signer(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * Authorization 头的值
+     * path 和 query 均为已编码的形式；headers 为参与签名的全部请求头（含 host、x-amz-date、x-amz-content-sha256），
+     * 名称小写
+     */
+    String authorization(String method, String path, String query, Map<String, String> headers,
+                         String payloadHash, String amzDate) {
+        Map<String, String> sorted = new TreeMap<>(headers);
+        StringBuilder canonicalHeaders = new StringBuilder();
+        StringJoiner signedHeaders = new StringJoiner(";");
+        sorted.forEach((name, value) -> {
+            canonicalHeaders.append(name).append(':').append(value.trim()).append('\n');
+            signedHeaders.add(name);
+        });
+        String canonicalRequest = method + '\n' + path + '\n' + query + '\n' + canonicalHeaders + '\n'
+                + signedHeaders + '\n' + payloadHash;
+
+        String date = amzDate.substring(0, 8);
+        String scope = date + '/' + region + "/s3/aws4_request";
+        String stringToSign = ALGORITHM + '\n' + amzDate + '\n' + scope + '\n' + sha256Hex(canonicalRequest);
+
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, "s3");
+        key = hmac(key, "aws4_request");
+        String signature = HEX.formatHex(hmac(key, stringToSign));
+        return ALGORITHM + " Credential=" + accessKey + '/' + scope + ",SignedHeaders=" + signedHeaders
+                + ",Signature=" + signature;
+    }
+
+    /**
+     * 按 key 排序的规范查询串，参数名和值均已编码
+     */
+    static String canonicalQuery(Map<String, String> params) {
+        Map<String, String> encoded = new TreeMap<>();
+        params.forEach((name, value) -> encoded.put(encode(name, false), encode(value, false)));
+        StringJoiner query = new StringJoiner("&");
+        encoded.forEach((name, value) -> query.add(name + '=' + value));
+        return query.toString();
+    }
+
+    /**
+     * RFC 3986 编码，只保留非保留字符；path 为 true 时保留 "/"
+     */
+    static String encode(String value, boolean path) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (path && c == '/')) {
+                out.append(c);
+            } else {
+                out.append('%').append(HEX.withUpperCase().toHexDigits(b));
+            }
+        }
+        return out.toString();
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package org.example.storage;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * S3 兼容对象存储后端（路径风格 URL，SigV4 签名），可对接 MinIO 等本地替身
+ * 对象存储没有目录，目录即公共前缀：前缀下没有对象时目录随之消失，根目录始终存在。
+ * 读取响应体会阻塞在网络上，使用后端自己的虚拟线程执行，不占用调用方传入的文件 IO 线程池
+ */
+public class S3StorageBackend implements StorageBackend, Closeable {
+
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final int MAX_KEYS = 1000;
+
+    private final String endpoint;
+    private final String host;
+    private final String bucket;
+    private final S3Signer signer;
+    private final HttpClient client;
+    private final ExecutorService readExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-read-", 1).factory());
+
+    public S3StorageBackend(String endpoint, String region, String bucket, String accessKey, String secretKey) {
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        URI uri = URI.create(this.endpoint);
+        boolean defaultPort = uri.getPort() == -1
+                || (uri.getPort() == 80 && "http".equals(uri.getScheme()))
+                || (uri.getPort() == 443 && "https".equals(uri.getScheme()));
+        this.host = defaultPort ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        this.bucket = bucket;
+        this.signer = new S3Signer(accessKey, secretKey, region);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return "s3";
+    }
+
+    /**
+     * 先写入临时文件，提交时以已知长度一次 PUT 上传，放弃时只删除临时文件
+     */
+    @Override
+    public StorageWriter put(String key) throws IOException {
+        Path temp = Files.createTempFile("harmony-s3-", ".part");
+        OutputStream out = Files.newOutputStream(temp);
+        return new StorageWriter() {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ensureOpen();
+                out.write(b, off, len);
+            }
+
+            @Override
+            protected void onCommit() throws IOException {
+                try {
+                    out.close();
+                    HttpResponse<Void> response = send("PUT", objectPath(key), Map.of(), Map.of(),
+                            HttpRequest.BodyPublishers.ofFile(temp), S3Signer.UNSIGNED_PAYLOAD,
+                            HttpResponse.BodyHandlers.discarding());
+                    expectSuccess(response, "PUT", key);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+
+            @Override
+            protected void onAbort() throws IOException {
+                try {
+                    out.close();
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        };
+    }
+
+    /**
+     * 流式 GET，读取位置连续时复用同一个响应体，位置跳变时按新位置重新发起 Range 请求；
+     * executor 不使用，慢速的对象存储不会拖住本地文件读取
+     */
+    @Override
+    public RangeReader openRange(String key, ExecutorService executor) throws IOException {
+        StoredObject object = stat(key);
+        if (object == null || object.directory()) {
+            throw new NoSuchFileException(key);
+        }
+        return new ObjectReader(key, readExecutor);
+    }
+
+    @Override
+    public void close() {
+        readExecutor.shutdownNow();
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        if (key.isEmpty()) {
+            return new StoredObject(key, true, 0, 0);
+        }
+        HttpResponse<Void> response = send("HEAD", objectPath(key), Map.of(), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), S3Signer.EMPTY_PAYLOAD, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return hasChildren(key) ? new StoredObject(key, true, 0, 0) : null;
+        }
+        expectSuccess(response, "HEAD", key);
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        long lastModified = response.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(0L);
+        return new StoredObject(key, false, size, lastModified);
+    }
+
+    @Override
+    public List<StoredObject> list(String key) throws IOException {
+        List<StoredObject> objects = new ArrayList<>();
+        listObjects(prefix(key), true, objects);
+        if (objects.isEmpty() && !key.isEmpty()) {
+            StoredObject object = stat(key);
+            if (object == null) {
+                throw new NoSuchFileException(key);
+            }
+            throw new NotDirectoryException(key);
+        }
+        return objects;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        StoredObject object = stat(key);
+        if (object == null) {
+            return false;
+        }
+        if (object.directory()) {
+            if (hasChildren(key)) {
+                throw new DirectoryNotEmptyException(key);
+            }
+            return true;
+        }
+        HttpResponse<Void> response = send("DELETE", objectPath(key), Map.of(), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), S3Signer.EMPTY_PAYLOAD, HttpResponse.BodyHandlers.discarding());
+        expectSuccess(response, "DELETE", key);
+        return true;
+    }
+
+    /**
+     * 不带分隔符列出前缀下的全部对象，中间目录由对象键推出
+     */
+    @Override
+    public List<StoredObject> walk(String key) throws IOException {
+        StoredObject root = stat(key);
+        if (root == null) {
+            throw new NoSuchFileException(key);
+        }
+        List<StoredObject> objects = new ArrayList<>();
+        if (root.directory()) {
+            String prefix = prefix(key);
+            listObjects(prefix, false, objects);
+            Map<String, StoredObject> dirs = new LinkedHashMap<>();
+            for (StoredObject object : objects) {
+                String child = object.key();
+                for (int slash = child.indexOf('/', prefix.length()); slash >= 0; slash = child.indexOf('/', slash + 1)) {
+                    dirs.putIfAbsent(child.substring(0, slash), new StoredObject(child.substring(0, slash), true, 0, 0));
+                }
+            }
+            objects.addAll(dirs.values());
+        }
+        objects.add(root);
+        objects.sort((a, b) -> b.key().compareTo(a.key()));
+        return objects;
+    }
+
+    private boolean hasChildren(String key) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        query.put("list-type", "2");
+        query.put("prefix", prefix(key));
+        query.put("max-keys", "1");
+        return parse(listRequest(query)).getElementsByTagName("Contents").getLength() > 0;
+    }
+
+    /**
+     * ListObjectsV2 分页读取；delimited 为 true 时公共前缀作为子目录返回
+     */
+    private void listObjects(String prefix, boolean delimited, List<StoredObject> objects) throws IOException {
+        String token = null;
+        do {
+            Map<String, String> query = new HashMap<>();
+            query.put("list-type", "2");
+            query.put("prefix", prefix);
+            query.put("max-keys", Integer.toString(MAX_KEYS));
+            if (delimited) {
+                query.put("delimiter", "/");
+            }
+            if (token != null) {
+                query.put("continuation-token", token);
+            }
+            Document document = parse(listRequest(query));
+
+            NodeList contents = document.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element element = (Element) contents.item(i);
+                String key = text(element, "Key");
+                if (key.endsWith("/")) {
+                    // 部分客户端创建的目录占位对象
+                    continue;
+                }
+                objects.add(new StoredObject(key, false, Long.parseLong(text(element, "Size")),
+                        Instant.parse(text(element, "LastModified")).toEpochMilli()));
+            }
+            NodeList prefixes = document.getElementsByTagName("CommonPrefixes");
+            for (int i = 0; i < prefixes.getLength(); i++) {
+                String dir = text((Element) prefixes.item(i), "Prefix");
+                objects.add(new StoredObject(dir.substring(0, dir.length() - 1), true, 0, 0));
+            }
+            token = "true".equals(text(document.getDocumentElement(), "IsTruncated"))
+                    ? text(document.getDocumentElement(), "NextContinuationToken") : null;
+        } while (token != null);
+    }
+
+    private byte[] listRequest(Map<String, String> query) throws IOException {
+        HttpResponse<byte[]> response = send("GET", "/" + bucket, query, Map.of(),
+                HttpRequest.BodyPublishers.noBody(), S3Signer.EMPTY_PAYLOAD, HttpResponse.BodyHandlers.ofByteArray());
+        expectSuccess(response, "LIST", query.get("prefix"));
+        return response.body();
+    }
+
+    private <T> HttpResponse<T> send(String method, String path, Map<String, String> query,
+                                     Map<String, String> extraHeaders, HttpRequest.BodyPublisher body,
+                                     String payloadHash, HttpResponse.BodyHandler<T> handler) throws IOException {
+        String canonicalQuery = S3Signer.canonicalQuery(query);
+        String amzDate = AMZ_DATE.format(Instant.now());
+        Map<String, String> headers = new HashMap<>(extraHeaders);
+        headers.put("host", host);
+        headers.put("x-amz-date", amzDate);
+        headers.put("x-amz-content-sha256", payloadHash);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                        URI.create(endpoint + path + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery)))
+                .timeout(Duration.ofMinutes(1))
+                .method(method, body)
+                .header("Authorization", signer.authorization(method, path, canonicalQuery, headers, payloadHash, amzDate));
+        headers.forEach((name, value) -> {
+            if (!name.equals("host")) {
+                request.header(name, value);
+            }
+        });
+        try {
+            return client.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S3 " + method + " interrupted");
+        }
+    }
+
+    private String objectPath(String key) {
+        return "/" + bucket + "/" + S3Signer.encode(key, true);
+    }
+
+    private static String prefix(String key) {
+        return key.isEmpty() ? "" : key + "/";
+    }
+
+    private static void expectSuccess(HttpResponse<?> response, String operation, String key) throws IOException {
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(key);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 " + operation + " " + key + " failed: HTTP " + response.statusCode());
+        }
+    }
+
+    private static Document parse(byte[] xml) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid S3 list response", e);
+        }
+    }
+
+    private static String text(Element parent, String tag) {
+        NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent() : "";
+    }
+
+    private final class ObjectReader implements RangeReader {
+
+        private final String key;
+        private final ExecutorService executor;
+        /**
+         * 当前响应体；close() 可能与进行中的读取并发，两边都通过原子交换取走后关闭
+         */
+        private final AtomicReference<InputStream> body = new AtomicReference<>();
+        private long bodyPosition;
+        private volatile boolean closed;
+
+        ObjectReader(String key, ExecutorService executor) {
+            this.key = key;
+            this.executor = executor;
+        }
+
+        @Override
+        public void read(ByteBuffer dst, long position, CompletionHandler<Integer, Void> handler) {
+            try {
+                executor.execute(() -> {
+                    int read;
+                    try {
+                        read = readBlocking(dst, position);
+                    } catch (IOException | RuntimeException e) {
+                        handler.failed(e, null);
+                        return;
+                    }
+                    handler.completed(read, null);
+                });
+            } catch (RejectedExecutionException e) {
+                handler.failed(e, null);
+            }
+        }
+
+        private int readBlocking(ByteBuffer dst, long position) throws IOException {
+            if (closed) {
+                throw new IOException("Reader closed");
+            }
+            InputStream stream = body.get();
+            if (stream == null || bodyPosition != position) {
+                closeBody();
+                HttpResponse<InputStream> response = send("GET", objectPath(key), Map.of(),
+                        Map.of("range", "bytes=" + position + "-"), HttpRequest.BodyPublishers.noBody(),
+                        S3Signer.EMPTY_PAYLOAD, HttpResponse.BodyHandlers.ofInputStream());
+                if (response.statusCode() == 416) {
+                    response.body().close();
+                    return -1;
+                }
+                if (response.statusCode() / 100 != 2) {
+                    response.body().close();
+                }
+                expectSuccess(response, "GET", key);
+                stream = response.body();
+                body.set(stream);
+                // 打开响应期间被关闭：close() 可能已错过这个响应体，由读取方关闭
+                if (closed) {
+                    closeBody();
+                    throw new IOException("Reader closed");
+                }
+                if (response.statusCode() == 200 && position > 0) {
+                    // 服务端忽略了 Range
+                    stream.skipNBytes(position);
+                }
+                bodyPosition = position;
+            }
+            int read;
+            if (dst.hasArray()) {
+                read = stream.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+                if (read > 0) {
+                    dst.position(dst.position() + read);
+                }
+            } else {
+                byte[] chunk = new byte[dst.remaining()];
+                read = stream.read(chunk);
+                if (read > 0) {
+                    dst.put(chunk, 0, read);
+                }
+            }
+            if (read > 0) {
+                bodyPosition += read;
+            }
+            return read;
+        }
+
+        private void closeBody() throws IOException {
+            InputStream previous = body.getAndSet(null);
+            if (previous != null) {
+                previous.close();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            closeBody();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 文件存储后端
+ * 对象以 "/" 分隔的相对路径为键，"" 为根目录；目录由后端自行表示（本地文件系统为真实目录，
+ * 对象存储为公共前缀）。键由调用方做完路径安全检查后传入
+ */
+public interface StorageBackend {
+
+    /**
+     * 后端名称，用于日志和基准测试
+     */
+    String name();
+
+    /**
+     * 写入对象，父目录按需创建；commit 后写入完成，同名对象被覆盖，未提交就关闭时原对象不变
+     */
+    StorageWriter put(String key) throws IOException;
+
+    /**
+     * 打开对象用于按区间异步读取，读取在 executor 上完成；对象不存在时抛出 NoSuchFileException
+     */
+    RangeReader openRange(String key, ExecutorService executor) throws IOException;
+
+    /**
+     * 对象或目录的元数据，不存在时返回 null
+     */
+    StoredObject stat(String key) throws IOException;
+
+    /**
+     * 目录下的直接子项
+     */
+    List<StoredObject> list(String key) throws IOException;
+
+    /**
+     * 删除文件或空目录，不存在时返回 false
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * 目录树中的全部条目（含 key 本身），子项排在所在目录之前，可按顺序逐个删除
+     */
+    List<StoredObject> walk(String key) throws IOException;
+}
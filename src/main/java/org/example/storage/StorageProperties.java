@@ -0,0 +1,71 @@
+package org.example.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 文件存储后端配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.storage")
+public class StorageProperties {
+
+    /**
+     * 后端类型：local、pack、memory、s3
+     */
+    private String type = "local";
+
+    /**
+     * 上传目录；local 后端的存储位置，其他后端也用它做路径安全检查和键解析
+     */
+    private String dir = "uploads";
+
+    private S3 s3 = new S3();
+
+    private Pack pack = new Pack();
+
+    @Data
+    public static class S3 {
+        /**
+         * 服务地址，如 http://localhost:9000，按路径风格访问 bucket
+         */
+        private String endpoint;
+        private String region = "us-east-1";
+        private String bucket;
+        private String accessKey;
+        private String secretKey;
+    }
+
+    @Data
+    public static class Pack {
+        /**
+         * 包文件、索引快照和大文件（loose/ 子目录）所在目录
+         */
+        private String dir = "data/packs";
+
+        /**
+         * 不超过该大小的对象写入包文件，更大的单独存为文件
+         */
+        private DataSize smallFileThreshold = DataSize.ofKilobytes(64);
+
+        /**
+         * 当前包达到该大小后封存并新建下一个
+         */
+        private DataSize maxPackSize = DataSize.ofMegabytes(256);
+
+        /**
+         * 已封存的包中失效字节达到该比例时压缩
+         */
+        private double compactionRatio = 0.5;
+
+        private long compactionIntervalMillis = 60_000;
+
+        /**
+         * 索引有变化时写快照的间隔，重启时只需重放快照之后追加的记录
+         */
+        private long snapshotIntervalMillis = 10_000;
+    }
+}
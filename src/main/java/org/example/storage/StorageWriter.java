@@ -0,0 +1,77 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 写入中的对象：commit 后对象才可见并覆盖同名对象，abort 或未提交就关闭时丢弃已写入的内容，原对象保持不变
+ * 调用方在 try-with-resources 中写完后显式 commit，复制中途失败时关闭即放弃
+ */
+public abstract class StorageWriter extends OutputStream {
+
+    private boolean finished;
+    private boolean committed;
+
+    /**
+     * 提交写入；失败时已写入的内容被丢弃。重复提交无效果，放弃后再提交抛出 IOException
+     */
+    public final void commit() throws IOException {
+        if (finished) {
+            if (!committed) {
+                throw new IOException("Write already aborted");
+            }
+            return;
+        }
+        finished = true;
+        try {
+            onCommit();
+            committed = true;
+        } catch (IOException | RuntimeException e) {
+            try {
+                onAbort();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 放弃写入，已提交或已放弃时无效果
+     */
+    public final void abort() throws IOException {
+        if (!finished) {
+            finished = true;
+            onAbort();
+        }
+    }
+
+    /**
+     * 未提交的写入在关闭时放弃
+     */
+    @Override
+    public final void close() throws IOException {
+        abort();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public abstract void write(byte[] b, int off, int len) throws IOException;
+
+    /**
+     * 提交或放弃之后不能再写入
+     */
+    protected void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("Write already finished");
+        }
+    }
+
+    protected abstract void onCommit() throws IOException;
+
+    protected abstract void onAbort() throws IOException;
+}
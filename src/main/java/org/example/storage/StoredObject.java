@@ -0,0 +1,14 @@
+package org.example.storage;
+
+/**
+ * 存储后端中的一个文件或目录
+ */
+public record StoredObject(String key, boolean directory, long size, long lastModified) {
+
+    /**
+     * 键的最后一段
+     */
+    public String name() {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 上传目录：路径安全检查和存储键与路径的转换
+ */
+public class UploadDirectory {
+
+    private final Path basePath;
+    private final Path stagingPath;
+    private volatile boolean created;
+    private volatile boolean stagingCreated;
+
+    public UploadDirectory(Path dir) {
+        this.basePath = dir.toAbsolutePath().normalize();
+        this.stagingPath = basePath.resolveSibling("." + basePath.getFileName() + ".staging");
+    }
+
+    public Path getBasePath() {
+        return basePath;
+    }
+
+    /**
+     * 首次写入或列出时才创建目录，构造时不访问文件系统，避免拖慢启动
+     */
+    public Path ensureCreated() throws IOException {
+        if (!created) {
+            Files.createDirectories(basePath);
+            created = true;
+        }
+        return basePath;
+    }
+
+    /**
+     * 写入中的临时文件所在目录：与上传目录同级，通常在同一文件系统上可原子改名，又不会出现在列表、索引和目录监听中
+     */
+    public Path ensureStaging() throws IOException {
+        if (!stagingCreated) {
+            Files.createDirectories(stagingPath);
+            stagingCreated = true;
+        }
+        return stagingPath;
+    }
+
+    /**
+     * 安全方法：验证路径是否在允许的基础目录内
+     */
+    public boolean isPathSafe(Path requestedPath) {
+        Path normalized = requestedPath.normalize();
+        return normalized.startsWith(basePath);
+    }
+
+    /**
+     * 安全方法：解析路径并确保安全
+     */
+    public Path resolveSafePath(String inputPath) {
+        Path requestedPath = Paths.get(inputPath).normalize();
+
+        // 如果是相对路径，基于上传目录解析
+        if (!requestedPath.isAbsolute()) {
+            requestedPath = basePath.resolve(requestedPath).normalize();
+        }
+
+        // 防止目录遍历攻击
+        if (!isPathSafe(requestedPath)) {
+            throw new SecurityException("Path traversal detected: " + inputPath);
+        }
+
+        return requestedPath;
+    }
+
+    /**
+     * 解析用户输入的路径并转换为存储键
+     */
+    public String resolveKey(String inputPath) {
+        return relativize(resolveSafePath(inputPath));
+    }
+
+    /**
+     * 目录内路径对应的存储键，以 "/" 分隔，根目录为 ""
+     */
+    public String relativize(Path path) {
+        return basePath.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * 存储键对应的路径，越出目录时抛出 SecurityException
+     */
+    public Path resolveKeyPath(String key) {
+        Path path = basePath.resolve(key).normalize();
+        if (!isPathSafe(path)) {
+            throw new SecurityException("Path traversal detected: " + key);
+        }
+        return path;
+    }}
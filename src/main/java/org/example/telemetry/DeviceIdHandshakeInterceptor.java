@@ -0,0 +1,39 @@
+package org.example.telemetry;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * 握手时从 deviceId 查询参数或 X-Device-Id 请求头取得设备标识，缺失时拒绝握手
+ */
+public class DeviceIdHandshakeInterceptor implements HandshakeInterceptor {
+
+    static final String DEVICE_ID_HEADER = "X-Device-Id";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String deviceId = UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst("deviceId");
+        if (deviceId == null || deviceId.isEmpty()) {
+            deviceId = request.getHeaders().getFirst(DEVICE_ID_HEADER);
+        }
+        if (deviceId == null || deviceId.isEmpty()) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        attributes.put(TelemetryWebSocketHandler.DEVICE_ID_ATTRIBUTE, deviceId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
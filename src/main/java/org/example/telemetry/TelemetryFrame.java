@@ -0,0 +1,88 @@
+package org.example.telemetry;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 二进制遥测帧
+ * 上行：type(1 字节) | seq(varint) | Smile 编码的负载
+ * 下行 ACK：0x7F | 最大已处理 seq(varint) | 本批帧数(varint)
+ * 下行 NACK：0x7E | seq(varint) | UTF-8 错误信息
+ */
+final class TelemetryFrame {
+
+    static final byte HEARTBEAT = 1;
+    static final byte LOG = 2;
+    static final byte REPORT = 3;
+    static final byte ACK = 0x7F;
+    static final byte NACK = 0x7E;
+
+    final byte type;
+    final long seq;
+    final ByteBuffer payload;
+
+    private TelemetryFrame(byte type, long seq, ByteBuffer payload) {
+        this.type = type;
+        this.seq = seq;
+        this.payload = payload;
+    }
+
+    static TelemetryFrame decode(ByteBuffer buffer) {
+        if (buffer.remaining() < 2) {
+            throw new IllegalArgumentException("Frame too short");
+        }
+        byte type = buffer.get();
+        long seq = readVarint(buffer);
+        return new TelemetryFrame(type, seq, buffer.slice());
+    }
+
+    static byte[] encode(byte type, long seq, byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length + 11);
+        out.write(type);
+        writeVarint(out, seq);
+        out.writeBytes(payload);
+        return out.toByteArray();
+    }
+
+    static byte[] ack(long seq, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(12);
+        out.write(ACK);
+        writeVarint(out, seq);
+        writeVarint(out, count);
+        return out.toByteArray();
+    }
+
+    static byte[] nack(long seq, String message) {
+        return encode(NACK, seq, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static byte typeOf(String name) {
+        return switch (name == null ? "" : name) {
+            case "heartbeat" -> HEARTBEAT;
+            case "log" -> LOG;
+            case "report" -> REPORT;
+            default -> throw new IllegalArgumentException("Unknown frame type: " + name);
+        };
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarint(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.telemetry;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 设备 WebSocket 遥测通道配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.telemetry")
+public class TelemetryProperties {
+
+    /**
+     * WebSocket 端点路径
+     */
+    private String path = "/api/data/ws";
+
+    /**
+     * 累计多少帧后立即回 ACK
+     */
+    private int ackBatchSize = 32;
+
+    /**
+     * 未满批次的 ACK 最长延迟
+     */
+    private long ackFlushMillis = 1000;
+
+    /**
+     * 单帧最大字节数（二进制与文本相同）
+     */
+    private int maxFrameSize = 8192;
+
+    /**
+     * 连接空闲超时，超时后由容器关闭
+     */
+    private long idleTimeoutMillis = 300_000;
+
+    /**
+     * 每个连接待发送数据的缓冲上限，超出后关闭连接
+     */
+    private int sendBufferLimit = 4096;
+
+    /**
+     * 单次发送的最长阻塞时间
+     */
+    private int sendTimeLimitMillis = 5000;
+}
@@ -0,0 +1,48 @@
+package org.example.telemetry;
+
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * 单个设备连接的状态，只保存 ACK 批处理所需的几个字段
+ */
+final class TelemetrySession {
+
+    final WebSocketSession session;
+    final String deviceId;
+
+    private long lastSeq = -1;
+    private int pending;
+    private boolean binary = true;
+
+    TelemetrySession(WebSocketSession session, String deviceId) {
+        this.session = session;
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * 记录一帧已处理，返回当前待确认的帧数
+     */
+    synchronized int processed(long seq, boolean binaryFrame) {
+        if (seq > lastSeq) {
+            lastSeq = seq;
+        }
+        binary = binaryFrame;
+        return ++pending;
+    }
+
+    /**
+     * 取出待确认的批次：[lastSeq, count]，没有待确认帧时返回 null
+     */
+    synchronized long[] drain() {
+        if (pending == 0) {
+            return null;
+        }
+        long[] batch = {lastSeq, pending};
+        pending = 0;
+        return batch;
+    }
+
+    synchronized boolean isBinary() {
+        return binary;
+    }
+}
@@ -0,0 +1,233 @@
+package org.example.telemetry;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.controller.DataController.HeartbeatRequest;
+import org.example.controller.DataController.LogRequest;
+import org.example.ingest.DataIngestService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备遥测 WebSocket 通道
+ * 一个设备一条长连接，心跳、日志、上报三类帧复用同一连接，进入与 REST 接口相同的处理管线；
+ * ACK 按批次累计确认，满批立即发送，否则由定时任务统一刷出
+ */
+@Slf4j
+@Component
+public class TelemetryWebSocketHandler extends AbstractWebSocketHandler {
+
+    static final String DEVICE_ID_ATTRIBUTE = "telemetry.deviceId";
+    private static final String STATE_ATTRIBUTE = "telemetry.state";
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final DataIngestService ingestService;
+    private final TelemetryProperties properties;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper = new SmileMapper();
+
+    private final Map<String, TelemetrySession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ackScheduler;
+
+    public TelemetryWebSocketHandler(DataIngestService ingestService, TelemetryProperties properties,
+                                     ObjectMapper jsonMapper) {
+        this.ingestService = ingestService;
+        this.properties = properties;
+        this.jsonMapper = jsonMapper;
+        this.ackScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "telemetry-ack");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ackScheduler.scheduleWithFixedDelay(this::flushAcks,
+                properties.getAckFlushMillis(), properties.getAckFlushMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ackScheduler.shutdownNow();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        String deviceId = (String) session.getAttributes().get(DEVICE_ID_ATTRIBUTE);
+
+        session.setBinaryMessageSizeLimit(properties.getMaxFrameSize());
+        session.setTextMessageSizeLimit(properties.getMaxFrameSize());
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session container = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (container != null) {
+                container.setMaxIdleTimeout(properties.getIdleTimeoutMillis());
+            }
+        }
+
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(session,
+                properties.getSendTimeLimitMillis(), properties.getSendBufferLimit());
+        TelemetrySession state = new TelemetrySession(concurrent, deviceId);
+        session.getAttributes().put(STATE_ATTRIBUTE, state);
+
+        // 同一设备只保留最新的连接
+        TelemetrySession previous = sessions.put(deviceId, state);
+        if (previous != null && previous.session.isOpen()) {
+            previous.session.close(CloseStatus.POLICY_VIOLATION.withReason("Replaced by a newer connection"));
+        }
+        log.debug("Telemetry connected: {}", deviceId);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        TelemetrySession state = stateOf(session);
+        ByteBuffer buffer = message.getPayload();
+        long seq = -1;
+        try {
+            TelemetryFrame frame = TelemetryFrame.decode(buffer);
+            seq = frame.seq;
+            ByteBuffer payload = frame.payload;
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+
+            switch (frame.type) {
+                case TelemetryFrame.HEARTBEAT -> heartbeat(state, smileMapper.readValue(bytes, HeartbeatRequest.class));
+                case TelemetryFrame.LOG -> log(state, smileMapper.readValue(bytes, LogRequest.class));
+                case TelemetryFrame.REPORT -> report(state, readMap(smileMapper, bytes));
+                default -> throw new IllegalArgumentException("Unknown frame type: " + frame.type);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Rejected telemetry frame from {}: {}", state.deviceId, e.getMessage());
+            send(state, new BinaryMessage(TelemetryFrame.nack(Math.max(seq, 0), String.valueOf(e.getMessage()))));
+            return;
+        }
+        acknowledge(state, seq, true);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        TelemetrySession state = stateOf(session);
+        long seq = -1;
+        try {
+            JsonNode frame = jsonMapper.readTree(message.getPayload());
+            seq = frame.path("seq").asLong(-1);
+            JsonNode data = frame.path("data");
+
+            switch (TelemetryFrame.typeOf(frame.path("type").asText(null))) {
+                case TelemetryFrame.HEARTBEAT -> heartbeat(state, jsonMapper.treeToValue(data, HeartbeatRequest.class));
+                case TelemetryFrame.LOG -> log(state, jsonMapper.treeToValue(data, LogRequest.class));
+                default -> report(state, jsonMapper.convertValue(data, MAP_TYPE));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Rejected telemetry frame from {}: {}", state.deviceId, e.getMessage());
+            Map<String, Object> nack = Map.of("type", "nack", "seq", seq, "message", String.valueOf(e.getMessage()));
+            send(state, new TextMessage(jsonMapper.writeValueAsString(nack)));
+            return;
+        }
+        acknowledge(state, seq, false);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        log.debug("Telemetry transport error: {}", exception.getMessage());
+        if (session.isOpen()) {
+            session.close(CloseStatus.SERVER_ERROR);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        TelemetrySession state = (TelemetrySession) session.getAttributes().get(STATE_ATTRIBUTE);
+        if (state != null) {
+            sessions.remove(state.deviceId, state);
+            log.debug("Telemetry disconnected: {} ({})", state.deviceId, status);
+        }
+    }
+
+    public int getConnectionCount() {
+        return sessions.size();
+    }
+
+    private void heartbeat(TelemetrySession state, HeartbeatRequest heartbeat) {
+        if (heartbeat.getDeviceId() == null || heartbeat.getDeviceId().isEmpty()) {
+            heartbeat.setDeviceId(state.deviceId);
+        }
+        ingestService.heartbeat(heartbeat);
+    }
+
+    private void log(TelemetrySession state, LogRequest logRequest) {
+        if (logRequest.getDeviceId() == null || logRequest.getDeviceId().isEmpty()) {
+            logRequest.setDeviceId(state.deviceId);
+        }
+        ingestService.log(logRequest);
+    }
+
+    private void report(TelemetrySession state, Map<String, Object> data) {
+        data.putIfAbsent("deviceId", state.deviceId);
+        ingestService.report(data);
+    }
+
+    private static Map<String, Object> readMap(ObjectMapper mapper, byte[] bytes) throws IOException {
+        return mapper.readValue(bytes, MAP_TYPE);
+    }
+
+    private void acknowledge(TelemetrySession state, long seq, boolean binary) {
+        if (state.processed(seq, binary) >= properties.getAckBatchSize()) {
+            sendAck(state);
+        }
+    }
+
+    private void flushAcks() {
+        for (TelemetrySession state : sessions.values()) {
+            try {
+                sendAck(state);
+            } catch (RuntimeException e) {
+                log.debug("Failed to flush telemetry ack for {}", state.deviceId, e);
+            }
+        }
+    }
+
+    private void sendAck(TelemetrySession state) {
+        long[] batch = state.drain();
+        if (batch == null) {
+            return;
+        }
+        if (state.isBinary()) {
+            send(state, new BinaryMessage(TelemetryFrame.ack(batch[0], (int) batch[1])));
+        } else {
+            send(state, new TextMessage("{\"type\":\"ack\",\"seq\":" + batch[0] + ",\"count\":" + batch[1] + "}"));
+        }
+    }
+
+    private void send(TelemetrySession state, WebSocketMessage<?> message) {
+        if (!state.session.isOpen()) {
+            return;
+        }
+        try {
+            state.session.sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            // 发送缓冲超限时装饰器会关闭连接，这里只记录
+            log.debug("Failed to send telemetry frame to {}: {}", state.deviceId, e.getMessage());
+        }
+    }
+
+    private static TelemetrySession stateOf(WebSocketSession session) {
+        return (TelemetrySession) session.getAttributes().get(STATE_ATTRIBUTE);
+    }
+}
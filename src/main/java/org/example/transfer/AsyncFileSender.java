@@ -0,0 +1,340 @@
+package org.example.transfer;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.storage.RangeReader;
+import org.example.storage.StorageBackend;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 Servlet 非阻塞写和存储后端异步区间读取的文件下发
+ * 套接字不可写时不占用任何线程：容器在可写时回调 onWritePossible，对象读取在共享的小线程池中完成，
+ * 慢速客户端只占用一个连接和一块读缓冲；套接字持续不可写或读取持续未完成超过写出期限的下载由巡检线程中止
+ */
+@Slf4j
+@Component
+public class AsyncFileSender {
+
+    private final int bufferSize;
+    private final long writeTimeoutMillis;
+    private final ExecutorService ioPool;
+    private final ScheduledExecutorService watchdog;
+    private final Set<Transfer> transfers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong aborted = new AtomicLong();
+    private final AtomicLong stalled = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    public AsyncFileSender(TransferProperties properties) {
+        this.bufferSize = (int) properties.getBufferSize().toBytes();
+        this.ioPool = Executors.newFixedThreadPool(properties.getIoThreads(),
+                Thread.ofPlatform().name("transfer-io-", 1).daemon(true).factory());
+        this.writeTimeoutMillis = properties.getWriteTimeoutMillis();
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("transfer-watchdog").daemon(true).factory());
+        if (writeTimeoutMillis > 0) {
+            long period = Math.max(50, writeTimeoutMillis / 4);
+            watchdog.scheduleWithFixedDelay(this::abortStalled, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        ioPool.shutdownNow();
+    }
+
+    /**
+     * 开始异步发送对象的 [offset, offset + count) 区间，状态码和响应头需在调用前设置好；
+     * 每次写出前向 flow 申请带宽，传输结束时关闭 flow
+     */
+    public void send(HttpServletRequest request, HttpServletResponse response, StorageBackend backend, String key,
+                     long offset, long count, BandwidthScheduler.Flow flow) throws IOException {
+        RangeReader channel;
+        try {
+            channel = backend.openRange(key, ioPool);
+        } catch (IOException | RuntimeException e) {
+            flow.close();
+            throw e;
+        }
+        AsyncContext context;
+        try {
+            context = request.startAsync();
+        } catch (RuntimeException e) {
+            channel.close();
+            flow.close();
+            throw e;
+        }
+        start(context, response, channel, offset, count, flow);
+    }
+
+    /**
+     * 在已开始的异步请求上发送 channel 的 [offset, offset + count) 区间，用于不在本地存储中的内容（如其他节点的响应体）；
+     * 结束时关闭 channel 和 flow 并完成 context，启动失败时同样关闭后抛出
+     */
+    public void start(AsyncContext context, HttpServletResponse response, RangeReader channel,
+                      long offset, long count, BandwidthScheduler.Flow flow) throws IOException {
+        try {
+            // 大文件下载总时长不设上限，停滞由巡检线程按写出期限判断
+            context.setTimeout(0);
+            Transfer transfer = new Transfer(context, channel, response.getOutputStream(), offset, count, flow);
+            context.addListener(transfer);
+            active.incrementAndGet();
+            transfers.add(transfer);
+            transfer.output.setWriteListener(transfer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            flow.close();
+            throw e;
+        }
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getAbortedCount() {
+        return aborted.get();
+    }
+
+    /**
+     * 因写出或读取停滞超过期限而中止的下载数
+     */
+    public long getStalledCount() {
+        return stalled.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    private void abortStalled() {
+        long now = System.currentTimeMillis();
+        for (Transfer transfer : transfers) {
+            long since = transfer.blockedSince;
+            if (since > 0 && now - since > writeTimeoutMillis) {
+                stalled.incrementAndGet();
+                transfer.fail(new TimeoutException("Transfer stalled for " + (now - since) + " ms"));
+            }
+        }
+    }
+
+    /**
+     * 单个下载的状态机
+     * 可写回调、读完成回调和异常回调可能来自不同线程，通过 wip 计数保证同一时刻只有一个线程推进状态，
+     * 其余线程只登记一次“需要再检查”后立即返回，不会互相等待
+     */
+    private final class Transfer implements WriteListener, AsyncListener, CompletionHandler<Integer, Void> {
+
+        private final AsyncContext context;
+        private final RangeReader channel;
+        private final ServletOutputStream output;
+        private final BandwidthScheduler.Flow flow;
+        private final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private long position;
+        private long remaining;
+        private int allowance;
+        private boolean filled;
+        private boolean done;
+        private volatile boolean reading;
+        /**
+         * 开始等待套接字可写或读取完成的时间，0 表示未阻塞；推进线程和读完成回调写入，巡检线程读取
+         */
+        private volatile long blockedSince;
+        private volatile Throwable failure;
+
+        Transfer(AsyncContext context, RangeReader channel, ServletOutputStream output,
+                 long offset, long count, BandwidthScheduler.Flow flow) {
+            this.context = context;
+            this.channel = channel;
+            this.output = output;
+            this.flow = flow;
+            this.position = offset;
+            this.remaining = count;
+        }
+
+        @Override
+        public void onWritePossible() {
+            pump();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            fail(t);
+        }
+
+        @Override
+        public void completed(Integer read, Void attachment) {
+            if (read < 0) {
+                fail(new EOFException("File truncated during download"));
+                return;
+            }
+            blockedSince = 0;
+            buffer.flip();
+            position += read;
+            remaining -= read;
+            filled = true;
+            reading = false;
+            pump();
+        }
+
+        @Override
+        public void failed(Throwable t, Void attachment) {
+            reading = false;
+            fail(t);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            // 正常结束时 done 已置位；否则是连接被容器关闭
+            fail(new EOFException("Connection closed"));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            fail(new TimeoutException("Download timed out"));
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            fail(event.getThrowable());
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void fail(Throwable t) {
+            if (failure == null) {
+                failure = t != null ? t : new IOException("Download aborted");
+            }
+            pump();
+        }
+
+        private void pump() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * 写出已读到的数据并预读下一块；读取未完成、套接字不可写或带宽额度不足时返回，由对应回调再次进入
+         */
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (failure != null) {
+                finish(failure);
+                return;
+            }
+            try {
+                while (true) {
+                    if (reading) {
+                        return;
+                    }
+                    if (!filled) {
+                        if (remaining == 0) {
+                            // 最后一块写完后等到可写，确保数据已交给套接字再结束
+                            if (output.isReady()) {
+                                finish(null);
+                            } else {
+                                markBlocked();
+                            }
+                            return;
+                        }
+                        buffer.clear();
+                        buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                        reading = true;
+                        // 本地读取很快完成；转发其他节点的响应体时对方停止发送也按停滞处理
+                        markBlocked();
+                        channel.read(buffer, position, this);
+                        return;
+                    }
+                    if (!output.isReady()) {
+                        markBlocked();
+                        return;
+                    }
+                    blockedSince = 0;
+                    if (allowance == 0) {
+                        allowance = flow.acquire(buffer.remaining(), this::pump);
+                        if (allowance == 0) {
+                            return;
+                        }
+                    }
+                    int length = Math.min(allowance, buffer.remaining());
+                    output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+                    allowance -= length;
+                    bytesSent.addAndGet(length);
+                    filled = buffer.hasRemaining();
+                }
+            } catch (IOException | RuntimeException e) {
+                finish(e);
+            }
+        }
+
+        private void markBlocked() {
+            if (blockedSince == 0) {
+                blockedSince = System.currentTimeMillis();
+            }
+        }
+
+        private void finish(Throwable error) {
+            done = true;
+            blockedSince = 0;
+            transfers.remove(this);
+            active.decrementAndGet();
+            flow.close();
+            if (error == null) {
+                completed.incrementAndGet();
+            } else {
+                aborted.incrementAndGet();
+                log.debug("Download aborted: {}", error.toString());
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            try {
+                context.complete();
+            } catch (IllegalStateException ignored) {
+                // 容器已结束该请求
+            }
+        }
+    }
+}
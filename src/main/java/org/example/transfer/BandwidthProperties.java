@@ -0,0 +1,84 @@
+package org.example.transfer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文件传输带宽调度配置，速率为 0 表示该级不限速
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.bandwidth")
+public class BandwidthProperties {
+
+    /**
+     * 是否启用带宽调度，关闭时上传下载不经过调度器
+     */
+    private boolean enabled = false;
+
+    /**
+     * 所有传输合计
+     */
+    private DataSize globalPerSecond = DataSize.ofBytes(0);
+
+    /**
+     * 单个客户端（设备ID或IP）
+     */
+    private DataSize clientPerSecond = DataSize.ofBytes(0);
+
+    private DataSize downloadPerSecond = DataSize.ofBytes(0);
+
+    private DataSize uploadPerSecond = DataSize.ofBytes(0);
+
+    /**
+     * 各级令牌桶可积攒的额度，按速率折算成时间
+     */
+    private long burstMillis = 200;
+
+    /**
+     * 差额轮询每轮给每个传输增加的额度
+     */
+    private DataSize quantum = DataSize.ofKilobytes(16);
+
+    /**
+     * 有传输排队时的调度间隔
+     */
+    private long tickMillis = 5;
+
+    /**
+     * 优先级规则，按声明顺序匹配，未命中为 NORMAL
+     */
+    private List<PriorityRule> priorityRules = new ArrayList<>();
+
+    @Data
+    public static class PriorityRule {
+        private TransferEndpoint endpoint;
+
+        /**
+         * 下载文件相对上传目录的路径前缀
+         */
+        private String pathPrefix;
+
+        /**
+         * 上传时的 category 参数
+         */
+        private String category;
+
+        private TransferPriority priority = TransferPriority.NORMAL;
+
+        boolean matches(TransferEndpoint endpoint, String path, String category) {
+            if (this.endpoint != null && this.endpoint != endpoint) {
+                return false;
+            }
+            if (pathPrefix != null && (path == null || !path.startsWith(pathPrefix))) {
+                return false;
+            }
+            return this.category == null || this.category.equals(category);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package org.example.transfer;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.ratelimit.RateLimitFilter;
+import org.example.ratelimit.RateLimitProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 文件传输带宽调度
+ * 全局、按接口、按客户端三级字节令牌桶同时生效。额度充足且同级及更高优先级没有在争抢全局额度的排队者时直接放行；
+ * 否则进入对应优先级的队列，由调度线程按优先级从高到低、同级按差额轮询（DRR）分配，
+ * 全局额度用尽时低优先级继续等待；只被自身客户端或接口限速卡住的传输仍在队列中，但不阻挡其他传输直接放行
+ */
+@Component
+public class BandwidthScheduler {
+
+    private final boolean enabled;
+    private final boolean trustDeviceId;
+    private final boolean trustForwardedFor;
+    private final long quantum;
+    private final long maxGrant;
+    private final long tickNanos;
+    private final long burstNanos;
+    private final long clientPerSecond;
+    private final List<BandwidthProperties.PriorityRule> priorityRules;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBudget global;
+    private final Map<TransferEndpoint, ByteBudget> endpoints = new EnumMap<>(TransferEndpoint.class);
+    private final Map<String, ClientBudget> clients = new HashMap<>();
+    private final List<ArrayDeque<Flow>> waiting = new ArrayList<>();
+    private final int[] contending = new int[TransferPriority.values().length];
+    private final long[] grantedBytes = new long[TransferPriority.values().length];
+    private final ScheduledExecutorService timer;
+    private boolean dispatchScheduled;
+
+    private final Flow unlimited = new Flow(TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL, null);
+
+    public BandwidthScheduler(BandwidthProperties properties, TransferProperties transferProperties,
+                              RateLimitProperties rateLimitProperties) {
+        this.enabled = properties.isEnabled();
+        this.trustDeviceId = rateLimitProperties.isTrustDeviceId();
+        this.trustForwardedFor = rateLimitProperties.isTrustForwardedFor();
+        this.quantum = Math.max(1, properties.getQuantum().toBytes());
+        this.maxGrant = Math.max(quantum, transferProperties.getBufferSize().toBytes());
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getTickMillis()));
+        this.burstNanos = TimeUnit.MILLISECONDS.toNanos(properties.getBurstMillis());
+        this.clientPerSecond = properties.getClientPerSecond().toBytes();
+        this.priorityRules = List.copyOf(properties.getPriorityRules());
+
+        long now = System.nanoTime();
+        this.global = budget(properties.getGlobalPerSecond().toBytes(), now);
+        endpoints.put(TransferEndpoint.DOWNLOAD, budget(properties.getDownloadPerSecond().toBytes(), now));
+        endpoints.put(TransferEndpoint.UPLOAD, budget(properties.getUploadPerSecond().toBytes(), now));
+        for (int i = 0; i < TransferPriority.values().length; i++) {
+            waiting.add(new ArrayDeque<>());
+        }
+
+        if (enabled) {
+            this.timer = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("bandwidth-scheduler").daemon(true).factory());
+            timer.scheduleAtFixedRate(this::sweepClients, 1, 1, TimeUnit.SECONDS);
+        } else {
+            this.timer = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * 为一次上传或下载登记传输，按路径、category 匹配优先级
+     */
+    public Flow open(HttpServletRequest request, TransferEndpoint endpoint, String path, String category) {
+        if (!enabled) {
+            return unlimited;
+        }
+        return open(RateLimitFilter.clientKey(request, trustDeviceId, trustForwardedFor), endpoint,
+                priorityOf(endpoint, path, category));
+    }
+
+    public Flow open(String client, TransferEndpoint endpoint, TransferPriority priority) {
+        if (!enabled) {
+            return unlimited;
+        }
+        lock.lock();
+        try {
+            ClientBudget clientBudget = clients.computeIfAbsent(client,
+                    key -> new ClientBudget(budget(clientPerSecond, System.nanoTime())));
+            clientBudget.flows++;
+            return new Flow(endpoint, priority, clientBudget);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public TransferPriority priorityOf(TransferEndpoint endpoint, String path, String category) {
+        for (BandwidthProperties.PriorityRule rule : priorityRules) {
+            if (rule.matches(endpoint, path, category)) {
+                return rule.getPriority();
+            }
+        }
+        return TransferPriority.NORMAL;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getGrantedBytes(TransferPriority priority) {
+        lock.lock();
+        try {
+            return grantedBytes[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaitingCount() {
+        lock.lock();
+        try {
+            return waiting.stream().mapToInt(ArrayDeque::size).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int acquire(Flow flow, int bytes, Runnable onReady) {
+        if (flow.clientBudget == null || bytes <= 0) {
+            return bytes;
+        }
+        int wanted = (int) Math.min(bytes, maxGrant);
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (flow.closed) {
+                return wanted;
+            }
+            if (flow.credit > 0) {
+                int granted = (int) Math.min(flow.credit, wanted);
+                flow.credit -= granted;
+                return granted;
+            }
+            if (!flow.queued && !hasWaiting(flow.priority) && available(flow, now) >= wanted) {
+                consume(flow, wanted);
+                return wanted;
+            }
+            flow.requested = wanted;
+            flow.onReady = onReady;
+            if (!flow.queued) {
+                flow.queued = true;
+                flow.capped = false;
+                contending[flow.priority.ordinal()]++;
+                waiting.get(flow.priority.ordinal()).addLast(flow);
+            }
+            scheduleDispatch();
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void close(Flow flow) {
+        if (flow.clientBudget == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (flow.closed) {
+                return;
+            }
+            flow.closed = true;
+            if (flow.queued) {
+                waiting.get(flow.priority.ordinal()).remove(flow);
+                dequeue(flow);
+            }
+            flow.clientBudget.flows--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按优先级分配额度；回调在锁外执行，回调中再次申请即可取走已分配的额度
+     */
+    private void dispatch() {
+        List<Runnable> ready = new ArrayList<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            dispatchScheduled = false;
+            boolean globalExhausted = false;
+            for (TransferPriority priority : TransferPriority.values()) {
+                ArrayDeque<Flow> queue = waiting.get(priority.ordinal());
+                boolean progress = true;
+                while (progress && !globalExhausted && !queue.isEmpty()) {
+                    progress = false;
+                    for (int i = queue.size(); i > 0; i--) {
+                        Flow flow = queue.pollFirst();
+                        long chunk = flow.requested;
+                        if (flow.deficit < chunk) {
+                            flow.deficit += quantum;
+                            progress = true;
+                        }
+                        if (flow.deficit < chunk) {
+                            queue.addLast(flow);
+                            continue;
+                        }
+                        if (ownAvailable(flow, now) < chunk) {
+                            // 只被自身客户端或接口限速卡住，让同级其他传输先走
+                            markCapped(flow, true);
+                            flow.deficit = chunk;
+                            queue.addLast(flow);
+                            continue;
+                        }
+                        markCapped(flow, false);
+                        if (global.available(now) < chunk) {
+                            queue.addFirst(flow);
+                            globalExhausted = true;
+                            break;
+                        }
+                        consume(flow, chunk);
+                        flow.credit += chunk;
+                        flow.deficit = 0;
+                        dequeue(flow);
+                        ready.add(flow.onReady);
+                        flow.onReady = null;
+                        progress = true;
+                    }
+                }
+            }
+            if (waiting.stream().anyMatch(queue -> !queue.isEmpty())) {
+                scheduleDispatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Runnable callback : ready) {
+            callback.run();
+        }
+    }
+
+    private void scheduleDispatch() {
+        if (!dispatchScheduled) {
+            dispatchScheduled = true;
+            timer.schedule(this::dispatch, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void sweepClients() {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            clients.values().removeIf(client -> client.flows == 0 && client.budget.isFull(now));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 同级及更高优先级是否有在争抢全局额度的排队者
+     */
+    private boolean hasWaiting(TransferPriority priority) {
+        for (int i = 0; i <= priority.ordinal(); i++) {
+            if (contending[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void markCapped(Flow flow, boolean capped) {
+        if (flow.capped != capped) {
+            flow.capped = capped;
+            contending[flow.priority.ordinal()] += capped ? -1 : 1;
+        }
+    }
+
+    private void dequeue(Flow flow) {
+        if (!flow.capped) {
+            contending[flow.priority.ordinal()]--;
+        }
+        flow.queued = false;
+        flow.capped = false;
+    }
+
+    private long available(Flow flow, long now) {
+        return Math.min(global.available(now), ownAvailable(flow, now));
+    }
+
+    private long ownAvailable(Flow flow, long now) {
+        return Math.min(endpoints.get(flow.endpoint).available(now), flow.clientBudget.budget.available(now));
+    }
+
+    private void consume(Flow flow, long bytes) {
+        global.consume(bytes);
+        endpoints.get(flow.endpoint).consume(bytes);
+        flow.clientBudget.budget.consume(bytes);
+        grantedBytes[flow.priority.ordinal()] += bytes;
+    }
+
+    private ByteBudget budget(long bytesPerSecond, long now) {
+        return new ByteBudget(bytesPerSecond, Math.max(maxGrant, (long) (bytesPerSecond * (burstNanos / 1e9))), now);
+    }
+
+    /**
+     * 一次传输的带宽申请句柄，传输结束时关闭
+     */
+    public final class Flow implements AutoCloseable {
+
+        private final TransferEndpoint endpoint;
+        private final TransferPriority priority;
+        private final ClientBudget clientBudget;
+
+        private long credit;
+        private long deficit;
+        private long requested;
+        private Runnable onReady;
+        private boolean queued;
+        private boolean capped;
+        private boolean closed;
+
+        private Flow(TransferEndpoint endpoint, TransferPriority priority, ClientBudget clientBudget) {
+            this.endpoint = endpoint;
+            this.priority = priority;
+            this.clientBudget = clientBudget;
+        }
+
+        /**
+         * 非阻塞申请最多 bytes 字节，返回立即可用的字节数；返回 0 时在分到额度后回调 onReady，回调里再次申请
+         */
+        public int acquire(int bytes, Runnable onReady) {
+            return BandwidthScheduler.this.acquire(this, bytes, onReady);
+        }
+
+        /**
+         * 阻塞申请，用于上传写盘循环
+         */
+        public int acquire(int bytes) throws InterruptedException {
+            while (true) {
+                CountDownLatch ready = new CountDownLatch(1);
+                int granted = acquire(bytes, ready::countDown);
+                if (granted > 0) {
+                    return granted;
+                }
+                ready.await();
+            }
+        }
+
+        public TransferPriority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public void close() {
+            BandwidthScheduler.this.close(this);
+        }
+    }
+
+    private static final class ClientBudget {
+        private final ByteBudget budget;
+        private int flows;
+
+        ClientBudget(ByteBudget budget) {
+            this.budget = budget;
+        }
+    }
+
+    /**
+     * 调度器锁内使用的字节令牌桶，速率为 0 表示不限
+     */
+    private static final class ByteBudget {
+        private final double bytesPerNano;
+        private final double burst;
+        private double tokens;
+        private long updated;
+
+        ByteBudget(long bytesPerSecond, long burst, long now) {
+            this.bytesPerNano = bytesPerSecond / 1e9;
+            this.burst = burst;
+            this.tokens = burst;
+            this.updated = now;
+        }
+
+        long available(long now) {
+            if (bytesPerNano <= 0) {
+                return Long.MAX_VALUE;
+            }
+            if (now > updated) {
+                tokens = Math.min(burst, tokens + (now - updated) * bytesPerNano);
+                updated = now;
+            }
+            return (long) tokens;
+        }
+
+        void consume(long bytes) {
+            if (bytesPerNano > 0) {
+                tokens -= bytes;
+            }
+        }
+
+        boolean isFull(long now) {
+            return available(now) >= (long) burst;
+        }
+    }
+}
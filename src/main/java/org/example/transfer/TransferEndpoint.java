@@ -0,0 +1,17 @@
+package org.example.transfer;
+
+/**
+ * 参与带宽调度的传输接口
+ */
+public enum TransferEndpoint {
+
+    /**
+     * 文件下载
+     */
+    DOWNLOAD,
+
+    /**
+     * 文件上传（写盘）
+     */
+    UPLOAD
+}
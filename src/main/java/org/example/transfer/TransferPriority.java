@@ -0,0 +1,19 @@
+package org.example.transfer;
+
+/**
+ * 传输优先级，带宽不足时高优先级先分配，同级之间按差额轮询均分
+ */
+public enum TransferPriority {
+
+    /**
+     * 如固件下载
+     */
+    HIGH,
+
+    NORMAL,
+
+    /**
+     * 如日志包上传
+     */
+    LOW
+}
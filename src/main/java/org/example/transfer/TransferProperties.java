@@ -0,0 +1,30 @@
+package org.example.transfer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 文件传输配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "harmony.transfer")
+public class TransferProperties {
+
+    /**
+     * 每个下载连接的读缓冲大小，也是单次写出的最大字节数
+     */
+    private DataSize bufferSize = DataSize.ofKilobytes(64);
+
+    /**
+     * 异步读文件的线程数，所有下载共用
+     */
+    private int ioThreads = 4;
+
+    /**
+     * 套接字持续不可写超过该时间的下载被中止并释放连接，小于等于 0 表示不限
+     */
+    private long writeTimeoutMillis = 60_000;
+}
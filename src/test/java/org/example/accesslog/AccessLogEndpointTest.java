@@ -0,0 +1,89 @@
+package org.example.accesslog;
+
+import org.example.controller.DataController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 执行通道和非阻塞下载在异步结束时写访问记录，/api/access-log/summary 从文件解码汇总
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "harmony.rate-limit.enabled=false")
+@DisplayName("/api/access-log 访问日志测试")
+class AccessLogEndpointTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private final Path file = Paths.get("uploads", "access-log-test.bin");
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("汇总 - 按设备统计请求数和下行字节")
+    @SuppressWarnings("unchecked")
+    void testSummary_ByDevice() throws Exception {
+        String deviceId = "device-access-" + System.nanoTime();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Device-Id", deviceId);
+
+        DataController.HeartbeatRequest heartbeat = new DataController.HeartbeatRequest();
+        heartbeat.setDeviceId(deviceId);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HttpStatus.OK, restTemplate.exchange("/api/data/heartbeat", HttpMethod.POST,
+                    new HttpEntity<>(heartbeat, headers), Map.class).getStatusCode());
+        }
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[8192]);
+        assertEquals(HttpStatus.OK, restTemplate.exchange("/api/file/download/access-log-test.bin?deviceId=" + deviceId,
+                HttpMethod.GET, null, byte[].class).getStatusCode());
+
+        ResponseEntity<Map> response = restTemplate.getForEntity(
+                "/api/access-log/summary?groupBy=route&deviceId=" + deviceId, Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) response.getBody().get("rows");
+        Map<String, Object> heartbeats = rows.stream()
+                .filter(r -> "POST /api/data/heartbeat".equals(r.get("key"))).findFirst().orElseThrow();
+        assertEquals(3, ((Number) heartbeats.get("count")).intValue());
+        Map<String, Object> downloads = rows.stream()
+                .filter(r -> "GET /api/file/download/{filename}".equals(r.get("key"))).findFirst().orElseThrow();
+        assertEquals(1, ((Number) downloads.get("count")).intValue());
+        assertEquals(8192, ((Number) downloads.get("bytesOut")).longValue());
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity("/api/access-log/summary?groupBy=unknown", Map.class).getStatusCode());
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.accesslog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AccessLog 环形缓冲与文件格式测试")
+class AccessLogTest {
+
+    @TempDir
+    Path dir;
+
+    private AccessLog accessLog;
+
+    @AfterEach
+    void tearDown() {
+        if (accessLog != null) {
+            accessLog.shutdown();
+        }
+    }
+
+    private AccessLog create(int bufferSize, long flushIntervalMillis, DataSize maxFileSize, int maxFiles) {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setDir(dir.toString());
+        properties.setBufferSize(bufferSize);
+        properties.setFlushIntervalMillis(flushIntervalMillis);
+        properties.setMaxFileSize(maxFileSize);
+        properties.setMaxFiles(maxFiles);
+        accessLog = new AccessLog(properties);
+        return accessLog;
+    }
+
+    private List<AccessRecord> readAll() throws IOException {
+        List<AccessRecord> records = new ArrayList<>();
+        for (Path file : AccessLogReader.files(dir)) {
+            AccessLogReader.read(file, records::add);
+        }
+        return records;
+    }
+
+    @Test
+    @DisplayName("写入与解码 - 字段和重复字符串原样还原")
+    void testRoundTrip() throws Exception {
+        AccessLog log = create(1024, 50, DataSize.ofMegabytes(1), 4);
+        long now = 1_700_000_000_000L;
+        for (int i = 0; i < 100; i++) {
+            assertTrue(log.record(now + i * 7L, "GET", "/api/file/download/{filename}", "/api/file/download/f" + (i % 3),
+                    i % 10 == 0 ? 500 : 200, 0, 4096L * i, 1500 + i, i % 2 == 0 ? "device-a" : null));
+        }
+        assertTrue(log.record(now - 1000, "POST", null, "/api/路径", 404, 12, 0, 0, "设备"));
+        log.flush();
+
+        List<AccessRecord> records = readAll();
+        assertEquals(101, records.size());
+        assertEquals(new AccessRecord(now + 7 * 42, "GET", "/api/file/download/{filename}", "/api/file/download/f0",
+                200, 0, 4096L * 42, 1542, "device-a"), records.get(42));
+        assertEquals(new AccessRecord(now - 1000, "POST", null, "/api/路径", 404, 12, 0, 0, "设备"), records.get(100));
+        assertEquals(101, log.getWrittenCount());
+
+        List<AccessSummary> summary = AccessLogReader.summarize(AccessLogReader.files(dir), r -> true,
+                AccessLogGroup.ROUTE);
+        assertEquals("GET /api/file/download/{filename}", summary.get(0).key());
+        assertEquals(100, summary.get(0).count());
+        assertEquals(10, summary.get(0).errors());
+    }
+
+    @Test
+    @DisplayName("缓冲区满 - 丢弃并计数，不等待写盘")
+    void testBufferFull_Drops() {
+        AccessLog log = create(8, 60_000, DataSize.ofMegabytes(1), 4);
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (log.record(i, "GET", "/api/file/list", "/api/file/list", 200, 0, 0, 10, null)) {
+                accepted++;
+            }
+        }
+        assertEquals(8, accepted);
+        assertEquals(12, log.getDroppedCount());
+        assertEquals(8, log.getPendingCount());
+
+        log.flush();
+        assertEquals(0, log.getPendingCount());
+        assertTrue(log.record(21, "GET", "/api/file/list", "/api/file/list", 200, 0, 0, 10, null));
+    }
+
+    @Test
+    @DisplayName("文件滚动 - 超过大小换文件，只保留最近的文件")
+    void testRolling_Retention() throws Exception {
+        AccessLog log = create(1024, 60_000, DataSize.ofBytes(256), 3);
+        for (int round = 0; round < 6; round++) {
+            for (int i = 0; i < 20; i++) {
+                log.record(round * 100L + i, "GET", "/api/file/list", "/api/file/list?round=" + round, 200, 0, 0, 10,
+                        "device-" + i);
+            }
+            log.flush();
+        }
+
+        List<Path> files = AccessLogReader.files(dir);
+        assertEquals(3, files.size());
+        assertEquals("access-00000003.hacl", files.get(0).getFileName().toString());
+        assertEquals(60, readAll().size());
+    }
+
+    @Test
+    @DisplayName("不完整的末尾记录 - 忽略，之前的记录照常解码")
+    void testTruncatedTail_Ignored() throws Exception {
+        AccessLog log = create(1024, 60_000, DataSize.ofMegabytes(1), 4);
+        for (int i = 0; i < 5; i++) {
+            log.record(i, "GET", "/api/file/list", "/api/file/list", 200, 0, 0, 10, "device-tail-" + i);
+        }
+        log.flush();
+        log.shutdown();
+
+        Path file = AccessLogReader.files(dir).get(0);
+        long size = Files.size(file);
+        try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        assertEquals(4, readAll().size());
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.changes;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上传、删除和直接写入上传目录都出现在 /api/file/changes 中，无变更时请求挂起到有变更为止
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "harmony.storage.dir=target/changes-test-uploads",
+        "harmony.changes.settle-millis=50",
+        "harmony.changes.max-settle-millis=300",
+        "harmony.rate-limit.enabled=false"
+})
+@DisplayName("增量变更接口测试")
+class ChangeFeedEndpointTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    private static final Path UPLOADS = Paths.get("target/changes-test-uploads");
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ChangeJournal journal;
+
+    @Autowired
+    private UploadsWatcher watcher;
+
+    @Test
+    @DisplayName("上传和删除 - 从游标开始依次返回 created、deleted")
+    void testUploadAndDeleteAppearInFeed() {
+        String cursor = (String) changes(null, 0).get("cursor");
+        String name = "feed-" + System.nanoTime() + ".txt";
+
+        assertEquals(HttpStatus.OK, upload(name, "hello").getStatusCode());
+        assertEquals(HttpStatus.OK,
+                restTemplate.postForEntity("/api/file/delete/" + name, null, Map.class).getStatusCode());
+
+        List<Map<String, Object>> events = collect(cursor, name, 2);
+        assertEquals("CREATED", events.get(0).get("type"));
+        assertEquals(5, ((Number) events.get(0).get("size")).intValue());
+        assertEquals("DELETED", events.get(1).get("type"));
+    }
+
+    @Test
+    @DisplayName("长轮询 - 无变更时挂起，上传后立即返回")
+    void testLongPollReturnsOnChange() throws Exception {
+        String cursor = (String) changes(null, 0).get("cursor");
+        String name = "poll-" + System.nanoTime() + ".txt";
+
+        long start = System.nanoTime();
+        CompletableFuture<Map<String, Object>> pending = CompletableFuture.supplyAsync(() -> changes(cursor, 20_000));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.getWaiterCount() == 0 && !pending.isDone() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        upload(name, "payload");
+
+        Map<String, Object> body = pending.get(10, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 10_000);
+        List<Map<String, Object>> events = (List<Map<String, Object>>) body.get("changes");
+        assertTrue(events.stream().anyMatch(e -> name.equals(e.get("path"))), body.toString());
+    }
+
+    @Test
+    @DisplayName("长轮询超时 - 返回空列表和原游标")
+    void testLongPollTimesOut() {
+        String cursor = journal.cursor();
+        Map<String, Object> body = changes(cursor, 200);
+        // 其他测试的监听事件可能在此期间到达，只检查没有变更时游标不变
+        if (((List<?>) body.get("changes")).isEmpty()) {
+            assertEquals(cursor, body.get("cursor"));
+        }
+        assertEquals(false, body.get("reset"));
+    }
+
+    @Test
+    @DisplayName("目录监听 - 绕过接口直接写入的文件和目录也被记录")
+    void testWatcherRecordsDirectWrites() throws Exception {
+        assertTrue(watcher.isWatching());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (watcher.getWatchedDirectoryCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        String cursor = journal.cursor();
+        String dir = "direct-" + System.nanoTime();
+        Files.createDirectories(UPLOADS.resolve(dir));
+        Files.writeString(UPLOADS.resolve(dir).resolve("a.txt"), "direct write");
+
+        List<Map<String, Object>> events = collect(cursor, dir + "/a.txt", 1);
+        assertEquals("CREATED", events.get(0).get("type"));
+        assertEquals(12, ((Number) events.get(0).get("size")).intValue());
+
+        String afterCreate = journal.cursor();
+        Files.delete(UPLOADS.resolve(dir).resolve("a.txt"));
+        assertEquals("DELETED", collect(afterCreate, dir + "/a.txt", 1).get(0).get("type"));
+    }
+
+    @Test
+    @DisplayName("目录监听 - 持续写入的文件在收集上限到达时记录，不等写入停止")
+    void testWatcherBatchIsCapped() throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (watcher.getWatchedDirectoryCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        String cursor = journal.cursor();
+        String name = "busy-" + System.nanoTime() + ".log";
+        AtomicBoolean writing = new AtomicBoolean(true);
+        // 写入间隔远小于静默时间，没有上限时这批事件一直不会处理
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                while (writing.get()) {
+                    Files.writeString(UPLOADS.resolve(name), "x", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    Thread.sleep(10);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            long start = System.nanoTime();
+            assertEquals("CREATED", collect(cursor, name, 1).get(0).get("type"));
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(elapsed < 5000, "change recorded after " + elapsed + " ms");
+            assertFalse(writer.isDone(), "writer stopped before the change was recorded");
+        } finally {
+            writing.set(false);
+            writer.get(5, TimeUnit.SECONDS);
+            Files.deleteIfExists(UPLOADS.resolve(name));
+        }
+    }
+
+    @Test
+    @DisplayName("无效游标 - 400；过期游标 - reset")
+    void testInvalidCursor() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity("/api/file/changes?since=garbage", Map.class).getStatusCode());
+        Map<String, Object> body = changes("zz-1", 0);
+        assertEquals(true, body.get("reset"));
+        assertEquals(journal.cursor(), body.get("cursor"));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private Map<String, Object> changes(String since, long wait) {
+        String url = "/api/file/changes?wait=" + wait + (since != null ? "&since=" + since : "");
+        ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    /**
+     * 从 cursor 开始长轮询，直到收到 path 的 count 条变更
+     */
+    private List<Map<String, Object>> collect(String cursor, String path, int count) {
+        List<Map<String, Object>> matched = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (matched.size() < count && System.currentTimeMillis() < deadline) {
+            Map<String, Object> body = changes(cursor, 1000);
+            assertEquals(false, body.get("reset"));
+            for (Map<String, Object> event : (List<Map<String, Object>>) body.get("changes")) {
+                if (path.equals(event.get("path"))) {
+                    matched.add(event);
+                }
+            }
+            cursor = (String) body.get("cursor");
+        }
+        assertEquals(count, matched.size(), "changes for " + path + ": " + matched);
+        return matched;
+    }
+
+    private ResponseEntity<Map> upload(String name, String content) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource(content.getBytes()) {
+            @Override
+            public String getFilename() {
+                return name;
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return restTemplate.postForEntity("/api/file/upload", new HttpEntity<>(body, headers), Map.class);
+    }
+}
@@ -0,0 +1,178 @@
+package org.example.changes;
+
+import org.example.storage.StoredObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("变更日志测试")
+class ChangeJournalTest {
+
+    private static ChangeJournal journal(int bufferSize) {
+        ChangeProperties properties = new ChangeProperties();
+        properties.setBufferSize(bufferSize);
+        properties.setMaxBatch(100);
+        return new ChangeJournal(properties);
+    }
+
+    private static StoredObject file(String key, long size, long lastModified) {
+        return new StoredObject(key, false, size, lastModified);
+    }
+
+    @Test
+    @DisplayName("按序号返回游标之后的变更")
+    void testSequencedChanges() {
+        ChangeJournal journal = journal(16);
+        String start = journal.read(null, 100).cursor();
+
+        journal.record(ChangeType.CREATED, file("a.txt", 1, 100));
+        journal.record(ChangeType.CREATED, file("b.txt", 2, 100));
+        journal.recordDelete("a.txt", false);
+
+        ChangeBatch batch = journal.read(start, 100);
+        assertFalse(batch.reset());
+        assertFalse(batch.more());
+        assertEquals(List.of(1L, 2L, 3L), batch.changes().stream().map(ChangeEvent::seq).toList());
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.CREATED, ChangeType.DELETED),
+                batch.changes().stream().map(ChangeEvent::type).toList());
+        assertEquals(journal.cursor(), batch.cursor());
+        assertTrue(journal.read(batch.cursor(), 100).changes().isEmpty());
+
+        ChangeBatch first = journal.read(start, 2);
+        assertTrue(first.more());
+        assertEquals(2, first.changes().size());
+        assertEquals("a.txt", journal.read(first.cursor(), 2).changes().get(0).path());
+    }
+
+    @Test
+    @DisplayName("监听方只收到去重后的变更")
+    void testListenersReceiveRecordedChanges() {
+        ChangeJournal journal = journal(16);
+        List<ChangeEvent> received = new ArrayList<>();
+        journal.addListener(received::add);
+
+        journal.record(ChangeType.CREATED, file("a.txt", 10, 100));
+        journal.record(ChangeType.CREATED, file("a.txt", 10, 100));
+        journal.recordDelete("a.txt", false);
+        journal.recordDelete("a.txt", false);
+
+        assertEquals(List.of(1L, 2L), received.stream().map(ChangeEvent::seq).toList());
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.DELETED),
+                received.stream().map(ChangeEvent::type).toList());
+    }
+
+    @Test
+    @DisplayName("并发记录 - 监听方按序号顺序收到全部变更")
+    void testListenersReceiveChangesInOrder() throws Exception {
+        ChangeJournal journal = journal(1024);
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        journal.addListener(event -> received.add(event.seq()));
+
+        int threads = 4;
+        int perThread = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.record(ChangeType.CREATED, file("t" + id + "-" + i, i, i));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+            journal.shutdown();
+        }
+
+        assertEquals(threads * perThread, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i + 1L, received.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("同一状态重复报告只记录一次，属性变化记为覆盖，删除后再写记为创建")
+    void testDeduplicatesRepeatedReports() {
+        ChangeJournal journal = journal(16);
+        String start = journal.cursor();
+
+        journal.record(ChangeType.CREATED, file("a.txt", 10, 100));
+        journal.record(ChangeType.CREATED, file("a.txt", 10, 100));
+        journal.record(ChangeType.CREATED, file("a.txt", 20, 200));
+        journal.recordDelete("a.txt", false);
+        journal.recordDelete("a.txt", false);
+        journal.record(ChangeType.UPDATED, file("a.txt", 5, 300));
+        journal.record(ChangeType.CREATED, new StoredObject("dir", true, 4096, 100));
+        journal.record(ChangeType.UPDATED, new StoredObject("dir", true, 4096, 500));
+
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.DELETED, ChangeType.CREATED,
+                        ChangeType.CREATED),
+                journal.read(start, 100).changes().stream().map(ChangeEvent::type).toList());
+    }
+
+    @Test
+    @DisplayName("游标失效 - 其他启动标识、已被覆盖、监听溢出时返回 reset")
+    void testReset() {
+        ChangeJournal journal = journal(4);
+        String start = journal.cursor();
+        for (int i = 0; i < 10; i++) {
+            journal.record(ChangeType.CREATED, file("f" + i, i, i));
+        }
+        assertTrue(journal.read(start, 100).reset());
+        assertTrue(journal.read("0-0", 100).reset());
+        assertThrows(IllegalArgumentException.class, () -> journal.read("garbage", 100));
+
+        String recent = journal.cursor();
+        assertFalse(journal.read(recent, 100).reset());
+        journal.invalidate();
+        ChangeBatch batch = journal.read(recent, 100);
+        assertTrue(batch.reset());
+        assertFalse(journal.read(batch.cursor(), 100).reset());
+    }
+
+    @Test
+    @DisplayName("长轮询 - 无变更时挂起，记录变更后由推送线程完成")
+    void testPollWakesOnChange() throws Exception {
+        ChangeJournal journal = journal(16);
+        String cursor = journal.cursor();
+
+        AtomicReference<String> wakingThread = new AtomicReference<>();
+        DeferredResult<ChangeBatch> pending = journal.poll(cursor, 100, 10_000, batch -> {
+            wakingThread.set(Thread.currentThread().getName());
+            return batch;
+        });
+        assertFalse(pending.hasResult());
+        assertEquals(1, journal.getWaiterCount());
+
+        journal.record(ChangeType.CREATED, file("new.bin", 1, 1));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!pending.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(pending.hasResult());
+        assertEquals("change-dispatch", wakingThread.get());
+        ChangeBatch batch = (ChangeBatch) pending.getResult();
+        assertEquals("new.bin", batch.changes().get(0).path());
+        assertEquals(0, journal.getWaiterCount());
+
+        DeferredResult<ChangeBatch> immediate = journal.poll(cursor, 100, 10_000, b -> b);
+        assertTrue(immediate.hasResult());
+        journal.shutdown();
+    }
+}
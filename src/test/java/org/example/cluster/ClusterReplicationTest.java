@@ -0,0 +1,443 @@
+package org.example.cluster;
+
+import org.example.App;
+import org.example.storage.RangeInputStream;
+import org.example.storage.StorageBackend;
+import org.example.storage.StorageWriter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 同一 JVM 内在不同端口启动三个节点，每个节点使用独立的内存存储和数据目录，
+ * 经由真实 HTTP 验证复制、移交、跨节点下载、删除传播和重平衡
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("多节点复制测试")
+class ClusterReplicationTest {
+
+    private static final List<String> IDS = List.of("n1", "n2", "n3");
+    private static final String BOUNDARY = "----harmony-cluster-boundary";
+    private static final String SECRET = "cluster-test-secret";
+
+    @TempDir
+    static Path dataDir;
+
+    private final Map<String, ConfigurableApplicationContext> nodes = new LinkedHashMap<>();
+    private final Map<String, URI> urls = new LinkedHashMap<>();
+    private final HashRing ring = new HashRing(IDS, 128);
+    private final ExecutorService reader = Executors.newSingleThreadExecutor();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    @BeforeAll
+    void startNodes() throws IOException {
+        for (String id : IDS) {
+            urls.put(id, URI.create("http://localhost:" + freePort()));
+        }
+        List<String> peers = new ArrayList<>();
+        for (int i = 0; i < IDS.size(); i++) {
+            peers.add("--harmony.cluster.peers[" + i + "].id=" + IDS.get(i));
+            peers.add("--harmony.cluster.peers[" + i + "].url=" + urls.get(IDS.get(i)));
+        }
+        for (String id : IDS) {
+            List<String> args = new ArrayList<>(peers);
+            args.addAll(List.of(
+                    "--server.port=" + urls.get(id).getPort(),
+                    "--harmony.storage.type=memory",
+                    "--harmony.columnar.dir=" + dataDir.resolve(id).resolve("reports"),
+                    "--harmony.access-log.dir=" + dataDir.resolve(id).resolve("access-log"),
+                    "--harmony.cluster.metadata-dir=" + dataDir.resolve(id).resolve("cluster"),
+                    "--harmony.rate-limit.enabled=false",
+                    "--harmony.cluster.enabled=true",
+                    "--harmony.cluster.node-id=" + id,
+                    "--harmony.cluster.replicas=2",
+                    "--harmony.cluster.secret=" + SECRET,
+                    // n3 代理下载，其余节点重定向
+                    "--harmony.cluster.download-mode=" + (id.equals("n3") ? "proxy" : "redirect"),
+                    "--harmony.cluster.rebalance-initial-delay-millis=-1",
+                    "--harmony.cluster.rebalance-interval-millis=0",
+                    "--logging.level.org.example=WARN"));
+            nodes.put(id, new SpringApplicationBuilder(App.class).run(args.toArray(String[]::new)));
+        }
+    }
+
+    @AfterAll
+    void stopNodes() {
+        nodes.values().forEach(ConfigurableApplicationContext::close);
+        reader.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("上传到非副本节点 - 复制到两个副本节点后移交，本地副本删除")
+    void testUploadReplicatesAndHandsOff() throws Exception {
+        String name = keyOutside("n1", "handoff");
+        byte[] content = randomBytes(200_000);
+
+        HttpResponse<String> upload = upload("n1", name, content);
+        assertEquals(200, upload.statusCode(), upload.body());
+
+        for (String replica : ring.replicas(name, 2)) {
+            awaitTrue(() -> read(replica, name) != null, name + " replicated to " + replica);
+            assertArrayEquals(content, read(replica, name));
+        }
+        awaitTrue(() -> read("n1", name) == null, name + " handed off by n1");
+    }
+
+    @Test
+    @DisplayName("本地没有的文件 - redirect 节点返回 307，proxy 节点直接返回内容和区间")
+    void testDownloadFromPeer() throws Exception {
+        String redirected = keyOutside("n1", "redirect");
+        byte[] content = randomBytes(50_000);
+        List<String> replicas = ring.replicas(redirected, 2);
+        for (String replica : replicas) {
+            write(replica, redirected, content);
+        }
+
+        HttpResponse<byte[]> redirect = get("n1", "/api/file/download/" + redirected, null);
+        assertEquals(307, redirect.statusCode());
+        URI location = URI.create(redirect.headers().firstValue("Location").orElseThrow());
+        assertTrue(replicas.stream().anyMatch(id -> urls.get(id).getPort() == location.getPort()), location.toString());
+        HttpResponse<byte[]> followed = client.send(HttpRequest.newBuilder(location).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, followed.statusCode());
+        assertArrayEquals(content, followed.body());
+
+        // 代理的内容跨越多个读缓冲
+        String proxiedKey = keyOutside("n3", "proxy");
+        byte[] large = randomBytes(3_000_000);
+        for (String replica : ring.replicas(proxiedKey, 2)) {
+            write(replica, proxiedKey, large);
+        }
+        HttpResponse<byte[]> proxied = get("n3", "/api/file/download/" + proxiedKey, null);
+        assertEquals(200, proxied.statusCode());
+        assertArrayEquals(large, proxied.body());
+
+        HttpResponse<byte[]> range = get("n3", "/api/file/download/" + proxiedKey, "bytes=100-199");
+        assertEquals(206, range.statusCode());
+        assertEquals("bytes 100-199/" + large.length, range.headers().firstValue("Content-Range").orElse(null));
+        assertArrayEquals(Arrays.copyOfRange(large, 100, 200), range.body());
+
+        assertEquals(404, get("n3", "/api/file/download/missing-everywhere.bin", null).statusCode());
+        assertEquals(404, get("n1", "/api/file/download/missing-everywhere.bin", null).statusCode());
+    }
+
+    @Test
+    @DisplayName("未命中缓存 - 各节点都没有的键再次下载时不询问其他节点，本节点写入后失效")
+    void testNegativeCache() throws Exception {
+        String name = keyOutside("n1", "negative");
+        ClusterService cluster = nodes.get("n1").getBean(ClusterService.class);
+        long hits = (long) cluster.status().get("negativeHits");
+
+        assertEquals(404, get("n1", "/api/file/download/" + name, null).statusCode());
+        assertEquals(404, get("n1", "/api/file/download/" + name, null).statusCode());
+        assertEquals(hits + 1, (long) cluster.status().get("negativeHits"));
+
+        assertEquals(200, upload("n1", name, randomBytes(1_000)).statusCode());
+        assertNotEquals(404, get("n1", "/api/file/download/" + name, null).statusCode());
+    }
+
+    @Test
+    @DisplayName("删除 - 在一个副本节点删除后其他节点上的副本也被删除")
+    void testDeletePropagates() throws Exception {
+        String name = keyOutside("n3", "delete");
+        byte[] content = randomBytes(10_000);
+        List<String> replicas = ring.replicas(name, 2);
+        for (String id : IDS) {
+            write(id, name, content);
+        }
+
+        HttpResponse<byte[]> delete = client.send(HttpRequest.newBuilder(
+                        urls.get(replicas.get(0)).resolve("/api/file/delete/" + name))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, delete.statusCode());
+        for (String id : IDS) {
+            awaitTrue(() -> read(id, name) == null, name + " deleted on " + id);
+        }
+    }
+
+    @Test
+    @DisplayName("重平衡 - 补齐副本、覆盖旧版本并移交不属于本节点的文件")
+    void testRebalance() throws Exception {
+        String name = keyOutside("n1", "rebalance");
+        byte[] content = randomBytes(30_000);
+        assertEquals(204, putInternal("n1", name, version(), content));
+        // 一个副本上有没有版本的旧内容，重平衡应覆盖
+        List<String> replicas = ring.replicas(name, 2);
+        write(replicas.get(1), name, new byte[10]);
+
+        String report = rebalance("n1");
+        assertTrue(report.contains("\"failed\":0"), report);
+
+        for (String replica : replicas) {
+            assertArrayEquals(content, read(replica, name), replica);
+        }
+        assertNull(read("n1", name));
+    }
+
+    @Test
+    @DisplayName("重平衡 - 副本上的版本更新时不被本节点的旧内容覆盖，本节点的旧内容移交删除")
+    void testRebalanceKeepsNewerReplica() throws Exception {
+        String name = keyOutside("n1", "newer");
+        long stale = version();
+        assertEquals(204, putInternal("n1", name, stale, randomBytes(30_000)));
+        // 副本上是同样大小的新内容
+        byte[] newer = randomBytes(30_000);
+        for (String replica : ring.replicas(name, 2)) {
+            assertEquals(204, putInternal(replica, name, stale + 1, newer));
+        }
+        // 旧版本直接推送同样被拒绝
+        assertEquals(409, putInternal(ring.replicas(name, 2).get(0), name, stale, randomBytes(10)));
+
+        String report = rebalance("n1");
+        assertTrue(report.contains("\"failed\":0"), report);
+
+        for (String replica : ring.replicas(name, 2)) {
+            assertArrayEquals(newer, read(replica, name), replica);
+        }
+        assertNull(read("n1", name));
+    }
+
+    @Test
+    @DisplayName("墓碑 - 删除后旧版本的推送被拒绝，残留在其他节点上的副本由重平衡删除")
+    void testTombstone() throws Exception {
+        String name = keyOutside("n1", "tombstone");
+        long version = version();
+        byte[] content = randomBytes(5_000);
+        List<String> replicas = ring.replicas(name, 2);
+        for (String replica : replicas) {
+            assertEquals(204, putInternal(replica, name, version, content));
+        }
+
+        HttpResponse<byte[]> delete = client.send(HttpRequest.newBuilder(
+                        urls.get(replicas.get(0)).resolve("/api/file/delete/" + name))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, delete.statusCode());
+        for (String id : IDS) {
+            awaitTrue(() -> read(id, name) == null, name + " deleted on " + id);
+        }
+
+        // 删除期间没有收到通知的节点稍后推送旧版本
+        assertEquals(409, putInternal(replicas.get(1), name, version, content));
+        assertNull(read(replicas.get(1), name));
+
+        // 不经过内部接口残留在 n1 上的文件，n1 已记下墓碑，重平衡时删除且不推送
+        write("n1", name, content);
+        String report = rebalance("n1");
+        assertTrue(report.contains("\"failed\":0"), report);
+        assertNull(read("n1", name));
+        for (String replica : replicas) {
+            assertNull(read(replica, name), replica);
+        }
+    }
+
+    @Test
+    @DisplayName("副本推送 - 收到的内容比声明的短时不保存，旧副本和版本保持不变")
+    void testTruncatedReplicaIsDiscarded() throws Exception {
+        String name = keyOutside("n1", "truncated");
+        String replica = ring.replicas(name, 2).get(0);
+        long version = version();
+        byte[] old = randomBytes(20_000);
+        assertEquals(204, putInternal(replica, name, version, old));
+
+        byte[] newer = randomBytes(40_000);
+        int status = putInternal(replica, name, version + 1, newer.length, Arrays.copyOf(newer, 25_000));
+        assertTrue(status >= 500, "status " + status);
+        assertArrayEquals(old, read(replica, name));
+
+        // 版本没有记下，同一版本的完整推送仍会写入
+        assertEquals(204, putInternal(replica, name, version + 1, newer));
+        assertArrayEquals(newer, read(replica, name));
+    }
+
+    @Test
+    @DisplayName("内部接口 - 缺少密钥时拒绝，键越出目录时拒绝")
+    void testInternalEndpointIsProtected() throws Exception {
+        URI uri = urls.get("n2").resolve("/api/cluster/object?key=" + URLEncoder.encode("x.bin", StandardCharsets.UTF_8));
+        HttpResponse<Void> noSecret = client.send(HttpRequest.newBuilder(uri)
+                .PUT(HttpRequest.BodyPublishers.ofString("data")).build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(403, noSecret.statusCode());
+
+        URI traversal = urls.get("n2").resolve("/api/cluster/object?key="
+                + URLEncoder.encode("../escape.bin", StandardCharsets.UTF_8));
+        HttpResponse<Void> escaped = client.send(HttpRequest.newBuilder(traversal)
+                .header(PeerClient.SECRET_HEADER, SECRET)
+                .PUT(HttpRequest.BodyPublishers.ofString("data")).build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(403, escaped.statusCode());
+    }
+
+    @Test
+    @DisplayName("密钥 - 启用集群但未配置密钥时拒绝启动")
+    void testSecretRequired() {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setEnabled(true);
+        properties.setNodeId("n1");
+        ClusterProperties.Peer peer = new ClusterProperties.Peer();
+        peer.setId("n1");
+        peer.setUrl("http://localhost:1");
+        properties.getPeers().add(peer);
+        properties.setSecret(" ");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new ClusterService(properties, null, null));
+        assertTrue(e.getMessage().contains("secret"), e.getMessage());
+    }
+
+    @Test
+    @DisplayName("节点请求 - 只带节点编号没有密钥时按普通客户端处理，仍会重定向")
+    void testPeerHeaderRequiresSecret() throws Exception {
+        String name = keyOutside("n1", "spoofed");
+        for (String replica : ring.replicas(name, 2)) {
+            write(replica, name, randomBytes(100));
+        }
+        URI download = urls.get("n1").resolve("/api/file/download/" + name);
+
+        HttpResponse<Void> spoofed = client.send(HttpRequest.newBuilder(download)
+                .header(PeerClient.NODE_HEADER, "n2").GET().build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(307, spoofed.statusCode());
+
+        HttpResponse<Void> peer = client.send(HttpRequest.newBuilder(download)
+                .header(PeerClient.NODE_HEADER, "n2")
+                .header(PeerClient.SECRET_HEADER, SECRET).GET().build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(404, peer.statusCode());
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 与节点生成的版本戳同一量级，比测试开始前的所有写入都新
+     */
+    private static long version() {
+        return System.currentTimeMillis() << 10 | 1000;
+    }
+
+    private int putInternal(String node, String key, long version, byte[] content) throws Exception {
+        return putInternal(node, key, version, content.length, content);
+    }
+
+    private int putInternal(String node, String key, long version, long size, byte[] content) throws Exception {
+        URI uri = urls.get(node).resolve("/api/cluster/object?key=" + URLEncoder.encode(key, StandardCharsets.UTF_8));
+        return client.send(HttpRequest.newBuilder(uri)
+                .header(PeerClient.SECRET_HEADER, SECRET)
+                .header(PeerClient.VERSION_HEADER, Long.toString(version))
+                .header(PeerClient.SIZE_HEADER, Long.toString(size))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(content)).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private String rebalance(String node) throws Exception {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(
+                        urls.get(node).resolve("/api/cluster/rebalance"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    private String keyOutside(String node, String prefix) {
+        for (int i = 0; ; i++) {
+            String name = prefix + "-" + i + ".bin";
+            if (!ring.replicas(name, 2).contains(node)) {
+                return name;
+            }
+        }
+    }
+
+    private StorageBackend backend(String node) {
+        return nodes.get(node).getBean(StorageBackend.class);
+    }
+
+    private void write(String node, String key, byte[] content) throws IOException {
+        try (StorageWriter out = backend(node).put(key)) {
+            out.write(content);
+            out.commit();
+        }
+    }
+
+    private byte[] read(String node, String key) {
+        try {
+            if (backend(node).stat(key) == null) {
+                return null;
+            }
+            try (InputStream in = new RangeInputStream(
+                    backend(node).openRange(key, reader))) {
+                return in.readAllBytes();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private HttpResponse<String> upload(String node, String name, byte[] content) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + name + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return client.send(HttpRequest.newBuilder(urls.get(node).resolve("/api/file/upload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<byte[]> get(String node, String path, String range) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(urls.get(node).resolve(path)).GET();
+        if (range != null) {
+            request.header("Range", range);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+        return content;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting: " + description);
+            }
+            Thread.sleep(20);
+        }
+    }
+}
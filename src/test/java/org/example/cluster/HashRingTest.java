@@ -0,0 +1,64 @@
+package org.example.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("一致性哈希环测试")
+class HashRingTest {
+
+    private static final int KEYS = 20_000;
+
+    @Test
+    @DisplayName("副本节点互不相同，数量不超过节点数")
+    void testDistinctReplicas() {
+        HashRing ring = new HashRing(List.of("n1", "n2", "n3"), 128);
+        for (int i = 0; i < 1000; i++) {
+            List<String> replicas = ring.replicas("file-" + i + ".bin", 2);
+            assertEquals(2, replicas.size());
+            assertNotEquals(replicas.get(0), replicas.get(1));
+            assertEquals(replicas, ring.replicas("file-" + i + ".bin", 2), "placement must be deterministic");
+        }
+        assertEquals(3, ring.replicas("any", 5).size());
+    }
+
+    @Test
+    @DisplayName("主副本在各节点间大致均匀")
+    void testBalance() {
+        List<String> nodes = List.of("n1", "n2", "n3", "n4");
+        HashRing ring = new HashRing(nodes, 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.replicas("device-" + i + "/log.txt", 1).get(0), 1, Integer::sum);
+        }
+        double expected = KEYS / (double) nodes.size();
+        for (String node : nodes) {
+            int count = counts.getOrDefault(node, 0);
+            assertTrue(Math.abs(count - expected) < expected * 0.25, node + " owns " + count + " keys");
+        }
+    }
+
+    @Test
+    @DisplayName("加入节点只移动约 1/N 的键，且都移到新节点")
+    void testMinimalMovementOnJoin() {
+        HashRing before = new HashRing(List.of("n1", "n2", "n3"), 128);
+        HashRing after = new HashRing(List.of("n1", "n2", "n3", "n4"), 128);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "file-" + i;
+            String oldOwner = before.replicas(key, 1).get(0);
+            String newOwner = after.replicas(key, 1).get(0);
+            if (!oldOwner.equals(newOwner)) {
+                moved++;
+                assertEquals("n4", newOwner, key + " moved between existing nodes");
+            }
+        }
+        double fraction = moved / (double) KEYS;
+        assertTrue(fraction > 0.15 && fraction < 0.35, "moved fraction " + fraction);
+    }
+}
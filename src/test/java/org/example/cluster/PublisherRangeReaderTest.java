@@ -0,0 +1,87 @@
+package org.example.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("响应体发布者适配测试")
+class PublisherRangeReaderTest {
+
+    private static CompletableFuture<Integer> read(PublisherRangeReader reader, ByteBuffer dst, long position) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        reader.read(dst, position, new CompletionHandler<>() {
+            @Override
+            public void completed(Integer read, Void attachment) {
+                result.complete(read);
+            }
+
+            @Override
+            public void failed(Throwable t, Void attachment) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    @Test
+    @DisplayName("顺序读取 - 跨越多个分片的内容按序读出，结束后返回 -1")
+    void testSequentialRead() throws Exception {
+        try (SubmissionPublisher<List<ByteBuffer>> publisher = new SubmissionPublisher<>()) {
+            PublisherRangeReader reader = new PublisherRangeReader();
+            publisher.subscribe(reader);
+
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            ByteBuffer buffer = ByteBuffer.allocate(7);
+            long position = 0;
+            for (int i = 0; i < 20; i++) {
+                byte[] chunk = ("chunk-" + i + ";").getBytes();
+                expected.writeBytes(chunk);
+                CompletableFuture<Integer> pending = read(reader, buffer.clear(), position);
+                publisher.submit(List.of(ByteBuffer.wrap(chunk)));
+                int n = pending.get(5, TimeUnit.SECONDS);
+                actual.write(buffer.array(), 0, n);
+                position += n;
+                // 分片剩余部分从队列读出
+                while (position < expected.size()) {
+                    n = read(reader, buffer.clear(), position).get(5, TimeUnit.SECONDS);
+                    actual.write(buffer.array(), 0, n);
+                    position += n;
+                }
+            }
+            publisher.close();
+            assertEquals(-1, read(reader, buffer.clear(), position).get(5, TimeUnit.SECONDS));
+            assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+        }
+    }
+
+    @Test
+    @DisplayName("上游出错或非顺序读取时以 IOException 结束")
+    void testFailure() throws Exception {
+        try (SubmissionPublisher<List<ByteBuffer>> publisher = new SubmissionPublisher<>()) {
+            PublisherRangeReader reader = new PublisherRangeReader();
+            publisher.subscribe(reader);
+
+            ExecutionException skipped = assertThrows(ExecutionException.class,
+                    () -> read(reader, ByteBuffer.allocate(4), 10).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, skipped.getCause());
+
+            CompletableFuture<Integer> pending = read(reader, ByteBuffer.allocate(4), 0);
+            publisher.closeExceptionally(new IllegalStateException("reset"));
+            ExecutionException failed = assertThrows(ExecutionException.class,
+                    () -> pending.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, failed.getCause());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("副本版本和墓碑持久化测试")
+class ReplicaVersionsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("重新打开后版本、墓碑和移除都保留，不完整的最后一行被跳过")
+    void testReopen() throws Exception {
+        try (ReplicaVersions versions = new ReplicaVersions(dir)) {
+            versions.live("a/b c.bin", 100, 1);
+            versions.tombstone("deleted.bin", 200, 2);
+            versions.live("gone.bin", 300, 3);
+            versions.forget("gone.bin");
+        }
+        Files.writeString(dir.resolve("versions.log"), "L 12", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (ReplicaVersions versions = new ReplicaVersions(dir)) {
+            assertEquals(new ReplicaVersions.Stamp(100, false, 1), versions.get("a/b c.bin"));
+            assertEquals(new ReplicaVersions.Stamp(200, true, 2), versions.get("deleted.bin"));
+            assertNull(versions.get("gone.bin"));
+            assertEquals(2, versions.size());
+            assertEquals(1, versions.tombstones().size());
+            assertEquals("deleted.bin", versions.tombstones().get(0).getKey());
+        }
+    }
+
+    @Test
+    @DisplayName("反复改写同一批键时日志被压缩，内容不变")
+    void testCompaction() throws Exception {
+        try (ReplicaVersions versions = new ReplicaVersions(dir)) {
+            for (int i = 0; i < 10_000; i++) {
+                versions.live("key-" + (i % 10), i, i);
+            }
+        }
+        assertTrue(Files.readAllLines(dir.resolve("versions.log")).size() <= 1024 + 10);
+
+        try (ReplicaVersions versions = new ReplicaVersions(dir)) {
+            assertEquals(10, versions.size());
+            assertEquals(9999, versions.get("key-9").version());
+            assertEquals(9990, versions.get("key-0").version());
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package org.example.columnar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ColumnarStore 列式存储测试")
+class ColumnarStoreTest {
+
+    private static final long BASE = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private ColumnarProperties properties;
+    private ColumnarStore store;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ColumnarProperties();
+        properties.setDir(tempDir.toString());
+        properties.setBlockRows(100);
+        store = new ColumnarStore(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private Map<String, Object> report(int i) {
+        Map<String, Object> memory = new HashMap<>();
+        memory.put("used", 100 + i);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("deviceId", "device-" + (i % 10));
+        data.put("version", i % 2 == 0 ? "1.0.0" : "2.0.0");
+        data.put("battery", i % 2 == 0 ? 50 : 70.5);
+        data.put("charging", i % 3 == 0);
+        data.put("memory", memory);
+        data.put("timestamp", BASE + i * 1000L);
+        return data;
+    }
+
+    @Test
+    @DisplayName("写入并扫描 - 落盘块与内存行结果一致")
+    void testScan_RoundTrip() throws Exception {
+        for (int i = 0; i < 250; i++) {
+            store.append(report(i));
+        }
+        assertEquals(2, store.getBlockCount());
+
+        List<Object[]> rows = new ArrayList<>();
+        store.scan(List.of("deviceId", "battery", "charging", "memory.used"), List.of(), BASE, BASE + 1_000_000,
+                row -> rows.add(new Object[]{row.timestamp(), row.getString(0), row.getDouble(1),
+                        row.get(2), row.getDouble(3)}));
+
+        assertEquals(250, rows.size());
+        for (int i = 0; i < 250; i++) {
+            Object[] row = rows.get(i);
+            assertEquals(BASE + i * 1000L, row[0]);
+            assertEquals("device-" + (i % 10), row[1]);
+            assertEquals(i % 2 == 0 ? 50.0 : 70.5, row[2]);
+            assertEquals(i % 3 == 0, row[3]);
+            assertEquals(100.0 + i, row[4]);
+        }
+    }
+
+    @Test
+    @DisplayName("重新加载 - 从块文件头恢复")
+    void testReload() throws Exception {
+        for (int i = 0; i < 150; i++) {
+            store.append(report(i));
+        }
+        store.flush();
+
+        ColumnarStore reopened = new ColumnarStore(properties);
+        try {
+            assertEquals(2, reopened.getBlockCount());
+
+            long[] count = {0};
+            reopened.scan(List.of("battery"), List.of(), BASE, BASE + 1_000_000, row -> count[0]++);
+            assertEquals(150, count[0]);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    @DisplayName("列裁剪与时间范围 - 只读取请求的列并跳过无关块")
+    void testScan_ReadsOnlyRequestedColumns() throws Exception {
+        for (int i = 0; i < 400; i++) {
+            store.append(report(i));
+        }
+        store.flush();
+
+        ScanStats all = store.scan(List.of("battery"), List.of(), BASE, BASE + 1_000_000, row -> { });
+        assertEquals(4, all.getBlocksScanned());
+        assertTrue(all.getBytesRead() < all.getBytesTotal() / 2,
+                "read " + all.getBytesRead() + " of " + all.getBytesTotal());
+
+        ScanStats ranged = store.scan(List.of("battery"), List.of(), BASE, BASE + 50_000, row -> { });
+        assertEquals(1, ranged.getBlocksScanned());
+        assertEquals(51, ranged.getRowsScanned());
+    }
+
+    @Test
+    @DisplayName("取值范围 - zone map 不相交的块不读取")
+    void testScan_ZoneMapPruning() throws Exception {
+        for (int i = 0; i < 400; i++) {
+            store.append(report(i));
+        }
+        store.flush();
+
+        // memory.used = 100 + i，每块 100 行，只有第 3 块包含 [320, 340]
+        List<Double> values = new ArrayList<>();
+        ScanStats stats = store.scan(List.of("memory.used"), List.of(),
+                List.of(new ValueRange("memory.used", 320, 340)), BASE, BASE + 1_000_000,
+                row -> values.add(row.getDouble(0)));
+
+        assertEquals(1, stats.getBlocksScanned());
+        assertEquals(3, stats.getBlocksPruned());
+        assertEquals(21, values.size());
+        assertTrue(values.stream().allMatch(v -> v >= 320 && v <= 340));
+    }
+
+    @Test
+    @DisplayName("取值范围 - 同样作用于未落盘的行")
+    void testScan_RangeOnMemoryRows() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            store.append(report(i));
+        }
+
+        long[] count = {0};
+        store.scan(List.of("battery"), List.of(), List.of(new ValueRange("battery", 60, 80)),
+                BASE, BASE + 1_000_000, row -> count[0]++);
+        assertEquals(25, count[0]);
+    }
+
+    @Test
+    @DisplayName("后台写盘 - 块满时追加方不写文件，写完后文件可见")
+    void testAppend_FlushesInBackground() throws Exception {
+        for (int i = 0; i < 300; i++) {
+            store.append(report(i));
+        }
+        // 正在写盘的块对扫描可见，不丢行也不重复
+        long[] count = {0};
+        store.scan(List.of("battery"), List.of(), BASE, BASE + 1_000_000, row -> count[0]++);
+        assertEquals(300, count[0]);
+        assertEquals(3, store.getBlockCount());
+
+        store.flush();
+        assertEquals(3, new ColumnarStore(properties).getBlockCount());
+    }
+
+    @Test
+    @DisplayName("分组聚合 - 按取值范围过滤")
+    void testAggregate_ValueRange() throws Exception {
+        for (int i = 0; i < 150; i++) {
+            store.append(report(i));
+        }
+
+        ColumnarQueryService.AggregateResult result = new ColumnarQueryService(store)
+                .aggregate("battery", "version", 60.0, null, BASE, BASE + 1_000_000);
+
+        assertEquals(1, result.getGroups().size());
+        assertEquals(75, result.getGroups().get("2.0.0").getCount());
+    }
+
+    @Test
+    @DisplayName("分组聚合 - 按版本统计平均电量")
+    void testAggregate_GroupBy() throws Exception {
+        for (int i = 0; i < 150; i++) {
+            store.append(report(i));
+        }
+
+        ColumnarQueryService.AggregateResult result = new ColumnarQueryService(store)
+                .aggregate("battery", "version", BASE, BASE + 1_000_000);
+
+        assertEquals(2, result.getGroups().size());
+        assertEquals(75, result.getGroups().get("1.0.0").getCount());
+        assertEquals(50.0, result.getGroups().get("1.0.0").getAvg());
+        assertEquals(70.5, result.getGroups().get("2.0.0").getAvg());
+    }
+
+    @Test
+    @DisplayName("类型冲突 - 同一列混合整数与字符串退化为 STRING")
+    void testSchema_TypeConflict() throws Exception {
+        Map<String, Object> a = new HashMap<>();
+        a.put("value", 1);
+        a.put("timestamp", BASE);
+        Map<String, Object> b = new HashMap<>();
+        b.put("value", "high");
+        b.put("timestamp", BASE + 1);
+        store.append(a);
+        store.append(b);
+        store.flush();
+
+        List<String> values = new ArrayList<>();
+        store.scan(List.of("value"), List.of(), BASE, BASE + 1, row -> values.add(row.getString(0)));
+        assertEquals(List.of("1", "high"), values);
+    }
+
+    @Test
+    @DisplayName("总大小上限 - 从最旧的块开始删除块文件")
+    void testRetention_MaxTotalSize() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            store.append(report(i));
+        }
+        store.flush();
+        long blockBytes = store.getTotalBytes();
+        store.close();
+
+        properties.setMaxTotalSize(DataSize.ofBytes(blockBytes * 3));
+        store = new ColumnarStore(properties);
+        for (int i = 100; i < 1000; i++) {
+            store.append(report(i));
+        }
+        store.flush();
+
+        assertTrue(store.getBlockCount() <= 3, "blocks " + store.getBlockCount());
+        assertTrue(store.getTotalBytes() <= blockBytes * 3 + blockBytes / 2, "bytes " + store.getTotalBytes());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(store.getBlockCount(), files.count());
+        }
+
+        List<Long> timestamps = new ArrayList<>();
+        store.scan(List.of("battery"), List.of(), BASE, BASE + 1_000_000, row -> timestamps.add(row.timestamp()));
+        assertEquals(store.getBlockCount() * 100, timestamps.size());
+        assertEquals(BASE + 999_000L, timestamps.get(timestamps.size() - 1));
+    }
+
+    @Test
+    @DisplayName("保留期 - 过期块的文件和元数据一并删除")
+    void testRetention_Age() throws Exception {
+        for (int i = 0; i < 300; i++) {
+            store.append(report(i));
+        }
+        store.flush();
+        assertEquals(3, store.getBlockCount());
+
+        store.enforceRetention(System.currentTimeMillis() + properties.getRetentionMillis() / 2);
+        assertEquals(3, store.getBlockCount());
+
+        store.enforceRetention(System.currentTimeMillis() + properties.getRetentionMillis() + 1000);
+        assertEquals(0, store.getBlockCount());
+        assertEquals(0, store.getTotalBytes());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+
+        long[] count = {0};
+        store.scan(List.of("battery"), List.of(), BASE, BASE + 1_000_000, row -> count[0]++);
+        assertEquals(0, count[0]);
+
+        store.append(report(300));
+        store.flush();
+        assertEquals(1, store.getBlockCount());
+    }
+}
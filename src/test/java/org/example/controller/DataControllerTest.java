@@ -1,17 +1,27 @@
 package org.example.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+import static org.example.AsyncMockMvc.perform;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -20,6 +30,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @DisplayName("DataController 数据接口测试")
 class DataControllerTest {
 
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -35,7 +54,7 @@ class DataControllerTest {
         data.put("humidity", 60);
         data.put("timestamp", System.currentTimeMillis());
 
-        mockMvc.perform(post("/api/data/report")
+        perform(mockMvc, post("/api/data/report")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(data)))
                 .andExpect(status().isOk())
@@ -50,7 +69,7 @@ class DataControllerTest {
     void testReportData_Empty() throws Exception {
         Map<String, Object> data = new HashMap<>();
 
-        mockMvc.perform(post("/api/data/report")
+        perform(mockMvc, post("/api/data/report")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(data)))
                 .andExpect(status().isOk())
@@ -69,7 +88,7 @@ class DataControllerTest {
         data.put("deviceId", "device-002");
         data.put("location", location);
 
-        mockMvc.perform(post("/api/data/report")
+        perform(mockMvc, post("/api/data/report")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(data)))
                 .andExpect(status().isOk())
@@ -86,7 +105,7 @@ class DataControllerTest {
         logRequest.setMessage("Test log message");
         logRequest.setTimestamp(System.currentTimeMillis());
 
-        mockMvc.perform(post("/api/data/log")
+        perform(mockMvc, post("/api/data/log")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(logRequest)))
                 .andExpect(status().isOk())
@@ -103,7 +122,7 @@ class DataControllerTest {
         logRequest.setMessage("Error occurred!");
         logRequest.setTimestamp(System.currentTimeMillis());
 
-        mockMvc.perform(post("/api/data/log")
+        perform(mockMvc, post("/api/data/log")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(logRequest)))
                 .andExpect(status().isOk())
@@ -117,7 +136,7 @@ class DataControllerTest {
         logRequest.put("level", "DEBUG");
         // 缺少 tag 和 message
 
-        mockMvc.perform(post("/api/data/log")
+        perform(mockMvc, post("/api/data/log")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(logRequest)))
                 .andExpect(status().isOk());
@@ -131,7 +150,7 @@ class DataControllerTest {
         heartbeat.setVersion("1.0.0");
         heartbeat.setTimestamp(System.currentTimeMillis());
 
-        mockMvc.perform(post("/api/data/heartbeat")
+        perform(mockMvc, post("/api/data/heartbeat")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(heartbeat)))
                 .andExpect(status().isOk())
@@ -146,7 +165,7 @@ class DataControllerTest {
         DataController.HeartbeatRequest heartbeat = new DataController.HeartbeatRequest();
         heartbeat.setDeviceId("device-456");
 
-        mockMvc.perform(post("/api/data/heartbeat")
+        perform(mockMvc, post("/api/data/heartbeat")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(heartbeat)))
                 .andExpect(status().isOk())
@@ -160,7 +179,7 @@ class DataControllerTest {
         DataController.HeartbeatRequest heartbeat = new DataController.HeartbeatRequest();
         heartbeat.setDeviceId("");
 
-        mockMvc.perform(post("/api/data/heartbeat")
+        perform(mockMvc, post("/api/data/heartbeat")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(heartbeat)))
                 .andExpect(status().isOk());
@@ -176,11 +195,83 @@ class DataControllerTest {
             data.put("value", i * 10);
             data.put("timestamp", System.currentTimeMillis());
 
-            mockMvc.perform(post("/api/data/report")
+            perform(mockMvc, post("/api/data/report")
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(data)))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.success").value(true));
         }
     }
+
+    @Test
+    @DisplayName("上报日志 - Smile 二进制编码")
+    void testReportLog_Smile() throws Exception {
+        DataController.LogRequest logRequest = new DataController.LogRequest();
+        logRequest.setLevel("INFO");
+        logRequest.setTag("SmileTag");
+        logRequest.setMessage("Smile encoded log");
+
+        perform(mockMvc, post("/api/data/log")
+                        .contentType("application/x-jackson-smile")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(new SmileMapper().writeValueAsBytes(logRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.message").value("Log received successfully"));
+    }
+
+    @Test
+    @DisplayName("心跳检测 - CBOR 二进制编码")
+    void testHeartbeat_Cbor() throws Exception {
+        DataController.HeartbeatRequest heartbeat = new DataController.HeartbeatRequest();
+        heartbeat.setDeviceId("device-cbor");
+
+        perform(mockMvc, post("/api/data/heartbeat")
+                        .contentType("application/cbor")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(new CBORMapper().writeValueAsBytes(heartbeat)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("pong"));
+    }
+
+    @Test
+    @DisplayName("上报数据 - gzip 压缩请求体")
+    void testReportData_Gzip() throws Exception {
+        Map<String, Object> data = new HashMap<>();
+        data.put("deviceId", "device-gzip");
+        data.put("battery", 80);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(objectMapper.writeValueAsBytes(data));
+        }
+
+        perform(mockMvc, post("/api/data/report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Content-Encoding", "gzip")
+                        .content(compressed.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.dataSize").value(2));
+    }
+
+    @Test
+    @DisplayName("上报数据 - 解压后超过上限的压缩体被拒绝")
+    void testReportData_GzipBomb() throws Exception {
+        // 17MB 的重复字节压缩后只有十几 KB，解压超过 16MB 上限
+        byte[] padding = new byte[17 * 1024 * 1024];
+        Arrays.fill(padding, (byte) 'a');
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("{\"deviceId\":\"device-bomb\",\"pad\":\"".getBytes());
+            gzip.write(padding);
+            gzip.write("\"}".getBytes());
+        }
+
+        perform(mockMvc, post("/api/data/report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Content-Encoding", "gzip")
+                        .content(compressed.toByteArray()))
+                .andExpect(status().isBadRequest());
+    }
 }
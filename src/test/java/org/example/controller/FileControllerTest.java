@@ -4,11 +4,20 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.io.IOException;
@@ -16,18 +25,34 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import static org.example.AsyncMockMvc.perform;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
 @DisplayName("FileController 文件操作测试")
 class FileControllerTest {
 
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private TestRestTemplate restTemplate;
+
     private static final String UPLOAD_DIR = "uploads";
     private static final String TEST_FILENAME = "test-file.txt";
     private static final String TEST_CONTENT = "Hello, HarmonyOS!";
@@ -37,6 +62,17 @@ class FileControllerTest {
         Files.createDirectories(Paths.get(UPLOAD_DIR));
     }
 
+    /**
+     * 下载走 Servlet 非阻塞写，MockMvc 的响应流不支持，成功路径在真实端口上验证
+     */
+    private ResponseEntity<byte[]> download(String uri, String range) {
+        HttpHeaders headers = new HttpHeaders();
+        if (range != null) {
+            headers.set(HttpHeaders.RANGE, range);
+        }
+        return restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+
     @AfterEach
     void tearDown() throws IOException {
         // 清理所有测试文件和目录
@@ -64,7 +100,7 @@ class FileControllerTest {
                 TEST_CONTENT.getBytes()
         );
 
-        mockMvc.perform(multipart("/api/file/upload")
+        perform(mockMvc, multipart("/api/file/upload")
                         .file(file)
                         .param("category", "test"))
                 .andExpect(status().isOk())
@@ -86,7 +122,7 @@ class FileControllerTest {
                 new byte[0]
         );
 
-        mockMvc.perform(multipart("/api/file/upload")
+        perform(mockMvc, multipart("/api/file/upload")
                         .file(emptyFile))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
@@ -103,7 +139,7 @@ class FileControllerTest {
                 TEST_CONTENT.getBytes()
         );
 
-        mockMvc.perform(multipart("/api/file/upload")
+        perform(mockMvc, multipart("/api/file/upload")
                         .file(file))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -117,19 +153,43 @@ class FileControllerTest {
         Path testFile = Paths.get(UPLOAD_DIR, TEST_FILENAME);
         Files.writeString(testFile, TEST_CONTENT);
 
-        mockMvc.perform(get("/api/file/download/" + TEST_FILENAME))
-                .andExpect(status().isOk())
-                .andExpect(header().exists("Content-Disposition"))
-                .andExpect(content().bytes(TEST_CONTENT.getBytes()));
+        ResponseEntity<byte[]> response = download("/api/file/download/" + TEST_FILENAME, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertArrayEquals(TEST_CONTENT.getBytes(), response.getBody());
     }
 
     @Test
     @DisplayName("下载文件 - 文件不存在")
     void testDownloadFile_NotFound() throws Exception {
-        mockMvc.perform(get("/api/file/download/nonexistent.txt"))
+        perform(mockMvc, get("/api/file/download/nonexistent.txt"))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("下载文件 - Range 断点续传")
+    void testDownloadFile_Range() throws Exception {
+        Files.writeString(Paths.get(UPLOAD_DIR, TEST_FILENAME), TEST_CONTENT);
+
+        ResponseEntity<byte[]> response = download("/api/file/download/" + TEST_FILENAME, "bytes=7-");
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 7-16/17", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertArrayEquals("HarmonyOS!".getBytes(), response.getBody());
+    }
+
+    @Test
+    @DisplayName("下载文件 - Range 超出文件长度")
+    void testDownloadFile_RangeNotSatisfiable() throws Exception {
+        Files.writeString(Paths.get(UPLOAD_DIR, TEST_FILENAME), TEST_CONTENT);
+
+        perform(mockMvc, get("/api/file/download/" + TEST_FILENAME).header("Range", "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */17"));
+    }
+
     @Test
     @DisplayName("删除文件 - 成功")
     void testDeleteFile_Success() throws Exception {
@@ -137,7 +197,7 @@ class FileControllerTest {
         Path testFile = Paths.get(UPLOAD_DIR, TEST_FILENAME);
         Files.writeString(testFile, TEST_CONTENT);
 
-        mockMvc.perform(post("/api/file/delete/" + TEST_FILENAME))
+        perform(mockMvc, post("/api/file/delete/" + TEST_FILENAME))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("File deleted successfully"))
@@ -150,7 +210,7 @@ class FileControllerTest {
     @Test
     @DisplayName("删除文件 - 文件不存在")
     void testDeleteFile_NotFound() throws Exception {
-        mockMvc.perform(post("/api/file/delete/nonexistent.txt"))
+        perform(mockMvc, post("/api/file/delete/nonexistent.txt"))
                 .andExpect(status().isNotFound());
     }
 
@@ -161,7 +221,7 @@ class FileControllerTest {
         Files.writeString(Paths.get(UPLOAD_DIR, "file1.txt"), "content1");
         Files.writeString(Paths.get(UPLOAD_DIR, "file2.txt"), "content2");
 
-        mockMvc.perform(get("/api/file/list"))
+        perform(mockMvc, get("/api/file/list"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.files").isArray())
@@ -175,7 +235,7 @@ class FileControllerTest {
     @Test
     @DisplayName("列出文件 - 空目录")
     void testListFiles_Empty() throws Exception {
-        mockMvc.perform(get("/api/file/list"))
+        perform(mockMvc, get("/api/file/list"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.count").value(0));
@@ -192,7 +252,7 @@ class FileControllerTest {
         Files.writeString(subDir.resolve("file1.txt"), "content1");
         Files.writeString(subDir.resolve("file2.json"), "{\"key\":\"value\"}");
 
-        mockMvc.perform(get("/api/file/list/path")
+        perform(mockMvc, get("/api/file/list/path")
                         .param("path", "subfolder"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -214,7 +274,7 @@ class FileControllerTest {
         Files.createDirectories(nestedDir);
         Files.writeString(nestedDir.resolve("nested.txt"), "nested content");
 
-        mockMvc.perform(get("/api/file/list/path")
+        perform(mockMvc, get("/api/file/list/path")
                         .param("path", "level1/level2"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -230,7 +290,7 @@ class FileControllerTest {
     @Test
     @DisplayName("按路径查询文件列表 - 目录不存在")
     void testListFilesByPath_NotFound() throws Exception {
-        mockMvc.perform(get("/api/file/list/path")
+        perform(mockMvc, get("/api/file/list/path")
                         .param("path", "nonexistent"))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.success").value(false))
@@ -240,7 +300,7 @@ class FileControllerTest {
     @Test
     @DisplayName("按路径查询文件列表 - 路径遍历攻击防护")
     void testListFilesByPath_PathTraversal() throws Exception {
-        mockMvc.perform(get("/api/file/list/path")
+        perform(mockMvc, get("/api/file/list/path")
                         .param("path", "../../../etc"))
                 .andExpect(status().isForbidden())
                 .andExpect(jsonPath("$.success").value(false))
@@ -254,7 +314,7 @@ class FileControllerTest {
         Path testFile = Paths.get(UPLOAD_DIR, "notdir.txt");
         Files.writeString(testFile, "content");
 
-        mockMvc.perform(get("/api/file/list/path")
+        perform(mockMvc, get("/api/file/list/path")
                         .param("path", "notdir.txt"))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
@@ -274,11 +334,11 @@ class FileControllerTest {
         Path testFile = subDir.resolve("test.pdf");
         Files.writeString(testFile, "PDF content");
 
-        mockMvc.perform(get("/api/file/download/path")
-                        .param("path", "downloads/test.pdf"))
-                .andExpect(status().isOk())
-                .andExpect(header().exists("Content-Disposition"))
-                .andExpect(content().bytes("PDF content".getBytes()));
+        ResponseEntity<byte[]> response = download("/api/file/download/path?path=downloads/test.pdf", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertArrayEquals("PDF content".getBytes(), response.getBody());
 
         // 清理
         Files.deleteIfExists(testFile);
@@ -288,7 +348,7 @@ class FileControllerTest {
     @Test
     @DisplayName("按路径下载文件 - 文件不存在")
     void testDownloadByPath_NotFound() throws Exception {
-        mockMvc.perform(get("/api/file/download/path")
+        perform(mockMvc, get("/api/file/download/path")
                         .param("path", "nonexistent/file.txt"))
                 .andExpect(status().isNotFound());
     }
@@ -296,7 +356,7 @@ class FileControllerTest {
     @Test
     @DisplayName("按路径下载文件 - 路径遍历攻击防护")
     void testDownloadByPath_PathTraversal() throws Exception {
-        mockMvc.perform(get("/api/file/download/path")
+        perform(mockMvc, get("/api/file/download/path")
                         .param("path", "../../../etc/passwd"))
                 .andExpect(status().isForbidden());
     }
@@ -304,7 +364,7 @@ class FileControllerTest {
     @Test
     @DisplayName("按路径下载文件 - 路径为空")
     void testDownloadByPath_EmptyPath() throws Exception {
-        mockMvc.perform(get("/api/file/download/path"))
+        perform(mockMvc, get("/api/file/download/path"))
                 .andExpect(status().isBadRequest());
     }
 
@@ -314,7 +374,7 @@ class FileControllerTest {
         Path dir = Paths.get(UPLOAD_DIR, "testdir");
         Files.createDirectories(dir);
 
-        mockMvc.perform(get("/api/file/download/path")
+        perform(mockMvc, get("/api/file/download/path")
                         .param("path", "testdir"))
                 .andExpect(status().isBadRequest());
 
@@ -332,7 +392,7 @@ class FileControllerTest {
         Path testFile = subDir.resolve("delete.txt");
         Files.writeString(testFile, "to be deleted");
 
-        mockMvc.perform(post("/api/file/delete/path")
+        perform(mockMvc, post("/api/file/delete/path")
                         .param("path", "todelete/delete.txt"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -353,7 +413,7 @@ class FileControllerTest {
         Path testFile = Paths.get(UPLOAD_DIR, "bodydelete.txt");
         Files.writeString(testFile, "content");
 
-        mockMvc.perform(post("/api/file/delete/path")
+        perform(mockMvc, post("/api/file/delete/path")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"path\":\"bodydelete.txt\"}"))
                 .andExpect(status().isOk())
@@ -371,7 +431,7 @@ class FileControllerTest {
         Files.writeString(dir.resolve("file1.txt"), "content1");
         Files.writeString(dir.resolve("file2.txt"), "content2");
 
-        mockMvc.perform(post("/api/file/delete/path")
+        perform(mockMvc, post("/api/file/delete/path")
                         .param("path", "dirToDelete"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -384,7 +444,7 @@ class FileControllerTest {
     @Test
     @DisplayName("按路径删除文件 - 文件不存在")
     void testDeleteByPath_NotFound() throws Exception {
-        mockMvc.perform(post("/api/file/delete/path")
+        perform(mockMvc, post("/api/file/delete/path")
                         .param("path", "nonexistent.txt"))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.success").value(false));
@@ -393,7 +453,7 @@ class FileControllerTest {
     @Test
     @DisplayName("按路径删除文件 - 路径遍历攻击防护")
     void testDeleteByPath_PathTraversal() throws Exception {
-        mockMvc.perform(post("/api/file/delete/path")
+        perform(mockMvc, post("/api/file/delete/path")
                         .param("path", "../../../etc/passwd"))
                 .andExpect(status().isForbidden())
                 .andExpect(jsonPath("$.success").value(false))
@@ -405,7 +465,7 @@ class FileControllerTest {
     void testDeleteByPath_RootDirectory() throws Exception {
         // 获取 uploads 目录的绝对路径
         Path uploadPath = Paths.get(UPLOAD_DIR).toAbsolutePath();
-        mockMvc.perform(post("/api/file/delete/path")
+        perform(mockMvc, post("/api/file/delete/path")
                         .param("path", uploadPath.toString()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -415,7 +475,7 @@ class FileControllerTest {
     @Test
     @DisplayName("按路径删除文件 - 路径为空")
     void testDeleteByPath_EmptyPath() throws Exception {
-        mockMvc.perform(post("/api/file/delete/path"))
+        perform(mockMvc, post("/api/file/delete/path"))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("Path is required"));
@@ -428,7 +488,7 @@ class FileControllerTest {
         Files.createDirectories(nestedDir);
         Files.writeString(nestedDir.resolve("deep.txt"), "deep content");
 
-        mockMvc.perform(post("/api/file/delete/path")
+        perform(mockMvc, post("/api/file/delete/path")
                         .param("path", "parent/child/grandchild"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -463,7 +523,7 @@ class FileControllerTest {
         Files.createDirectories(subDir);
         Files.writeString(subDir.resolve("file3.txt"), "content3");
 
-        mockMvc.perform(post("/api/file/clean"))
+        perform(mockMvc, post("/api/file/clean"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("Upload directory cleaned successfully"))
@@ -472,7 +532,7 @@ class FileControllerTest {
                 .andExpect(jsonPath("$.freedSpace").value(greaterThan(0)));
 
         // 验证文件已清空
-        mockMvc.perform(get("/api/file/list"))
+        perform(mockMvc, get("/api/file/list"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.count").value(0));
     }
@@ -480,7 +540,7 @@ class FileControllerTest {
     @Test
     @DisplayName("清空上传目录 - 空目录")
     void testCleanUploads_Empty() throws Exception {
-        mockMvc.perform(post("/api/file/clean"))
+        perform(mockMvc, post("/api/file/clean"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.deletedFiles").value(0))
@@ -0,0 +1,165 @@
+package org.example.controller;
+
+import org.example.logtail.LogTailBroadcaster;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 日志实时推送走真实连接：推送使用 Servlet 非阻塞写，MockMvc 的输出流不支持
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "harmony.rate-limit.enabled=false",
+        "harmony.log-tail.write-timeout-millis=500",
+        "harmony.log-tail.max-lag-strikes=1000000"
+})
+@DisplayName("LogTailController 日志实时推送测试")
+class LogTailControllerTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private LogTailBroadcaster broadcaster;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private void reportLog(String deviceId, String level, String tag, String message) {
+        DataController.LogRequest logRequest = new DataController.LogRequest();
+        logRequest.setDeviceId(deviceId);
+        logRequest.setLevel(level);
+        logRequest.setTag(tag);
+        logRequest.setMessage(message);
+
+        assertEquals(HttpStatus.OK,
+                restTemplate.postForEntity("/api/data/log", logRequest, Map.class).getStatusCode());
+    }
+
+    /**
+     * 打开订阅，响应头返回即表示订阅已登记
+     */
+    private InputStream subscribe(String query) throws Exception {
+        HttpResponse<InputStream> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/data/log/stream?" + query)).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+        return response.body();
+    }
+
+    private static String awaitContent(InputStream stream, String expected) throws IOException {
+        StringBuilder content = new StringBuilder();
+        byte[] buffer = new byte[8192];
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!content.toString().contains(expected) && System.currentTimeMillis() < deadline) {
+            int n = stream.read(buffer);
+            if (n < 0) {
+                break;
+            }
+            content.append(new String(buffer, 0, n, StandardCharsets.UTF_8));
+        }
+        return content.toString();
+    }
+
+    @Test
+    @DisplayName("实时推送 - 按级别和设备过滤")
+    void testStream_Filtered() throws Exception {
+        try (InputStream stream = subscribe("level=WARN&deviceId=tail-device")) {
+            reportLog("tail-device", "INFO", "Tail", "info should be filtered");
+            reportLog("other-device", "ERROR", "Tail", "other device should be filtered");
+            reportLog("tail-device", "ERROR", "Tail", "error should be streamed");
+
+            String content = awaitContent(stream, "error should be streamed");
+            assertTrue(content.contains("event:log"));
+            assertTrue(content.contains("error should be streamed"));
+            assertFalse(content.contains("info should be filtered"));
+            assertFalse(content.contains("other device should be filtered"));
+        }
+    }
+
+    @Test
+    @DisplayName("实时推送 - 按标签过滤")
+    void testStream_ByTag() throws Exception {
+        try (InputStream stream = subscribe("tag=Wanted")) {
+            reportLog(null, "DEBUG", "Other", "unwanted tag");
+            reportLog(null, "DEBUG", "Wanted", "wanted tag");
+
+            String content = awaitContent(stream, "wanted tag");
+            assertTrue(content.contains("\"message\":\"wanted tag\""));
+            assertFalse(content.contains("unwanted tag"));
+        }
+    }
+
+    @Test
+    @DisplayName("实时推送 - 无效级别")
+    void testStream_InvalidLevel() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity("/api/data/log/stream?level=LOUD", String.class).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("慢订阅者 - 不读取的连接超过写出期限后断开，其他订阅者照常收到")
+    void testStream_StalledSubscriberDisconnected() throws Exception {
+        long stalledBefore = broadcaster.getStalledCount();
+        String message = "x".repeat(4000);
+
+        try (Socket stalled = new Socket();
+             InputStream healthy = subscribe("tag=Healthy")) {
+            stalled.setReceiveBufferSize(4096);
+            stalled.connect(new InetSocketAddress("localhost", port));
+            OutputStream out = stalled.getOutputStream();
+            out.write(("GET /api/data/log/stream?tag=Flood HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            // 持续灌入日志直到不读取的连接被判定停滞
+            long deadline = System.currentTimeMillis() + 20_000;
+            int i = 0;
+            while (broadcaster.getStalledCount() == stalledBefore && System.currentTimeMillis() < deadline) {
+                for (int j = 0; j < 64; j++) {
+                    broadcaster.publish("flood", "INFO", "Flood", message + i++, null, 1);
+                }
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+            assertTrue(broadcaster.getStalledCount() > stalledBefore, "stalled subscriber was not disconnected");
+
+            broadcaster.publish("healthy", "INFO", "Healthy", "still streaming", null, 1);
+            assertTrue(awaitContent(healthy, "still streaming").contains("still streaming"));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.delta;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("差量编码和还原测试")
+class DeltaEncoderTest {
+
+    private static final int BLOCK = 1024;
+
+    @TempDir
+    Path dir;
+
+    private final Random random = new Random(42);
+
+    @Test
+    @DisplayName("文件未变 - 全部为复制指令，不发送新内容")
+    void testUnchangedFileSendsNoLiteral() throws IOException {
+        byte[] data = randomBytes(1 << 20);
+
+        Delta delta = roundTrip(data, data);
+
+        assertEquals(0, delta.literalBytes);
+        assertEquals(data.length, delta.copiedBytes);
+        assertTrue(delta.bytes.length < 100, "delta size " + delta.bytes.length);
+    }
+
+    @Test
+    @DisplayName("修改少量字节 - 只发送所在的块，差量不到文件的 1%")
+    void testSmallEditsSendOnlyChangedBlocks() throws IOException {
+        byte[] basis = randomBytes(1 << 20);
+        byte[] target = basis.clone();
+        target[10] ^= 1;
+        target[500_000] ^= 1;
+        target[target.length - 1] ^= 1;
+
+        Delta delta = roundTrip(basis, target);
+
+        assertEquals(3L * BLOCK, delta.literalBytes);
+        assertTrue(delta.bytes.length < target.length / 100, "delta size " + delta.bytes.length);
+    }
+
+    @Test
+    @DisplayName("中间插入数据 - 插入点之后的块仍能按偏移匹配")
+    void testInsertionShiftsRemainingBlocks() throws IOException {
+        byte[] basis = randomBytes(256 * 1024);
+        byte[] insert = randomBytes(37);
+        byte[] target = new byte[basis.length + insert.length];
+        System.arraycopy(basis, 0, target, 0, 100_000);
+        System.arraycopy(insert, 0, target, 100_000, insert.length);
+        System.arraycopy(basis, 100_000, target, 100_000 + insert.length, basis.length - 100_000);
+
+        Delta delta = roundTrip(basis, target);
+
+        assertTrue(delta.literalBytes <= BLOCK + insert.length, "literal " + delta.literalBytes);
+        assertTrue(delta.copiedBytes >= basis.length - BLOCK, "copied " + delta.copiedBytes);
+    }
+
+    @Test
+    @DisplayName("长度不是块大小整数倍 - 末尾短块也能复制")
+    void testShortTailBlockIsCopied() throws IOException {
+        byte[] basis = randomBytes(10 * BLOCK + 123);
+        byte[] target = new byte[basis.length + 50];
+        System.arraycopy(basis, 0, target, 50, basis.length);
+        System.arraycopy(randomBytes(50), 0, target, 0, 50);
+
+        Delta delta = roundTrip(basis, target);
+
+        assertEquals(50, delta.literalBytes);
+        assertEquals(basis.length, delta.copiedBytes);
+    }
+
+    @Test
+    @DisplayName("空文件和内容完全不同 - 正确还原")
+    void testEmptyAndUnrelatedFiles() throws IOException {
+        byte[] data = randomBytes(5000);
+
+        assertEquals(data.length, roundTrip(new byte[0], data).literalBytes);
+        assertEquals(0, roundTrip(data, new byte[0]).copiedBytes);
+        assertEquals(data.length, roundTrip(randomBytes(8000), data).literalBytes);
+    }
+
+    @Test
+    @DisplayName("签名序列化 - 写出后读回相同，块数超限时拒绝")
+    void testSignatureRoundTrip() throws IOException {
+        byte[] data = randomBytes(10 * BLOCK + 1);
+        BlockSignature signature = signature(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        signature.write(out);
+        assertEquals(signature.encodedLength(), out.size());
+
+        BlockSignature read = BlockSignature.read(new ByteArrayInputStream(out.toByteArray()), 100);
+        assertEquals(signature.getBlockCount(), read.getBlockCount());
+        assertEquals(signature.getFileSize(), read.getFileSize());
+        for (int i = 0; i < read.getBlockCount(); i++) {
+            assertEquals(signature.weak(i), read.weak(i));
+            assertTrue(read.strongEquals(i, signature, i));
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> BlockSignature.read(new ByteArrayInputStream(out.toByteArray()), 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> BlockSignature.read(new ByteArrayInputStream(new byte[]{'n', 'o', 'p', 'e'}), 5));
+    }
+
+    @Test
+    @DisplayName("差量被篡改 - 还原时校验失败")
+    void testCorruptedDeltaIsRejected() throws IOException {
+        byte[] basis = randomBytes(8 * BLOCK);
+        byte[] target = basis.clone();
+        target[3000] ^= 1;
+        byte[] bytes = encode(basis, target).bytes;
+        // 改动头部的 SHA-256，指令和长度不变
+        bytes[17] ^= 1;
+
+        Path basisFile = Files.write(dir.resolve("basis-corrupt"), basis);
+        try (SeekableByteChannel channel = Files.newByteChannel(basisFile)) {
+            assertThrows(IOException.class,
+                    () -> DeltaPatcher.apply(channel, new ByteArrayInputStream(bytes), new ByteArrayOutputStream()));
+        }
+    }
+
+    private record Delta(byte[] bytes, long copiedBytes, long literalBytes) {
+    }
+
+    private Delta roundTrip(byte[] basis, byte[] target) throws IOException {
+        Delta delta = encode(basis, target);
+        Path basisFile = Files.write(dir.resolve("basis-" + System.nanoTime()), basis);
+        ByteArrayOutputStream rebuilt = new ByteArrayOutputStream();
+        try (SeekableByteChannel channel = Files.newByteChannel(basisFile)) {
+            assertEquals(target.length, DeltaPatcher.apply(channel, new ByteArrayInputStream(delta.bytes), rebuilt));
+        }
+        assertArrayEquals(target, rebuilt.toByteArray());
+        assertEquals(target.length, delta.copiedBytes + delta.literalBytes);
+        return delta;
+    }
+
+    private Delta encode(byte[] basis, byte[] target) throws IOException {
+        BlockSignature targetSignature = signature(target);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DeltaWriter writer = new DeltaWriter(out, signature(basis), target.length, targetSignature.getFileDigest());
+        new DeltaEncoder(signature(basis)).encode(targetSignature,
+                position -> new ByteArrayInputStream(target, (int) position, target.length - (int) position), writer);
+        return new Delta(out.toByteArray(), writer.getCopiedBytes(), writer.getLiteralBytes());
+    }
+
+    private static BlockSignature signature(byte[] data) throws IOException {
+        return BlockSignature.compute(new ByteArrayInputStream(data), data.length, BLOCK,
+                BlockSignature.MAX_STRONG_LENGTH);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.delta;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 客户端持有旧版本时只下载差量，签名按文件版本缓存
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "harmony.storage.dir=target/delta-test-uploads",
+        "harmony.changes.watch=false",
+        "harmony.rate-limit.enabled=false"
+})
+@DisplayName("差量下载接口测试")
+class DeltaEndpointTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    private static final Path UPLOADS = Paths.get("target/delta-test-uploads");
+    private static final int BLOCK = 4096;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private DeltaService deltas;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("服务端文件修改后 - 差量还原出新文件，响应不到文件的 1%")
+    void testDeltaRebuildsUpdatedFile() throws IOException {
+        String name = "delta-" + System.nanoTime() + ".bin";
+        byte[] old = new byte[2 << 20];
+        new Random(7).nextBytes(old);
+        byte[] current = old.clone();
+        current[123_456] ^= 1;
+        current[1_500_000] ^= 1;
+        Files.createDirectories(UPLOADS);
+        Files.write(UPLOADS.resolve(name), current);
+
+        ResponseEntity<byte[]> response = delta(name, signature(old));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        byte[] body = response.getBody();
+        assertNotNull(body);
+        assertTrue(body.length < current.length / 100, "delta size " + body.length);
+
+        Path basis = Files.write(dir.resolve("old.bin"), old);
+        ByteArrayOutputStream rebuilt = new ByteArrayOutputStream();
+        try (SeekableByteChannel channel = Files.newByteChannel(basis)) {
+            DeltaPatcher.apply(channel, new ByteArrayInputStream(body), rebuilt);
+        }
+        assertArrayEquals(current, rebuilt.toByteArray());
+    }
+
+    @Test
+    @DisplayName("服务端签名 - 同一版本第二次请求命中缓存，文件变化后重新计算")
+    void testServerSignatureIsCachedPerVersion() throws IOException {
+        String name = "signature-" + System.nanoTime() + ".bin";
+        byte[] content = new byte[100_000];
+        new Random(8).nextBytes(content);
+        Path file = UPLOADS.resolve(name);
+        Files.createDirectories(UPLOADS);
+        Files.write(file, content);
+
+        long misses = deltas.getCacheMisses();
+        byte[] first = getSignature(name);
+        long hits = deltas.getCacheHits();
+        byte[] second = getSignature(name);
+        assertArrayEquals(first, second);
+        assertEquals(misses + 1, deltas.getCacheMisses());
+        assertEquals(hits + 1, deltas.getCacheHits());
+
+        BlockSignature parsed = BlockSignature.read(new ByteArrayInputStream(first), 1000);
+        assertEquals(content.length, parsed.getFileSize());
+        assertEquals(BLOCK, parsed.getBlockSize());
+
+        Files.write(file, new byte[50_000]);
+        BlockSignature changed = BlockSignature.read(new ByteArrayInputStream(getSignature(name)), 1000);
+        assertEquals(50_000, changed.getFileSize());
+        assertEquals(misses + 2, deltas.getCacheMisses());
+    }
+
+    @Test
+    @DisplayName("异常请求 - 签名格式错误 400，文件不存在 404，越出上传目录 403")
+    void testInvalidRequests() throws IOException {
+        String name = "invalid-" + System.nanoTime() + ".bin";
+        Files.createDirectories(UPLOADS);
+        Files.write(UPLOADS.resolve(name), new byte[1000]);
+
+        assertEquals(HttpStatus.BAD_REQUEST, delta(name, new byte[]{1, 2, 3}).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, delta("missing-" + name, signature(new byte[10])).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, delta("../pom.xml", signature(new byte[10])).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(
+                "/api/file/delta/signature?path=" + name + "&blockSize=7", byte[].class).getStatusCode());
+    }
+
+    private ResponseEntity<byte[]> delta(String path, byte[] signature) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        return restTemplate.exchange("/api/file/delta?path=" + path, HttpMethod.POST,
+                new HttpEntity<>(signature, headers), byte[].class);
+    }
+
+    private byte[] getSignature(String path) {
+        ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                "/api/file/delta/signature?path=" + path + "&blockSize=" + BLOCK, byte[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    private static byte[] signature(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BlockSignature.compute(new ByteArrayInputStream(data), data.length, BLOCK, BlockSignature.MAX_STRONG_LENGTH)
+                .write(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.delta;
+
+import org.example.changes.ChangeJournal;
+import org.example.changes.ChangeProperties;
+import org.example.storage.MemoryStorageBackend;
+import org.example.storage.StorageWriter;
+import org.example.storage.StoredObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("服务端签名块数限制测试")
+class DeltaServiceTest {
+
+    private final MemoryStorageBackend backend = new MemoryStorageBackend();
+    private ChangeJournal journal;
+    private DeltaService deltas;
+
+    @BeforeEach
+    void setUp() {
+        DeltaProperties properties = new DeltaProperties();
+        properties.setBlockSize(DataSize.ofBytes(1024));
+        properties.setMaxBlocks(16);
+        journal = new ChangeJournal(new ChangeProperties());
+        deltas = new DeltaService(properties, backend, journal);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deltas.shutdown();
+        journal.shutdown();
+    }
+
+    private StoredObject write(String key, int size) throws IOException {
+        try (StorageWriter out = backend.put(key)) {
+            out.write(new byte[size]);
+            out.commit();
+        }
+        return backend.stat(key);
+    }
+
+    @Test
+    @DisplayName("默认块大小 - 块数超过上限时按 2 的倍数放大")
+    void testDefaultBlockSizeGrows() throws IOException {
+        StoredObject small = write("small.bin", 10_000);
+        assertEquals(1024, deltas.blockSizeFor(small));
+        assertEquals(1024, deltas.signature(small, null).getBlockSize());
+
+        StoredObject large = write("large.bin", 60_000);
+        assertEquals(4096, deltas.blockSizeFor(large));
+        BlockSignature signature = deltas.signature(large, null);
+        assertEquals(4096, signature.getBlockSize());
+        assertEquals(60_000, signature.getFileSize());
+    }
+
+    @Test
+    @DisplayName("显式块大小 - 低于 文件大小 / maxBlocks 时拒绝，不计算也不缓存")
+    void testSmallBlockSizeRejected() throws IOException {
+        StoredObject large = write("large.bin", 60_000);
+        long misses = deltas.getCacheMisses();
+
+        assertThrows(IllegalArgumentException.class, () -> deltas.signature(large, 1024));
+        assertThrows(IllegalArgumentException.class, () -> deltas.requireBlockSize(large, 512));
+        assertEquals(misses, deltas.getCacheMisses());
+        assertEquals(0, deltas.getCachedBytes());
+
+        deltas.requireBlockSize(large, 3750);
+        assertEquals(3750, deltas.signature(large, 3750).getBlockSize());
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ErrorTracker 错误指纹测试")
+class ErrorTrackerTest {
+
+    private static ErrorTracker tracker(long windowMillis) {
+        ErrorTrackingProperties properties = new ErrorTrackingProperties();
+        properties.setWindowMillis(windowMillis);
+        return new ErrorTracker(properties);
+    }
+
+    private static RuntimeException failAt(String message) {
+        return new IllegalStateException(message);
+    }
+
+    /**
+     * 指纹包含调用栈，重复的异常需从同一调用位置产生
+     */
+    private static RuntimeException[] repeated(int count, String message) {
+        RuntimeException[] errors = new RuntimeException[count];
+        for (int i = 0; i < count; i++) {
+            errors[i] = failAt(message.replace("{}", Integer.toString(i)));
+        }
+        return errors;
+    }
+
+    private static RuntimeException failElsewhere() {
+        return new IllegalStateException("same type, different site");
+    }
+
+    @Test
+    @DisplayName("指纹 - 同一抛出位置相同，与消息无关；不同位置或根因不同")
+    void testFingerprint() {
+        RuntimeException[] errors = repeated(2, "device {} failed");
+        long first = ErrorTracker.fingerprint(errors[0], 5);
+        long second = ErrorTracker.fingerprint(errors[1], 5);
+        long elsewhere = ErrorTracker.fingerprint(failElsewhere(), 5);
+
+        assertEquals(first, second);
+        assertNotEquals(first, elsewhere);
+        assertNotEquals(ErrorTracker.fingerprint(wrap(new IOException("disk")), 5),
+                ErrorTracker.fingerprint(wrap(new RuntimeException("bug")), 5));
+    }
+
+    private static RuntimeException wrap(Exception cause) {
+        return new UncheckedIOException(new IOException(cause));
+    }
+
+    @Test
+    @DisplayName("窗口内 - 只有第一次输出堆栈，其余计数")
+    void testTraceRenderedOncePerWindow() {
+        ErrorTracker tracker = tracker(60_000);
+        RuntimeException[] errors = repeated(4, "boom");
+        ErrorTracker.Occurrence first = tracker.record(errors[0], 1_000);
+        ErrorTracker.Occurrence second = tracker.record(errors[1], 2_000);
+        ErrorTracker.Occurrence third = tracker.record(errors[2], 3_000);
+
+        assertTrue(first.renderTrace());
+        assertFalse(second.renderTrace());
+        assertFalse(third.renderTrace());
+        assertEquals(first.fingerprint(), third.fingerprint());
+        assertNotEquals(first.errorId(), second.errorId());
+        assertTrue(second.errorId().startsWith(first.fingerprint().substring(0, 8) + "-"));
+
+        ErrorTracker.Occurrence nextWindow = tracker.record(errors[3], 61_000);
+        assertTrue(nextWindow.renderTrace());
+        assertEquals(2, nextWindow.suppressed());
+
+        assertEquals(1, tracker.getFingerprintCount());
+        assertEquals(4, tracker.getTotalCount());
+        ErrorStats stats = tracker.stats().get(0);
+        assertEquals(4, stats.getCount());
+        assertEquals(IllegalStateException.class.getName(), stats.getType());
+        assertEquals("boom", stats.getMessage());
+        assertEquals(nextWindow.errorId(), stats.getLastErrorId());
+    }
+
+    @Test
+    @DisplayName("指纹表已满 - 淘汰最久未出现的指纹，新指纹首次出现仍输出堆栈")
+    void testMaxFingerprints() {
+        ErrorTrackingProperties properties = new ErrorTrackingProperties();
+        properties.setMaxFingerprints(1);
+        ErrorTracker tracker = new ErrorTracker(properties);
+
+        assertTrue(tracker.record(failAt("a"), 0).renderTrace());
+        assertTrue(tracker.record(failElsewhere(), 0).renderTrace());
+        assertEquals(1, tracker.getFingerprintCount());
+        assertEquals(1, tracker.getEvictedCount());
+        assertEquals(2, tracker.getTotalCount());
+    }
+
+    @Test
+    @DisplayName("指纹表已满 - 先清理空闲指纹，活跃指纹保留")
+    void testEvictIdleBeforeActive() {
+        ErrorTrackingProperties properties = new ErrorTrackingProperties();
+        properties.setMaxFingerprints(2);
+        properties.setWindowMillis(1000);
+        ErrorTracker tracker = new ErrorTracker(properties);
+
+        RuntimeException[] active = repeated(3, "active {}");
+        tracker.record(active[0], 0);
+        tracker.record(failElsewhere(), 0);
+        tracker.record(active[1], 1500);
+
+        // failElsewhere 已空闲超过一个窗口，被清理；active 仍在窗口内，不再输出堆栈
+        assertTrue(tracker.record(new IllegalArgumentException("new"), 1600).renderTrace());
+        assertEquals(1, tracker.getEvictedCount());
+        assertEquals(2, tracker.getFingerprintCount());
+        assertFalse(tracker.record(active[2], 1700).renderTrace());
+        assertTrue(tracker.stats().stream().noneMatch(stats -> "same type, different site".equals(stats.getMessage())));
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.exception;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("GlobalExceptionHandler 500 错误测试")
+class GlobalExceptionHandlerTest {
+
+    private ErrorTracker tracker;
+    private MockMvc mockMvc;
+
+    @RestController
+    static class FailingController {
+        @GetMapping("/fail")
+        String fail() {
+            throw new IllegalStateException("storage offline");
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        tracker = new ErrorTracker(new ErrorTrackingProperties());
+        mockMvc = MockMvcBuilders.standaloneSetup(new FailingController())
+                .setControllerAdvice(new GlobalExceptionHandler(tracker))
+                .build();
+    }
+
+    @Test
+    @DisplayName("重复的 500 - 响应只带错误编号，按指纹计数")
+    void testServerError_CompactResponse() throws Exception {
+        Set<String> errorIds = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            MvcResult result = mockMvc.perform(get("/fail"))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.status").value(500))
+                    .andExpect(jsonPath("$.errorId").exists())
+                    .andReturn();
+            String body = result.getResponse().getContentAsString();
+            assertFalse(body.contains("\\tat "), "stack trace leaked: " + body);
+            errorIds.add(com.jayway.jsonpath.JsonPath.read(body, "$.errorId"));
+        }
+
+        assertEquals(3, errorIds.size());
+        assertEquals(1, tracker.getFingerprintCount());
+        assertEquals(3, tracker.stats().get(0).getCount());
+        assertTrue(tracker.stats().get(0).getLocation().contains("FailingController.fail"));
+    }
+}
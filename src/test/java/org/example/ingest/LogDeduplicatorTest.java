@@ -0,0 +1,183 @@
+package org.example.ingest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.ingest.LogDeduplicator.Decision.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LogDeduplicator 日志去重与采样测试")
+class LogDeduplicatorTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private LogDedupProperties properties;
+    private LogDeduplicator deduplicator;
+    private List<LogDeduplicator.Summary> summaries;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LogDedupProperties();
+        properties.setWindowMillis(10_000);
+        properties.setDevicePerSecond(10);
+        deduplicator = new LogDeduplicator(properties);
+        summaries = new ArrayList<>();
+        deduplicator.setSink(summaries::add);
+    }
+
+    /**
+     * 不含数字的唯一单词，保证模板各不相同
+     */
+    private static String word(int n) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append((char) ('g' + n % 20));
+            n /= 20;
+        } while (n > 0);
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("模板规范化 - 数字、地址、端口替换为占位符")
+    void testTemplate() {
+        assertEquals("Connection to # timed out after # ms (attempt # of #)",
+                LogFingerprint.template("Connection to 10.0.3.17:443 timed out after 30000 ms (attempt 3 of 5)"));
+        assertEquals("Bad pointer # in worker#", LogFingerprint.template("Bad pointer 0x7ffd1a2b in worker12"));
+        assertEquals(LogFingerprint.of("d", "ERROR", "Net", "timeout after 10 ms"),
+                LogFingerprint.of("d", "ERROR", "Net", "timeout after 2500 ms"));
+        assertNotEquals(LogFingerprint.of("d", "ERROR", "Net", "timeout"),
+                LogFingerprint.of("d", "ERROR", "Db", "timeout"));
+    }
+
+    @Test
+    @DisplayName("窗口内重复 - 合并为一条带次数的记录")
+    void testCollapseWithinWindow() {
+        assertEquals(EMIT, deduplicator.admit("dev-1", "INFO", "Crash", "restart #1", null, T0));
+        for (int i = 2; i <= 100; i++) {
+            assertEquals(COLLAPSED, deduplicator.admit("dev-1", "INFO", "Crash", "restart #" + i, null, T0 + i));
+        }
+
+        deduplicator.flush(T0 + 5_000);
+        assertTrue(summaries.isEmpty(), "window still open");
+
+        deduplicator.flush(T0 + 10_000);
+        assertEquals(1, summaries.size());
+        LogDeduplicator.Summary summary = summaries.get(0);
+        assertEquals(99, summary.count());
+        assertEquals("restart #1", summary.message());
+        assertEquals("dev-1", summary.deviceId());
+
+        // 窗口结束后重新开始
+        assertEquals(EMIT, deduplicator.admit("dev-1", "INFO", "Crash", "restart #101", null, T0 + 10_001));
+    }
+
+    @Test
+    @DisplayName("窗口过期后再次出现 - 先刷出上一窗口的合并记录")
+    void testExpiredWindowFlushedOnNextOccurrence() {
+        deduplicator.admit("dev-1", "WARN", "Net", "retry 1", null, T0);
+        deduplicator.admit("dev-1", "WARN", "Net", "retry 2", null, T0 + 1);
+
+        assertEquals(EMIT, deduplicator.admit("dev-1", "WARN", "Net", "retry 3", null, T0 + 20_000));
+        assertEquals(1, summaries.size());
+        assertEquals(1, summaries.get(0).count());
+    }
+
+    @Test
+    @DisplayName("不同设备、标签分别去重")
+    void testSeparateFingerprints() {
+        assertEquals(EMIT, deduplicator.admit("dev-1", "INFO", "A", "same", null, T0));
+        assertEquals(EMIT, deduplicator.admit("dev-2", "INFO", "A", "same", null, T0));
+        assertEquals(EMIT, deduplicator.admit("dev-1", "INFO", "B", "same", null, T0));
+        assertEquals(COLLAPSED, deduplicator.admit("dev-1", "INFO", "A", "same", null, T0));
+    }
+
+    @Test
+    @DisplayName("设备超速 - 自适应采样并汇总丢弃数")
+    void testAdaptiveSampling() {
+        int emitted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (deduplicator.admit("noisy", "INFO", "Spam", "unique message " + word(i), null, T0 + i) == EMIT) {
+                emitted++;
+            }
+        }
+        assertEquals(10, emitted);
+        assertEquals(990, deduplicator.getSampledCount());
+
+        deduplicator.flush(T0 + 1000);
+        LogDeduplicator.Summary summary = summaries.stream()
+                .filter(s -> LogDeduplicator.SAMPLER_TAG.equals(s.tag()))
+                .findFirst().orElseThrow();
+        assertEquals("noisy", summary.deviceId());
+        assertTrue(summary.message().contains("990"));
+
+        // 下一秒按上一秒的速率均匀采样，保留的日志分布在整秒内
+        List<Integer> keptAt = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            if (deduplicator.admit("noisy", "INFO", "Spam", "next message " + word(i), null, T0 + 1000 + i) == EMIT) {
+                keptAt.add(i);
+            }
+        }
+        assertEquals(10, keptAt.size());
+        assertTrue(keptAt.get(keptAt.size() - 1) > 900);
+    }
+
+    @Test
+    @DisplayName("ERROR 日志 - 超速也不采样")
+    void testErrorsNeverSampled() {
+        for (int i = 0; i < 500; i++) {
+            assertEquals(EMIT, deduplicator.admit("noisy", "ERROR", "Crash", "distinct failure " + word(i),
+                    null, T0 + i));
+        }
+        assertEquals(0, deduplicator.getSampledCount());
+    }
+
+    @Test
+    @DisplayName("ERROR 日志 - 只合并原文相同的消息，编号不同的错误各自保留")
+    void testErrorsCollapseOnlyExactRepeats() {
+        assertEquals(EMIT, deduplicator.admit("dev-1", "ERROR", "Db", "deadlock on row 1001", null, T0));
+        assertEquals(EMIT, deduplicator.admit("dev-1", "ERROR", "Db", "deadlock on row 2002", null, T0 + 1));
+        assertEquals(COLLAPSED, deduplicator.admit("dev-1", "ERROR", "Db", "deadlock on row 1001", null, T0 + 2));
+        assertEquals(COLLAPSED, deduplicator.admit("dev-1", "ERROR", "Db", "deadlock on row 2002", null, T0 + 3));
+
+        deduplicator.flush(T0 + 20_000);
+        assertEquals(List.of("deadlock on row 1001", "deadlock on row 2002"),
+                summaries.stream().map(LogDeduplicator.Summary::message).sorted().toList());
+    }
+
+    @Test
+    @DisplayName("指纹碰撞 - 模板不同的日志不合并，已有窗口不受影响")
+    void testFingerprintCollision() {
+        deduplicator = new LogDeduplicator(properties) {
+            @Override
+            long fingerprint(String deviceId, String level, String tag, String message, boolean exact) {
+                return 42;
+            }
+        };
+        deduplicator.setSink(summaries::add);
+
+        assertEquals(EMIT, deduplicator.admit("dev-1", "INFO", "A", "disk full", null, T0));
+        assertEquals(EMIT, deduplicator.admit("dev-1", "INFO", "A", "link down", null, T0 + 1));
+        assertEquals(EMIT, deduplicator.admit("dev-2", "INFO", "A", "disk full", null, T0 + 2));
+        assertEquals(EMIT, deduplicator.admit("dev-1", "ERROR", "A", "disk full", null, T0 + 3));
+        assertEquals(COLLAPSED, deduplicator.admit("dev-1", "INFO", "A", "disk full", null, T0 + 4));
+
+        deduplicator.flush(T0 + 10_000);
+        assertEquals(1, summaries.size());
+        assertEquals("disk full", summaries.get(0).message());
+        assertTrue(LogFingerprint.sameTemplate("retry 3 of 5", "retry 10 of 20"));
+        assertFalse(LogFingerprint.sameTemplate("retry 3 of 5", "retry 3 of 5 later"));
+    }
+
+    @Test
+    @DisplayName("关闭去重 - 全部放行")
+    void testDisabled() {
+        properties.setEnabled(false);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(EMIT, deduplicator.admit("dev-1", "INFO", "A", "same", null, T0));
+        }
+    }
+}
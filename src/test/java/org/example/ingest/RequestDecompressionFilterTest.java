@@ -0,0 +1,178 @@
+package org.example.ingest;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RequestDecompressionFilter 请求体解压测试")
+class RequestDecompressionFilterTest {
+
+    private static final long LIMIT = 1024;
+
+    private final RequestDecompressionFilter filter = new RequestDecompressionFilter(LIMIT);
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * 经过过滤器后下游看到的请求
+     */
+    private HttpServletRequest filtered(HttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return (HttpServletRequest) chain.getRequest();
+    }
+
+    private static MockHttpServletRequest gzipRequest(byte[] body) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/data/report");
+        request.addHeader("Content-Encoding", "gzip");
+        request.setContent(gzip(body));
+        return request;
+    }
+
+    @Test
+    @DisplayName("阻塞读取 - 解压并去掉编码头")
+    void testBlockingRead() throws Exception {
+        byte[] body = "{\"battery\":80}".getBytes(StandardCharsets.UTF_8);
+        HttpServletRequest request = filtered(gzipRequest(body));
+
+        assertNull(request.getHeader("Content-Encoding"));
+        assertEquals(-1, request.getContentLengthLong());
+        assertArrayEquals(body, request.getInputStream().readAllBytes());
+    }
+
+    @Test
+    @DisplayName("压缩炸弹 - 很小的压缩体解压超过上限时拒绝")
+    void testInflationLimit() throws Exception {
+        byte[] bomb = new byte[(int) LIMIT * 64];
+        MockHttpServletRequest raw = gzipRequest(bomb);
+        assertTrue(raw.getContentAsByteArray().length < LIMIT);
+
+        ServletInputStream in = filtered(raw).getInputStream();
+        IOException e = assertThrows(IOException.class, in::readAllBytes);
+        assertTrue(e.getMessage().contains("exceeds " + LIMIT));
+    }
+
+    @Test
+    @DisplayName("异步读取 - 收齐压缩体后解压交给 ReadListener")
+    void testAsyncRead() throws Exception {
+        byte[] body = "{\"battery\":80}".getBytes(StandardCharsets.UTF_8);
+        HttpServletRequest request = filtered(new AsyncRequest(gzipRequest(body)));
+
+        ServletInputStream in = request.getInputStream();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        AtomicReference<String> events = new AtomicReference<>("");
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[4];
+                int n;
+                while (in.isReady() && (n = in.read(buffer)) >= 0) {
+                    received.write(buffer, 0, n);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.set("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.set("error: " + t);
+            }
+        });
+
+        assertEquals("done", events.get());
+        assertArrayEquals(body, received.toByteArray());
+    }
+
+    /**
+     * 模拟容器的非阻塞输入流：每次只提供一小段数据，读完当前段后 isReady() 为 false
+     */
+    private static final class AsyncRequest extends HttpServletRequestWrapper {
+
+        private final byte[] content;
+
+        AsyncRequest(ServletRequest request) {
+            super((HttpServletRequest) request);
+            this.content = ((MockHttpServletRequest) request).getContentAsByteArray();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new ServletInputStream() {
+                private final ByteArrayInputStream data = new ByteArrayInputStream(content);
+                private int allowance;
+                private ReadListener listener;
+
+                @Override
+                public boolean isFinished() {
+                    return data.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return listener == null || allowance > 0 || isFinished();
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    this.listener = readListener;
+                    try {
+                        while (!isFinished()) {
+                            allowance = 7;
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    if (isFinished()) {
+                        return -1;
+                    }
+                    if (listener == null) {
+                        return data.read(buffer, offset, length);
+                    }
+                    if (allowance <= 0) {
+                        throw new IllegalStateException("read while not ready");
+                    }
+                    int n = data.read(buffer, offset, Math.min(length, allowance));
+                    allowance -= n;
+                    return n;
+                }
+            };
+        }
+    }
+}
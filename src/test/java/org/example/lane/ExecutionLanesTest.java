@@ -0,0 +1,95 @@
+package org.example.lane;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ExecutionLanes 执行通道隔离测试")
+class ExecutionLanesTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExecutionLanes lanes;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (lanes != null) {
+            lanes.shutdown();
+        }
+    }
+
+    private ExecutionLanes lanes(int bulkThreads, int bulkQueue) {
+        LaneProperties properties = new LaneProperties();
+        properties.setBulk(new LaneProperties.Spec(bulkThreads, bulkQueue, -1));
+        lanes = new ExecutionLanes(properties, false);
+        return lanes;
+    }
+
+    private void block(LaneExecutor executor) {
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("bulk 通道占满 - control 通道照常执行")
+    void testSaturatedBulk_DoesNotDelayControl() throws Exception {
+        ExecutionLanes lanes = lanes(2, 4);
+        LaneExecutor bulk = lanes.executor(Lane.BULK);
+        for (int i = 0; i < 6; i++) {
+            block(bulk);
+        }
+
+        CountDownLatch heartbeat = new CountDownLatch(1);
+        lanes.executor(Lane.CONTROL).execute(heartbeat::countDown);
+
+        assertTrue(heartbeat.await(1, TimeUnit.SECONDS));
+        assertEquals(2, bulk.stats().getActive());
+        assertEquals(4, bulk.stats().getQueued());
+    }
+
+    @Test
+    @DisplayName("队列已满 - 拒绝并计数")
+    void testQueueFull_Rejected() {
+        ExecutionLanes lanes = lanes(1, 1);
+        LaneExecutor bulk = lanes.executor(Lane.BULK);
+        block(bulk);
+        block(bulk);
+
+        assertThrows(TaskRejectedException.class, () -> block(bulk));
+
+        LaneStats stats = lanes.stats().get("bulk");
+        assertEquals(3, stats.getSubmitted());
+        assertEquals(1, stats.getRejected());
+        assertEquals(1, stats.getQueueCapacity());
+    }
+
+    @Test
+    @DisplayName("WebAsyncTask 提交 - 计入通道统计")
+    void testSubmit_CountedInStats() throws Exception {
+        ExecutionLanes lanes = lanes(1, 1);
+        LaneExecutor control = lanes.executor(Lane.CONTROL);
+
+        assertEquals("pong", control.submit(() -> "pong").get(1, TimeUnit.SECONDS));
+        assertEquals(1, lanes.stats().get("control").getSubmitted());
+    }
+
+    @Test
+    @DisplayName("提交任务 - 使用通道自身的超时")
+    void testSubmit_UsesLaneTimeout() {
+        ExecutionLanes lanes = lanes(1, 1);
+
+        assertEquals(5_000L, lanes.submit(Lane.CONTROL, () -> "pong").getTimeout());
+        assertEquals(-1L, lanes.submit(Lane.BULK, () -> "file").getTimeout());
+    }
+}
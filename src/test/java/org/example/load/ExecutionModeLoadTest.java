@@ -0,0 +1,334 @@
+package org.example.load;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.App;
+import org.example.lane.ExecutionLanes;
+import org.example.lane.Lane;
+import org.example.lane.LaneExecutor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 平台线程与虚拟线程对比：慢上传占满时 bulk 通道的最大并发上传数和心跳 p99 延迟
+ * 接口都在执行通道中异步处理，两种模式下 Tomcat 工作线程都不被慢上传占住，心跳走独立的 control 通道；
+ * 虚拟线程模式下 bulk 通道按 virtual-threads 放开并发，慢上传不再在通道队列中排队
+ * 默认不运行：mvn test -Dtest=ExecutionModeLoadTest -Dload=true
+ * 排查钉住载体线程时可再加 -DargLine=-Djdk.tracePinnedThreads=short
+ */
+@EnabledIfSystemProperty(named = "load", matches = "true")
+@DisplayName("执行模式负载对比测试")
+class ExecutionModeLoadTest {
+
+    private static final int PLATFORM_WORKERS = 16;
+    private static final int BULK_THREADS = 32;
+    private static final int UPLOADERS = 64;
+    private static final int CHUNKS = 32;
+    private static final int CHUNK_SIZE = 4096;
+    private static final long CHUNK_DELAY_MILLIS = 100;
+    private static final long PROBE_INTERVAL_MILLIS = 10;
+    private static final long PROBE_DURATION_MILLIS = 3000;
+    private static final int WARM_UP_REQUESTS = 500;
+    private static final double HEARTBEAT_P99_LIMIT_MILLIS = 500;
+
+    static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+    static final AtomicInteger PEAK_IN_FLIGHT = new AtomicInteger();
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        for (int i = 0; i < UPLOADERS; i++) {
+            Files.deleteIfExists(Paths.get("uploads", "load-" + i + ".bin"));
+        }
+    }
+
+    @Test
+    @DisplayName("虚拟线程 - 慢上传不阻塞心跳")
+    void compareExecutionModes() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        // 平台线程模式下上传并发受 bulk 通道线程数限制，虚拟线程模式按 virtual-threads 放开
+        assertTrue(platform.peakUploads <= BULK_THREADS, "platform peak uploads " + platform.peakUploads);
+        assertTrue(virtual.peakUploads > platform.peakUploads,
+                "virtual peak uploads " + virtual.peakUploads + " <= platform " + platform.peakUploads);
+        assertTrue(virtual.peakInFlight > PLATFORM_WORKERS, "virtual peak in-flight " + virtual.peakInFlight);
+        assertTrue(platform.peakInFlight > PLATFORM_WORKERS, "platform peak in-flight " + platform.peakInFlight);
+
+        for (Result result : List.of(platform, virtual)) {
+            assertEquals(UPLOADERS, result.uploadsOk, result.mode + " uploads ok");
+            assertTrue(result.p99Millis < HEARTBEAT_P99_LIMIT_MILLIS,
+                    result.mode + " heartbeat p99 " + result.p99Millis + "ms");
+            assertEquals(0, result.inFlightAfter, result.mode + " requests still in flight");
+        }
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        IN_FLIGHT.set(0);
+        PEAK_IN_FLIGHT.set(0);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class, InFlightConfig.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + PLATFORM_WORKERS,
+                        "--harmony.lanes.bulk.threads=" + BULK_THREADS,
+                        "--harmony.lanes.bulk.virtual-threads=" + UPLOADERS * 2,
+                        "--harmony.rate-limit.enabled=false",
+                        "--logging.level.org.example=WARN");
+        ExecutorService uploaders = Executors.newFixedThreadPool(UPLOADERS);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            warmUp(client, port);
+            assertEquals(0, awaitIdle(), "warm-up requests still in flight");
+            PEAK_IN_FLIGHT.set(0);
+
+            // 采样 bulk 通道中同时执行的上传数
+            LaneExecutor bulk = context.getBean(ExecutionLanes.class).executor(Lane.BULK);
+            AtomicInteger peakUploads = new AtomicInteger();
+            sampler.scheduleAtFixedRate(() -> peakUploads.accumulateAndGet(bulk.getActiveCount(), Math::max),
+                    0, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+            List<Future<Boolean>> uploads = new ArrayList<>();
+            for (int i = 0; i < UPLOADERS; i++) {
+                int id = i;
+                uploads.add(uploaders.submit(() -> slowUpload(port, id)));
+            }
+            // 等上传把工作线程占满再开始探测
+            Thread.sleep(300);
+
+            long[] latencies = probeHeartbeats(client, port);
+
+            int ok = 0;
+            for (Future<Boolean> upload : uploads) {
+                if (upload.get(60, TimeUnit.SECONDS)) {
+                    ok++;
+                }
+            }
+            sampler.shutdownNow();
+            Arrays.sort(latencies);
+            return new Result(virtualThreads ? "virtual" : "platform", PEAK_IN_FLIGHT.get(), peakUploads.get(),
+                    percentile(latencies, 0.99), ok, awaitIdle());
+        } finally {
+            sampler.shutdownNow();
+            uploaders.shutdownNow();
+            context.close();
+        }
+    }
+
+    /**
+     * 预热心跳路径，避免两种模式的对比受 JIT 编译先后影响
+     */
+    private void warmUp(HttpClient client, int port) throws Exception {
+        HttpRequest request = heartbeatRequest(URI.create("http://localhost:" + port + "/api/data/heartbeat"));
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    private static HttpRequest heartbeatRequest(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"deviceId\":\"load-probe\",\"version\":\"1.0.0\"}"))
+                .build();
+    }
+
+    /**
+     * 开环探测：按固定间隔发出心跳，不等待上一次返回，延迟从计划发出时间算起
+     */
+    private long[] probeHeartbeats(HttpClient client, int port) throws Exception {
+        URI uri = URI.create("http://localhost:" + port + "/api/data/heartbeat");
+        List<CompletableFuture<Long>> probes = new ArrayList<>();
+        long start = System.nanoTime();
+        for (long offset = 0; offset < PROBE_DURATION_MILLIS; offset += PROBE_INTERVAL_MILLIS) {
+            long scheduled = start + TimeUnit.MILLISECONDS.toNanos(offset);
+            long delay = scheduled - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            probes.add(client.sendAsync(heartbeatRequest(uri), HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> System.nanoTime() - scheduled));
+        }
+
+        long[] latencies = new long[probes.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = probes.get(i).get(60, TimeUnit.SECONDS);
+        }
+        return latencies;
+    }
+
+    /**
+     * 按固定节奏缓慢写出 multipart 请求体，模拟弱网设备上传
+     */
+    private boolean slowUpload(int port, int id) throws IOException, InterruptedException {
+        String boundary = "load-boundary-" + id;
+        byte[] head = ("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"load-" + id + ".bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        long length = head.length + (long) CHUNKS * CHUNK_SIZE + tail.length;
+
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(60_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /api/file/upload HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Content-Type: multipart/form-data; boundary=" + boundary + "\r\n"
+                    + "Content-Length: " + length + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(head);
+            byte[] chunk = new byte[CHUNK_SIZE];
+            Arrays.fill(chunk, (byte) id);
+            for (int i = 0; i < CHUNKS; i++) {
+                out.write(chunk);
+                out.flush();
+                Thread.sleep(CHUNK_DELAY_MILLIS);
+            }
+            out.write(tail);
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            byte[] status = in.readNBytes(12);
+            return new String(status, StandardCharsets.US_ASCII).endsWith("200");
+        }
+    }
+
+    /**
+     * 最后一批响应写出后异步完成回调可能稍晚到达
+     */
+    private static int awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (IN_FLIGHT.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        return IN_FLIGHT.get();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    private record Result(String mode, int peakInFlight, int peakUploads, double p99Millis, int uploadsOk,
+                          int inFlightAfter) {
+    }
+
+    /**
+     * 统计同时处于处理中的请求数，异步请求在完成时才计为结束
+     */
+    @TestConfiguration
+    static class InFlightConfig {
+
+        @Bean
+        FilterRegistrationBean<OncePerRequestFilter> inFlightFilter() {
+            FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(
+                    new OncePerRequestFilter() {
+                        @Override
+                        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                                        FilterChain chain) throws ServletException, IOException {
+                            PEAK_IN_FLIGHT.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+                            InFlightRequest wrapped = new InFlightRequest(request);
+                            try {
+                                chain.doFilter(wrapped, response);
+                            } finally {
+                                if (!wrapped.async) {
+                                    IN_FLIGHT.decrementAndGet();
+                                }
+                            }
+                        }
+                    });
+            registration.addUrlPatterns("/api/*");
+            return registration;
+        }
+
+        /**
+         * 在异步开始时登记完成回调：此时请求尚未分派到通道，不会错过 onComplete
+         */
+        static class InFlightRequest extends HttpServletRequestWrapper {
+            boolean async;
+
+            InFlightRequest(HttpServletRequest request) {
+                super(request);
+            }
+
+            @Override
+            public AsyncContext startAsync() {
+                return track(super.startAsync());
+            }
+
+            @Override
+            public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+                return track(super.startAsync(request, response));
+            }
+
+            private AsyncContext track(AsyncContext context) {
+                if (!async) {
+                    async = true;
+                    context.addListener(new AsyncListener() {
+                        @Override
+                        public void onComplete(AsyncEvent event) {
+                            IN_FLIGHT.decrementAndGet();
+                        }
+
+                        @Override
+                        public void onTimeout(AsyncEvent event) {
+                        }
+
+                        @Override
+                        public void onError(AsyncEvent event) {
+                        }
+
+                        @Override
+                        public void onStartAsync(AsyncEvent event) {
+                        }
+                    });
+                }
+                return context;
+            }
+        }
+    }
+}
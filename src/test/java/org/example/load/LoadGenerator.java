@@ -0,0 +1,250 @@
+package org.example.load;
+
+import org.example.metrics.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环负载生成器
+ * 到达时间按各接口的速率从固定种子的泊松过程预先生成，发送不等待之前的响应；
+ * 延迟从计划发出时间算起，服务端变慢时排队时间也计入，不会因客户端被拖慢而少发请求
+ */
+final class LoadGenerator {
+
+    private static final int DEVICES = 1000;
+    private static final String BOUNDARY = "----harmony-load-boundary";
+    private static final String[] LEVELS = {"DEBUG", "INFO", "INFO", "INFO", "WARN", "ERROR"};
+
+    enum Endpoint {
+        HEARTBEAT, LOG, REPORT, UPLOAD, DOWNLOAD, LIST
+    }
+
+    /**
+     * 各接口每秒到达数，格式 heartbeat:200,log:100,...
+     */
+    static Map<Endpoint, Double> parseMix(String mix) {
+        Map<Endpoint, Double> rates = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            rates.put(Endpoint.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), Double.parseDouble(parts[1].trim()));
+        }
+        return rates;
+    }
+
+    private final URI base;
+    private final Map<Endpoint, Double> rates;
+    private final long durationNanos;
+    private final long seed;
+    private final byte[] uploadContent;
+    private final String uploadPrefix;
+    private final AtomicLong uploadSequence = new AtomicLong();
+    private final Queue<String> uploadedNames = new ConcurrentLinkedQueue<>();
+    private final String downloadName;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    LoadGenerator(URI base, Map<Endpoint, Double> rates, Duration duration, long seed, int uploadSize,
+                  String downloadName) {
+        this.base = base;
+        this.rates = rates;
+        this.durationNanos = duration.toNanos();
+        this.seed = seed;
+        this.downloadName = downloadName;
+        this.uploadContent = new byte[uploadSize];
+        this.uploadPrefix = "load-upload-" + seed + "-";
+    }
+
+    /**
+     * 本次运行上传过的文件名，每次上传各不相同，供结束后清理
+     */
+    List<String> uploadedNames() {
+        return List.copyOf(uploadedNames);
+    }
+
+    Report run() throws InterruptedException {
+        Arrival[] schedule = schedule();
+        Random random = new Random(seed);
+        Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : rates.keySet()) {
+            stats.put(endpoint, new Stats());
+        }
+        LongAccumulator maxLagNanos = new LongAccumulator(Math::max, 0);
+
+        List<CompletableFuture<?>> pending = new ArrayList<>(schedule.length);
+        long start = System.nanoTime();
+        for (Arrival arrival : schedule) {
+            long scheduled = start + arrival.offsetNanos;
+            long now;
+            while ((now = System.nanoTime()) < scheduled) {
+                LockSupport.parkNanos(scheduled - now);
+            }
+            maxLagNanos.accumulate(now - scheduled);
+
+            Stats endpointStats = stats.get(arrival.endpoint);
+            pending.add(client.sendAsync(request(arrival.endpoint, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long finished = System.nanoTime();
+                        endpointStats.latency.recordNanos(finished - scheduled);
+                        endpointStats.lastCompletion.accumulate(finished);
+                        if (error != null || response.statusCode() / 100 != 2) {
+                            endpointStats.errors.incrementAndGet();
+                        }
+                    }));
+        }
+        long sendEnd = System.nanoTime();
+
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                    .exceptionally(e -> null)
+                    .get(2, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            // 未完成的请求不计入延迟，在报告中体现为完成数少于发出数
+        }
+
+        Map<Endpoint, Report.Row> rows = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> {
+            long sent = Arrays.stream(schedule).filter(a -> a.endpoint == endpoint).count();
+            LatencyHistogram.Snapshot snapshot = endpointStats.latency.snapshot();
+            long elapsed = Math.max(sendEnd, endpointStats.lastCompletion.get()) - start;
+            rows.put(endpoint, new Report.Row(sent, snapshot.getCount(), endpointStats.errors.get(),
+                    snapshot.getCount() / (elapsed / 1e9),
+                    snapshot.valueAtQuantile(0.50) / 1000.0,
+                    snapshot.valueAtQuantile(0.99) / 1000.0,
+                    snapshot.valueAtQuantile(0.999) / 1000.0,
+                    snapshot.getMaxMicros() / 1000.0));
+        });
+        return new Report(rows, maxLagNanos.get() / 1e6);
+    }
+
+    /**
+     * 合并各接口的泊松到达序列，按时间排序
+     */
+    private Arrival[] schedule() {
+        List<Arrival> arrivals = new ArrayList<>();
+        Random random = new Random(seed);
+        rates.forEach((endpoint, rate) -> {
+            if (rate <= 0) {
+                return;
+            }
+            double meanGapNanos = 1e9 / rate;
+            double offset = 0;
+            while (true) {
+                offset += -Math.log(1 - random.nextDouble()) * meanGapNanos;
+                if (offset >= durationNanos) {
+                    break;
+                }
+                arrivals.add(new Arrival((long) offset, endpoint));
+            }
+        });
+        Arrival[] sorted = arrivals.toArray(Arrival[]::new);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.offsetNanos, b.offsetNanos));
+        return sorted;
+    }
+
+    private HttpRequest request(Endpoint endpoint, Random random) {
+        String deviceId = "load-device-" + random.nextInt(DEVICES);
+        long now = System.currentTimeMillis();
+        return switch (endpoint) {
+            case HEARTBEAT -> json("/api/data/heartbeat",
+                    "{\"deviceId\":\"" + deviceId + "\",\"version\":\"2.3.1\",\"timestamp\":" + now + "}");
+            case LOG -> json("/api/data/log",
+                    "{\"deviceId\":\"" + deviceId + "\",\"level\":\"" + LEVELS[random.nextInt(LEVELS.length)]
+                            + "\",\"tag\":\"LoadTest\",\"message\":\"request " + random.nextInt(100)
+                            + " took " + random.nextInt(5000) + " ms\",\"timestamp\":" + now + "}");
+            case REPORT -> json("/api/data/report",
+                    "{\"deviceId\":\"" + deviceId + "\",\"timestamp\":" + now
+                            + ",\"cpu\":" + random.nextInt(100) + ",\"memory\":" + random.nextInt(4096)
+                            + ",\"battery\":" + random.nextInt(100) + "}");
+            case UPLOAD -> upload(deviceId);
+            case DOWNLOAD -> get("/api/file/download/" + downloadName, deviceId);
+            case LIST -> get("/api/file/list", deviceId);
+        };
+    }
+
+    private HttpRequest json(String path, String body) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest get(String path, String deviceId) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(Duration.ofMinutes(1))
+                .header("X-Device-Id", deviceId)
+                .GET()
+                .build();
+    }
+
+    /**
+     * 每次上传使用不同的文件名，避免并发上传互相覆盖同一个文件；文件内容在各次上传间共用
+     */
+    private HttpRequest upload(String deviceId) {
+        String filename = uploadPrefix + uploadSequence.incrementAndGet() + ".bin";
+        uploadedNames.add(filename);
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        return HttpRequest.newBuilder(base.resolve("/api/file/upload"))
+                .timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .header("X-Device-Id", deviceId)
+                .POST(HttpRequest.BodyPublishers.concat(
+                        HttpRequest.BodyPublishers.ofByteArray(head),
+                        HttpRequest.BodyPublishers.ofByteArray(uploadContent),
+                        HttpRequest.BodyPublishers.ofByteArray(tail)))
+                .build();
+    }
+
+    private record Arrival(long offsetNanos, Endpoint endpoint) {
+    }
+
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final LongAccumulator lastCompletion = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    }
+
+    record Report(Map<Endpoint, Row> rows, double maxSendLagMillis) {
+
+        record Row(long sent, long completed, long errors, double throughput,
+                   double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+        }
+
+        void print() {
+            System.out.printf("%n%-10s %8s %9s %7s %10s %10s %10s %10s %10s%n", "endpoint", "sent", "completed",
+                    "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            rows.forEach((endpoint, row) -> System.out.printf("%-10s %8d %9d %7d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    endpoint.name().toLowerCase(Locale.ROOT), row.sent, row.completed, row.errors, row.throughput,
+                    row.p50Millis, row.p99Millis, row.p999Millis, row.maxMillis));
+            System.out.printf("max send lag %.2f ms%n", maxSendLagMillis);
+        }
+    }
+}
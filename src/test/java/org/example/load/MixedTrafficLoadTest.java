@@ -0,0 +1,90 @@
+package org.example.load;
+
+import org.example.App;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 在随机端口启动完整服务，按配置的接口混合和到达速率施加开环负载，输出各接口吞吐和 p50/p99/p999 延迟
+ * 默认不运行：mvn test -Dtest=MixedTrafficLoadTest -Dload=true
+ * 可调参数：
+ * -Dload.mix=heartbeat:200,log:100,report:50,upload:5,download:20,list:10（每秒到达数）
+ * -Dload.duration=10（秒） -Dload.seed=42 -Dload.upload-size=64KB -Dload.download-size=1MB
+ * -Dload.virtual-threads=true
+ */
+@EnabledIfSystemProperty(named = "load", matches = "true")
+@DisplayName("混合流量开环负载测试")
+class MixedTrafficLoadTest {
+
+    private static final String DEFAULT_MIX = "heartbeat:200,log:100,report:50,upload:5,download:20,list:10";
+    private static final String DOWNLOAD_NAME = "load-download.bin";
+
+    @Test
+    @DisplayName("混合流量 - 各接口吞吐与延迟分位数")
+    void mixedTraffic() throws Exception {
+        Map<LoadGenerator.Endpoint, Double> mix = LoadGenerator.parseMix(System.getProperty("load.mix", DEFAULT_MIX));
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 10));
+        long seed = Long.getLong("load.seed", 42);
+        int uploadSize = (int) DataSize.parse(System.getProperty("load.upload-size", "64KB")).toBytes();
+        int downloadSize = (int) DataSize.parse(System.getProperty("load.download-size", "1MB")).toBytes();
+
+        Path downloadFile = Paths.get("uploads", DOWNLOAD_NAME);
+        byte[] content = new byte[downloadSize];
+        new Random(seed).nextBytes(content);
+        Files.createDirectories(downloadFile.getParent());
+        Files.write(downloadFile, content);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + System.getProperty("load.virtual-threads", "true"),
+                "--harmony.rate-limit.enabled=false",
+                "--logging.level.org.example=WARN");
+        List<LoadGenerator> generators = new ArrayList<>();
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI base = URI.create("http://localhost:" + port);
+
+            System.out.printf("%nmix %s, %ds, seed %d, upload %dB, download %dB%n", mix, duration.toSeconds(), seed,
+                    uploadSize, downloadSize);
+            // 短暂预热，避免 JIT 编译计入正式结果
+            LoadGenerator warmUp = new LoadGenerator(base, mix, Duration.ofSeconds(2), seed + 1, uploadSize,
+                    DOWNLOAD_NAME);
+            generators.add(warmUp);
+            warmUp.run();
+            LoadGenerator generator = new LoadGenerator(base, mix, duration, seed, uploadSize, DOWNLOAD_NAME);
+            generators.add(generator);
+            LoadGenerator.Report report = generator.run();
+            report.print();
+
+            report.rows().forEach((endpoint, row) -> {
+                assertEquals(row.sent(), row.completed(), endpoint + " incomplete");
+                assertEquals(0, row.errors(), endpoint + " errors");
+            });
+        } finally {
+            context.close();
+            Files.deleteIfExists(downloadFile);
+            for (LoadGenerator generator : generators) {
+                for (String name : generator.uploadedNames()) {
+                    Files.deleteIfExists(Paths.get("uploads", name));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LatencyHistogram 分桶与分位数测试")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("分桶 - 下界不大于值且相邻桶首尾相接")
+    void testBuckets_Contiguous() {
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS - 1; bucket++) {
+            long lower = LatencyHistogram.lowerBound(bucket);
+            long upper = lower + LatencyHistogram.width(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(lower));
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper - 1));
+            assertEquals(upper, LatencyHistogram.lowerBound(bucket + 1));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("分位数 - 均匀分布相对误差不超过 1/32")
+    void testQuantiles_WithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000, snapshot.getMaxMicros());
+        assertEquals(100_000L * 100_001 / 2, snapshot.getSumMicros());
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            double expected = quantile * 100_000;
+            double actual = snapshot.valueAtQuantile(quantile);
+            assertEquals(expected, actual, expected / 32, "q" + quantile);
+        }
+        assertEquals(100_000, snapshot.valueAtQuantile(1.0));
+    }
+
+    @Test
+    @DisplayName("空直方图 - 分位数为 0")
+    void testEmpty() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.valueAtQuantile(0.99));
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.metrics;
+
+import org.example.controller.DataController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 同步、执行通道和非阻塞下载三类请求都按路由模板记录，/metrics 输出 Prometheus 文本格式
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "harmony.rate-limit.enabled=false")
+@DisplayName("/metrics 指标输出测试")
+class MetricsEndpointTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MetricsRegistry registry;
+
+    private final Path file = Paths.get("uploads", "metrics-test.bin");
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("请求耗时 - 按路由模板和状态码分序列")
+    void testRequestLatency_ByRouteAndStatus() throws Exception {
+        DataController.HeartbeatRequest heartbeat = new DataController.HeartbeatRequest();
+        heartbeat.setDeviceId("device-metrics");
+        long before = registry.requestSnapshot("/api/data/heartbeat", 200).getCount();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HttpStatus.OK,
+                    restTemplate.postForEntity("/api/data/heartbeat", heartbeat, Map.class).getStatusCode());
+        }
+
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[4096]);
+        assertEquals(HttpStatus.OK,
+                restTemplate.getForEntity("/api/file/download/metrics-test.bin", byte[].class).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND,
+                restTemplate.getForEntity("/api/file/download/missing.bin", byte[].class).getStatusCode());
+        restTemplate.getForEntity("/api/file/list", Map.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/metrics", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getHeaders().getContentType().isCompatibleWith(MediaType.TEXT_PLAIN));
+        String body = response.getBody();
+
+        assertTrue(registry.requestSnapshot("/api/data/heartbeat", 200).getCount() >= before + 5);
+        assertTrue(body.contains("# TYPE harmony_http_server_requests_seconds summary"));
+        assertTrue(body.contains(
+                "harmony_http_server_requests_seconds{uri=\"/api/data/heartbeat\",status=\"200\",quantile=\"0.99\"}"));
+        assertTrue(body.contains(
+                "harmony_http_server_requests_seconds_count{uri=\"/api/file/download/{filename}\",status=\"200\"}"));
+        assertTrue(body.contains(
+                "harmony_http_server_requests_seconds_count{uri=\"/api/file/download/{filename}\",status=\"404\"}"));
+        assertTrue(body.contains("harmony_disk_operation_seconds_count{op=\"list\"}"));
+        assertTrue(body.contains("harmony_lane_queue_depth{lane=\"ingest\"}"));
+        assertTrue(body.contains("harmony_cache_hit_ratio{cache=\"log_dedup\"}"));
+        assertTrue(registry.diskOpSnapshot(DiskOp.LIST).getCount() >= 1);
+
+        long downloaded = body.lines()
+                .filter(line -> line.startsWith("harmony_transfer_bytes_total{direction=\"download\"}"))
+                .mapToLong(line -> Long.parseLong(line.substring(line.lastIndexOf(' ') + 1)))
+                .findFirst().orElse(-1);
+        assertTrue(downloaded >= 4096, "download bytes " + downloaded);
+    }
+}
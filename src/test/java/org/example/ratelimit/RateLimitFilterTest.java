@@ -0,0 +1,170 @@
+package org.example.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.example.AsyncMockMvc.perform;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "harmony.rate-limit.trust-device-id=true",
+        "harmony.rate-limit.groups.ingest.requests-per-second=1",
+        "harmony.rate-limit.groups.ingest.request-burst=3",
+        "harmony.rate-limit.groups.ingest.bytes-per-second=1KB",
+        "harmony.rate-limit.groups.ingest.byte-burst=1KB"
+})
+@AutoConfigureMockMvc
+@DisplayName("RateLimitFilter 限流过滤器测试")
+class RateLimitFilterTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private ResultActions heartbeat(String deviceId) throws Exception {
+        return perform(mockMvc, post("/api/data/heartbeat")
+                .header(RateLimitFilter.DEVICE_ID_HEADER, deviceId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"deviceId\":\"" + deviceId + "\"}"));
+    }
+
+    @Test
+    @DisplayName("超过请求数限制 - 返回 429 和 Retry-After")
+    void testRequestRateExceeded() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            heartbeat("burst-device").andExpect(status().isOk());
+        }
+
+        heartbeat("burst-device")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.path").value("/api/data/heartbeat"));
+
+        // 其他设备不受影响
+        heartbeat("quiet-device").andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("超过字节数限制 - 返回 429")
+    void testByteRateExceeded() throws Exception {
+        String body = "{\"deviceId\":\"byte-device\",\"payload\":\"" + "x".repeat(900) + "\"}";
+
+        perform(mockMvc, post("/api/data/report").param("deviceId", "byte-device")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        perform(mockMvc, post("/api/data/report").param("deviceId", "byte-device")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    @DisplayName("其他分组使用独立的限额")
+    void testOtherGroupIndependent() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            perform(mockMvc, get("/api/file/list").header(RateLimitFilter.DEVICE_ID_HEADER, "file-device"))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    @DisplayName("客户端标识 - 未信任设备ID时一律按 IP")
+    void testClientKey_IgnoresUntrustedDeviceId() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/data/report");
+        request.setRemoteAddr("10.0.0.7");
+        request.addHeader(RateLimitFilter.DEVICE_ID_HEADER, "spoofed");
+        request.setQueryString("deviceId=spoofed-too");
+
+        assertEquals("10.0.0.7", RateLimitFilter.clientKey(request, false, false));
+        assertEquals("spoofed", RateLimitFilter.clientKey(request, true, false));
+    }
+
+    @Test
+    @DisplayName("分块请求体 - 按实际读取的字节数记账")
+    void testChunkedBodyCounted() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        RateLimitProperties.Group ingest = properties.getGroups().get("ingest");
+        ingest.setBytesPerSecond(DataSize.ofKilobytes(1));
+        ingest.setByteBurst(DataSize.ofKilobytes(1));
+        RateLimitFilter filter = new RateLimitFilter(properties, new ObjectMapper());
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockFilterChain reader = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException {
+                request.getInputStream().readAllBytes();
+            }
+        };
+        filter.doFilter(chunked(new byte[8192]), first, reader);
+        assertEquals(200, first.getStatus());
+
+        // 8KB 已计入 1KB/s 的字节桶，之后的请求被拒绝
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(chunked(new byte[16]), second, new MockFilterChain());
+        assertEquals(429, second.getStatus());
+        assertTrue(Long.parseLong(second.getHeader("Retry-After")) >= 6);
+    }
+
+    /**
+     * 分块传输、不带 Content-Length 的请求
+     */
+    private static MockHttpServletRequest chunked(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/data/report") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setRemoteAddr("10.0.0.8");
+        request.addHeader("Transfer-Encoding", "chunked");
+        request.setContent(body);
+        return request;
+    }
+
+    @Test
+    @DisplayName("解析查询参数中的设备ID")
+    void testQueryDeviceId() {
+        assertEquals("abc", RateLimitFilter.queryDeviceId("deviceId=abc"));
+        assertEquals("abc", RateLimitFilter.queryDeviceId("level=WARN&deviceId=abc&tag=x"));
+        assertNull(RateLimitFilter.queryDeviceId("mydeviceId=abc"));
+        assertNull(RateLimitFilter.queryDeviceId("deviceId="));
+        assertNull(RateLimitFilter.queryDeviceId(null));
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RateLimiter 令牌桶限流测试")
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long T0 = 1_000 * SECOND;
+
+    @Test
+    @DisplayName("令牌桶 - 突发用尽后按速率惰性补充")
+    void testBucket_BurstThenRefill() {
+        TokenBucket bucket = new TokenBucket(10, 5, T0);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(1, T0));
+        }
+        long wait = bucket.tryAcquire(1, T0);
+        assertEquals(SECOND / 10, wait);
+
+        // 100ms 后补充一个令牌
+        assertEquals(0, bucket.tryAcquire(1, T0 + SECOND / 10));
+        assertTrue(bucket.tryAcquire(1, T0 + SECOND / 10) > 0);
+    }
+
+    @Test
+    @DisplayName("令牌桶 - 超过容量的单次消耗在桶满时放行并记欠账")
+    void testBucket_OversizedCostGoesIntoDebt() {
+        TokenBucket bucket = new TokenBucket(100, 100, T0);
+
+        assertEquals(0, bucket.tryAcquire(300, T0));
+        // 欠 3 秒，需等到桶重新装满才放行下一次
+        assertEquals(3 * SECOND - SECOND + SECOND / 100, bucket.tryAcquire(1, T0));
+        assertTrue(bucket.tryAcquire(300, T0 + 2 * SECOND) > 0);
+        assertEquals(0, bucket.tryAcquire(300, T0 + 3 * SECOND));
+    }
+
+    @Test
+    @DisplayName("限流器 - 不同客户端互不影响")
+    void testLimiter_IsolatesClients() {
+        RateLimiter limiter = new RateLimiter("test", 1, 2, 0, 0, SECOND, 1024);
+
+        assertEquals(0, limiter.tryAcquire("device-a", 0, T0));
+        assertEquals(0, limiter.tryAcquire("device-a", 0, T0));
+        assertTrue(limiter.tryAcquire("device-a", 0, T0) > 0);
+
+        assertEquals(0, limiter.tryAcquire("device-b", 0, T0));
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("限流器 - 字节数限制独立于请求数限制")
+    void testLimiter_ByteRate() {
+        RateLimiter limiter = new RateLimiter("test", 100, 100, 1024, 2048, SECOND, 1024);
+
+        assertEquals(0, limiter.tryAcquire("device", 2048, T0));
+        assertTrue(limiter.tryAcquire("device", 512, T0) > 0);
+        assertEquals(0, limiter.tryAcquire("device", 0, T0));
+        assertEquals(0, limiter.tryAcquire("device", 512, T0 + SECOND));
+    }
+
+    @Test
+    @DisplayName("限流器 - 被字节数拒绝的请求归还请求令牌")
+    void testLimiter_ByteRejectionRefundsRequestToken() {
+        RateLimiter limiter = new RateLimiter("test", 1, 2, 1024, 1024, SECOND, 1024);
+
+        assertEquals(0, limiter.tryAcquire("device", 1024, T0));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("device", 1024, T0) > 0);
+        }
+        // 5 次字节拒绝没有消耗请求额度，突发额度里还剩 1 个请求
+        assertEquals(0, limiter.tryAcquire("device", 0, T0));
+        assertTrue(limiter.tryAcquire("device", 0, T0) > 0);
+    }
+
+    @Test
+    @DisplayName("限流器 - 事后记账的字节数计入欠账")
+    void testLimiter_ChargeAfterRead() {
+        RateLimiter limiter = new RateLimiter("test", 100, 100, 1024, 1024, SECOND, 1024);
+
+        assertEquals(0, limiter.tryAcquire("device", 0, T0));
+        limiter.charge("device", 4096, T0);
+        // 欠 3 秒额度
+        assertTrue(limiter.tryAcquire("device", 1, T0 + 2 * SECOND) > 0);
+        assertEquals(0, limiter.tryAcquire("device", 1, T0 + 4 * SECOND));
+    }
+
+    @Test
+    @DisplayName("限流器 - 回收空闲的桶")
+    void testLimiter_EvictsIdleBuckets() {
+        RateLimiter limiter = new RateLimiter("test", 10, 10, 0, 0, SECOND, 1024);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("device-" + i, 0, T0);
+        }
+        assertEquals(100, limiter.getBucketCount());
+
+        for (int i = 0; i < 16; i++) {
+            limiter.sweep(T0 + 10 * SECOND);
+        }
+        assertEquals(0, limiter.getBucketCount());
+    }
+}
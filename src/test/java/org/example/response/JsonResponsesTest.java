@@ -0,0 +1,53 @@
+package org.example.response;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JsonResponses 预编码响应测试")
+class JsonResponsesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonResponses responses = new JsonResponses(objectMapper);
+
+    @Test
+    @DisplayName("心跳 - 逐位写入的时间戳可被解析")
+    void testHeartbeat_Digits() throws Exception {
+        for (long millis : new long[]{0, 9, 10, 1_700_000_000_123L, Long.MAX_VALUE}) {
+            ResponseEntity<byte[]> response = responses.heartbeat(millis);
+            JsonNode node = objectMapper.readTree(response.getBody());
+            assertTrue(node.get("success").asBoolean());
+            assertEquals("pong", node.get("message").asText());
+            assertEquals(millis, node.get("timestamp").asLong());
+            assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        }
+    }
+
+    @Test
+    @DisplayName("类型化响应 - 按记录组件名输出")
+    void testOk_Record() throws Exception {
+        record Sample(boolean success, String message, int dataSize) {
+        }
+        JsonNode node = objectMapper.readTree(responses.ok(new Sample(true, "ok", 3)).getBody());
+        assertEquals("ok", node.get("message").asText());
+        assertEquals(3, node.get("dataSize").asInt());
+        assertSame(responses.writer(Sample.class), responses.writer(Sample.class));
+    }
+
+    @Test
+    @DisplayName("时间戳缓存 - 同一毫秒复用，换毫秒重新格式化")
+    void testCachedTimestamp() {
+        CachedTimestamp timestamp = new CachedTimestamp(ZoneOffset.UTC);
+        String first = timestamp.format(1_700_000_000_123L);
+        assertEquals("2023-11-14T22:13:20.123", first);
+        assertSame(first, timestamp.format(1_700_000_000_123L));
+        assertEquals("2023-11-14T22:13:20.124", timestamp.format(1_700_000_000_124L));
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.rollup;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RollupService 时间序列聚合测试")
+class RollupServiceTest {
+
+    private static final long BASE = 1_700_000_040_000L; // 整分钟边界
+
+    private RollupProperties properties;
+    private RollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RollupProperties();
+        rollupService = new RollupService(properties);
+    }
+
+    private Map<String, Object> report(String deviceId, long timestamp, Object battery) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("deviceId", deviceId);
+        data.put("timestamp", timestamp);
+        data.put("battery", battery);
+        return data;
+    }
+
+    @Test
+    @DisplayName("提取数值字段 - 跳过设备ID、时间戳和非数值")
+    void testRecord_ExtractsNumericFields() {
+        Map<String, Object> memory = new HashMap<>();
+        memory.put("used", 512);
+        memory.put("unit", "MB");
+
+        Map<String, Object> data = report("device-001", BASE, 80);
+        data.put("version", "1.0.0");
+        data.put("memory", memory);
+
+        assertEquals(2, rollupService.record(data));
+        assertEquals(List.of("battery", "memory.used"), rollupService.metrics("device-001"));
+    }
+
+    @Test
+    @DisplayName("分钟聚合 - count/min/max/sum/avg")
+    void testQuery_MinuteAggregates() {
+        rollupService.record(report("device-001", BASE, 10));
+        rollupService.record(report("device-001", BASE + 1_000, 30));
+        rollupService.record(report("device-001", BASE + 2_000, 20));
+        rollupService.record(report("device-001", BASE + 60_000, 50));
+
+        List<RollupPoint> points = rollupService.query("device-001", "battery",
+                RollupResolution.MINUTE, BASE, BASE + 60_000);
+
+        assertEquals(2, points.size());
+        RollupPoint first = points.get(0);
+        assertEquals(BASE, first.getBucketStart());
+        assertEquals(3, first.getCount());
+        assertEquals(10, first.getMin());
+        assertEquals(30, first.getMax());
+        assertEquals(60, first.getSum());
+        assertEquals(20, first.getAvg());
+        assertEquals(1, points.get(1).getCount());
+    }
+
+    @Test
+    @DisplayName("小时聚合 - 合并多个分钟桶")
+    void testQuery_HourAggregates() {
+        long hour = RollupResolution.HOUR.bucketStart(BASE);
+        for (int i = 0; i < 30; i++) {
+            rollupService.record(report("device-001", hour + i * 60_000L, i));
+        }
+
+        List<RollupPoint> points = rollupService.query("device-001", "battery",
+                RollupResolution.HOUR, hour, hour);
+
+        assertEquals(1, points.size());
+        assertEquals(30, points.get(0).getCount());
+        assertEquals(0, points.get(0).getMin());
+        assertEquals(29, points.get(0).getMax());
+    }
+
+    @Test
+    @DisplayName("分位数估算 - 相对误差在草图精度内")
+    void testQuery_Quantiles() {
+        for (int i = 1; i <= 1000; i++) {
+            rollupService.record(report("device-001", BASE, i));
+        }
+
+        RollupPoint point = rollupService.query("device-001", "battery",
+                RollupResolution.MINUTE, BASE, BASE).get(0);
+
+        assertEquals(500, point.getP50(), 500 * 0.1);
+        assertEquals(900, point.getP90(), 900 * 0.1);
+        assertEquals(990, point.getP99(), 990 * 0.1);
+        assertTrue(point.getP99() <= point.getMax());
+    }
+
+    @Test
+    @DisplayName("保留窗口 - 旧桶被覆盖")
+    void testQuery_RingEviction() {
+        properties.setMinuteSlots(5);
+        rollupService = new RollupService(properties);
+
+        rollupService.record(report("device-001", BASE, 1));
+        rollupService.record(report("device-001", BASE + 5 * 60_000L, 2));
+
+        List<RollupPoint> points = rollupService.query("device-001", "battery",
+                RollupResolution.MINUTE, BASE, BASE + 5 * 60_000L);
+
+        assertEquals(1, points.size());
+        assertEquals(2, points.get(0).getMin());
+    }
+
+    @Test
+    @DisplayName("序列上限 - 超出后丢弃新序列")
+    void testRecord_SeriesLimit() {
+        properties.setMaxSeries(1);
+        rollupService = new RollupService(properties);
+
+        rollupService.record(report("device-001", BASE, 1));
+        rollupService.record(report("device-002", BASE, 1));
+        rollupService.record(report("device-003", BASE, 1));
+
+        assertEquals(1, rollupService.getSeriesCount());
+        assertEquals(2, rollupService.getDroppedMetricCount());
+        assertTrue(rollupService.query("device-002", "battery",
+                RollupResolution.MINUTE, BASE, BASE).isEmpty());
+        // 被拒绝的设备不留下空表
+        assertEquals(1, rollupService.getDeviceCount());
+        assertTrue(rollupService.metrics("device-002").isEmpty());
+    }
+
+    @Test
+    @DisplayName("分位数估算 - 大数值保持精度，超出范围取实际最大值")
+    void testQuery_LargeValueQuantiles() {
+        for (int i = 1; i <= 1000; i++) {
+            rollupService.record(report("device-001", BASE, i * 1_000_000_000L));
+        }
+        rollupService.record(report("device-002", BASE, 5e15));
+        rollupService.record(report("device-002", BASE, 7e15));
+
+        RollupPoint point = rollupService.query("device-001", "battery",
+                RollupResolution.MINUTE, BASE, BASE).get(0);
+        assertEquals(500e9, point.getP50(), 500e9 * 0.1);
+        assertEquals(900e9, point.getP90(), 900e9 * 0.1);
+        assertTrue(point.getP99() <= point.getMax());
+
+        RollupPoint overflow = rollupService.query("device-002", "battery",
+                RollupResolution.MINUTE, BASE, BASE).get(0);
+        assertEquals(7e15, overflow.getP50());
+        assertEquals(7e15, overflow.getP99());
+    }
+}
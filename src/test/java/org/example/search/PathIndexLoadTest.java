@@ -0,0 +1,83 @@
+package org.example.search;
+
+import org.example.storage.StoredObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 大量路径的索引：按目录批量建立后，每路径的堆占用和各类查询（含 1~2 个字符的短查询、无结果的查询）的耗时不超过上限。
+ * 文件名各不相同，是片段表和倒排表最大的情形
+ * 默认不运行：mvn test -Dtest=PathIndexLoadTest -Dload=true -DargLine=-Xmx4500m
+ * 可调参数：-Dload.paths=10000000 -Dload.max-bytes-per-path=448 -Dload.max-query-millis=100
+ */
+@EnabledIfSystemProperty(named = "load", matches = "true")
+@DisplayName("大量路径索引负载测试")
+class PathIndexLoadTest {
+
+    private static final String[] EXTENSIONS = {".log", ".bin", ".txt", ".json"};
+    private static final int FILES_PER_DIRECTORY = 1000;
+
+    @Test
+    @DisplayName("千万级路径 - 堆占用和查询耗时受限")
+    void largeIndex() throws Exception {
+        int paths = Integer.getInteger("load.paths", 10_000_000);
+        long maxBytesPerPath = Long.getLong("load.max-bytes-per-path", 448);
+        long maxQueryMillis = Long.getLong("load.max-query-millis", 100);
+
+        long before = usedHeap();
+        PathIndex index = new PathIndex();
+        List<StoredObject> batch = new ArrayList<>(FILES_PER_DIRECTORY);
+        for (int i = 0; i < paths; i++) {
+            int directory = i / FILES_PER_DIRECTORY;
+            batch.add(new StoredObject("dev-" + (directory % 1000) + "/part-" + directory + "/Item-" + i
+                    + EXTENSIONS[i % EXTENSIONS.length], false, i, 0));
+            if (batch.size() == FILES_PER_DIRECTORY) {
+                index.addAll(batch);
+                batch.clear();
+            }
+        }
+        index.addAll(batch);
+        long perPath = (usedHeap() - before) / index.size();
+        assertTrue(perPath <= maxBytesPerPath, "heap per path " + perPath + " > " + maxBytesPerPath);
+
+        // 命中少或没有命中的查询要看完全部候选，是各类查询中最慢的
+        List<SearchQuery> queries = List.of(
+                new SearchQuery("item-4242424", null, null, null, null, 100),
+                new SearchQuery("q", null, null, null, null, 100),
+                new SearchQuery("qz", null, null, null, null, 100),
+                new SearchQuery("9", null, ".json", "dev-7/part-7007", null, 100),
+                new SearchQuery(null, "z", null, null, null, 100),
+                new SearchQuery(null, "it", "txt", null, null, 10),
+                new SearchQuery("m-", null, null, null, null, 100));
+        for (SearchQuery query : queries) {
+            index.search(query);
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 5; i++) {
+                long start = System.nanoTime();
+                index.search(query);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(best);
+            assertTrue(millis <= maxQueryMillis, query + " took " + millis + " ms");
+        }
+        assertEquals(1, index.search(queries.get(0)).hits().size());
+        assertTrue(index.search(queries.get(1)).hits().isEmpty());
+        assertEquals(100, index.search(queries.get(6)).hits().size());
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
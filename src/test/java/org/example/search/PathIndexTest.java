@@ -0,0 +1,127 @@
+package org.example.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("路径索引测试")
+class PathIndexTest {
+
+    private static PathIndex index(String... files) {
+        PathIndex index = new PathIndex();
+        for (String file : files) {
+            index.add(file, false, 0);
+        }
+        return index;
+    }
+
+    private static List<String> paths(SearchResult result) {
+        return result.hits().stream().map(SearchHit::path).sorted().toList();
+    }
+
+    private static SearchQuery contains(String q) {
+        return new SearchQuery(q, null, null, null, null, 100);
+    }
+
+    @Test
+    @DisplayName("子串、前缀和扩展名 - 不区分大小写，只匹配名称")
+    void testNameQueries() {
+        PathIndex index = index("logs/App-2024.log", "logs/system.log", "firmware/app-v2.BIN", "apps/readme.txt");
+
+        assertEquals(List.of("firmware/app-v2.BIN", "logs/App-2024.log"), paths(index.search(contains("APP-"))));
+        assertEquals(List.of("apps", "firmware/app-v2.BIN", "logs/App-2024.log"),
+                paths(index.search(new SearchQuery(null, "app", null, null, null, 100))));
+        assertEquals(List.of("logs/App-2024.log", "logs/system.log"),
+                paths(index.search(new SearchQuery(null, null, ".log", null, null, 100))));
+        assertEquals(List.of("firmware/app-v2.BIN"),
+                paths(index.search(new SearchQuery("v2", "app", "bin", null, null, 100))));
+        // 目录名 logs 不算 system.log 的子串匹配来源
+        assertEquals(List.of("logs"), paths(index.search(contains("logs"))));
+        assertTrue(index.search(contains("missing")).hits().isEmpty());
+    }
+
+    @Test
+    @DisplayName("上级目录自动记录，按类型和目录范围过滤")
+    void testDirectoryFilters() {
+        PathIndex index = index("a/x/report.csv", "b/report.csv", "b/c/report-old.csv");
+
+        assertEquals(7, index.size());
+        assertEquals(List.of("b/c/report-old.csv", "b/report.csv"),
+                paths(index.search(new SearchQuery("report", null, null, "b", false, 100))));
+        assertEquals(List.of("a/x"), paths(index.search(new SearchQuery("x", null, null, null, true, 100))));
+        assertTrue(index.search(new SearchQuery("report", null, null, "missing", null, 100)).hits().isEmpty());
+        assertTrue(index.search(new SearchQuery("report", null, null, "b/report.csv", null, 100)).hits().isEmpty());
+    }
+
+    @Test
+    @DisplayName("删除目录时连同子项移除，再次写入时恢复")
+    void testRemoveAndReAdd() {
+        PathIndex index = index("d/one.txt", "d/sub/two.txt", "keep/one.txt");
+
+        assertTrue(index.remove("d"));
+        assertFalse(index.remove("d"));
+        assertEquals(List.of("keep/one.txt"), paths(index.search(contains("one"))));
+        assertTrue(index.search(contains("two")).hits().isEmpty());
+        assertEquals(2, index.size());
+        assertEquals(4, index.getDeadCount());
+
+        index.add("d/sub/two.txt", false, 0);
+        assertEquals(List.of("d/sub/two.txt"), paths(index.search(contains("two"))));
+        assertTrue(index.search(new SearchQuery("one", null, null, "d", null, 100)).hits().isEmpty());
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    @DisplayName("超过 limit 时截断，短查询顺序扫描名称")
+    void testLimitAndShortQueries() {
+        PathIndex index = new PathIndex();
+        for (int i = 0; i < 500; i++) {
+            index.add("dir/file-" + i + ".dat", false, 0);
+        }
+
+        SearchResult limited = index.search(new SearchQuery("file", null, null, null, null, 10));
+        assertEquals(10, limited.hits().size());
+        assertTrue(limited.truncated());
+        assertFalse(index.search(new SearchQuery("file", null, null, null, null, 500)).truncated());
+
+        assertEquals(List.of("dir/file-42.dat"), paths(index.search(contains("-42."))));
+        assertEquals(15, index.search(new SearchQuery("42", null, null, null, null, 100)).hits().size());
+        assertEquals(1, index.search(new SearchQuery(null, "d", null, null, null, 100)).hits().size());
+        assertEquals("file-7.dat", index.search(contains("file-7.")).hits().get(0).name());
+    }
+
+    @Test
+    @DisplayName("目录用量 - 写入、覆盖和删除沿上级目录调整")
+    void testDirectoryUsage() {
+        PathIndex index = new PathIndex();
+        index.add("a/b/one.bin", false, 100);
+        index.add("a/b/two.bin", false, 200);
+        index.add("a/three.bin", false, 50);
+        index.add("other.bin", false, 7);
+
+        assertEquals(new DirectoryUsage(350, 3, true), index.usage("a"));
+        assertEquals(new DirectoryUsage(300, 2, true), index.usage("a/b"));
+        assertEquals(new DirectoryUsage(100, 1, false), index.usage("a/b/one.bin"));
+        assertEquals(new DirectoryUsage(357, 4, true), index.usage(""));
+        assertNull(index.usage("a/missing"));
+
+        index.add("a/b/one.bin", false, 1000);
+        assertEquals(new DirectoryUsage(1250, 3, true), index.usage("a"));
+
+        index.remove("a/b");
+        assertEquals(new DirectoryUsage(50, 1, true), index.usage("a"));
+        assertEquals(new DirectoryUsage(57, 2, true), index.usage(""));
+        assertNull(index.usage("a/b"));
+
+        // 删除后再写入的目录从零开始计算
+        index.add("a/b/two.bin", false, 5);
+        assertEquals(new DirectoryUsage(5, 1, true), index.usage("a/b"));
+        assertEquals(new DirectoryUsage(55, 2, true), index.usage("a"));
+
+        index.add("a/b", true, 4096);
+        assertEquals(new DirectoryUsage(5, 1, true), index.usage("a/b"));
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 启动时已有的文件和之后的上传、删除都能按名称搜到
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "harmony.storage.dir=target/search-test-uploads",
+        "harmony.changes.watch=false",
+        "harmony.rate-limit.enabled=false"
+})
+@DisplayName("文件名搜索接口测试")
+class SearchEndpointTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    private static final Path UPLOADS = Paths.get("target/search-test-uploads");
+
+    static {
+        try {
+            Files.createDirectories(UPLOADS.resolve("preexisting/nested"));
+            Files.writeString(UPLOADS.resolve("preexisting/nested/startup-marker.cfg"), "x");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private FileSearchService search;
+
+    @Test
+    @DisplayName("启动时建立索引 - 已有文件可搜到")
+    void testIndexBuiltAtStartup() throws InterruptedException {
+        awaitReady();
+
+        Map<String, Object> body = search("ext=cfg&path=preexisting");
+        assertEquals(true, body.get("success"));
+        assertEquals(List.of("preexisting/nested/startup-marker.cfg"), paths(body));
+    }
+
+    @Test
+    @DisplayName("上传和删除 - 索引随之更新")
+    void testUploadAndDeleteUpdateIndex() throws InterruptedException {
+        awaitReady();
+        String name = "searchable-" + System.nanoTime() + ".txt";
+
+        assertEquals(HttpStatus.OK, upload(name).getStatusCode());
+        assertEquals(List.of(name), paths(search("q=" + name.substring(3, 20))));
+        assertEquals(List.of(name), paths(search("prefix=SEARCHABLE-&type=file&q=" + name.substring(11, 16))));
+
+        restTemplate.postForEntity("/api/file/delete/" + name, null, Map.class);
+        assertTrue(paths(search("q=" + name.substring(3, 20))).isEmpty());
+    }
+
+    @Test
+    @DisplayName("参数错误 - 缺少条件或类型错误 400，越出上传目录 403")
+    void testInvalidRequests() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity("/api/file/search?path=preexisting", Map.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity("/api/file/search?q=abc&type=link", Map.class).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN,
+                restTemplate.getForEntity("/api/file/search?q=abc&path=../etc", Map.class).getStatusCode());
+    }
+
+    private void awaitReady() throws InterruptedException {
+        for (int i = 0; i < 100 && !search.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(search.isReady());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> search(String query) {
+        ResponseEntity<Map> response = restTemplate.getForEntity("/api/file/search?" + query, Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> paths(Map<String, Object> body) {
+        return ((List<Map<String, Object>>) body.get("results")).stream()
+                .map(hit -> (String) hit.get("path"))
+                .sorted()
+                .toList();
+    }
+
+    private ResponseEntity<Map> upload(String name) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource("content".getBytes()) {
+            @Override
+            public String getFilename() {
+                return name;
+            }
+        });
+        return restTemplate.postForEntity("/api/file/upload", new HttpEntity<>(body, headers), Map.class);
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 目录用量来自索引中的汇总，列表和删除结果中的目录大小为子树文件大小之和
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "harmony.storage.dir=target/usage-test-uploads",
+        "harmony.changes.watch=false",
+        "harmony.rate-limit.enabled=false"
+})
+@DisplayName("目录用量接口测试")
+class UsageEndpointTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    private static final Path UPLOADS = Paths.get("target/usage-test-uploads");
+    private static final String TREE = "usage-" + System.nanoTime();
+    private static final String DELETE_TREE = "usage-delete-" + System.nanoTime();
+
+    static {
+        try {
+            for (String tree : List.of(TREE, DELETE_TREE)) {
+                Files.createDirectories(UPLOADS.resolve(tree + "/a/b"));
+                Files.write(UPLOADS.resolve(tree + "/a/one.bin"), new byte[100]);
+                Files.write(UPLOADS.resolve(tree + "/a/b/two.bin"), new byte[200]);
+                Files.write(UPLOADS.resolve(tree + "/three.bin"), new byte[50]);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private FileSearchService index;
+
+    @Test
+    @DisplayName("用量和列表 - 目录为子树文件总大小和文件数")
+    @SuppressWarnings("unchecked")
+    void testUsageAndListing() throws InterruptedException {
+        awaitReady();
+
+        Map<String, Object> usage = usage(TREE);
+        assertEquals(350, ((Number) usage.get("bytes")).longValue());
+        assertEquals(3, usage.get("files"));
+        assertEquals("directory", usage.get("type"));
+        assertEquals(200, ((Number) usage(TREE + "/a/b/two.bin").get("bytes")).longValue());
+
+        Map<String, Object> listing = restTemplate.getForEntity("/api/file/list/path?path=" + TREE, Map.class)
+                .getBody();
+        Map<String, Object> dir = ((List<Map<String, Object>>) listing.get("files")).stream()
+                .filter(file -> "a".equals(file.get("name")))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(300, ((Number) dir.get("size")).longValue());
+        assertEquals(2, dir.get("fileCount"));
+    }
+
+    @Test
+    @DisplayName("删除目录 - 返回实际删除的文件大小，上级目录用量随之减少")
+    void testDeleteDirectoryReportsSubtreeSize() throws InterruptedException {
+        awaitReady();
+        long before = ((Number) usage("").get("bytes")).longValue();
+        ResponseEntity<Map> deleted = restTemplate.postForEntity("/api/file/delete/path",
+                Map.of("path", DELETE_TREE + "/a"), Map.class);
+        assertEquals(HttpStatus.OK, deleted.getStatusCode());
+        assertEquals(300, ((Number) deleted.getBody().get("size")).longValue());
+
+        Map<String, Object> usage = usage(DELETE_TREE);
+        assertEquals(50, ((Number) usage.get("bytes")).longValue());
+        assertEquals(1, usage.get("files"));
+        assertEquals(HttpStatus.NOT_FOUND,
+                restTemplate.getForEntity("/api/file/usage?path=" + DELETE_TREE + "/a", Map.class).getStatusCode());
+        assertEquals(before - 300, ((Number) usage("").get("bytes")).longValue());
+    }
+
+    @Test
+    @DisplayName("越出上传目录 403")
+    void testTraversalIsForbidden() {
+        assertEquals(HttpStatus.FORBIDDEN,
+                restTemplate.getForEntity("/api/file/usage?path=../etc", Map.class).getStatusCode());
+    }
+
+    private void awaitReady() throws InterruptedException {
+        for (int i = 0; i < 100 && !index.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(index.isReady());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> usage(String path) {
+        ResponseEntity<Map> response = restTemplate.getForEntity("/api/file/usage?path=" + path, Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+}
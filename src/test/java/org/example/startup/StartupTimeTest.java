@@ -0,0 +1,158 @@
+package org.example.startup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 冷启动耗时：从启动子进程到第一个返回 200 的 /api/data/heartbeat
+ * 默认不运行：mvn -Pfast-start package -DskipTests 后执行
+ * mvn test -Dtest=StartupTimeTest -Dstartup=true
+ * 可调参数：
+ * -Dstartup.modes=default,lazy,cds,cds-lazy（aot 需先用 -Paot 构建） -Dstartup.runs=5
+ * -Dstartup.jar=target/harmony-server-1.0-SNAPSHOT.jar -Dstartup.cds-archive=target/harmony-server.jsa
+ */
+@EnabledIfSystemProperty(named = "startup", matches = "true")
+@DisplayName("冷启动耗时测试")
+class StartupTimeTest {
+
+    private static final String DEFAULT_MODES = "default,lazy,cds,cds-lazy";
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    @Test
+    @DisplayName("各启动方式到首个心跳成功的耗时")
+    void timeToFirstHeartbeat() throws Exception {
+        List<String> modes = Arrays.asList(System.getProperty("startup.modes", DEFAULT_MODES).split(","));
+        int runs = Integer.getInteger("startup.runs", 5);
+        Path jar = Paths.get(System.getProperty("startup.jar", "target/harmony-server-1.0-SNAPSHOT.jar"));
+        Path archive = Paths.get(System.getProperty("startup.cds-archive", "target/harmony-server.jsa"));
+        // fast-start 打包的 jar 通过 Class-Path 引用 target/lib；否则退回当前测试类路径
+        boolean thinJar = Files.isRegularFile(jar) && Files.isDirectory(jar.resolveSibling("lib"));
+
+        Map<String, long[]> results = new LinkedHashMap<>();
+        for (String mode : modes) {
+            mode = mode.trim();
+            if (mode.contains("cds") && (!thinJar || !Files.isRegularFile(archive))) {
+                System.out.printf("skip %s: run mvn -Pfast-start package first%n", mode);
+                continue;
+            }
+            if (mode.contains("aot") && !Files.isRegularFile(
+                    Paths.get("target/classes/org/example/App__ApplicationContextInitializer.class"))) {
+                System.out.printf("skip %s: run mvn -Pfast-start,aot package first%n", mode);
+                continue;
+            }
+            long[] millis = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                millis[i] = startOnce(mode, command(mode, thinJar, jar, archive));
+            }
+            results.put(mode, millis);
+        }
+
+        System.out.printf("%n%-10s %8s %8s %8s%n", "mode", "min ms", "median", "max ms");
+        results.forEach((mode, millis) -> {
+            long[] sorted = millis.clone();
+            Arrays.sort(sorted);
+            System.out.printf("%-10s %8d %8d %8d%n", mode, sorted[0], sorted[sorted.length / 2],
+                    sorted[sorted.length - 1]);
+        });
+        assertTrue(!results.isEmpty(), "no startup mode was run");
+    }
+
+    private List<String> command(String mode, boolean thinJar, Path jar, Path archive) {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        if (mode.contains("cds")) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+            command.add("-Xlog:cds=error");
+        }
+        if (mode.contains("aot")) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        if (thinJar) {
+            command.add("-jar");
+            command.add(jar.toString());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("org.example.App");
+        }
+        if (mode.contains("lazy")) {
+            command.add("--spring.profiles.active=lazy");
+        }
+        command.add("--logging.level.root=WARN");
+        return command;
+    }
+
+    /**
+     * 启动一次并轮询心跳，返回毫秒数；进程输出写入 target/startup-模式.log
+     */
+    private long startOnce(String mode, List<String> command) throws Exception {
+        int port = freePort();
+        command = new ArrayList<>(command);
+        command.add("--server.port=" + port);
+        HttpRequest heartbeat = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/data/heartbeat"))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"deviceId\":\"startup\",\"version\":\"1.0\"}"))
+                .build();
+
+        File output = new File("target/startup-" + mode + ".log");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(output)
+                .start();
+        try {
+            while (System.nanoTime() - start < START_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode + " exited with " + process.exitValue() + ", see " + output);
+                }
+                try {
+                    if (client.send(heartbeat, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // 端口尚未监听
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException(mode + " did not answer a heartbeat within " + START_TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
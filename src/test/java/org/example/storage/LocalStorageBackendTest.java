@@ -0,0 +1,18 @@
+package org.example.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+@DisplayName("本地文件系统存储后端测试")
+class LocalStorageBackendTest extends StorageBackendContract {
+
+    @TempDir
+    Path dir;
+
+    @Override
+    protected StorageBackend createBackend() {
+        return new LocalStorageBackend(new UploadDirectory(dir.resolve("uploads")));
+    }
+}
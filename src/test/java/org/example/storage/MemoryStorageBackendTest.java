@@ -0,0 +1,12 @@
+package org.example.storage;
+
+import org.junit.jupiter.api.DisplayName;
+
+@DisplayName("内存存储后端测试")
+class MemoryStorageBackendTest extends StorageBackendContract {
+
+    @Override
+    protected StorageBackend createBackend() {
+        return new MemoryStorageBackend();
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("小文件打包存储后端测试")
+class PackStorageBackendTest extends StorageBackendContract {
+
+    @TempDir
+    Path dir;
+
+    private PackStorageBackend pack;
+
+    @Override
+    protected StorageBackend createBackend() throws IOException {
+        pack = open();
+        return pack;
+    }
+
+    /**
+     * 关闭后台任务，由测试显式触发快照和压缩
+     */
+    private PackStorageBackend open() throws IOException {
+        StorageProperties.Pack properties = new StorageProperties.Pack();
+        properties.setDir(dir.toString());
+        properties.setSmallFileThreshold(DataSize.ofKilobytes(16));
+        properties.setMaxPackSize(DataSize.ofKilobytes(64));
+        properties.setCompactionIntervalMillis(0);
+        properties.setSnapshotIntervalMillis(0);
+        return new PackStorageBackend(properties);
+    }
+
+    private PackStorageBackend reopen() throws IOException {
+        pack.close();
+        pack = open();
+        backend = pack;
+        return pack;
+    }
+
+    @AfterEach
+    void closeBackend() throws IOException {
+        pack.close();
+    }
+
+    private static byte[] content(int size, long seed) {
+        byte[] content = new byte[size];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+
+    @Test
+    @DisplayName("大小分流 - 超过阈值的对象单独存放，两者都能读回")
+    void testLooseAndPacked() throws Exception {
+        byte[] small = content(1000, 1);
+        byte[] large = content(40_000, 2);
+        put("small.bin", small);
+        put("large.bin", large);
+
+        assertTrue(Files.exists(dir.resolve("loose").resolve("large.bin")));
+        assertFalse(Files.exists(dir.resolve("loose").resolve("small.bin")));
+        assertArrayEquals(small, read("small.bin", 0));
+        assertArrayEquals(large, read("large.bin", 0));
+
+        // 大文件改写成小文件后删除单独文件
+        put("large.bin", small);
+        assertFalse(Files.exists(dir.resolve("loose").resolve("large.bin")));
+        assertArrayEquals(small, read("large.bin", 0));
+    }
+
+    @Test
+    @DisplayName("重启 - 从快照加载并重放快照之后追加的记录")
+    void testReloadFromSnapshotAndTail() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            put("logs/" + i + ".txt", ("line " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        put("big.bin", content(20_000, 3));
+        pack.snapshot();
+        put("after.txt", "after".getBytes(StandardCharsets.UTF_8));
+        backend.delete("logs/7.txt");
+
+        // 模拟崩溃：不写最终快照，直接换新实例加载
+        PackStorageBackend reloaded = open();
+        try {
+            assertEquals(201, reloaded.getObjectCount());
+            assertNull(reloaded.stat("logs/7.txt"));
+            assertEquals("after", new String(readFrom(reloaded, "after.txt"), StandardCharsets.UTF_8));
+            assertEquals("line 199", new String(readFrom(reloaded, "logs/199.txt"), StandardCharsets.UTF_8));
+            assertEquals(20_000, reloaded.stat("big.bin").size());
+        } finally {
+            reloaded.close();
+        }
+    }
+
+    @Test
+    @DisplayName("重启 - 没有快照时重放全部包文件，截掉写了一半的尾部记录")
+    void testReplayWithoutSnapshotTruncatesTornTail() throws Exception {
+        put("a.txt", "aaa".getBytes(StandardCharsets.UTF_8));
+        put("b.txt", "bbb".getBytes(StandardCharsets.UTF_8));
+        pack.close();
+        Files.delete(dir.resolve(PackStorageBackend.INDEX_FILE));
+
+        Path packFile = dir.resolve(PackFile.fileName(1));
+        long size = Files.size(packFile);
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 2);
+        }
+
+        pack = open();
+        backend = pack;
+        assertEquals("aaa", new String(read("a.txt", 0), StandardCharsets.UTF_8));
+        assertNull(backend.stat("b.txt"));
+
+        put("c.txt", "ccc".getBytes(StandardCharsets.UTF_8));
+        reopen();
+        assertEquals("ccc", new String(read("c.txt", 0), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("压缩 - 回收失效字节，仍有效的对象和删除结果保持不变")
+    void testCompaction() throws Exception {
+        byte[][] contents = new byte[40][];
+        for (int i = 0; i < 40; i++) {
+            contents[i] = content(4000, i);
+            put("f" + i, contents[i]);
+        }
+        int packsBefore = pack.getPackCount();
+        assertTrue(packsBefore >= 3, "packs " + packsBefore);
+        for (int i = 0; i < 40; i++) {
+            if (i % 4 != 0) {
+                backend.delete("f" + i);
+            }
+        }
+
+        long reclaimed = pack.compact();
+        assertTrue(reclaimed > 0);
+        assertTrue(pack.getCompactedPacks() > 0);
+        assertTrue(pack.getDeadBytes() < 4000 * 10, "dead " + pack.getDeadBytes());
+        for (int i = 0; i < 40; i++) {
+            if (i % 4 == 0) {
+                assertArrayEquals(contents[i], read("f" + i, 0));
+            } else {
+                assertNull(backend.stat("f" + i));
+            }
+        }
+
+        // 压缩后的状态在没有快照时重放也一致
+        pack.close();
+        Files.delete(dir.resolve(PackStorageBackend.INDEX_FILE));
+        pack = open();
+        backend = pack;
+        assertEquals(10, pack.getObjectCount());
+        for (int i = 0; i < 40; i += 4) {
+            assertArrayEquals(contents[i], read("f" + i, 0));
+        }
+    }
+
+    private byte[] readFrom(StorageBackend other, String key) throws Exception {
+        StorageBackend saved = backend;
+        backend = other;
+        try {
+            return read(key, 0);
+        } finally {
+            backend = saved;
+        }
+    }
+}
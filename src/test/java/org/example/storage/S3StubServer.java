@@ -0,0 +1,209 @@
+package org.example.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测试和基准测试用的 S3 替身：单个 bucket，支持 PUT、GET（Range）、HEAD、DELETE 和 ListObjectsV2
+ * 只检查 Authorization 头的凭证部分，不校验签名；列出结果按 pageSize 分页，便于覆盖续页逻辑
+ */
+public class S3StubServer implements AutoCloseable {
+
+    static {
+        // 响应头和小响应体分两次写出时，Nagle 与延迟确认叠加会让每次列出多出约 40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private record Blob(byte[] data, long lastModified) {
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ConcurrentSkipListMap<String, Blob> objects = new ConcurrentSkipListMap<>();
+    private final String bucket;
+    private final String accessKey;
+    private final int pageSize;
+    private final AtomicLong requests = new AtomicLong();
+
+    public S3StubServer(String bucket, String accessKey, int pageSize) throws IOException {
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.pageSize = pageSize;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null
+                    || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=" + accessKey + "/")
+                    || exchange.getRequestHeaders().getFirst("x-amz-date") == null) {
+                send(exchange, 403, new byte[0]);
+                return;
+            }
+            String path = exchange.getRequestURI().getRawPath();
+            String bucketPath = "/" + bucket;
+            if (path.equals(bucketPath) || path.equals(bucketPath + "/")) {
+                list(exchange);
+                return;
+            }
+            if (!path.startsWith(bucketPath + "/")) {
+                send(exchange, 404, new byte[0]);
+                return;
+            }
+            String key = URLDecoder.decode(path.substring(bucketPath.length() + 1).replace("+", "%2B"),
+                    StandardCharsets.UTF_8);
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    objects.put(key, new Blob(exchange.getRequestBody().readAllBytes(), System.currentTimeMillis()));
+                    send(exchange, 200, new byte[0]);
+                }
+                case "GET" -> get(exchange, key);
+                case "HEAD" -> head(exchange, key);
+                case "DELETE" -> {
+                    objects.remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> send(exchange, 405, new byte[0]);
+            }
+        }
+    }
+
+    private void head(HttpExchange exchange, String key) throws IOException {
+        Blob blob = objects.get(key);
+        if (blob == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Length", Integer.toString(blob.data.length));
+        exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(Instant.ofEpochMilli(blob.lastModified).atOffset(ZoneOffset.UTC)));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void get(HttpExchange exchange, String key) throws IOException {
+        Blob blob = objects.get(key);
+        if (blob == null) {
+            send(exchange, 404, new byte[0]);
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            send(exchange, 200, blob.data);
+            return;
+        }
+        String[] bounds = range.substring("bytes=".length()).split("-", -1);
+        int start = Integer.parseInt(bounds[0]);
+        int end = bounds[1].isEmpty() ? blob.data.length - 1 : Math.min(Integer.parseInt(bounds[1]), blob.data.length - 1);
+        if (start >= blob.data.length) {
+            exchange.getResponseHeaders().set("Content-Range", "bytes */" + blob.data.length);
+            send(exchange, 416, new byte[0]);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + blob.data.length);
+        byte[] body = new byte[end - start + 1];
+        System.arraycopy(blob.data, start, body, 0, body.length);
+        send(exchange, 206, body);
+    }
+
+    /**
+     * ListObjectsV2：文件和公共前缀合并排序后分页，续页标记为下一项的序号
+     */
+    private void list(HttpExchange exchange) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        String prefix = query.getOrDefault("prefix", "");
+        String delimiter = query.get("delimiter");
+        int maxKeys = Math.min(pageSize, Integer.parseInt(query.getOrDefault("max-keys", "1000")));
+        int from = Integer.parseInt(query.getOrDefault("continuation-token", "0"));
+
+        List<String> entries = new ArrayList<>();
+        for (String key : objects.tailMap(prefix).keySet()) {
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            int slash = delimiter != null ? key.indexOf(delimiter, prefix.length()) : -1;
+            String entry = slash >= 0 ? key.substring(0, slash + 1) : key;
+            if (entries.isEmpty() || !entries.get(entries.size() - 1).equals(entry)) {
+                entries.add(entry);
+            }
+        }
+
+        int to = Math.min(entries.size(), from + maxKeys);
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<ListBucketResult>");
+        xml.append("<Name>").append(bucket).append("</Name>");
+        for (String entry : entries.subList(from, to)) {
+            Blob blob = entry.endsWith("/") ? null : objects.get(entry);
+            if (blob == null) {
+                xml.append("<CommonPrefixes><Prefix>").append(escape(entry)).append("</Prefix></CommonPrefixes>");
+            } else {
+                xml.append("<Contents><Key>").append(escape(entry)).append("</Key><LastModified>")
+                        .append(Instant.ofEpochMilli(blob.lastModified)).append("</LastModified><Size>")
+                        .append(blob.data.length).append("</Size></Contents>");
+            }
+        }
+        boolean truncated = to < entries.size();
+        xml.append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(to).append("</NextContinuationToken>");
+        }
+        xml.append("</ListBucketResult>");
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        send(exchange, 200, xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 各存储后端共同遵守的行为，子类只负责创建后端
+ */
+abstract class StorageBackendContract {
+
+    protected StorageBackend backend;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    protected abstract StorageBackend createBackend() throws Exception;
+
+    @BeforeEach
+    void setUpBackend() throws Exception {
+        backend = createBackend();
+    }
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    protected void put(String key, byte[] content) throws IOException {
+        try (StorageWriter out = backend.put(key)) {
+            out.write(content);
+            out.commit();
+        }
+    }
+
+    /**
+     * 用小缓冲从 position 读到末尾，覆盖多次连续读取
+     */
+    protected byte[] read(String key, long position) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RangeReader reader = backend.openRange(key, executor)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            while (true) {
+                buffer.clear();
+                CompletableFuture<Integer> result = new CompletableFuture<>();
+                reader.read(buffer, position, new CompletionHandler<>() {
+                    @Override
+                    public void completed(Integer read, Void attachment) {
+                        result.complete(read);
+                    }
+
+                    @Override
+                    public void failed(Throwable t, Void attachment) {
+                        result.completeExceptionally(t);
+                    }
+                });
+                int read = result.get(10, TimeUnit.SECONDS);
+                if (read < 0) {
+                    return out.toByteArray();
+                }
+                out.write(buffer.array(), 0, read);
+                position += read;
+            }
+        }
+    }
+
+    /**
+     * 读出 failAfter 字节后抛出 IOException，模拟上传或复制的来源中途断开
+     */
+    private static InputStream failing(byte[] content, int failAfter) {
+        return new FilterInputStream(new ByteArrayInputStream(content, 0, failAfter)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read < 0) {
+                    throw new IOException("connection reset");
+                }
+                return read;
+            }
+        };
+    }
+
+    private void putTree() throws IOException {
+        put("a.txt", "a".getBytes(StandardCharsets.UTF_8));
+        put("dir/b.txt", "bb".getBytes(StandardCharsets.UTF_8));
+        put("dir/sub/c.txt", "ccc".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("写入与区间读取 - 全量和从中间位置读取")
+    void testPutAndReadRange() throws Exception {
+        byte[] content = new byte[20_000];
+        new Random(7).nextBytes(content);
+        put("data.bin", content);
+
+        StoredObject object = backend.stat("data.bin");
+        assertNotNull(object);
+        assertFalse(object.directory());
+        assertEquals(content.length, object.size());
+        assertTrue(object.lastModified() > 0);
+
+        assertArrayEquals(content, read("data.bin", 0));
+        byte[] tail = read("data.bin", 12_345);
+        assertEquals(content.length - 12_345, tail.length);
+        assertEquals(content[12_345], tail[0]);
+        assertEquals(0, read("data.bin", content.length).length);
+    }
+
+    @Test
+    @DisplayName("写入 - 覆盖同名对象并按需创建父目录")
+    void testOverwriteAndNestedPut() throws Exception {
+        put("x/y/z.txt", "first".getBytes(StandardCharsets.UTF_8));
+        put("x/y/z.txt", "second!".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("second!", new String(read("x/y/z.txt", 0), StandardCharsets.UTF_8));
+        assertTrue(backend.stat("x").directory());
+        assertTrue(backend.stat("x/y").directory());
+    }
+
+    @Test
+    @DisplayName("复制中途失败 - 未提交的写入被丢弃，原对象完整保留，新对象不可见")
+    void testAbortedPutKeepsOldObject() throws Exception {
+        // 1000 字节在打包后端中进入包文件，40000 字节转为单独文件
+        for (int size : new int[]{1000, 40_000}) {
+            String key = "kept-" + size + ".bin";
+            byte[] old = new byte[size];
+            new Random(size).nextBytes(old);
+            put(key, old);
+
+            byte[] replacement = new byte[size * 2];
+            new Random(size + 1).nextBytes(replacement);
+            assertThrows(IOException.class, () -> {
+                try (InputStream in = failing(replacement, size + size / 2);
+                     StorageWriter out = backend.put(key)) {
+                    in.transferTo(out);
+                    out.commit();
+                }
+            });
+            assertArrayEquals(old, read(key, 0));
+            assertEquals(size, backend.stat(key).size());
+
+            StorageWriter aborted = backend.put("never-" + size + ".bin");
+            aborted.write(replacement, 0, size + size / 2);
+            aborted.abort();
+            assertThrows(IOException.class, aborted::commit);
+            assertNull(backend.stat("never-" + size + ".bin"));
+        }
+        assertEquals(List.of("kept-1000.bin", "kept-40000.bin"),
+                backend.list("").stream().map(StoredObject::key).sorted().toList());
+    }
+
+    @Test
+    @DisplayName("不存在的对象 - stat 返回 null，读取和列出抛出 NoSuchFileException")
+    void testMissing() {
+        assertDoesNotThrow(() -> assertNull(backend.stat("missing.txt")));
+        assertThrows(NoSuchFileException.class, () -> backend.openRange("missing.txt", executor));
+        assertThrows(NoSuchFileException.class, () -> backend.list("missing"));
+        assertDoesNotThrow(() -> assertFalse(backend.delete("missing.txt")));
+        assertDoesNotThrow(() -> assertTrue(backend.stat("").directory()));
+    }
+
+    @Test
+    @DisplayName("列出 - 只返回直接子项，目录与文件区分")
+    void testList() throws Exception {
+        putTree();
+
+        Map<String, StoredObject> root = backend.list("").stream()
+                .collect(Collectors.toMap(StoredObject::key, o -> o));
+        assertEquals(2, root.size());
+        assertFalse(root.get("a.txt").directory());
+        assertEquals(1, root.get("a.txt").size());
+        assertTrue(root.get("dir").directory());
+
+        Map<String, StoredObject> dir = backend.list("dir").stream()
+                .collect(Collectors.toMap(StoredObject::name, o -> o));
+        assertEquals(2, dir.size());
+        assertEquals("dir/b.txt", dir.get("b.txt").key());
+        assertTrue(dir.get("sub").directory());
+
+        assertThrows(NotDirectoryException.class, () -> backend.list("a.txt"));
+    }
+
+    @Test
+    @DisplayName("遍历与删除 - 子项排在目录之前，按顺序删除后目录消失")
+    void testWalkAndDelete() throws Exception {
+        putTree();
+        assertThrows(DirectoryNotEmptyException.class, () -> backend.delete("dir"));
+
+        List<StoredObject> entries = backend.walk("dir");
+        List<String> keys = entries.stream().map(StoredObject::key).toList();
+        assertEquals(List.of("dir/sub/c.txt", "dir/sub", "dir/b.txt", "dir"), keys);
+
+        for (StoredObject entry : entries) {
+            backend.delete(entry.key());
+        }
+        assertNull(backend.stat("dir"));
+        assertNull(backend.stat("dir/sub/c.txt"));
+        assertNotNull(backend.stat("a.txt"));
+        assertEquals(List.of("a.txt"), backend.list("").stream().map(StoredObject::key).toList());
+
+        assertTrue(backend.delete("a.txt"));
+        assertNull(backend.stat("a.txt"));
+    }
+}
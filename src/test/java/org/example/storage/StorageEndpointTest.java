@@ -0,0 +1,95 @@
+package org.example.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文件接口经由配置的存储后端读写，换成内存后端后上传目录不落盘
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "harmony.storage.type=memory",
+        "harmony.rate-limit.enabled=false"
+})
+@DisplayName("存储后端切换接口测试")
+class StorageEndpointTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StorageBackend backend;
+
+    @Test
+    @DisplayName("内存后端 - 上传、列出、区间下载和删除")
+    void testMemoryBackendRoundTrip() throws Exception {
+        assertInstanceOf(MemoryStorageBackend.class, backend);
+        byte[] content = new byte[100_000];
+        ThreadLocalRandom.current().nextBytes(content);
+
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return "memory-only.bin";
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        ResponseEntity<Map> upload = restTemplate.postForEntity("/api/file/upload",
+                new HttpEntity<>(body, headers), Map.class);
+        assertEquals(HttpStatus.OK, upload.getStatusCode());
+        assertEquals("memory-only.bin", upload.getBody().get("path"));
+        assertFalse(Files.exists(Paths.get("uploads", "memory-only.bin")));
+
+        ResponseEntity<Map> list = restTemplate.getForEntity("/api/file/list/path?path=.", Map.class);
+        assertEquals(HttpStatus.OK, list.getStatusCode());
+        Map<?, ?> info = ((List<Map<?, ?>>) list.getBody().get("files")).get(0);
+        assertEquals("memory-only.bin", info.get("name"));
+        assertEquals(content.length, ((Number) info.get("size")).intValue());
+
+        HttpHeaders rangeHeaders = new HttpHeaders();
+        rangeHeaders.set(HttpHeaders.RANGE, "bytes=1000-");
+        ResponseEntity<byte[]> download = restTemplate.exchange("/api/file/download/memory-only.bin",
+                HttpMethod.GET, new HttpEntity<>(rangeHeaders), byte[].class);
+        assertEquals(HttpStatus.PARTIAL_CONTENT, download.getStatusCode());
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, content.length), download.getBody());
+
+        ResponseEntity<Map> delete = restTemplate.postForEntity("/api/file/delete/memory-only.bin", null, Map.class);
+        assertEquals(HttpStatus.OK, delete.getStatusCode());
+        assertNull(backend.stat("memory-only.bin"));
+    }
+}
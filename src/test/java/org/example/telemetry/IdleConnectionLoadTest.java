@@ -0,0 +1,112 @@
+package org.example.telemetry;
+
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.example.controller.DataController;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 大量空闲设备连接：全部连上后每条连接仍能收发，平均每连接的堆占用不超过上限。
+ * 客户端在同一进程中，占用包含连接两端，1000 条连接时实测每对约 100KB
+ * 默认不运行：mvn test -Dtest=IdleConnectionLoadTest -Dload=true
+ * 可调参数：-Dload.connections=2000 -Dload.max-bytes-per-connection=131072
+ * 连接数较大时需调高 ulimit -n（每条连接在同一进程中占两个文件描述符）
+ */
+@EnabledIfSystemProperty(named = "load", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"harmony.rate-limit.enabled=false", "logging.level.org.example=WARN"})
+@DisplayName("大量空闲 WebSocket 连接负载测试")
+class IdleConnectionLoadTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TelemetryWebSocketHandler handler;
+
+    private final SmileMapper smile = new SmileMapper();
+
+    @Test
+    @DisplayName("空闲连接 - 全部保持并可确认，每连接堆占用受限")
+    void idleConnections() throws Exception {
+        int connections = Integer.getInteger("load.connections", 2000);
+        long maxBytesPerConnection = Long.getLong("load.max-bytes-per-connection", 128 * 1024);
+
+        long before = usedHeap();
+        // 客户端缓冲区按设备端的小帧设置，避免测试客户端本身的占用掩盖服务端
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.setDefaultMaxBinaryMessageBufferSize(1024);
+        container.setDefaultMaxTextMessageBufferSize(1024);
+        StandardWebSocketClient client = new StandardWebSocketClient(container);
+        List<WebSocketSession> sessions = new ArrayList<>(connections);
+        CountDownLatch acks = new CountDownLatch(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                sessions.add(client.execute(new AbstractWebSocketHandler() {
+                    @Override
+                    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+                        acks.countDown();
+                    }
+                }, "ws://localhost:" + port + "/api/data/ws?deviceId=idle-" + i).get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(connections, handler.getConnectionCount());
+
+            long perConnection = (usedHeap() - before) / connections;
+            assertTrue(perConnection <= maxBytesPerConnection,
+                    "heap per connection " + perConnection + " > " + maxBytesPerConnection);
+
+            // 空闲一段时间后每条连接仍可用：各发一个心跳，定时任务确认
+            DataController.HeartbeatRequest heartbeat = new DataController.HeartbeatRequest();
+            heartbeat.setVersion("1.0.0");
+            byte[] payload = smile.writeValueAsBytes(heartbeat);
+            for (WebSocketSession session : sessions) {
+                session.sendMessage(new BinaryMessage(TelemetryFrame.encode(TelemetryFrame.HEARTBEAT, 1, payload)));
+            }
+            assertTrue(acks.await(60, TimeUnit.SECONDS), acks.getCount() + " connections not acknowledged");
+            assertEquals(connections, handler.getConnectionCount());
+        } finally {
+            for (WebSocketSession session : sessions) {
+                session.close();
+            }
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
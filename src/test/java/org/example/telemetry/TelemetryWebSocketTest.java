@@ -0,0 +1,149 @@
+package org.example.telemetry;
+
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.example.controller.DataController;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"harmony.telemetry.ack-batch-size=3", "harmony.telemetry.ack-flush-millis=200"})
+@DisplayName("Telemetry WebSocket 遥测通道测试")
+class TelemetryWebSocketTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TelemetryWebSocketHandler handler;
+
+    private final SmileMapper smile = new SmileMapper();
+
+    private WebSocketSession connect(String deviceId, BlockingQueue<WebSocketMessage<?>> received) throws Exception {
+        return new StandardWebSocketClient()
+                .execute(new AbstractWebSocketHandler() {
+                    @Override
+                    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+                        received.add(message);
+                    }
+
+                    @Override
+                    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                        received.add(message);
+                    }
+                }, "ws://localhost:" + port + "/api/data/ws?deviceId=" + deviceId)
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("二进制帧 - 三类帧复用连接并批量确认")
+    void testBinaryFrames_BatchedAck() throws Exception {
+        BlockingQueue<WebSocketMessage<?>> received = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect("ws-device-1", received);
+
+        DataController.HeartbeatRequest heartbeat = new DataController.HeartbeatRequest();
+        heartbeat.setVersion("1.0.0");
+        DataController.LogRequest log = new DataController.LogRequest();
+        log.setLevel("INFO");
+        log.setTag("WsTag");
+        log.setMessage("over websocket");
+
+        session.sendMessage(new BinaryMessage(TelemetryFrame.encode(TelemetryFrame.HEARTBEAT, 1, smile.writeValueAsBytes(heartbeat))));
+        session.sendMessage(new BinaryMessage(TelemetryFrame.encode(TelemetryFrame.LOG, 2, smile.writeValueAsBytes(log))));
+        session.sendMessage(new BinaryMessage(TelemetryFrame.encode(TelemetryFrame.REPORT, 3, smile.writeValueAsBytes(Map.of("battery", 80)))));
+
+        // 定时刷新可能在批次凑满前先确认一部分，确认是累计的，最终应覆盖到 seq 3
+        long lastSeq = 0;
+        long acked = 0;
+        while (lastSeq < 3) {
+            WebSocketMessage<?> message = received.poll(5, TimeUnit.SECONDS);
+            assertInstanceOf(BinaryMessage.class, message);
+            ByteBuffer ack = ((BinaryMessage) message).getPayload();
+            assertEquals(TelemetryFrame.ACK, ack.get());
+            lastSeq = TelemetryFrame.readVarint(ack);
+            acked += TelemetryFrame.readVarint(ack);
+        }
+        assertEquals(3, lastSeq);
+        assertEquals(3, acked);
+        assertNull(received.poll(500, TimeUnit.MILLISECONDS), "frames must not be acknowledged twice");
+
+        session.close();
+    }
+
+    @Test
+    @DisplayName("文本帧 - 未满批次由定时任务确认")
+    void testTextFrames_FlushedAck() throws Exception {
+        BlockingQueue<WebSocketMessage<?>> received = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect("ws-device-2", received);
+
+        session.sendMessage(new TextMessage("{\"type\":\"heartbeat\",\"seq\":7,\"data\":{\"version\":\"1.0.0\"}}"));
+
+        WebSocketMessage<?> message = received.poll(5, TimeUnit.SECONDS);
+        assertInstanceOf(TextMessage.class, message);
+        assertEquals("{\"type\":\"ack\",\"seq\":7,\"count\":1}", ((TextMessage) message).getPayload());
+
+        session.close();
+    }
+
+    @Test
+    @DisplayName("无效帧 - 返回 NACK 且连接保持")
+    void testInvalidFrame_Nack() throws Exception {
+        BlockingQueue<WebSocketMessage<?>> received = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect("ws-device-3", received);
+
+        session.sendMessage(new BinaryMessage(TelemetryFrame.encode((byte) 9, 5, new byte[]{1})));
+
+        WebSocketMessage<?> message = received.poll(5, TimeUnit.SECONDS);
+        ByteBuffer nack = ((BinaryMessage) message).getPayload();
+        assertEquals(TelemetryFrame.NACK, nack.get());
+        assertEquals(5, TelemetryFrame.readVarint(nack));
+        assertTrue(session.isOpen());
+
+        session.close();
+    }
+
+    @Test
+    @DisplayName("同一设备重连 - 旧连接被替换")
+    void testReconnect_ReplacesPrevious() throws Exception {
+        WebSocketSession first = connect("ws-device-4", new LinkedBlockingQueue<>());
+        WebSocketSession second = connect("ws-device-4", new LinkedBlockingQueue<>());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (first.isOpen() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(first.isOpen());
+        assertTrue(second.isOpen());
+
+        second.close();
+    }
+}
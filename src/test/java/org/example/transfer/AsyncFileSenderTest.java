@@ -0,0 +1,195 @@
+package org.example.transfer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 慢速客户端下载：平台线程、8 个 Tomcat 工作线程，上千个停住不读的下载同时进行时线程数不随连接数增长
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=false",
+        "server.tomcat.threads.max=8",
+        "harmony.rate-limit.enabled=false"
+})
+@DisplayName("AsyncFileSender 慢速下载测试")
+class AsyncFileSenderTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    private static final String FILENAME = "slow-download.bin";
+    private static final int FILE_SIZE = 32 * 1024 * 1024;
+    private static final int CLIENTS = 1000;
+    private static final int MAX_THREAD_GROWTH = 32;
+    private static final int RECEIVE_BUFFER = 8 * 1024;
+    private static final int SERVER_SEND_BUFFER = 16 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AsyncFileSender sender;
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    /**
+     * 固定服务端发送缓冲：自动调整的内核缓冲每条停住的连接可达数 MB，上千条连接时先耗尽内核 TCP 内存
+     */
+    @TestConfiguration
+    static class SendBufferConfig {
+
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> sendBuffer() {
+            return factory -> factory.addConnectorCustomizers(
+                    connector -> connector.setProperty("socket.txBufSize", Integer.toString(SERVER_SEND_BUFFER)));
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(Paths.get("uploads"));
+        Files.write(Paths.get("uploads", FILENAME), new byte[FILE_SIZE]);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        Files.deleteIfExists(Paths.get("uploads", FILENAME));
+    }
+
+    @Test
+    @DisplayName("慢速客户端 - 不占用线程，断开后释放")
+    void testSlowConsumers_DoNotHoldThreads() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        // 先完整下载一次，让容器和 IO 线程池的线程都创建出来
+        assertEquals(FILE_SIZE, fullDownload());
+        int baseline = threads.getThreadCount();
+        long abortedBefore = sender.getAbortedCount();
+        long stalledBefore = sender.getStalledCount();
+
+        // 每个客户端收到响应头和一小段内容后停止读取，服务端很快写满套接字缓冲
+        for (int i = 0; i < CLIENTS; i++) {
+            download(i, 16 * 1024);
+        }
+        awaitActive(CLIENTS);
+        Thread.sleep(500);
+
+        int peak = threads.getThreadCount();
+        assertEquals(CLIENTS, sender.getActiveCount());
+        assertTrue(peak - baseline < MAX_THREAD_GROWTH,
+                CLIENTS + " stalled downloads grew threads from " + baseline + " to " + peak);
+        // 写出期限远大于测试时长，停住的下载都还在
+        assertEquals(stalledBefore, sender.getStalledCount());
+
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        awaitActive(0);
+        assertEquals(abortedBefore + CLIENTS, sender.getAbortedCount());
+        assertTrue(threads.getThreadCount() - baseline < MAX_THREAD_GROWTH);
+    }
+
+    @Test
+    @DisplayName("完整下载 - 内容长度一致")
+    void testFullDownload() throws Exception {
+        long before = sender.getCompletedCount();
+        assertEquals(FILE_SIZE, fullDownload());
+        awaitActive(0);
+        assertEquals(before + 1, sender.getCompletedCount());
+    }
+
+    private long fullDownload() throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            request(socket);
+            InputStream in = socket.getInputStream();
+            skipHeaders(in);
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    /**
+     * 打开一个下载连接，读到响应头和 bytes 字节内容后不再读取
+     */
+    private void download(int id, int bytes) throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(RECEIVE_BUFFER);
+        socket.connect(new InetSocketAddress("localhost", port));
+        sockets.add(socket);
+        request(socket);
+        InputStream in = socket.getInputStream();
+        skipHeaders(in);
+        assertEquals(bytes, in.readNBytes(bytes).length, "client " + id);
+    }
+
+    private void request(Socket socket) throws IOException {
+        socket.getOutputStream().write(("GET /api/file/download/" + FILENAME + " HTTP/1.1\r\n"
+                + "Host: localhost:" + port + "\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+    }
+
+    private static void skipHeaders(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        String status = null;
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                String text = line.toString().trim();
+                if (status == null) {
+                    status = text;
+                } else if (text.isEmpty()) {
+                    assertTrue(status.startsWith("HTTP/1.1 200"), status);
+                    return;
+                }
+                line.setLength(0);
+            } else {
+                line.append((char) c);
+            }
+        }
+        fail("Connection closed before headers");
+    }
+
+    private void awaitActive(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (sender.getActiveCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, sender.getActiveCount());
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.transfer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 写出期限：客户端停止读取超过期限后下载被中止，连接被关闭
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "harmony.rate-limit.enabled=false",
+        "harmony.transfer.write-timeout-millis=500"
+})
+@DisplayName("AsyncFileSender 写出期限测试")
+class AsyncFileSenderWriteTimeoutTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    private static final String FILENAME = "stalled-download.bin";
+    private static final int FILE_SIZE = 32 * 1024 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AsyncFileSender sender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(Paths.get("uploads"));
+        Files.write(Paths.get("uploads", FILENAME), new byte[FILE_SIZE]);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(Paths.get("uploads", FILENAME));
+    }
+
+    @Test
+    @DisplayName("停滞下载 - 超过写出期限后中止并关闭连接")
+    void testStalledDownload_Aborted() throws Exception {
+        long stalledBefore = sender.getStalledCount();
+        long abortedBefore = sender.getAbortedCount();
+
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(8 * 1024);
+            socket.connect(new InetSocketAddress("localhost", port));
+            socket.getOutputStream().write(("GET /api/file/download/" + FILENAME + " HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+            InputStream in = socket.getInputStream();
+            assertEquals(16 * 1024, in.readNBytes(16 * 1024).length);
+
+            // 停止读取，等待巡检线程判定停滞
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (sender.getStalledCount() == stalledBefore && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(stalledBefore + 1, sender.getStalledCount());
+            assertEquals(abortedBefore + 1, sender.getAbortedCount());
+            assertEquals(0, sender.getActiveCount());
+
+            // 连接被服务端结束：读完已缓冲的数据后到达流末尾，远不足整个文件
+            socket.setSoTimeout(10_000);
+            long received;
+            try {
+                received = in.transferTo(OutputStream.nullOutputStream());
+            } catch (SocketException reset) {
+                received = 0;
+            }
+            assertTrue(received < FILE_SIZE, "received " + received);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.transfer;
+
+import org.example.ratelimit.RateLimitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BandwidthScheduler 带宽调度测试")
+class BandwidthSchedulerTest {
+
+    private static final int CHUNK = 64 * 1024;
+    private static final long RUN_MILLIS = 1000;
+
+    private BandwidthScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private BandwidthScheduler scheduler(BandwidthProperties properties) {
+        scheduler = new BandwidthScheduler(properties, new TransferProperties(), new RateLimitProperties());
+        return scheduler;
+    }
+
+    private static BandwidthProperties enabled() {
+        BandwidthProperties properties = new BandwidthProperties();
+        properties.setEnabled(true);
+        return properties;
+    }
+
+    /**
+     * 每个 flow 一个线程，持续阻塞申请 RUN_MILLIS，返回各自拿到的字节数
+     */
+    private static long[] saturate(List<BandwidthScheduler.Flow> flows) throws InterruptedException {
+        AtomicLong[] totals = new AtomicLong[flows.size()];
+        List<Thread> threads = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RUN_MILLIS);
+        for (int i = 0; i < flows.size(); i++) {
+            AtomicLong total = totals[i] = new AtomicLong();
+            BandwidthScheduler.Flow flow = flows.get(i);
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        total.addAndGet(flow.acquire(CHUNK));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long[] result = new long[totals.length];
+        for (int i = 0; i < totals.length; i++) {
+            result[i] = totals[i].get();
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("未启用 - 申请多少给多少")
+    void testDisabled_PassesThrough() throws Exception {
+        BandwidthScheduler scheduler = scheduler(new BandwidthProperties());
+        BandwidthScheduler.Flow flow = scheduler.open("device-1", TransferEndpoint.DOWNLOAD, TransferPriority.LOW);
+
+        assertEquals(CHUNK, flow.acquire(CHUNK));
+        assertEquals(CHUNK, flow.acquire(CHUNK, () -> fail("should not wait")));
+        assertFalse(scheduler.isEnabled());
+    }
+
+    @Test
+    @DisplayName("全局限速 - 总吞吐不超过速率加突发")
+    void testGlobalCap() throws Exception {
+        BandwidthProperties properties = enabled();
+        properties.setGlobalPerSecond(DataSize.ofMegabytes(2));
+        BandwidthScheduler scheduler = scheduler(properties);
+
+        long[] totals = saturate(List.of(
+                scheduler.open("a", TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL),
+                scheduler.open("b", TransferEndpoint.UPLOAD, TransferPriority.NORMAL)));
+
+        long sum = totals[0] + totals[1];
+        long limit = DataSize.ofMegabytes(2).toBytes() * RUN_MILLIS / 1000;
+        // 突发额度 200ms，另留一个 chunk 的余量
+        assertTrue(sum <= limit + limit / 5 + 2L * CHUNK, "sent " + sum);
+        assertTrue(sum >= limit / 2, "sent " + sum);
+    }
+
+    @Test
+    @DisplayName("同级传输 - 差额轮询均分带宽")
+    void testSamePriority_SharesFairly() throws Exception {
+        BandwidthProperties properties = enabled();
+        properties.setGlobalPerSecond(DataSize.ofMegabytes(4));
+        // 突发额度会被最先启动的线程直接拿走，这里只看稳态分配
+        properties.setBurstMillis(0);
+        BandwidthScheduler scheduler = scheduler(properties);
+
+        long[] totals = saturate(List.of(
+                scheduler.open("a", TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL),
+                scheduler.open("b", TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL),
+                scheduler.open("c", TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL)));
+
+        long min = Math.min(totals[0], Math.min(totals[1], totals[2]));
+        long max = Math.max(totals[0], Math.max(totals[1], totals[2]));
+        assertTrue(max <= min * 3 / 2, "a=" + totals[0] + " b=" + totals[1] + " c=" + totals[2]);
+    }
+
+    @Test
+    @DisplayName("优先级 - 固件下载先于日志上传")
+    void testPriority_HighBeforeLow() throws Exception {
+        BandwidthProperties properties = enabled();
+        properties.setGlobalPerSecond(DataSize.ofMegabytes(4));
+        BandwidthScheduler scheduler = scheduler(properties);
+
+        long[] totals = saturate(List.of(
+                scheduler.open("firmware", TransferEndpoint.DOWNLOAD, TransferPriority.HIGH),
+                scheduler.open("logs", TransferEndpoint.UPLOAD, TransferPriority.LOW)));
+
+        assertTrue(totals[0] > totals[1] * 3, "high=" + totals[0] + " low=" + totals[1]);
+        assertTrue(scheduler.getGrantedBytes(TransferPriority.HIGH) > scheduler.getGrantedBytes(TransferPriority.LOW));
+    }
+
+    @Test
+    @DisplayName("客户端限速 - 只限制该客户端，不影响其他客户端")
+    void testClientCap_OnlyLimitsThatClient() throws Exception {
+        BandwidthProperties properties = enabled();
+        properties.setGlobalPerSecond(DataSize.ofMegabytes(8));
+        properties.setClientPerSecond(DataSize.ofMegabytes(1));
+        BandwidthScheduler scheduler = scheduler(properties);
+
+        BandwidthScheduler.Flow first = scheduler.open("same", TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL);
+        BandwidthScheduler.Flow second = scheduler.open("same", TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL);
+        BandwidthScheduler.Flow other = scheduler.open("other", TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL);
+        long[] totals = saturate(List.of(first, second, other));
+
+        long clientLimit = DataSize.ofMegabytes(1).toBytes() * RUN_MILLIS / 1000;
+        assertTrue(totals[0] + totals[1] <= clientLimit + clientLimit / 5 + 2L * CHUNK,
+                "same client sent " + (totals[0] + totals[1]));
+        // 另一个客户端按自己的额度走，不被同一客户端的两个传输挤占
+        assertTrue(totals[2] * 3 >= (totals[0] + totals[1]) * 2, "other client sent " + totals[2]);
+    }
+
+    @Test
+    @DisplayName("接口限速 - 上传受限时下载不受影响")
+    void testEndpointCap() throws Exception {
+        BandwidthProperties properties = enabled();
+        properties.setUploadPerSecond(DataSize.ofMegabytes(1));
+        BandwidthScheduler scheduler = scheduler(properties);
+
+        long[] totals = saturate(List.of(
+                scheduler.open("a", TransferEndpoint.UPLOAD, TransferPriority.NORMAL),
+                scheduler.open("b", TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL)));
+
+        long uploadLimit = DataSize.ofMegabytes(1).toBytes() * RUN_MILLIS / 1000;
+        assertTrue(totals[0] <= uploadLimit + uploadLimit / 5 + 2L * CHUNK, "upload sent " + totals[0]);
+        assertTrue(totals[1] > totals[0] * 10, "download sent " + totals[1]);
+    }
+
+    @Test
+    @DisplayName("关闭排队中的传输 - 移出队列")
+    void testClose_RemovesWaitingFlow() {
+        BandwidthProperties properties = enabled();
+        properties.setGlobalPerSecond(DataSize.ofKilobytes(64));
+        BandwidthScheduler scheduler = scheduler(properties);
+        BandwidthScheduler.Flow flow = scheduler.open("a", TransferEndpoint.DOWNLOAD, TransferPriority.NORMAL);
+
+        assertEquals(CHUNK, flow.acquire(CHUNK, () -> {
+        }));
+        assertEquals(0, flow.acquire(CHUNK, () -> {
+        }));
+        assertEquals(1, scheduler.getWaitingCount());
+
+        flow.close();
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+    @Test
+    @DisplayName("优先级规则 - 按路径前缀和分类匹配")
+    void testPriorityRules() {
+        BandwidthProperties properties = enabled();
+        BandwidthProperties.PriorityRule firmware = new BandwidthProperties.PriorityRule();
+        firmware.setEndpoint(TransferEndpoint.DOWNLOAD);
+        firmware.setPathPrefix("firmware/");
+        firmware.setPriority(TransferPriority.HIGH);
+        BandwidthProperties.PriorityRule logs = new BandwidthProperties.PriorityRule();
+        logs.setEndpoint(TransferEndpoint.UPLOAD);
+        logs.setCategory("logs");
+        logs.setPriority(TransferPriority.LOW);
+        properties.setPriorityRules(List.of(firmware, logs));
+        BandwidthScheduler scheduler = scheduler(properties);
+
+        assertEquals(TransferPriority.HIGH, scheduler.priorityOf(TransferEndpoint.DOWNLOAD, "firmware/v2.bin", null));
+        assertEquals(TransferPriority.NORMAL, scheduler.priorityOf(TransferEndpoint.UPLOAD, "firmware/v2.bin", null));
+        assertEquals(TransferPriority.LOW, scheduler.priorityOf(TransferEndpoint.UPLOAD, "app.log.gz", "logs"));
+        assertEquals(TransferPriority.NORMAL, scheduler.priorityOf(TransferEndpoint.DOWNLOAD, "app.log.gz", "logs"));
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.transfer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上传写盘循环和下载发送循环都经过带宽调度
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "harmony.bandwidth.enabled=true",
+        "harmony.bandwidth.burst-millis=0",
+        "harmony.bandwidth.download-per-second=1MB",
+        "harmony.bandwidth.upload-per-second=1MB",
+        "harmony.rate-limit.enabled=false"
+})
+@DisplayName("上传下载带宽调度测试")
+class TransferShapingTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirs(DynamicPropertyRegistry registry) {
+        registry.add("harmony.columnar.dir", () -> dataDir.resolve("reports").toString());
+        registry.add("harmony.access-log.dir", () -> dataDir.resolve("access-log").toString());
+    }
+
+    private static final int SIZE = 1024 * 1024;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BandwidthScheduler scheduler;
+
+    private final Path file = Paths.get("uploads", "shaped.bin");
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("下载 - 按接口限速发送，内容完整")
+    void testDownload_Shaped() throws Exception {
+        byte[] content = new byte[SIZE];
+        ThreadLocalRandom.current().nextBytes(content);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+
+        long start = System.nanoTime();
+        ResponseEntity<byte[]> response = restTemplate.getForEntity("/api/file/download/shaped.bin", byte[].class);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(content, response.getBody());
+        assertTrue(elapsedMillis >= 800, "took " + elapsedMillis + "ms");
+        assertTrue(scheduler.getGrantedBytes(TransferPriority.NORMAL) >= SIZE);
+    }
+
+    @Test
+    @DisplayName("上传 - 写盘按接口限速，内容完整")
+    void testUpload_Shaped() throws Exception {
+        byte[] content = new byte[SIZE];
+        ThreadLocalRandom.current().nextBytes(content);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return "shaped.bin";
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        long start = System.nanoTime();
+        ResponseEntity<Map> response = restTemplate.postForEntity("/api/file/upload",
+                new HttpEntity<>(body, headers), Map.class);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(content, Files.readAllBytes(file));
+        assertTrue(elapsedMillis >= 800, "took " + elapsedMillis + "ms");
+    }
+}